@@ -1,6 +1,8 @@
 package com.preclinical.platform.preclinicaldataplatform.configuration;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import org.springframework.context.annotation.Bean;
@@ -25,14 +27,72 @@ public class AsyncConfig {
     }
     
     @Bean(name = "saeAlertExecutor") 
-    public Executor saeAlertExecutor() {
-        // Dedicated executor for critical SAE alerts
+    public Executor saeAlertExecutor(PreclinicalPlatformProperties properties) {
+        // Runs the SaeAlertQueue workers only; alerts wait in that queue, ordered by deadline, not in this one
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(2);
-        executor.setMaxPoolSize(5);
-        executor.setQueueCapacity(50);
+        executor.setCorePoolSize(properties.getAdverseEvent().getSaeQueueWorkers());
+        executor.setMaxPoolSize(properties.getAdverseEvent().getSaeQueueWorkers());
+        executor.setQueueCapacity(0);
         executor.setThreadNamePrefix("SAE-Alert-");
         executor.initialize();
         return executor;
     }
+    
+    @Bean(name = "datasetImportExecutor")
+    public Executor datasetImportExecutor(PreclinicalPlatformProperties properties) {
+        // Imports run for minutes; keeping them off preclinicalTaskExecutor leaves that pool to short tasks
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getImports().getMaxConcurrentJobs());
+        executor.setMaxPoolSize(properties.getImports().getMaxConcurrentJobs());
+        executor.setQueueCapacity(20);
+        executor.setThreadNamePrefix("DatasetImport-");
+        executor.initialize();
+        return executor;
+    }
+    
+    @Bean(name = "cacheWarmingExecutor")
+    public Executor cacheWarmingExecutor(PreclinicalPlatformProperties properties) {
+        // Pool size bounds how many studies are recomputed at once; the queue holds one task per active study
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getCache().getWarmingParallelism());
+        executor.setMaxPoolSize(properties.getCache().getWarmingParallelism());
+        executor.setThreadNamePrefix("CacheWarming-");
+        executor.initialize();
+        return executor;
+    }
+    
+    @Bean(name = "auditJournalExecutor")
+    public Executor auditJournalExecutor() {
+        // The journal's single writer thread; appends wait in the journal's own queue
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("AuditJournal-");
+        executor.initialize();
+        return executor;
+    }
+    
+    @Bean(name = "crossStudyAnalysisPool", destroyMethod = "shutdown")
+    public ForkJoinPool crossStudyAnalysisPool(PreclinicalPlatformProperties properties) {
+        // Own pool for per-study analysis work so portfolio queries cannot starve request threads
+        // or the common pool; its parallelism caps how many studies are analyzed at once
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("CrossStudy-" + thread.getPoolIndex());
+            return thread;
+        };
+        return new ForkJoinPool(properties.getAnalysis().getCrossStudyParallelism(), threadFactory, null, false);
+    }
+    
+    @Bean(name = "auditVerificationPool", destroyMethod = "shutdown")
+    public ForkJoinPool auditVerificationPool(PreclinicalPlatformProperties properties) {
+        // Segments are hashed independently; a full verification is CPU bound, so one thread per core by default
+        ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("AuditVerify-" + thread.getPoolIndex());
+            return thread;
+        };
+        return new ForkJoinPool(properties.getAudit().getVerificationParallelism(), threadFactory, null, false);
+    }
 }
@@ -1,32 +1,114 @@
 package com.preclinical.platform.preclinicaldataplatform.configuration;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.CacheManager;
-import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.preclinical.platform.preclinicaldataplatform.dto.AnalysisReport;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded Caffeine caches, one per cache name, sized and expired as set in
+ * {@code preclinical.platform.cache}. Statistics are recorded so Spring
+ * Boot's cache metrics ({@code cache.gets}, {@code cache.evictions},
+ * {@code cache.size}) are published through the actuator.
+ *
+ * <p>The prod profile puts a {@link TwoTierCacheManager} in front of a
+ * {@link RemoteCacheStore} instead, so nodes share computed reports and
+ * invalidate each other's local copies. The store is not provided here; the
+ * deployment should define one. Without it prod still starts, on local caches
+ * only, and logs an error at startup.
+ */
 @Configuration
 @Profile("!test")
+@Slf4j
 public class CacheConfig {
-    
+
     @Bean
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(
-            "studies", 
-            "patients", 
-            "studyStatistics", 
-            "safetyReports",
-            "efficacyAnalysis"
-        );
-        return cacheManager;
+    @Primary
+    @Profile("!prod")
+    public CacheManager cacheManager(PreclinicalPlatformProperties properties) {
+        return caffeineCacheManager(properties.getCache(), null);
     }
-    
+
+    /**
+     * Without a shared store each node only hears its own invalidations, so
+     * entries changed on another node stay stale until they expire. The
+     * fallback caps every entry at {@code local-expire-after-write}, the bound
+     * the two-tier local tier already accepts.
+     */
     @Bean
+    @Primary
     @Profile("prod")
-    public CacheManager redisCacheManager() {
-        // Redis cache configuration for production
-        // Implementation would configure Redis connection
-        return new ConcurrentMapCacheManager(); // Placeholder
+    public CacheManager twoTierCacheManager(ObjectProvider<RemoteCacheStore> remoteCacheStore,
+                                           PreclinicalPlatformProperties properties,
+                                           MeterRegistry meterRegistry) {
+        RemoteCacheStore remote = remoteCacheStore.getIfAvailable();
+        if (remote == null) {
+            log.error("No RemoteCacheStore bean is defined; caching is node-local and entries updated on other nodes "
+                    + "may be served stale for up to {}. Define a RemoteCacheStore shared by all nodes.",
+                    properties.getCache().getLocalExpireAfterWrite());
+            return caffeineCacheManager(properties.getCache(), properties.getCache().getLocalExpireAfterWrite());
+        }
+        return new TwoTierCacheManager(remote, properties.getCache(), meterRegistry);
+    }
+
+    private static CaffeineCacheManager caffeineCacheManager(PreclinicalPlatformProperties.Cache cache,
+                                                             Duration maxExpireAfterWrite) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCaffeine(builder(cache.getDefaults(), maxExpireAfterWrite));
+        cache.getSpecs().forEach((name, spec) ->
+                cacheManager.registerCustomCache(name, builder(spec, maxExpireAfterWrite).build()));
+        return cacheManager;
+    }
+
+    // maxExpireAfterWrite, if set, caps the spec's write expiry
+    static Caffeine<Object, Object> builder(PreclinicalPlatformProperties.CacheSpec spec, Duration maxExpireAfterWrite) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        if (spec.getMaximumWeight() != null) {
+            builder.maximumWeight(spec.getMaximumWeight()).weigher(CacheConfig::weigh);
+        } else if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        Duration expireAfterWrite = spec.getExpireAfterWrite();
+        if (maxExpireAfterWrite != null && (expireAfterWrite == null || expireAfterWrite.compareTo(maxExpireAfterWrite) > 0)) {
+            expireAfterWrite = maxExpireAfterWrite;
+        }
+        if (expireAfterWrite != null) {
+            builder.expireAfterWrite(expireAfterWrite);
+        }
+        if (spec.getExpireAfterAccess() != null) {
+            builder.expireAfterAccess(spec.getExpireAfterAccess());
+        }
+        if (spec.isRecordStats()) {
+            builder.recordStats();
+        }
+        return builder;
+    }
+
+    // Element counts stand in for memory size; reports weigh one per result entry and insight
+    private static int weigh(Object key, Object value) {
+        if (value instanceof AnalysisReport report) {
+            return 1 + (report.getResults() != null ? report.getResults().size() : 0)
+                    + (report.getInsights() != null ? report.getInsights().size() : 0);
+        }
+        if (value instanceof Collection<?> collection) {
+            return Math.max(1, collection.size());
+        }
+        if (value instanceof Map<?, ?> map) {
+            return Math.max(1, map.size());
+        }
+        return 1;
     }
 }
@@ -0,0 +1,26 @@
+package com.preclinical.platform.preclinicaldataplatform.configuration;
+
+/**
+ * Tells the other nodes to drop entries of one cache from their local tier.
+ * {@code key} is set for {@link Scope#KEY}, {@code keyPrefix} for
+ * {@link Scope#PREFIX}; {@code origin} identifies the sending node so it can
+ * ignore its own messages.
+ */
+public record CacheInvalidation(String origin, String cacheName, Scope scope, Object key, String keyPrefix) {
+
+    public enum Scope {
+        KEY, PREFIX, ALL
+    }
+
+    public static CacheInvalidation forKey(String origin, String cacheName, Object key) {
+        return new CacheInvalidation(origin, cacheName, Scope.KEY, key, null);
+    }
+
+    public static CacheInvalidation forPrefix(String origin, String cacheName, String keyPrefix) {
+        return new CacheInvalidation(origin, cacheName, Scope.PREFIX, null, keyPrefix);
+    }
+
+    public static CacheInvalidation forAll(String origin, String cacheName) {
+        return new CacheInvalidation(origin, cacheName, Scope.ALL, null, null);
+    }
+}
@@ -0,0 +1,95 @@
+package com.preclinical.platform.preclinicaldataplatform.configuration;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * {@link RemoteCacheStore} held in this JVM. Several {@link TwoTierCacheManager}s
+ * sharing one instance behave like nodes sharing a remote store, which is
+ * how tests exercise the two tiers. Invalidations are delivered
+ * synchronously on the publishing thread. Expired entries are dropped when
+ * they are read.
+ */
+@Slf4j
+public class InProcessRemoteCacheStore implements RemoteCacheStore {
+
+    private final Map<String, Map<Object, Entry>> caches = new ConcurrentHashMap<>();
+    private final List<Consumer<CacheInvalidation>> subscribers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Object get(String cacheName, Object key) {
+        Map<Object, Entry> cache = caches.get(cacheName);
+        if (cache == null) {
+            return null;
+        }
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            cache.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    public void put(String cacheName, Object key, Object value, Duration ttl) {
+        long expiresAt = ttl != null ? System.nanoTime() + ttl.toNanos() : Long.MAX_VALUE;
+        caches.computeIfAbsent(cacheName, name -> new ConcurrentHashMap<>()).put(key, new Entry(value, expiresAt));
+    }
+
+    @Override
+    public void evict(String cacheName, Object key) {
+        Map<Object, Entry> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.remove(key);
+        }
+    }
+
+    @Override
+    public void evictByPrefix(String cacheName, String prefix) {
+        Map<Object, Entry> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.keySet().removeIf(key -> key.toString().startsWith(prefix));
+        }
+    }
+
+    @Override
+    public void clear(String cacheName) {
+        Map<Object, Entry> cache = caches.get(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        for (Consumer<CacheInvalidation> subscriber : subscribers) {
+            try {
+                subscriber.accept(invalidation);
+            } catch (RuntimeException e) {
+                // One failing node must not keep the others from invalidating
+                log.warn("Cache invalidation subscriber failed for {}", invalidation, e);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    private record Entry(Object value, long expiresAt) {
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+    }
+}
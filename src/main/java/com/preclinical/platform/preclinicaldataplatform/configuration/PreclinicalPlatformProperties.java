@@ -1,7 +1,10 @@
 package com.preclinical.platform.preclinicaldataplatform.configuration;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -17,6 +20,12 @@ public class PreclinicalPlatformProperties {
     private Patient patient = new Patient();
     private AdverseEvent adverseEvent = new AdverseEvent();
     private Email email = new Email();
+    private Analysis analysis = new Analysis();
+    private Measurement measurement = new Measurement();
+    private Imports imports = new Imports();
+    private Cache cache = new Cache();
+    private Outbox outbox = new Outbox();
+    private Audit audit = new Audit();
     
     @Data
     public static class Study {
@@ -39,6 +48,11 @@ public class PreclinicalPlatformProperties {
         private boolean autoReportSeriousEvents = true;
         private int saeReportingTimeframe = 24; // hours
         private List<String> saeNotificationEmails = new ArrayList<>();
+        private int bulkMaxRows = 5000;
+        private int bulkBatchSize = 250; // rows per transaction; serious events alert once per study and batch
+        private int saeQueueWorkers = 2;
+        private int saeQueueMemoryCapacity = 1000; // alerts held in memory; later deadlines spill to disk
+        private String saeQueueSpillDirectory = System.getProperty("java.io.tmpdir") + "/preclinical-sae-queue";
     }
     
     @Data
@@ -48,4 +62,86 @@ public class PreclinicalPlatformProperties {
         private String regulatoryTeamEmail = "regulatory@company.com";
         private String safetyTeamEmail = "safety@company.com";
     }
+    
+    @Data
+    public static class Analysis {
+        private int crossStudyParallelism = 4; // concurrent per-study tasks
+        private int crossStudyTimeoutSeconds = 60;
+    }
+    
+    @Data
+    public static class Measurement {
+        private int bulkMaxRows = 10000;
+        private int bulkBatchSize = 500; // rows per transaction, flushed in JDBC batches
+    }
+    
+    @Data
+    public static class Imports {
+        private String workDirectory = System.getProperty("java.io.tmpdir") + "/preclinical-imports";
+        private int chunkSize = 1000; // rows per transaction; also the restart granularity
+        private int maxConcurrentJobs = 2;
+        private long progressLogRows = 100000;
+    }
+    
+    @Data
+    public static class Cache {
+        // Used for caches without their own spec
+        private CacheSpec defaults = CacheSpec.of(1000L, null, Duration.ofMinutes(10), null);
+        private Map<String, CacheSpec> specs = new LinkedHashMap<>(Map.of(
+                "studies", CacheSpec.of(1000L, null, Duration.ofMinutes(30), null),
+                "patients", CacheSpec.of(10000L, null, null, Duration.ofMinutes(15)),
+                "studyStatistics", CacheSpec.of(1000L, null, Duration.ofMinutes(5), null),
+                "safetyReports", CacheSpec.of(500L, null, Duration.ofMinutes(10), null),
+                "efficacyAnalysis", CacheSpec.of(null, 50000L, Duration.ofMinutes(10), null)));
+        // Kept below the studyStatistics TTL so warmed entries are refreshed before they expire
+        private Duration warmingInterval = Duration.ofMinutes(4);
+        private int warmingParallelism = 4; // studies computed at once
+        private int warmingTimeoutSeconds = 300;
+        // Prod only: longest a node serves its local copy if an invalidation from another node is lost
+        private Duration localExpireAfterWrite = Duration.ofMinutes(1);
+    }
+    
+    // Set either maximumSize (entries) or maximumWeight (result elements, see CacheConfig)
+    @Data
+    public static class Outbox {
+        private Duration pollInterval = Duration.ofMillis(500);
+        private int batchSize = 500; // rows claimed per poll
+        private Duration leaseDuration = Duration.ofMinutes(1); // claim is taken over by another relay after this
+        private Duration settleWindow = Duration.ofSeconds(5); // rows younger than this are not claimed yet
+        private int maxAttempts = 10; // then the row is marked FAILED
+        private Duration retryBackoff = Duration.ofSeconds(5); // doubled per attempt
+        private Duration maxRetryBackoff = Duration.ofMinutes(10);
+        private Duration retention = Duration.ofDays(30); // delivered rows kept for replay
+    }
+    
+    @Data
+    public static class Audit {
+        private String journalDirectory; // required; locked by the running journal
+        private String anchorFile; // required; latest checkpoint hash, kept outside the journal directory
+        private long segmentMaxBytes = 64L * 1024 * 1024; // rotated once a batch takes a segment past this
+        private int groupCommitMaxRecords = 1000; // records written with one fsync
+        private int queueCapacity = 10000; // appenders wait once the writer is this far behind
+        private boolean fsync = true;
+        private int checkpointInterval = 10000; // records per Merkle checkpoint within a segment
+        private int verificationParallelism = Runtime.getRuntime().availableProcessors(); // segments verified at once
+    }
+    
+    @Data
+    public static class CacheSpec {
+        private Long maximumSize;
+        private Long maximumWeight;
+        private Duration expireAfterWrite;
+        private Duration expireAfterAccess;
+        private boolean recordStats = true;
+        
+        static CacheSpec of(Long maximumSize, Long maximumWeight, Duration expireAfterWrite,
+                            Duration expireAfterAccess) {
+            CacheSpec spec = new CacheSpec();
+            spec.setMaximumSize(maximumSize);
+            spec.setMaximumWeight(maximumWeight);
+            spec.setExpireAfterWrite(expireAfterWrite);
+            spec.setExpireAfterAccess(expireAfterAccess);
+            return spec;
+        }
+    }
 }
@@ -3,7 +3,12 @@ package com.preclinical.platform.preclinicaldataplatform.configuration;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditVerificationReport;
+import com.preclinical.platform.preclinicaldataplatform.excception.AuditVerificationInProgressException;
+import com.preclinical.platform.preclinicaldataplatform.service.AuditService;
 import com.preclinical.platform.preclinicaldataplatform.service.DataAnalysisService;
+import com.preclinical.platform.preclinicaldataplatform.service.OutboxRelay;
+import com.preclinical.platform.preclinicaldataplatform.service.StudyCacheWarmer;
 import com.preclinical.platform.preclinicaldataplatform.service.StudyManagementService;
 
 import lombok.extern.slf4j.Slf4j;
@@ -18,11 +23,20 @@ public class PreclinicalScheduledTasks {
     
     private final StudyManagementService studyService;
     private final DataAnalysisService analysisService;
+    private final StudyCacheWarmer studyCacheWarmer;
+    private final OutboxRelay outboxRelay;
+    private final AuditService auditService;
     
     public PreclinicalScheduledTasks(StudyManagementService studyService,
-                                   DataAnalysisService analysisService) {
+                                   DataAnalysisService analysisService,
+                                   StudyCacheWarmer studyCacheWarmer,
+                                   OutboxRelay outboxRelay,
+                                   AuditService auditService) {
         this.studyService = studyService;
         this.analysisService = analysisService;
+        this.studyCacheWarmer = studyCacheWarmer;
+        this.outboxRelay = outboxRelay;
+        this.auditService = auditService;
     }
     
     @Scheduled(cron = "0 0 9 * * MON") // Every Monday at 9 AM
@@ -58,14 +72,75 @@ public class PreclinicalScheduledTasks {
         }
     }
     
-    @Scheduled(fixedDelay = 3600000) // Every hour after completion
+    @Scheduled(fixedDelayString = "${preclinical.platform.cache.warming-interval:PT4M}",
+               initialDelayString = "${preclinical.platform.cache.warming-interval:PT4M}")
     public void updateStudyStatisticsCache() {
         log.debug("Updating study statistics cache...");
         try {
-            // Implementation to refresh cached statistics
-            log.debug("Study statistics cache updated successfully");
+            StudyCacheWarmer.WarmingResult result = studyCacheWarmer.warmActiveStudies();
+            log.debug("Study statistics cache updated successfully: {} computed, {} unchanged, {} failed",
+                    result.computed(), result.reused(), result.failed());
         } catch (Exception e) {
             log.error("Error updating study statistics cache", e);
         }
     }
+    
+    @Scheduled(fixedDelayString = "${preclinical.platform.outbox.poll-interval:PT0.5S}")
+    public void relayOutboxEvents() {
+        try {
+            int delivered = outboxRelay.relayPending();
+            if (delivered > 0) {
+                log.debug("Relayed {} outbox events", delivered);
+            }
+        } catch (Exception e) {
+            log.error("Error relaying outbox events", e);
+        }
+    }
+    
+    @Scheduled(fixedRate = 20000) // Every 20 seconds, well within the outbox claim lease
+    public void renewQueuedSaeAlertClaims() {
+        try {
+            outboxRelay.renewQueuedClaims();
+        } catch (Exception e) {
+            log.error("Error renewing claims of queued SAE alerts", e);
+        }
+    }
+    
+    @Scheduled(fixedRate = 30000) // Every 30 seconds
+    public void updateOutboxMetrics() {
+        try {
+            outboxRelay.refreshBacklogMetrics();
+        } catch (Exception e) {
+            log.error("Error updating outbox metrics", e);
+        }
+    }
+    
+    @Scheduled(cron = "0 30 2 * * *") // Every day at 2:30 AM
+    public void purgeDeliveredOutboxEvents() {
+        log.info("Purging delivered outbox events...");
+        try {
+            int purged = outboxRelay.purgeDelivered();
+            log.info("Purged {} delivered outbox events", purged);
+        } catch (Exception e) {
+            log.error("Error purging delivered outbox events", e);
+        }
+    }
+    
+    @Scheduled(cron = "0 0 3 * * *") // Every day at 3 AM
+    public void verifyAuditTrail() {
+        log.info("Verifying audit trail...");
+        try {
+            AuditVerificationReport report = auditService.verifyIntegrity(AuditVerificationReport.Mode.INCREMENTAL);
+            if (report.isValid()) {
+                log.info("Audit trail verified up to sequence {}, checkpoint {}", report.getLastVerifiedSequence(),
+                        report.getLatestCheckpointHash());
+            } else {
+                log.error("Audit trail verification failed: {}", report.getFailures());
+            }
+        } catch (AuditVerificationInProgressException e) {
+            log.info("Skipping audit trail verification: {}", e.getMessage());
+        } catch (Exception e) {
+            log.error("Error verifying audit trail", e);
+        }
+    }
 }
@@ -0,0 +1,36 @@
+package com.preclinical.platform.preclinicaldataplatform.configuration;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+
+/**
+ * The shared second tier of {@link TwoTierCache}: a key-value store every
+ * node reads and writes, plus a broadcast channel for invalidations. A
+ * networked implementation (Redis, Hazelcast, ...) serializes values and
+ * maps {@link #evictByPrefix} to a key scan; {@link InProcessRemoteCacheStore}
+ * keeps everything in memory for tests and single-node runs.
+ *
+ * <p>Keys are the cache keys as produced by the {@code @Cacheable}
+ * expressions; implementations must not rely on their type beyond
+ * {@code equals}, {@code hashCode} and {@code toString}.
+ */
+public interface RemoteCacheStore {
+
+    // The stored value, or null if absent or expired
+    Object get(String cacheName, Object key);
+
+    // A null ttl keeps the entry until it is evicted
+    void put(String cacheName, Object key, Object value, Duration ttl);
+
+    void evict(String cacheName, Object key);
+
+    // Removes every key whose string form starts with the prefix
+    void evictByPrefix(String cacheName, String prefix);
+
+    void clear(String cacheName);
+
+    // Delivered to every subscriber on every node, including the sender
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> subscriber);
+}
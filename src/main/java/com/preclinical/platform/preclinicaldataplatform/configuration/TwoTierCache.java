@@ -0,0 +1,122 @@
+package com.preclinical.platform.preclinicaldataplatform.configuration;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+/**
+ * A bounded local Caffeine tier (L1) in front of a {@link RemoteCacheStore}
+ * shared by all nodes (L2). Reads try L1, then L2, and keep what L2 returned
+ * in L1. Writes and evictions go to both tiers and are broadcast so the
+ * other nodes drop their L1 copy and read the new value from L2.
+ *
+ * <p>L2 is updated before L1 is invalidated, so a concurrent local miss
+ * cannot refill L1 from the value being replaced. If an invalidation is
+ * lost, the L1 expiry bounds how long a node serves the old value.
+ */
+public class TwoTierCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final RemoteCacheStore remote;
+    private final Duration remoteTtl;
+    private final String nodeId;
+
+    TwoTierCache(String name, Cache<Object, Object> local, RemoteCacheStore remote, Duration remoteTtl,
+                 String nodeId) {
+        super(true);
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.remoteTtl = remoteTtl;
+        this.nodeId = nodeId;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    // The local tier; its statistics describe this node's hit rate
+    @Override
+    public Cache<Object, Object> getNativeCache() {
+        return local;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value == null) {
+            value = remote.get(name, key);
+            if (value != null) {
+                local.put(key, value);
+            }
+        }
+        return value;
+    }
+
+    // Concurrent misses on this node share one load; other nodes may load the same key at the same time
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) fromStoreValue(local.get(key, k -> {
+            Object stored = remote.get(name, k);
+            if (stored != null) {
+                return stored;
+            }
+            Object loaded;
+            try {
+                loaded = toStoreValue(valueLoader.call());
+            } catch (Exception e) {
+                throw new ValueRetrievalException(k, valueLoader, e);
+            }
+            remote.put(name, k, loaded, remoteTtl);
+            return loaded;
+        }));
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object stored = toStoreValue(value);
+        remote.put(name, key, stored, remoteTtl);
+        local.put(key, stored);
+        remote.publish(CacheInvalidation.forKey(nodeId, name, key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(name, key);
+        local.invalidate(key);
+        remote.publish(CacheInvalidation.forKey(nodeId, name, key));
+    }
+
+    // Removes every entry whose key starts with the prefix, on all nodes
+    public void evictByPrefix(String prefix) {
+        remote.evictByPrefix(name, prefix);
+        evictLocalByPrefix(prefix);
+        remote.publish(CacheInvalidation.forPrefix(nodeId, name, prefix));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear(name);
+        local.invalidateAll();
+        remote.publish(CacheInvalidation.forAll(nodeId, name));
+    }
+
+    // Applies another node's invalidation to this node's L1 only; L2 was already updated by the sender
+    void invalidateLocal(CacheInvalidation invalidation) {
+        switch (invalidation.scope()) {
+            case KEY -> local.invalidate(invalidation.key());
+            case PREFIX -> evictLocalByPrefix(invalidation.keyPrefix());
+            case ALL -> local.invalidateAll();
+        }
+    }
+
+    private void evictLocalByPrefix(String prefix) {
+        local.asMap().keySet().removeIf(key -> key.toString().startsWith(prefix));
+    }
+}
@@ -0,0 +1,76 @@
+package com.preclinical.platform.preclinicaldataplatform.configuration;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Creates a {@link TwoTierCache} per cache name, sized and expired from
+ * {@code preclinical.platform.cache}. Caches with a spec are created up front,
+ * others on first use. The local tier never keeps an entry longer than
+ * {@code local-expire-after-write}; the remote tier keeps it for the cache's
+ * own TTL. Each manager is one node: it has its own id and applies the
+ * invalidations other nodes publish to its local tiers.
+ *
+ * <p>Spring Boot only binds cache metrics for {@code CaffeineCache}, so the
+ * manager binds {@link CaffeineCacheMetrics} on each local tier itself, with
+ * the same {@code cache} and {@code cache.manager} tags.
+ */
+public class TwoTierCacheManager implements CacheManager {
+
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+    private final RemoteCacheStore remote;
+    private final PreclinicalPlatformProperties.Cache properties;
+    private final MeterRegistry meterRegistry;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public TwoTierCacheManager(RemoteCacheStore remote, PreclinicalPlatformProperties.Cache properties,
+                               MeterRegistry meterRegistry) {
+        this.remote = remote;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        remote.subscribe(this::onInvalidation);
+        properties.getSpecs().keySet().forEach(this::getCache);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private TwoTierCache createCache(String name) {
+        PreclinicalPlatformProperties.CacheSpec spec = properties.getSpecs().getOrDefault(name, properties.getDefaults());
+        // Access-expired caches have no fixed lifetime; the remote tier holds their entries for the idle time
+        Duration remoteTtl = spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite() : spec.getExpireAfterAccess();
+        TwoTierCache cache = new TwoTierCache(name, CacheConfig.builder(spec, properties.getLocalExpireAfterWrite()).build(),
+                remote, remoteTtl, nodeId);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.getNativeCache(), name,
+                Tags.of("cache.manager", "twoTierCacheManager"));
+        return cache;
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.origin())) {
+            return;
+        }
+        TwoTierCache cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            cache.invalidateLocal(invalidation);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.preclinical.platform.preclinicaldataplatform.controller;
 
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.http.ResponseEntity;
@@ -15,12 +16,20 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.preclinical.platform.preclinicaldataplatform.dto.AnalysisReport;
+import com.preclinical.platform.preclinicaldataplatform.dto.CrossStudyAnalysisReport;
 import com.preclinical.platform.preclinicaldataplatform.dto.EfficacyAnalysisRequest;
+import com.preclinical.platform.preclinicaldataplatform.dto.SafetyAggregateConsistencyReport;
 import com.preclinical.platform.preclinicaldataplatform.dto.SafetyAnalysisReport;
 import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.service.CrossStudyAnalysisService;
 import com.preclinical.platform.preclinicaldataplatform.service.DataAnalysisService;
+import com.preclinical.platform.preclinicaldataplatform.service.EnrollmentBucketService;
+import com.preclinical.platform.preclinicaldataplatform.service.SafetyAggregateService;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
@@ -30,9 +39,18 @@ import lombok.extern.slf4j.Slf4j;
 public class AnalysisController {
     
     private final DataAnalysisService dataAnalysisService;
+    private final SafetyAggregateService safetyAggregateService;
+    private final CrossStudyAnalysisService crossStudyAnalysisService;
+    private final EnrollmentBucketService enrollmentBucketService;
     
-    public AnalysisController(DataAnalysisService dataAnalysisService) {
+    public AnalysisController(DataAnalysisService dataAnalysisService,
+                            SafetyAggregateService safetyAggregateService,
+                            CrossStudyAnalysisService crossStudyAnalysisService,
+                            EnrollmentBucketService enrollmentBucketService) {
         this.dataAnalysisService = dataAnalysisService;
+        this.safetyAggregateService = safetyAggregateService;
+        this.crossStudyAnalysisService = crossStudyAnalysisService;
+        this.enrollmentBucketService = enrollmentBucketService;
     }
     
     @GetMapping("/study/{studyId}/safety")
@@ -41,18 +59,78 @@ public class AnalysisController {
         return ResponseEntity.ok(report);
     }
     
+    @PostMapping("/study/{studyId}/safety/aggregate/rebuild")
+    public ResponseEntity<SafetyAggregateConsistencyReport> rebuildSafetyAggregate(@PathVariable Long studyId) {
+        safetyAggregateService.rebuild(studyId);
+        return ResponseEntity.ok(safetyAggregateService.checkConsistency(studyId));
+    }
+    
+    @PostMapping("/safety/aggregates/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildAllSafetyAggregates() {
+        int rebuilt = safetyAggregateService.rebuildAll();
+        return ResponseEntity.ok(Map.of("rebuiltStudies", rebuilt));
+    }
+    
+    @GetMapping("/study/{studyId}/safety/aggregate/consistency")
+    public ResponseEntity<SafetyAggregateConsistencyReport> checkSafetyAggregate(@PathVariable Long studyId) {
+        return ResponseEntity.ok(safetyAggregateService.checkConsistency(studyId));
+    }
+    
     @PostMapping("/efficacy")
     public ResponseEntity<AnalysisReport> analyzeEfficacy(@Valid @RequestBody EfficacyAnalysisRequest request) {
         AnalysisReport report = dataAnalysisService.analyzeEfficacy(request);
         return ResponseEntity.ok(report);
     }
     
+    @GetMapping("/study/{studyId}/distribution")
+    public ResponseEntity<Map<String, Object>> getMeasurementDistribution(
+            @PathVariable Long studyId,
+            @RequestParam EfficacyMeasurement.MeasurementType type,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int bins) {
+        Map<String, Object> distribution = dataAnalysisService.getMeasurementDistribution(studyId, type, bins);
+        return ResponseEntity.ok(distribution);
+    }
+    
+    @GetMapping("/distribution")
+    public ResponseEntity<Map<String, Object>> getCombinedMeasurementDistribution(
+            @RequestParam List<Long> studyIds,
+            @RequestParam EfficacyMeasurement.MeasurementType type,
+            @RequestParam(defaultValue = "10") @Min(1) @Max(100) int bins) {
+        Map<String, Object> distribution = dataAnalysisService.getCombinedMeasurementDistribution(studyIds, type, bins);
+        return ResponseEntity.ok(distribution);
+    }
+    
+    @GetMapping("/portfolio/safety")
+    public ResponseEntity<CrossStudyAnalysisReport> getPortfolioSafetyAnalysis(
+            @RequestParam(required = false) Study.StudyPhase phase) {
+        return ResponseEntity.ok(crossStudyAnalysisService.analyzePortfolioSafety(phase));
+    }
+    
+    @GetMapping("/portfolio/efficacy")
+    public ResponseEntity<CrossStudyAnalysisReport> getPortfolioEfficacyAnalysis(
+            @RequestParam EfficacyMeasurement.MeasurementType type,
+            @RequestParam(required = false) Study.StudyPhase phase) {
+        return ResponseEntity.ok(crossStudyAnalysisService.analyzePortfolioEfficacy(type, phase));
+    }
+    
     @GetMapping("/study/{studyId}/enrollment-trends")
     public ResponseEntity<Map<String, Object>> getEnrollmentTrends(@PathVariable Long studyId) {
         Map<String, Object> trends = dataAnalysisService.getEnrollmentTrends(studyId);
         return ResponseEntity.ok(trends);
     }
     
+    @PostMapping("/study/{studyId}/enrollment-buckets/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildEnrollmentBuckets(@PathVariable Long studyId) {
+        long totalEnrolled = enrollmentBucketService.rebuild(studyId);
+        return ResponseEntity.ok(Map.of("studyId", studyId, "totalEnrolled", totalEnrolled));
+    }
+    
+    @PostMapping("/enrollment-buckets/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildAllEnrollmentBuckets() {
+        int rebuilt = enrollmentBucketService.rebuildAll();
+        return ResponseEntity.ok(Map.of("rebuiltStudies", rebuilt));
+    }
+    
     @GetMapping("/adverse-events/summary")
     public ResponseEntity<Map<String, Object>> getAdverseEventsSummary(
             @RequestParam(required = false) Long studyId,
@@ -65,8 +143,9 @@ public class AnalysisController {
     @GetMapping("/measurements/{patientId}/trend")
     public ResponseEntity<Map<String, Object>> getPatientMeasurementTrends(
             @PathVariable Long patientId,
-            @RequestParam EfficacyMeasurement.MeasurementType type) {
-        Map<String, Object> trends = dataAnalysisService.getPatientMeasurementTrends(patientId, type);
+            @RequestParam EfficacyMeasurement.MeasurementType type,
+            @RequestParam(required = false) @Min(3) @Max(10000) Integer maxPoints) {
+        Map<String, Object> trends = dataAnalysisService.getPatientMeasurementTrends(patientId, type, maxPoints);
         return ResponseEntity.ok(trends);
     }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditHistoryPage;
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditVerificationReport;
+import com.preclinical.platform.preclinicaldataplatform.service.AuditService;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+/**
+ * Audit history read back from the audit journal through its study and
+ * patient index, oldest first. Pages continue from the last sequence seen.
+ * Verification re-hashes the journal against its checkpoints; a failed
+ * check is reported in the body, not as an error status. A verification
+ * started while another one runs is answered with 409.
+ */
+@RestController
+@RequestMapping("/api/audit")
+@Validated
+public class AuditController {
+    
+    private final AuditService auditService;
+    
+    public AuditController(AuditService auditService) {
+        this.auditService = auditService;
+    }
+    
+    @GetMapping("/studies/{studyId}")
+    public ResponseEntity<AuditHistoryPage> getStudyHistory(
+            @PathVariable Long studyId,
+            @RequestParam(defaultValue = "0") @Min(0) long afterSequence,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int size) {
+        return ResponseEntity.ok(auditService.getStudyHistory(studyId, afterSequence, size));
+    }
+    
+    @GetMapping("/patients/{patientId}")
+    public ResponseEntity<AuditHistoryPage> getPatientHistory(
+            @PathVariable Long patientId,
+            @RequestParam(defaultValue = "0") @Min(0) long afterSequence,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int size) {
+        return ResponseEntity.ok(auditService.getPatientHistory(patientId, afterSequence, size));
+    }
+    
+    @PostMapping("/verify")
+    public ResponseEntity<AuditVerificationReport> verify(
+            @RequestParam(defaultValue = "INCREMENTAL") AuditVerificationReport.Mode mode) {
+        return ResponseEntity.ok(auditService.verifyIntegrity(mode));
+    }
+}
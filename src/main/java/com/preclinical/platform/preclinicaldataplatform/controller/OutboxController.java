@@ -0,0 +1,42 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.OutboxReplayResult;
+import com.preclinical.platform.preclinicaldataplatform.entity.OutboxEvent;
+import com.preclinical.platform.preclinicaldataplatform.service.OutboxRelay;
+
+/**
+ * Operational view of the domain event outbox: undelivered and failed events
+ * by type, and replay of a study's delivered events to one handler. Replay
+ * has to be sent to the node that relays the outbox; other nodes answer 409.
+ */
+@RestController
+@RequestMapping("/api/outbox")
+public class OutboxController {
+    
+    private final OutboxRelay outboxRelay;
+    
+    public OutboxController(OutboxRelay outboxRelay) {
+        this.outboxRelay = outboxRelay;
+    }
+    
+    @GetMapping
+    public ResponseEntity<Map<OutboxEvent.Status, Map<String, Long>>> getOutstandingEvents() {
+        return ResponseEntity.ok(outboxRelay.countOutstanding());
+    }
+    
+    @PostMapping("/replay")
+    public ResponseEntity<OutboxReplayResult> replay(@RequestParam Long studyId,
+                                                     @RequestParam String handler,
+                                                     @RequestParam(defaultValue = "0") long afterId) {
+        return ResponseEntity.ok(outboxRelay.replay(studyId, afterId, handler));
+    }
+}
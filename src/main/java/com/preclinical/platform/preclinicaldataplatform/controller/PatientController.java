@@ -1,8 +1,11 @@
 package com.preclinical.platform.preclinicaldataplatform.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.CrossOrigin;
@@ -14,18 +17,33 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkAdverseEventRequest;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkAdverseEventResult;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkMeasurementRequest;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkMeasurementResult;
 import com.preclinical.platform.preclinicaldataplatform.dto.CreateAdverseEventRequest;
 import com.preclinical.platform.preclinicaldataplatform.dto.CreateEfficacyMeasurementRequest;
 import com.preclinical.platform.preclinicaldataplatform.dto.CreatePatientRequest;
+import com.preclinical.platform.preclinicaldataplatform.dto.PatientPage;
+import com.preclinical.platform.preclinicaldataplatform.dto.PatientSummary;
 import com.preclinical.platform.preclinicaldataplatform.dto.UpdatePatientRequest;
 import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
 import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
 import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.service.BulkAdverseEventService;
+import com.preclinical.platform.preclinicaldataplatform.service.BulkMeasurementService;
 import com.preclinical.platform.preclinicaldataplatform.service.EfficacyMeasurementService;
+import com.preclinical.platform.preclinicaldataplatform.service.PatientQueryService;
 import com.preclinical.platform.preclinicaldataplatform.service.StudyManagementService;
 
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.extern.slf4j.Slf4j;
 
 @RestController
@@ -36,11 +54,23 @@ public class PatientController {
     
     private final StudyManagementService studyManagementService;
     private final EfficacyMeasurementService efficacyMeasurementService;
+    private final PatientQueryService patientQueryService;
+    private final BulkMeasurementService bulkMeasurementService;
+    private final BulkAdverseEventService bulkAdverseEventService;
+    private final ObjectMapper objectMapper;
     
     public PatientController(StudyManagementService studyManagementService,
-                           EfficacyMeasurementService efficacyMeasurementService) {
+                           EfficacyMeasurementService efficacyMeasurementService,
+                           PatientQueryService patientQueryService,
+                           BulkMeasurementService bulkMeasurementService,
+                           BulkAdverseEventService bulkAdverseEventService,
+                           ObjectMapper objectMapper) {
         this.studyManagementService = studyManagementService;
         this.efficacyMeasurementService = efficacyMeasurementService;
+        this.patientQueryService = patientQueryService;
+        this.bulkMeasurementService = bulkMeasurementService;
+        this.bulkAdverseEventService = bulkAdverseEventService;
+        this.objectMapper = objectMapper;
     }
     
     @PostMapping("/enroll/{studyId}")
@@ -69,6 +99,40 @@ public class PatientController {
         return ResponseEntity.ok(patients);
     }
     
+    @GetMapping("/study/{studyId}/page")
+    public ResponseEntity<PatientPage> getPatientPage(
+            @PathVariable Long studyId,
+            @RequestParam(defaultValue = "ID") PatientPage.SortField sort,
+            @RequestParam(defaultValue = "ASC") PatientPage.Direction direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int size) {
+        PatientPage page = patientQueryService.getPatientPage(studyId, sort, direction, cursor, size);
+        return ResponseEntity.ok(page);
+    }
+    
+    // Newline-delimited JSON, one patient per line, written as rows come off the database cursor
+    @GetMapping(value = "/study/{studyId}/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> streamPatientsByStudy(@PathVariable Long studyId) {
+        // Fail fast with a 404 before the response is committed
+        patientQueryService.verifyStudyExists(studyId);
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writerFor(PatientSummary.class)
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                patientQueryService.streamPatients(studyId, patient -> {
+                    try {
+                        writer.write(patient);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<Patient> updatePatient(
             @PathVariable Long id,
@@ -107,6 +171,21 @@ public class PatientController {
         return ResponseEntity.status(HttpStatus.CREATED).body(measurement);
     }
     
+    // Per-row problems are reported in the result; only a malformed or oversized upload is rejected
+    @PostMapping("/measurements/bulk")
+    public ResponseEntity<BulkMeasurementResult> recordMeasurements(
+            @Valid @RequestBody BulkMeasurementRequest request) {
+        BulkMeasurementResult result = bulkMeasurementService.recordMeasurements(request.getMeasurements());
+        return ResponseEntity.ok(result);
+    }
+    
+    @PostMapping("/adverse-events/bulk")
+    public ResponseEntity<BulkAdverseEventResult> recordAdverseEvents(
+            @Valid @RequestBody BulkAdverseEventRequest request) {
+        BulkAdverseEventResult result = bulkAdverseEventService.recordAdverseEvents(request.getAdverseEvents());
+        return ResponseEntity.ok(result);
+    }
+    
     @GetMapping("/{id}/measurements")
     public ResponseEntity<List<EfficacyMeasurement>> getPatientMeasurements(@PathVariable Long id) {
         List<EfficacyMeasurement> measurements = efficacyMeasurementService.getPatientMeasurements(id);
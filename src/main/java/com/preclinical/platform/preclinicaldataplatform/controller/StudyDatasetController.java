@@ -0,0 +1,103 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.ImportJobProgress;
+import com.preclinical.platform.preclinicaldataplatform.entity.ImportJob;
+import com.preclinical.platform.preclinicaldataplatform.service.DatasetImportService;
+import com.preclinical.platform.preclinicaldataplatform.service.StudyExportService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Whole-dataset transfer for a study. Imports run in the background; the
+ * returned job is polled for progress and can be resumed after a failure.
+ * Exports stream the study's rows into the response as they are read.
+ */
+@RestController
+@RequestMapping("/api/studies")
+@Validated
+@Slf4j
+public class StudyDatasetController {
+    
+    private final DatasetImportService datasetImportService;
+    private final StudyExportService studyExportService;
+    
+    public StudyDatasetController(DatasetImportService datasetImportService,
+                                  StudyExportService studyExportService) {
+        this.datasetImportService = datasetImportService;
+        this.studyExportService = studyExportService;
+    }
+    
+    @PostMapping(value = "/{id}/imports", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJobProgress> importDataset(
+            @PathVariable Long id,
+            @RequestParam ImportJob.Domain domain,
+            @RequestPart("file") MultipartFile file) {
+        ImportJobProgress job = datasetImportService.submit(id, domain, file);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+    
+    @GetMapping("/{id}/imports")
+    public ResponseEntity<List<ImportJobProgress>> getImportJobs(@PathVariable Long id) {
+        return ResponseEntity.ok(datasetImportService.getStudyJobs(id));
+    }
+    
+    @GetMapping("/imports/{jobId}")
+    public ResponseEntity<ImportJobProgress> getImportJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(datasetImportService.getProgress(jobId));
+    }
+    
+    @PostMapping("/imports/{jobId}/resume")
+    public ResponseEntity<ImportJobProgress> resumeImportJob(@PathVariable Long jobId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(datasetImportService.resume(jobId));
+    }
+    
+    // Written straight from database cursors; NDJSON without a domain holds all three, tagged by DOMAIN,
+    // and COLUMNAR holds the measurements only
+    @GetMapping("/{id}/export")
+    public ResponseEntity<StreamingResponseBody> exportDataset(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "NDJSON") StudyExportService.Format format,
+            @RequestParam(required = false) ImportJob.Domain domain) {
+        Set<ImportJob.Domain> domains = studyExportService.resolveDomains(id, format, domain);
+        StreamingResponseBody body = outputStream -> studyExportService.export(id, domains, format, outputStream);
+        
+        String fileName = "study-" + id + (domain != null ? "-" + domain.name().toLowerCase() : "")
+                + switch (format) {
+                    case CSV -> ".csv";
+                    case NDJSON -> ".ndjson";
+                    case COLUMNAR -> ".pcol";
+                };
+        MediaType contentType = switch (format) {
+            case CSV -> new MediaType("text", "csv", StandardCharsets.UTF_8);
+            case NDJSON -> MediaType.parseMediaType("application/x-ndjson");
+            case COLUMNAR -> MediaType.APPLICATION_OCTET_STREAM;
+        };
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(fileName)
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,19 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditHistoryPage {
+    private List<AuditRecord> records;
+    private Integer size;
+    private boolean hasMore;
+    private Long nextAfterSequence; // pass as afterSequence for the next page
+}
@@ -0,0 +1,29 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditRecord {
+    private Long sequence; // assigned by the journal, increasing in write order
+    private LocalDateTime recordedAt; // when the change was made; for outbox deliveries, when the event was written
+    private Action action;
+    private Long studyId;
+    private Long patientId;
+    private Long entityId; // the study, patient, adverse event or measurement the action concerns
+    private String detail;
+    private Long outboxEventId; // the outbox event the entry was written for, if it came through the outbox
+
+    // Stored by ordinal; append new actions at the end
+    public enum Action {
+        STUDY_CREATED, STUDY_STATUS_CHANGED, PATIENT_ENROLLED, PATIENT_UPDATED, PATIENT_STATUS_CHANGED,
+        MEASUREMENT_RECORDED, SAE_REPORTED
+    }
+}
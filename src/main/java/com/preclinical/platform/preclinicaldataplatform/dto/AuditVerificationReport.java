@@ -0,0 +1,28 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditVerificationReport {
+    private Mode mode;
+    private boolean valid;
+    private Integer checkpointsVerified;
+    private Integer segmentsVerified;
+    private Long recordsVerified;
+    private Long lastVerifiedSequence; // records up to here are covered by a verified checkpoint
+    private String latestCheckpointHash; // hex; the journal also keeps it in its anchor file
+    private List<String> failures;
+    private Long elapsedMillis;
+
+    public enum Mode {
+        FULL, INCREMENTAL // INCREMENTAL re-checks only segments with checkpoints added since the last clean run
+    }
+}
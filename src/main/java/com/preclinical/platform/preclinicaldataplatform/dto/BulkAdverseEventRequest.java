@@ -0,0 +1,20 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Rows are validated one by one by the service so a bad row does not reject the import
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAdverseEventRequest {
+    
+    @NotEmpty(message = "At least one adverse event is required")
+    private List<BulkAdverseEventRow> adverseEvents;
+}
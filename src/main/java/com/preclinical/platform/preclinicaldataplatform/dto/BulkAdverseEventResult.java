@@ -0,0 +1,22 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkAdverseEventResult {
+    private Integer received;
+    private Integer inserted;
+    private Integer failed;
+    private Integer seriousEvents;
+    private Integer alertsPublished;
+    private List<BulkRowError> errors;
+    private Long elapsedMillis;
+}
@@ -0,0 +1,20 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkMeasurementResult {
+    private Integer received;
+    private Integer inserted;
+    private Integer failed;
+    private List<BulkRowError> errors;
+    private Long elapsedMillis;
+}
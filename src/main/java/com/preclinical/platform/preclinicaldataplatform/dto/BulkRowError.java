@@ -0,0 +1,15 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A rejected row of a bulk upload, identified by its position in the request
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkRowError {
+    private Integer index;
+    private Long patientId;
+    private String message;
+}
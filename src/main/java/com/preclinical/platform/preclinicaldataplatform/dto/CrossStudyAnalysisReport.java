@@ -0,0 +1,24 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CrossStudyAnalysisReport {
+    private String analysisType;
+    private Integer studyCount;
+    private Map<String, Object> results;
+    private Map<Long, Map<String, Object>> studyResults;
+    private List<Long> failedStudies;
+    private Long elapsedMillis;
+    private LocalDateTime generatedAt;
+}
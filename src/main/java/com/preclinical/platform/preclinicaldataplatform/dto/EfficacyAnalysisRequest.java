@@ -4,6 +4,7 @@ import java.time.LocalDate;
 
 import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
 
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
@@ -31,4 +32,35 @@ public class EfficacyAnalysisRequest {
     
     @Max(value = 365, message = "Maximum study day cannot exceed 365")
     private Integer maxStudyDay;
+    
+    @AssertTrue(message = "End date must not be before start date")
+    public boolean isDateRangeValid() {
+        if (startDate == null || endDate == null) {
+            return true;
+        }
+        return !endDate.isBefore(startDate);
+    }
+    
+    @AssertTrue(message = "Maximum study day must not be below minimum study day")
+    public boolean isStudyDayRangeValid() {
+        if (minStudyDay == null || maxStudyDay == null) {
+            return true;
+        }
+        return maxStudyDay >= minStudyDay;
+    }
+    
+    public boolean hasFilters() {
+        return startDate != null || endDate != null || minStudyDay != null || maxStudyDay != null;
+    }
+    
+    // Covers every field so filtered and unfiltered analyses never share a cache entry
+    public String cacheKey() {
+        return cacheKeyPrefix(studyId) + measurementType + "_" + startDate + "_" + endDate
+                + "_" + minStudyDay + "_" + maxStudyDay;
+    }
+
+    // Every cache key of a study's analyses starts with this
+    public static String cacheKeyPrefix(Long studyId) {
+        return studyId + "_";
+    }
 }
@@ -0,0 +1,51 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.time.LocalDateTime;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.ImportJob;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportJobProgress {
+    private Long jobId;
+    private Long studyId;
+    private ImportJob.Domain domain;
+    private String fileName;
+    private ImportJob.Status status;
+    private Long rowsProcessed;
+    private Long rowsImported;
+    private Long rowsFailed;
+    private Double rowsPerSecond;
+    private Long elapsedMillis;
+    private String lastError;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private LocalDateTime updatedAt;
+    
+    public static ImportJobProgress of(ImportJob job) {
+        long elapsed = job.getActiveMillis() != null ? job.getActiveMillis() : 0L;
+        return ImportJobProgress.builder()
+                .jobId(job.getId())
+                .studyId(job.getStudyId())
+                .domain(job.getDomain())
+                .fileName(job.getFileName())
+                .status(job.getStatus())
+                .rowsProcessed(job.getLastCommittedRow())
+                .rowsImported(job.getRowsImported())
+                .rowsFailed(job.getRowsFailed())
+                .rowsPerSecond(elapsed > 0 ? job.getLastCommittedRow() * 1000.0 / elapsed : 0.0)
+                .elapsedMillis(elapsed)
+                .lastError(job.getLastError())
+                .startedAt(job.getStartedAt())
+                .completedAt(job.getCompletedAt())
+                .updatedAt(job.getUpdatedAt())
+                .build();
+    }
+}
@@ -0,0 +1,20 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeasurementTrendPoint {
+    private Integer studyDay;
+    private BigDecimal value;
+    private LocalDate date;
+    private boolean withinNormalRange;
+}
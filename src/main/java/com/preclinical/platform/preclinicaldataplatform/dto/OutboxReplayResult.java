@@ -0,0 +1,19 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxReplayResult {
+    private Long studyId;
+    private String handler;
+    private Long replayed;
+    private Long skipped; // events whose data has since been deleted
+    private Long lastEventId; // pass as afterId to continue from here
+    private Long elapsedMillis;
+}
@@ -0,0 +1,29 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientPage {
+    private List<PatientSummary> patients;
+    private Integer size;
+    private SortField sort;
+    private Direction direction;
+    private boolean hasMore;
+    private String nextCursor;
+
+    public enum SortField {
+        ID, ENROLLMENT_DATE, PATIENT_CODE
+    }
+
+    public enum Direction {
+        ASC, DESC
+    }
+}
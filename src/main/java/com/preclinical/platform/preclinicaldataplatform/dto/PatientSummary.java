@@ -0,0 +1,26 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.time.LocalDate;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Flat patient row for listings; built by JPQL constructor expressions, so no associations are loaded
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSummary {
+    private Long id;
+    private String patientCode;
+    private Integer age;
+    private Patient.Gender gender;
+    private Patient.PatientStatus status;
+    private LocalDate enrollmentDate;
+    private LocalDate completionDate;
+    private Long studyId;
+}
@@ -0,0 +1,22 @@
+package com.preclinical.platform.preclinicaldataplatform.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SafetyAggregateConsistencyReport {
+    private Long studyId;
+    private boolean consistent;
+    private Long aggregateTotalEvents;
+    private Long recountedTotalEvents;
+    private List<String> mismatches;
+    private LocalDateTime checkedAt;
+}
@@ -1,9 +1,11 @@
 package com.preclinical.platform.preclinicaldataplatform.dto;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.PastOrPresent;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -25,4 +27,8 @@ public class UpdatePatientRequest {
     
     @Size(max = 500, message = "Medical history must not exceed 500 characters")
     private String medicalHistory;
+    
+    // Corrects a mis-entered enrollment date
+    @PastOrPresent(message = "Enrollment date cannot be in the future")
+    private LocalDate enrollmentDate;
 }
@@ -13,14 +13,18 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "adverse_events")
+@Table(name = "adverse_events", indexes = {
+    @Index(name = "idx_ae_onset_date", columnList = "onset_date"),
+    @Index(name = "idx_ae_study_onset", columnList = "study_id, onset_date")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class AdverseEvent {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "adverse_events_seq")
+    @SequenceGenerator(name = "adverse_events_seq", sequenceName = "adverse_events_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -14,14 +14,19 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "efficacy_measurements")
+@Table(name = "efficacy_measurements", indexes = {
+    @Index(name = "idx_em_study_type_day", columnList = "study_id, measurement_type, study_day"),
+    @Index(name = "idx_em_study_type_date", columnList = "study_id, measurement_type, measurement_date"),
+    @Index(name = "idx_em_patient_type_day", columnList = "patient_id, measurement_type, study_day")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class EfficacyMeasurement {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "efficacy_measurements_seq")
+    @SequenceGenerator(name = "efficacy_measurements_seq", sequenceName = "efficacy_measurements_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -93,10 +98,15 @@ public class EfficacyMeasurement {
     
     // Utility method to check if measurement is within normal range
     public boolean isWithinNormalRange() {
-        if (measurementValue == null || normalRangeLow == null || normalRangeHigh == null) {
+        return isWithinRange(measurementValue, normalRangeLow, normalRangeHigh);
+    }
+    
+    // Same check for values read through projections without the entity
+    public static boolean isWithinRange(BigDecimal value, BigDecimal low, BigDecimal high) {
+        if (value == null || low == null || high == null) {
             return false;
         }
-        return measurementValue.compareTo(normalRangeLow) >= 0 && measurementValue.compareTo(normalRangeHigh) <= 0;
+        return value.compareTo(low) >= 0 && value.compareTo(high) <= 0;
     }
     
     // Calculate percentage change from baseline (if this is a follow-up measurement)
@@ -0,0 +1,38 @@
+package com.preclinical.platform.preclinicaldataplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Number of patients enrolled in a study on one day. Weekly and monthly
+ * figures are rolled up from these rows when read.
+ */
+@Entity
+@Table(name = "enrollment_buckets", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_enrollment_bucket_study_date", columnNames = {"study_id", "bucket_date"})
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EnrollmentBucket {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "enrollment_buckets_seq")
+    @SequenceGenerator(name = "enrollment_buckets_seq", sequenceName = "enrollment_buckets_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "study_id", nullable = false)
+    private Long studyId;
+    
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private Long patientCount = 0L;
+}
@@ -0,0 +1,83 @@
+package com.preclinical.platform.preclinicaldataplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A dataset file being imported into a study. Progress is committed in the
+ * same transaction as each chunk of imported rows, so after a crash or a
+ * failed chunk the import resumes right after {@code lastCommittedRow}.
+ */
+@Entity
+@Table(name = "import_jobs", indexes = {
+    @Index(name = "idx_import_job_study", columnList = "study_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportJob {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "import_jobs_seq")
+    @SequenceGenerator(name = "import_jobs_seq", sequenceName = "import_jobs_seq", allocationSize = 50)
+    private Long id;
+    
+    @Column(name = "study_id", nullable = false)
+    private Long studyId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Domain domain;
+    
+    private String fileName;
+    
+    @Column(length = 1000)
+    private String filePath;
+    
+    @Enumerated(EnumType.STRING)
+    @Builder.Default
+    private Status status = Status.PENDING;
+    
+    // Data rows (after the header) up to which everything is committed
+    @Builder.Default
+    private Long lastCommittedRow = 0L;
+    
+    @Builder.Default
+    private Long rowsImported = 0L;
+    
+    @Builder.Default
+    private Long rowsFailed = 0L;
+    
+    @Column(length = 1000)
+    private String lastError;
+    
+    // Time spent importing across all runs, for throughput
+    @Builder.Default
+    private Long activeMillis = 0L;
+    
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime completedAt;
+    
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+    
+    // SEND domains: demographics, adverse events, vital signs
+    public enum Domain {
+        DM, AE, VS
+    }
+    
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+}
@@ -0,0 +1,75 @@
+package com.preclinical.platform.preclinicaldataplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A domain event written in the same transaction as the change it describes
+ * and delivered by the outbox relay after commit. The payload holds ids and
+ * values only; the relay reloads the entities when it delivers. Delivered
+ * rows are kept until the retention period ends so they can be replayed.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+    @Index(name = "idx_outbox_status", columnList = "status, id"),
+    @Index(name = "idx_outbox_study", columnList = "study_id, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_events_seq")
+    // Not pooled: ids must follow insert order across nodes, not each node's preallocated block
+    @SequenceGenerator(name = "outbox_events_seq", sequenceName = "outbox_events_seq", allocationSize = 1)
+    private Long id;
+    
+    // Events of one study are delivered in id order once they are older than the relay's settle window
+    @Column(name = "study_id")
+    private Long studyId;
+    
+    @Column(nullable = false, length = 100)
+    private String eventType;
+    
+    @Lob
+    @Column(nullable = false)
+    private String payload;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    @Builder.Default
+    private Status status = Status.PENDING;
+    
+    @Builder.Default
+    private Integer attempts = 0;
+    
+    // Not delivered before this time; pushed back after a failed attempt
+    @Column(nullable = false)
+    private LocalDateTime availableAt;
+    
+    // Set while a relay holds the row; another relay may take it over once the lease has expired
+    @Column(length = 36)
+    private String claimToken;
+    
+    private LocalDateTime claimedUntil;
+    
+    @Column(length = 1000)
+    private String lastError;
+    
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime processedAt;
+    
+    // FAILED rows ran out of attempts and need attention; they no longer hold back their study
+    public enum Status {
+        PENDING, DONE, FAILED
+    }
+}
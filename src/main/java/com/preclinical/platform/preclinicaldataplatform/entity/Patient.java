@@ -17,14 +17,19 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 @Entity
-@Table(name = "patients")
+@Table(name = "patients", indexes = {
+    @Index(name = "idx_patient_study_id", columnList = "study_id, id"),
+    @Index(name = "idx_patient_study_enrollment", columnList = "study_id, enrollment_date, id"),
+    @Index(name = "idx_patient_study_code", columnList = "study_id, patient_code, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class Patient {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patients_seq")
+    @SequenceGenerator(name = "patients_seq", sequenceName = "patients_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
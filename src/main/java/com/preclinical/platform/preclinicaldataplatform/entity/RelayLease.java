@@ -0,0 +1,32 @@
+package com.preclinical.platform.preclinicaldataplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A named lease one node holds at a time, e.g. the right to relay the
+ * outbox. The holder extends it while it works; once it runs out another
+ * node may take it over.
+ */
+@Entity
+@Table(name = "relay_leases")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RelayLease {
+    @Id
+    @Column(length = 100)
+    private String name;
+    
+    @Column(length = 36)
+    private String owner;
+    
+    @Column(nullable = false)
+    private LocalDateTime leasedUntil;
+}
@@ -22,7 +22,8 @@ import java.util.List;
 @Builder
 public class Study {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "studies_seq")
+    @SequenceGenerator(name = "studies_seq", sequenceName = "studies_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
@@ -0,0 +1,86 @@
+package com.preclinical.platform.preclinicaldataplatform.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running adverse event counts for one study, updated in the same transaction
+ * as every adverse event insert so safety reports never have to recount.
+ */
+@Entity
+@Table(name = "study_safety_aggregates")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StudySafetyAggregate {
+    @Id
+    private Long studyId;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private Long totalEvents = 0L;
+    
+    @Column(nullable = false)
+    @Builder.Default
+    private Long seriousEvents = 0L;
+    
+    @ElementCollection
+    @CollectionTable(name = "study_safety_severity_counts", joinColumns = @JoinColumn(name = "study_id"))
+    @MapKeyEnumerated(EnumType.STRING)
+    @MapKeyColumn(name = "severity")
+    @Column(name = "event_count", nullable = false)
+    @Builder.Default
+    private Map<AdverseEvent.Severity, Long> severityCounts = new HashMap<>();
+    
+    @ElementCollection
+    @CollectionTable(name = "study_safety_causality_counts", joinColumns = @JoinColumn(name = "study_id"))
+    @MapKeyEnumerated(EnumType.STRING)
+    @MapKeyColumn(name = "causality")
+    @Column(name = "event_count", nullable = false)
+    @Builder.Default
+    private Map<AdverseEvent.Causality, Long> causalityCounts = new HashMap<>();
+    
+    @ElementCollection
+    @CollectionTable(name = "study_safety_term_counts", joinColumns = @JoinColumn(name = "study_id"))
+    @MapKeyColumn(name = "event_term")
+    @Column(name = "event_count", nullable = false)
+    @Builder.Default
+    private Map<String, Long> termCounts = new HashMap<>();
+    
+    @UpdateTimestamp
+    private LocalDateTime updatedAt;
+    
+    public void record(AdverseEvent.Severity severity, AdverseEvent.Causality causality,
+                       String eventTerm, boolean serious, long count) {
+        if (severity != null) {
+            severityCounts.merge(severity, count, Long::sum);
+        }
+        if (causality != null) {
+            causalityCounts.merge(causality, count, Long::sum);
+        }
+        if (eventTerm != null) {
+            termCounts.merge(eventTerm, count, Long::sum);
+        }
+        totalEvents += count;
+        if (serious) {
+            seriousEvents += count;
+        }
+    }
+    
+    public void reset() {
+        severityCounts.clear();
+        causalityCounts.clear();
+        termCounts.clear();
+        totalEvents = 0L;
+        seriousEvents = 0L;
+    }
+}
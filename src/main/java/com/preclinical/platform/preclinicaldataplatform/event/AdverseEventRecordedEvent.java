@@ -0,0 +1,13 @@
+package com.preclinical.platform.preclinicaldataplatform.event;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Published for every adverse event recorded through the API, serious or not
+@Data
+@AllArgsConstructor
+public class AdverseEventRecordedEvent implements DomainEvent {
+	private AdverseEvent adverseEvent;
+}
@@ -0,0 +1,9 @@
+package com.preclinical.platform.preclinicaldataplatform.event;
+
+/**
+ * An event about a change to study data. Domain events are delivered to
+ * their handlers by {@code DomainEventDispatcher} after the publishing
+ * transaction commits, off the request thread.
+ */
+public interface DomainEvent {
+}
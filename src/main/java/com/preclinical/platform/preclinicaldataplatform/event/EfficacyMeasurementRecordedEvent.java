@@ -7,6 +7,6 @@ import lombok.Data;
 
 @Data
 @AllArgsConstructor
-public class EfficacyMeasurementRecordedEvent {
+public class EfficacyMeasurementRecordedEvent implements DomainEvent {
 	private EfficacyMeasurement measurement;
 }
\ No newline at end of file
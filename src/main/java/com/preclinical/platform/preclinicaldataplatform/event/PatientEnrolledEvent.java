@@ -7,6 +7,6 @@ import lombok.Data;
 
 @Data
 @AllArgsConstructor
-public class PatientEnrolledEvent {
+public class PatientEnrolledEvent implements DomainEvent {
 	private Patient patient;
 }
\ No newline at end of file
@@ -7,7 +7,7 @@ import lombok.Data;
 
 @Data
 @AllArgsConstructor
-public class PatientStatusChangedEvent {
+public class PatientStatusChangedEvent implements DomainEvent {
     private Patient patient;
     private Patient.PatientStatus oldStatus;
     private Patient.PatientStatus newStatus;
@@ -7,6 +7,6 @@ import lombok.Data;
 
 @Data
 @AllArgsConstructor
-public class PatientUpdatedEvent {
+public class PatientUpdatedEvent implements DomainEvent {
     private Patient patient;
 }
\ No newline at end of file
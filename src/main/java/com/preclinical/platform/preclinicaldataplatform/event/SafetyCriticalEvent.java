@@ -0,0 +1,8 @@
+package com.preclinical.platform.preclinicaldataplatform.event;
+
+/**
+ * A domain event with a regulatory reporting deadline. These are handled on
+ * the SAE executor so a backlog of routine events cannot delay them.
+ */
+public interface SafetyCriticalEvent extends DomainEvent {
+}
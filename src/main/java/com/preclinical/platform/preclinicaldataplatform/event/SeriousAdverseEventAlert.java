@@ -7,6 +7,6 @@ import lombok.Data;
 
 @Data
 @AllArgsConstructor
-public class SeriousAdverseEventAlert {
+public class SeriousAdverseEventAlert implements SafetyCriticalEvent {
 	private AdverseEvent adverseEvent;
 }
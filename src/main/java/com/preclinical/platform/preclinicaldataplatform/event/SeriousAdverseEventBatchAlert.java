@@ -0,0 +1,16 @@
+package com.preclinical.platform.preclinicaldataplatform.event;
+
+import java.util.List;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// All serious adverse events of one study committed by one bulk import batch
+@Data
+@AllArgsConstructor
+public class SeriousAdverseEventBatchAlert implements SafetyCriticalEvent {
+	private Long studyId;
+	private List<AdverseEvent> adverseEvents;
+}
@@ -7,6 +7,6 @@ import lombok.Data;
 
 @Data
 @AllArgsConstructor
-public class StudyCreatedEvent {
+public class StudyCreatedEvent implements DomainEvent {
 	private Study study;
 }
@@ -0,0 +1,15 @@
+package com.preclinical.platform.preclinicaldataplatform.event;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.ImportJob;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+// Rows of one domain written to a study by one bulk or import chunk
+@Data
+@AllArgsConstructor
+public class StudyDataImportedEvent implements DomainEvent {
+	private Long studyId;
+	private ImportJob.Domain domain;
+	private int rows;
+}
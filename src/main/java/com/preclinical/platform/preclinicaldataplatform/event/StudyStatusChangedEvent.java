@@ -7,7 +7,7 @@ import lombok.Data;
 
 @Data
 @AllArgsConstructor
-public class StudyStatusChangedEvent {
+public class StudyStatusChangedEvent implements DomainEvent {
 	private Study study;
 	private Study.StudyStatus oldStatus;
 	private Study.StudyStatus newStatus;
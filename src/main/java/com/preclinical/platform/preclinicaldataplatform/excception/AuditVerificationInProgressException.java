@@ -0,0 +1,7 @@
+package com.preclinical.platform.preclinicaldataplatform.excception;
+
+public class AuditVerificationInProgressException extends RuntimeException {
+    public AuditVerificationInProgressException(String message) {
+        super(message);
+    }
+}
@@ -45,6 +45,55 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
     
+    @ExceptionHandler(ImportJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleImportJobNotFound(ImportJobNotFoundException ex, WebRequest request) {
+        ErrorResponse error = ErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode("IMPORT_JOB_NOT_FOUND")
+                .status(HttpStatus.NOT_FOUND.value())
+                .timestamp(LocalDateTime.now())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+    
+    @ExceptionHandler(ImportJobConflictException.class)
+    public ResponseEntity<ErrorResponse> handleImportJobConflict(ImportJobConflictException ex, WebRequest request) {
+        ErrorResponse error = ErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode("IMPORT_JOB_CONFLICT")
+                .status(HttpStatus.CONFLICT.value())
+                .timestamp(LocalDateTime.now())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(OutboxRelayNotHeldException.class)
+    public ResponseEntity<ErrorResponse> handleOutboxRelayNotHeld(OutboxRelayNotHeldException ex, WebRequest request) {
+        ErrorResponse error = ErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode("OUTBOX_RELAY_NOT_HELD")
+                .status(HttpStatus.CONFLICT.value())
+                .timestamp(LocalDateTime.now())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
+    @ExceptionHandler(AuditVerificationInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleAuditVerificationInProgress(AuditVerificationInProgressException ex,
+                                                                           WebRequest request) {
+        ErrorResponse error = ErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode("AUDIT_VERIFICATION_IN_PROGRESS")
+                .status(HttpStatus.CONFLICT.value())
+                .timestamp(LocalDateTime.now())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+    
     @ExceptionHandler(IllegalStudyStatusException.class)
     public ResponseEntity<ErrorResponse> handleIllegalStudyStatus(IllegalStudyStatusException ex, WebRequest request) {
         ErrorResponse error = ErrorResponse.builder()
@@ -133,6 +182,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
     
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex, WebRequest request) {
+        ErrorResponse error = ErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode("INVALID_CURSOR")
+                .status(HttpStatus.BAD_REQUEST.value())
+                .timestamp(LocalDateTime.now())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+    
+    @ExceptionHandler(InvalidRequestException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRequest(InvalidRequestException ex, WebRequest request) {
+        ErrorResponse error = ErrorResponse.builder()
+                .message(ex.getMessage())
+                .errorCode("INVALID_REQUEST")
+                .status(HttpStatus.BAD_REQUEST.value())
+                .timestamp(LocalDateTime.now())
+                .path(request.getDescription(false).replace("uri=", ""))
+                .build();
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+    
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ErrorResponse> handleGenericException(Exception ex, WebRequest request) {
         log.error("Unexpected error in preclinical data platform", ex);
@@ -0,0 +1,7 @@
+package com.preclinical.platform.preclinicaldataplatform.excception;
+
+public class ImportJobConflictException extends RuntimeException {
+    public ImportJobConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.preclinical.platform.preclinicaldataplatform.excception;
+
+public class ImportJobNotFoundException extends RuntimeException {
+    public ImportJobNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.preclinical.platform.preclinicaldataplatform.excception;
+
+public class InvalidRequestException extends RuntimeException {
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.preclinical.platform.preclinicaldataplatform.excception;
+
+public class OutboxRelayNotHeldException extends RuntimeException {
+    public OutboxRelayNotHeldException(String message) {
+        super(message);
+    }
+}
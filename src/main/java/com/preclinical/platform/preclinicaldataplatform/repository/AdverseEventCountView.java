@@ -0,0 +1,20 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+
+/**
+ * One grouped row of adverse event counts, as returned by the database-side
+ * aggregation queries in {@link AdverseEventRepository}.
+ */
+public interface AdverseEventCountView {
+
+    AdverseEvent.Severity getSeverity();
+
+    AdverseEvent.Causality getCausality();
+
+    String getEventTerm();
+
+    Boolean getSerious();
+
+    Long getEventCount();
+}
@@ -1,22 +1,32 @@
 package com.preclinical.platform.preclinicaldataplatform.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface AdverseEventRepository extends JpaRepository<AdverseEvent, Long> {
+public interface AdverseEventRepository extends JpaRepository<AdverseEvent, Long>, AdverseEventRepositoryCustom {
     
     List<AdverseEvent> findByPatientId(Long patientId);
     
     List<AdverseEvent> findByStudyId(Long studyId);
     
+    long countByStudyId(Long studyId);
+    
+    long countByStudyIdAndSeriousTrue(Long studyId);
+    
     List<AdverseEvent> findBySeverityAndSerious(AdverseEvent.Severity severity, Boolean serious);
     
     @Query("SELECT ae FROM AdverseEvent ae WHERE ae.onsetDate BETWEEN :startDate AND :endDate")
@@ -25,4 +35,23 @@ public interface AdverseEventRepository extends JpaRepository<AdverseEvent, Long
     
     @Query("SELECT ae.severity, COUNT(ae) FROM AdverseEvent ae GROUP BY ae.severity")
     List<Object[]> countEventsBySeverity();
+    
+    // Grouped counts for a study so safety reports never need to load the events themselves
+    @Query("SELECT ae.severity AS severity, ae.causality AS causality, ae.eventTerm AS eventTerm, " +
+           "ae.serious AS serious, COUNT(ae) AS eventCount " +
+           "FROM AdverseEvent ae WHERE ae.study.id = :studyId " +
+           "GROUP BY ae.severity, ae.causality, ae.eventTerm, ae.serious")
+    List<AdverseEventCountView> aggregateEventsByStudy(@Param("studyId") Long studyId);
+    
+    @Query("SELECT ae.study.id AS studyId, COUNT(ae) AS rowCount, MAX(ae.updatedAt) AS lastUpdated " +
+           "FROM AdverseEvent ae WHERE ae.study.id IN :studyIds GROUP BY ae.study.id")
+    List<StudyChangeView> summarizeChangesByStudy(@Param("studyIds") Collection<Long> studyIds);
+    
+    // Adverse events in id order with their patient joined, so writing the AE domain issues no per-row lookup
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT ae FROM AdverseEvent ae JOIN FETCH ae.patient WHERE ae.study.id = :studyId ORDER BY ae.id")
+    Stream<AdverseEvent> streamByStudyIdWithPatient(@Param("studyId") Long studyId);
 }
@@ -0,0 +1,17 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Grouped adverse event counts with optional study and onset date filters.
+ * Only the filters that are set become predicates, so each query can be
+ * answered from the {@code onset_date} or {@code (study_id, onset_date)} index
+ * instead of a plan that has to allow for every parameter being null.
+ */
+public interface AdverseEventRepositoryCustom {
+
+    List<AdverseEventSeverityCount> countBySeverityAndSeriousness(Long studyId, LocalDate startDate, LocalDate endDate);
+
+    List<AdverseEventTermCount> findTopTerms(Long studyId, LocalDate startDate, LocalDate endDate, int limit);
+}
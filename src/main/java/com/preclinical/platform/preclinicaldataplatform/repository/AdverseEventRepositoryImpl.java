@@ -0,0 +1,64 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class AdverseEventRepositoryImpl implements AdverseEventRepositoryCustom {
+
+    private static final String PACKAGE = "com.preclinical.platform.preclinicaldataplatform.repository.";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AdverseEventSeverityCount> countBySeverityAndSeriousness(Long studyId, LocalDate startDate,
+                                                                          LocalDate endDate) {
+        String jpql = "SELECT new " + PACKAGE + "AdverseEventSeverityCount(ae.severity, ae.serious, COUNT(ae)) "
+                + "FROM AdverseEvent ae" + where(studyId, startDate, endDate)
+                + " GROUP BY ae.severity, ae.serious";
+        TypedQuery<AdverseEventSeverityCount> query = entityManager.createQuery(jpql, AdverseEventSeverityCount.class);
+        bind(query, studyId, startDate, endDate);
+        return query.getResultList();
+    }
+
+    @Override
+    public List<AdverseEventTermCount> findTopTerms(Long studyId, LocalDate startDate, LocalDate endDate, int limit) {
+        String jpql = "SELECT new " + PACKAGE + "AdverseEventTermCount(ae.eventTerm, COUNT(ae)) "
+                + "FROM AdverseEvent ae" + where(studyId, startDate, endDate)
+                + " GROUP BY ae.eventTerm ORDER BY COUNT(ae) DESC, ae.eventTerm";
+        TypedQuery<AdverseEventTermCount> query = entityManager.createQuery(jpql, AdverseEventTermCount.class)
+                .setMaxResults(limit);
+        bind(query, studyId, startDate, endDate);
+        return query.getResultList();
+    }
+
+    private String where(Long studyId, LocalDate startDate, LocalDate endDate) {
+        StringBuilder where = new StringBuilder();
+        if (studyId != null) {
+            where.append(" AND ae.study.id = :studyId");
+        }
+        if (startDate != null) {
+            where.append(" AND ae.onsetDate >= :startDate");
+        }
+        if (endDate != null) {
+            where.append(" AND ae.onsetDate <= :endDate");
+        }
+        return where.isEmpty() ? "" : " WHERE" + where.substring(4);
+    }
+
+    private void bind(TypedQuery<?> query, Long studyId, LocalDate startDate, LocalDate endDate) {
+        if (studyId != null) {
+            query.setParameter("studyId", studyId);
+        }
+        if (startDate != null) {
+            query.setParameter("startDate", startDate);
+        }
+        if (endDate != null) {
+            query.setParameter("endDate", endDate);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+
+// Events per severity and seriousness, built by a JPQL constructor expression
+public record AdverseEventSeverityCount(AdverseEvent.Severity severity, Boolean serious, Long eventCount) {
+}
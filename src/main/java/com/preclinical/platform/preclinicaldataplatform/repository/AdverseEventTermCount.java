@@ -0,0 +1,5 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+// Events per reported term, built by a JPQL constructor expression
+public record AdverseEventTermCount(String eventTerm, Long eventCount) {
+}
@@ -1,18 +1,24 @@
 package com.preclinical.platform.preclinicaldataplatform.repository;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
 
+import jakarta.persistence.QueryHint;
+
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface EfficacyMeasurementRepository extends JpaRepository<EfficacyMeasurement, Long> {
+public interface EfficacyMeasurementRepository extends JpaRepository<EfficacyMeasurement, Long>,
+        EfficacyMeasurementRepositoryCustom {
 
     List<EfficacyMeasurement> findByPatientId(Long patientId);
 
@@ -42,4 +48,29 @@ public interface EfficacyMeasurementRepository extends JpaRepository<EfficacyMea
 
     @Query("SELECT COUNT(em) FROM EfficacyMeasurement em WHERE em.study.id = :studyId AND em.measurementValue IS NOT NULL AND em.normalRangeLow IS NOT NULL AND em.normalRangeHigh IS NOT NULL AND (em.measurementValue < em.normalRangeLow OR em.measurementValue > em.normalRangeHigh)")
     long countAbnormalMeasurements(@Param("studyId") Long studyId);
-}
\ No newline at end of file
+
+    @Query("SELECT em.id AS id, em.measurementValue AS measurementValue, em.studyDay AS studyDay, " +
+           "em.patient.id AS patientId, em.normalRangeLow AS normalRangeLow, em.normalRangeHigh AS normalRangeHigh " +
+           "FROM EfficacyMeasurement em WHERE em.study.id = :studyId AND em.measurementType = :type " +
+           "AND em.measurementValue IS NOT NULL ORDER BY em.id")
+    List<MeasurementColumnView> findColumnValues(
+            @Param("studyId") Long studyId,
+            @Param("type") EfficacyMeasurement.MeasurementType type);
+
+    @Query("SELECT em.studyDay AS studyDay, em.measurementDate AS measurementDate, " +
+           "em.measurementValue AS measurementValue, em.normalRangeLow AS normalRangeLow, " +
+           "em.normalRangeHigh AS normalRangeHigh " +
+           "FROM EfficacyMeasurement em WHERE em.patient.id = :patientId AND em.measurementType = :type " +
+           "AND em.measurementValue IS NOT NULL ORDER BY em.studyDay, em.id")
+    List<MeasurementPointView> findSeriesPoints(
+            @Param("patientId") Long patientId,
+            @Param("type") EfficacyMeasurement.MeasurementType type);
+
+    // Measurements in id order with their patient joined for the subject column of the VS domain
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT em FROM EfficacyMeasurement em JOIN FETCH em.patient WHERE em.study.id = :studyId ORDER BY em.id")
+    Stream<EfficacyMeasurement> streamByStudyIdWithPatient(@Param("studyId") Long studyId);
+}
@@ -0,0 +1,18 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.time.LocalDate;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+
+/**
+ * Measurement summary with optional study day and measurement date windows.
+ * Only the bounds that are set become predicates, so a windowed summary is a
+ * range scan on the {@code (study, type, day)} or {@code (study, type, date)}
+ * index instead of a plan that has to allow for every bound being null.
+ */
+public interface EfficacyMeasurementRepositoryCustom {
+
+    MeasurementSummaryView summarizeMeasurements(Long studyId, EfficacyMeasurement.MeasurementType type,
+                                                 Integer minStudyDay, Integer maxStudyDay,
+                                                 LocalDate startDate, LocalDate endDate);
+}
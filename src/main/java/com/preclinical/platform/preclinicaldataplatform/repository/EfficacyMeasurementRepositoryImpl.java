@@ -0,0 +1,59 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.time.LocalDate;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class EfficacyMeasurementRepositoryImpl implements EfficacyMeasurementRepositoryCustom {
+
+    private static final String SELECT_SUMMARY = "SELECT new com.preclinical.platform.preclinicaldataplatform.repository.MeasurementSummaryView("
+            + "COUNT(em), SUM(em.measurementValue), MIN(em.measurementValue), MAX(em.measurementValue), "
+            + "COUNT(DISTINCT em.patient.id), "
+            + "SUM(CASE WHEN em.normalRangeLow IS NOT NULL AND em.normalRangeHigh IS NOT NULL "
+            + "AND em.measurementValue BETWEEN em.normalRangeLow AND em.normalRangeHigh THEN 0 ELSE 1 END)) "
+            + "FROM EfficacyMeasurement em WHERE em.study.id = :studyId AND em.measurementType = :type "
+            + "AND em.measurementValue IS NOT NULL";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public MeasurementSummaryView summarizeMeasurements(Long studyId, EfficacyMeasurement.MeasurementType type,
+                                                        Integer minStudyDay, Integer maxStudyDay,
+                                                        LocalDate startDate, LocalDate endDate) {
+        StringBuilder jpql = new StringBuilder(SELECT_SUMMARY);
+        if (minStudyDay != null) {
+            jpql.append(" AND em.studyDay >= :minStudyDay");
+        }
+        if (maxStudyDay != null) {
+            jpql.append(" AND em.studyDay <= :maxStudyDay");
+        }
+        if (startDate != null) {
+            jpql.append(" AND em.measurementDate >= :startDate");
+        }
+        if (endDate != null) {
+            jpql.append(" AND em.measurementDate <= :endDate");
+        }
+
+        TypedQuery<MeasurementSummaryView> query = entityManager.createQuery(jpql.toString(), MeasurementSummaryView.class)
+                .setParameter("studyId", studyId)
+                .setParameter("type", type);
+        if (minStudyDay != null) {
+            query.setParameter("minStudyDay", minStudyDay);
+        }
+        if (maxStudyDay != null) {
+            query.setParameter("maxStudyDay", maxStudyDay);
+        }
+        if (startDate != null) {
+            query.setParameter("startDate", startDate);
+        }
+        if (endDate != null) {
+            query.setParameter("endDate", endDate);
+        }
+        return query.getSingleResult();
+    }
+}
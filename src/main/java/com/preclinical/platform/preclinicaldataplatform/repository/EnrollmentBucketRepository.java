@@ -0,0 +1,36 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.EnrollmentBucket;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface EnrollmentBucketRepository extends JpaRepository<EnrollmentBucket, Long> {
+    
+    Optional<EnrollmentBucket> findByStudyIdAndBucketDate(Long studyId, LocalDate bucketDate);
+    
+    // Row lock so concurrent enrollments on the same day apply their increments one at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM EnrollmentBucket b WHERE b.studyId = :studyId AND b.bucketDate = :bucketDate")
+    Optional<EnrollmentBucket> findByStudyIdAndBucketDateForUpdate(@Param("studyId") Long studyId,
+                                                                   @Param("bucketDate") LocalDate bucketDate);
+    
+    // Locks all of a study's buckets in date order, the same order single-day increments lock them in
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM EnrollmentBucket b WHERE b.studyId = :studyId ORDER BY b.bucketDate")
+    List<EnrollmentBucket> findByStudyIdForUpdate(@Param("studyId") Long studyId);
+    
+    List<EnrollmentBucket> findByStudyIdOrderByBucketDate(Long studyId);
+    
+    boolean existsByStudyId(Long studyId);
+}
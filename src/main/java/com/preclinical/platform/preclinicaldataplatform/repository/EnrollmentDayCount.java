@@ -0,0 +1,13 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Patients enrolled in a study on one day, grouped in the database.
+ */
+public interface EnrollmentDayCount {
+
+    LocalDate getEnrollmentDate();
+
+    Long getPatientCount();
+}
@@ -0,0 +1,16 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.ImportJob;
+
+@Repository
+public interface ImportJobRepository extends JpaRepository<ImportJob, Long> {
+    
+    List<ImportJob> findByStudyIdOrderByIdDesc(Long studyId);
+    
+    List<ImportJob> findByStatus(ImportJob.Status status);
+}
@@ -0,0 +1,21 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.math.BigDecimal;
+
+/**
+ * Scalar columns of an efficacy measurement, read without hydrating the entity.
+ */
+public interface MeasurementColumnView {
+
+    Long getId();
+
+    BigDecimal getMeasurementValue();
+
+    Integer getStudyDay();
+
+    Long getPatientId();
+
+    BigDecimal getNormalRangeLow();
+
+    BigDecimal getNormalRangeHigh();
+}
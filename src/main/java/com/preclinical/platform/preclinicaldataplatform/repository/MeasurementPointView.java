@@ -0,0 +1,20 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * One point of a patient's measurement series, read without hydrating the entity.
+ */
+public interface MeasurementPointView {
+
+    Integer getStudyDay();
+
+    LocalDate getMeasurementDate();
+
+    BigDecimal getMeasurementValue();
+
+    BigDecimal getNormalRangeLow();
+
+    BigDecimal getNormalRangeHigh();
+}
@@ -0,0 +1,10 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+/**
+ * Single-row summary of a filtered measurement series, computed in the database
+ * and built by a JPQL constructor expression. Value aggregates are null when no
+ * measurement matches.
+ */
+public record MeasurementSummaryView(Number measurementCount, Number valueSum, Number minValue, Number maxValue,
+                                     Number uniquePatients, Number abnormalCount) {
+}
@@ -0,0 +1,88 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.OutboxEvent;
+
+import jakarta.persistence.QueryHint;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+    
+    /**
+     * Rows that can be delivered now: due, unclaimed, written before
+     * {@code settledBefore}, and not behind an earlier event of their study
+     * that is waiting for a retry, held by another relay or not yet settled.
+     * Such a study contributes nothing, so its backlog cannot fill the page
+     * and starve the studies after it.
+     */
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.status = :status AND e.availableAt <= :now " +
+           "AND e.createdAt <= :settledBefore " +
+           "AND (e.claimedUntil IS NULL OR e.claimedUntil < :now) " +
+           "AND (e.studyId IS NULL OR NOT EXISTS (SELECT b.id FROM OutboxEvent b WHERE b.studyId = e.studyId " +
+           "AND b.status = :status AND b.id < e.id " +
+           "AND (b.availableAt > :now OR b.claimedUntil >= :now OR b.createdAt > :settledBefore))) ORDER BY e.id")
+    List<Long> findClaimableIds(@Param("status") OutboxEvent.Status status, @Param("now") LocalDateTime now,
+                                @Param("settledBefore") LocalDateTime settledBefore, Pageable pageable);
+    
+    // Rows another relay claimed in the meantime are skipped; the caller reads back what it got by token
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimToken = :token, e.claimedUntil = :until " +
+           "WHERE e.id IN :ids AND e.status = :status AND (e.claimedUntil IS NULL OR e.claimedUntil < :now)")
+    int claim(@Param("ids") Collection<Long> ids, @Param("status") OutboxEvent.Status status,
+              @Param("token") String token, @Param("until") LocalDateTime until, @Param("now") LocalDateTime now);
+    
+    List<OutboxEvent> findByClaimTokenOrderByIdAsc(String claimToken);
+    
+    List<OutboxEvent> findByClaimTokenAndIdInOrderByIdAsc(String claimToken, Collection<Long> ids);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimedUntil = :until WHERE e.claimToken IN :tokens AND e.status = :status")
+    int renewClaims(@Param("tokens") Collection<String> tokens, @Param("status") OutboxEvent.Status status,
+                    @Param("until") LocalDateTime until);
+    
+    // Oldest undelivered event per study, including rows that are claimed or waiting for a retry
+    @Query("SELECT e.studyId AS studyId, MIN(e.id) AS firstPendingId FROM OutboxEvent e " +
+           "WHERE e.status = :status AND e.studyId IN :studyIds GROUP BY e.studyId")
+    List<OutboxStudyHead> findFirstPendingByStudy(@Param("status") OutboxEvent.Status status,
+                                                  @Param("studyIds") Collection<Long> studyIds);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.processedAt = :now, e.claimToken = NULL, " +
+           "e.claimedUntil = NULL WHERE e.id IN :ids")
+    int markDone(@Param("ids") Collection<Long> ids, @Param("status") OutboxEvent.Status status,
+                 @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.claimToken = NULL, e.claimedUntil = NULL WHERE e.id IN :ids")
+    int release(@Param("ids") Collection<Long> ids);
+    
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("status") OutboxEvent.Status status, @Param("cutoff") LocalDateTime cutoff);
+    
+    @Query("SELECT e.eventType AS eventType, COUNT(e) AS eventCount FROM OutboxEvent e " +
+           "WHERE e.status = :status GROUP BY e.eventType")
+    List<OutboxTypeCount> countByType(@Param("status") OutboxEvent.Status status);
+    
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT e FROM OutboxEvent e WHERE e.studyId = :studyId AND e.status = :status AND e.id > :afterId " +
+           "ORDER BY e.id")
+    Stream<OutboxEvent> streamForReplay(@Param("studyId") Long studyId, @Param("status") OutboxEvent.Status status,
+                                        @Param("afterId") long afterId);
+}
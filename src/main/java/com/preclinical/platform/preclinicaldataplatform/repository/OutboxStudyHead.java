@@ -0,0 +1,11 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+/**
+ * Id of the oldest undelivered outbox event of a study.
+ */
+public interface OutboxStudyHead {
+
+    Long getStudyId();
+
+    Long getFirstPendingId();
+}
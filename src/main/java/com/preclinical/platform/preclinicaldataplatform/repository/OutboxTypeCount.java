@@ -0,0 +1,11 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+/**
+ * Number of outbox events of one type in a given status.
+ */
+public interface OutboxTypeCount {
+
+    String getEventType();
+
+    long getEventCount();
+}
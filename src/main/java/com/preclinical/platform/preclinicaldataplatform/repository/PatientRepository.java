@@ -1,26 +1,72 @@
 package com.preclinical.platform.preclinicaldataplatform.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.preclinical.platform.preclinicaldataplatform.dto.PatientSummary;
 import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientRepositoryCustom {
     
     Optional<Patient> findByPatientCode(String patientCode);
     
     List<Patient> findByStudyId(Long studyId);
     
+    @Query("SELECT p.id AS patientId, p.study.id AS studyId FROM Patient p WHERE p.id IN :ids")
+    List<PatientStudyView> findStudyIdsByPatientIds(@Param("ids") Collection<Long> ids);
+    
+    @Query("SELECT p.study.id AS studyId, COUNT(p) AS rowCount, MAX(p.updatedAt) AS lastUpdated " +
+           "FROM Patient p WHERE p.study.id IN :studyIds GROUP BY p.study.id")
+    List<StudyChangeView> summarizeChangesByStudy(@Param("studyIds") Collection<Long> studyIds);
+    
+    List<Patient> findByStudyIdAndPatientCodeIn(Long studyId, Collection<String> patientCodes);
+    
+    @Query("SELECT p.patientCode FROM Patient p WHERE p.patientCode IN :codes")
+    List<String> findExistingPatientCodes(@Param("codes") Collection<String> codes);
+    
+    // Cursor-backed stream of DTO rows; must be consumed inside a transaction and closed
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.preclinical.platform.preclinicaldataplatform.dto.PatientSummary("
+            + "p.id, p.patientCode, p.age, p.gender, p.status, p.enrollmentDate, p.completionDate, p.study.id) "
+            + "FROM Patient p WHERE p.study.id = :studyId ORDER BY p.id")
+    Stream<PatientSummary> streamSummariesByStudyId(@Param("studyId") Long studyId);
+    
+    // Full patient rows in id order for the DM domain, which needs columns the summary projection lacks
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Patient p WHERE p.study.id = :studyId ORDER BY p.id")
+    Stream<Patient> streamByStudyId(@Param("studyId") Long studyId);
+    
     // Add this missing method
     long countByStudyId(Long studyId);
     
+    @Query("SELECT p.enrollmentDate AS enrollmentDate, COUNT(p) AS patientCount FROM Patient p " +
+           "WHERE p.study.id = :studyId AND p.enrollmentDate IS NOT NULL " +
+           "GROUP BY p.enrollmentDate ORDER BY p.enrollmentDate")
+    List<EnrollmentDayCount> countEnrollmentsByDay(@Param("studyId") Long studyId);
+    
+    @Query("SELECT COUNT(p) FROM Patient p WHERE p.study.id = :studyId AND p.enrollmentDate = :date")
+    long countEnrollmentsOnDay(@Param("studyId") Long studyId, @Param("date") LocalDate date);
+    
     List<Patient> findByStatusAndEnrollmentDateAfter(Patient.PatientStatus status, LocalDate date);
     
     @Query("SELECT p FROM Patient p WHERE p.age BETWEEN :minAge AND :maxAge")
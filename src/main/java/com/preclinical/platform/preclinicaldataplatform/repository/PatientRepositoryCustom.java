@@ -0,0 +1,17 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.util.List;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.PatientPage;
+import com.preclinical.platform.preclinicaldataplatform.dto.PatientSummary;
+
+public interface PatientRepositoryCustom {
+
+    /**
+     * Seek query for one page of a study's patients ordered by {@code sort} and
+     * then id. Rows come strictly after ({@code lastValue}, {@code lastId}) in
+     * that order; pass a null {@code lastId} for the first page.
+     */
+    List<PatientSummary> findSummariesAfter(Long studyId, PatientPage.SortField sort, PatientPage.Direction direction,
+                                            Object lastValue, Long lastId, int limit);
+}
@@ -0,0 +1,65 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.util.List;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.PatientPage;
+import com.preclinical.platform.preclinicaldataplatform.dto.PatientSummary;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+public class PatientRepositoryImpl implements PatientRepositoryCustom {
+
+    private static final String SELECT_SUMMARY = "SELECT new com.preclinical.platform.preclinicaldataplatform.dto.PatientSummary("
+            + "p.id, p.patientCode, p.age, p.gender, p.status, p.enrollmentDate, p.completionDate, p.study.id) "
+            + "FROM Patient p WHERE p.study.id = :studyId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PatientSummary> findSummariesAfter(Long studyId, PatientPage.SortField sort,
+                                                   PatientPage.Direction direction, Object lastValue,
+                                                   Long lastId, int limit) {
+        String column = sortColumn(sort);
+        String comparison = direction == PatientPage.Direction.DESC ? "<" : ">";
+        String order = direction == PatientPage.Direction.DESC ? " DESC" : " ASC";
+
+        StringBuilder jpql = new StringBuilder(SELECT_SUMMARY);
+        if (lastId != null) {
+            if (column == null) {
+                jpql.append(" AND p.id ").append(comparison).append(" :lastId");
+            } else {
+                jpql.append(" AND (").append(column).append(' ').append(comparison).append(" :lastValue")
+                        .append(" OR (").append(column).append(" = :lastValue AND p.id ")
+                        .append(comparison).append(" :lastId))");
+            }
+        }
+        jpql.append(" ORDER BY ");
+        if (column != null) {
+            jpql.append(column).append(order).append(", ");
+        }
+        jpql.append("p.id").append(order);
+
+        TypedQuery<PatientSummary> query = entityManager.createQuery(jpql.toString(), PatientSummary.class)
+                .setParameter("studyId", studyId)
+                .setMaxResults(limit);
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+            if (column != null) {
+                query.setParameter("lastValue", lastValue);
+            }
+        }
+        return query.getResultList();
+    }
+
+    // Patients get their enrollment date when enrolled, so the seek columns are never null
+    private String sortColumn(PatientPage.SortField sort) {
+        return switch (sort) {
+            case ID -> null;
+            case ENROLLMENT_DATE -> "p.enrollmentDate";
+            case PATIENT_CODE -> "p.patientCode";
+        };
+    }
+}
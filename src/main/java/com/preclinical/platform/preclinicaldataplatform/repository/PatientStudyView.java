@@ -0,0 +1,11 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+/**
+ * Patient id with the id of the study it is enrolled in.
+ */
+public interface PatientStudyView {
+
+    Long getPatientId();
+
+    Long getStudyId();
+}
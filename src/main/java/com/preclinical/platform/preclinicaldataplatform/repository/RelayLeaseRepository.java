@@ -0,0 +1,22 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.RelayLease;
+
+@Repository
+public interface RelayLeaseRepository extends JpaRepository<RelayLease, String> {
+    
+    // Extends the owner's lease or takes over an expired one; 0 when another node holds it
+    @Modifying
+    @Query("UPDATE RelayLease l SET l.owner = :owner, l.leasedUntil = :until " +
+           "WHERE l.name = :name AND (l.owner = :owner OR l.leasedUntil < :now)")
+    int acquire(@Param("name") String name, @Param("owner") String owner, @Param("until") LocalDateTime until,
+                @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,16 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row count and latest update time of one study's rows in a table; together
+ * they change whenever a row is added, removed or updated.
+ */
+public interface StudyChangeView {
+
+    Long getStudyId();
+
+    long getRowCount();
+
+    LocalDateTime getLastUpdated();
+}
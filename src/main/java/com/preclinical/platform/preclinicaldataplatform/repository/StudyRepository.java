@@ -5,6 +5,7 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +13,7 @@ import org.springframework.stereotype.Repository;
 
 import com.preclinical.platform.preclinicaldataplatform.entity.Study;
 
+import jakarta.persistence.LockModeType;
 import jakarta.transaction.Transactional;
 
 @Repository
@@ -21,6 +23,11 @@ public interface StudyRepository extends JpaRepository<Study, Long> {
     
     List<Study> findByStatus(Study.StudyStatus status);
     
+    // Serializes per-study bookkeeping such as enrollment bucket increments
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM Study s WHERE s.id = :id")
+    Optional<Study> findByIdForUpdate(@Param("id") Long id);
+    
     @Query("SELECT s FROM Study s WHERE s.phase = :phase AND s.status = :status")
     List<Study> findByPhaseAndStatus(@Param("phase") Study.StudyPhase phase, 
                                     @Param("status") Study.StudyStatus status);
@@ -0,0 +1,22 @@
+package com.preclinical.platform.preclinicaldataplatform.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.StudySafetyAggregate;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface StudySafetyAggregateRepository extends JpaRepository<StudySafetyAggregate, Long> {
+    
+    // Row lock so concurrent adverse event inserts for the same study apply their increments one at a time
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM StudySafetyAggregate a WHERE a.studyId = :studyId")
+    Optional<StudySafetyAggregate> findByStudyIdForUpdate(@Param("studyId") Long studyId);
+}
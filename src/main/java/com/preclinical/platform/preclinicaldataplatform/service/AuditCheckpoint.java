@@ -0,0 +1,83 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+/**
+ * Commitment to a prefix of one journal segment: the chain hash after its
+ * last covered record and the Merkle root over the segment's records up to
+ * there. Checkpoints are chained to each other as well, so none can be
+ * dropped or rewritten without breaking every later one. The sealing
+ * checkpoint of a segment covers all of its records.
+ *
+ * <p>Layout (big-endian, {@value #BYTES} bytes):
+ * <pre>
+ * checkpoint = segmentFirstSequence:i64 lastSequence:i64 recordCount:i64
+ *              sealed:u8 createdAt:i64 chainHash merkleRoot
+ *              previousCheckpointHash checkpointHash          (32 bytes each)
+ * </pre>
+ * {@code checkpointHash} is the SHA-256 of everything before it.
+ */
+public record AuditCheckpoint(long segmentFirstSequence, long lastSequence, long recordCount, boolean sealed,
+                              long createdAt, byte[] chainHash, byte[] merkleRoot,
+                              byte[] previousCheckpointHash, byte[] checkpointHash) {
+
+    public static final int BYTES = 4 * Long.BYTES + 1 + 4 * AuditHashes.HASH_BYTES;
+    private static final int HASHED_BYTES = BYTES - AuditHashes.HASH_BYTES;
+
+    public static AuditCheckpoint create(AuditCheckpoint previous, long segmentFirstSequence, long lastSequence,
+                                         long recordCount, boolean sealed, byte[] chainHash, byte[] merkleRoot) {
+        byte[] previousHash = previous != null ? previous.checkpointHash() : AuditHashes.GENESIS;
+        AuditCheckpoint unsigned = new AuditCheckpoint(segmentFirstSequence, lastSequence, recordCount, sealed,
+                System.currentTimeMillis(), chainHash, merkleRoot, previousHash, null);
+        return unsigned.withHash(unsigned.computeHash());
+    }
+
+    public static AuditCheckpoint decode(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long segmentFirstSequence = buffer.getLong();
+        long lastSequence = buffer.getLong();
+        long recordCount = buffer.getLong();
+        boolean sealed = buffer.get() != 0;
+        long createdAt = buffer.getLong();
+        return new AuditCheckpoint(segmentFirstSequence, lastSequence, recordCount, sealed, createdAt,
+                hash(buffer), hash(buffer), hash(buffer), hash(buffer));
+    }
+
+    public byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(BYTES);
+        buffer.putLong(segmentFirstSequence)
+                .putLong(lastSequence)
+                .putLong(recordCount)
+                .put((byte) (sealed ? 1 : 0))
+                .putLong(createdAt)
+                .put(chainHash)
+                .put(merkleRoot)
+                .put(previousCheckpointHash)
+                .put(checkpointHash != null ? checkpointHash : AuditHashes.GENESIS);
+        return buffer.array();
+    }
+
+    public byte[] computeHash() {
+        MessageDigest digest = AuditHashes.sha256();
+        digest.update(encode(), 0, HASHED_BYTES);
+        return digest.digest();
+    }
+
+    public boolean follows(AuditCheckpoint previous) {
+        byte[] expected = previous != null ? previous.checkpointHash() : AuditHashes.GENESIS;
+        return Arrays.equals(previousCheckpointHash, expected) && Arrays.equals(checkpointHash, computeHash());
+    }
+
+    private AuditCheckpoint withHash(byte[] hash) {
+        return new AuditCheckpoint(segmentFirstSequence, lastSequence, recordCount, sealed, createdAt,
+                chainHash, merkleRoot, previousCheckpointHash, hash);
+    }
+
+    private static byte[] hash(ByteBuffer buffer) {
+        byte[] hash = new byte[AuditHashes.HASH_BYTES];
+        buffer.get(hash);
+        return hash;
+    }
+}
@@ -0,0 +1,177 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only file of {@link AuditCheckpoint}s next to the journal
+ * segments. A partly written last entry left by a crash is cut off on open;
+ * any other damage is left in place for verification to report.
+ *
+ * <p>The newest checkpoint's position and hash are also written to an
+ * anchor file outside the journal directory, so segments and log rewritten
+ * together still fail verification. The anchor only moves on while the log
+ * holds the checkpoint it names; a log that no longer matches is never
+ * anchored by the journal itself.
+ */
+@Slf4j
+public class AuditCheckpointLog {
+
+    public static final String FILE_NAME = "checkpoints.log";
+
+    private final FileChannel channel;
+    private final Path anchorFile;
+    private final List<AuditCheckpoint> checkpoints = new CopyOnWriteArrayList<>();
+    private boolean anchored;
+
+    private AuditCheckpointLog(FileChannel channel, Path anchorFile) {
+        this.channel = channel;
+        this.anchorFile = anchorFile;
+    }
+
+    public static AuditCheckpointLog open(Path directory, Path anchorFile) throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(FILE_NAME), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        AuditCheckpointLog checkpointLog = new AuditCheckpointLog(channel, anchorFile);
+        long complete = channel.size() - channel.size() % AuditCheckpoint.BYTES;
+        if (complete < channel.size()) {
+            channel.truncate(complete);
+            channel.force(true);
+        }
+        checkpointLog.checkpoints.addAll(read(channel, complete));
+        channel.position(complete);
+        try {
+            Anchor anchor = readAnchor(anchorFile);
+            checkpointLog.anchored = anchor != null ? anchor.matches(checkpointLog.checkpoints)
+                    : checkpointLog.checkpoints.isEmpty();
+        } catch (IOException e) {
+            log.error("Cannot read audit anchor {}", anchorFile, e);
+        }
+        if (!checkpointLog.anchored) {
+            log.error("Audit checkpoint log in {} does not match its anchor {}; the anchor is left unchanged",
+                    directory, anchorFile);
+        }
+        return checkpointLog;
+    }
+
+    // Null if there is no anchor file yet
+    public static Anchor readAnchor(Path anchorFile) throws IOException {
+        if (!Files.exists(anchorFile)) {
+            return null;
+        }
+        String[] fields = Files.readString(anchorFile, StandardCharsets.US_ASCII).trim().split(" ");
+        try {
+            return new Anchor(Integer.parseInt(fields[0]), HexFormat.of().parseHex(fields[1]));
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed audit anchor " + anchorFile, e);
+        }
+    }
+
+    // Writer thread only; the checkpoint is on disk before it is returned to readers
+    public synchronized AuditCheckpoint append(long segmentFirstSequence, long lastSequence, long recordCount,
+                                               boolean sealed, byte[] chainHash, byte[] merkleRoot)
+            throws IOException {
+        AuditCheckpoint checkpoint = AuditCheckpoint.create(latest(), segmentFirstSequence, lastSequence,
+                recordCount, sealed, chainHash, merkleRoot);
+        ByteBuffer buffer = ByteBuffer.wrap(checkpoint.encode());
+        long position = channel.position();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            // Keeps entries aligned for the next attempt
+            try {
+                channel.truncate(position);
+                channel.position(position);
+            } catch (IOException truncateFailure) {
+                e.addSuppressed(truncateFailure);
+            }
+            throw e;
+        }
+        checkpoints.add(checkpoint);
+        if (anchored) {
+            writeAnchor(checkpoints.size() - 1, checkpoint);
+        }
+        return checkpoint;
+    }
+
+    public List<AuditCheckpoint> checkpoints() {
+        return List.copyOf(checkpoints);
+    }
+
+    public AuditCheckpoint latest() {
+        return checkpoints.isEmpty() ? null : checkpoints.get(checkpoints.size() - 1);
+    }
+
+    public AuditCheckpoint latestFor(long segmentFirstSequence) {
+        AuditCheckpoint latest = null;
+        for (AuditCheckpoint checkpoint : checkpoints) {
+            if (checkpoint.segmentFirstSequence() == segmentFirstSequence) {
+                latest = checkpoint;
+            }
+        }
+        return latest;
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Written after the checkpoint is on disk, so the anchor is at most one checkpoint behind the log
+    private void writeAnchor(int index, AuditCheckpoint checkpoint) {
+        Path temporary = anchorFile.resolveSibling(anchorFile.getFileName() + ".tmp");
+        try {
+            try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.wrap((index + " " + AuditHashes.hex(checkpoint.checkpointHash()) + "\n")
+                        .getBytes(StandardCharsets.US_ASCII));
+                while (buffer.hasRemaining()) {
+                    file.write(buffer);
+                }
+                file.force(true);
+            }
+            Files.move(temporary, anchorFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The checkpoint stands; the anchor catches up with the next one
+            log.error("Cannot update audit anchor {}", anchorFile, e);
+        }
+    }
+
+    private static List<AuditCheckpoint> read(FileChannel channel, long size) throws IOException {
+        List<AuditCheckpoint> checkpoints = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(AuditCheckpoint.BYTES);
+        for (long position = 0; position < size; position += AuditCheckpoint.BYTES) {
+            buffer.clear();
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Audit checkpoint log ended early at " + position);
+                }
+            }
+            checkpoints.add(AuditCheckpoint.decode(buffer.array().clone()));
+        }
+        return checkpoints;
+    }
+
+    public record Anchor(int index, byte[] checkpointHash) {
+
+        public boolean matches(List<AuditCheckpoint> checkpoints) {
+            return index >= 0 && index < checkpoints.size()
+                    && Arrays.equals(checkpointHash, checkpoints.get(index).checkpointHash());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import org.springframework.stereotype.Component;
+
+import com.preclinical.platform.preclinicaldataplatform.event.EfficacyMeasurementRecordedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.PatientEnrolledEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.PatientStatusChangedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.PatientUpdatedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.SeriousAdverseEventAlert;
+import com.preclinical.platform.preclinicaldataplatform.event.SeriousAdverseEventBatchAlert;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyCreatedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyStatusChangedEvent;
+
+/**
+ * Writes the audit trail for committed domain events through the
+ * {@link DomainEventDispatcher}. The handler is open for replay from the
+ * outbox, e.g. to rebuild a lost journal; {@link AuditService} skips the
+ * entries of events the journal already holds.
+ */
+@Component
+public class AuditEventHandlers {
+
+    private static final String HANDLER = "audit";
+
+    public AuditEventHandlers(DomainEventDispatcher dispatcher, AuditService auditService) {
+        dispatcher.allowReplay(HANDLER);
+        dispatcher.subscribe(StudyCreatedEvent.class, HANDLER,
+                event -> auditService.logStudyCreation(event.getStudy()));
+        dispatcher.subscribe(StudyStatusChangedEvent.class, HANDLER,
+                event -> auditService.logStudyStatusChange(event.getStudy(), event.getOldStatus(), event.getNewStatus()));
+        dispatcher.subscribe(PatientEnrolledEvent.class, HANDLER,
+                event -> auditService.logPatientEnrollment(event.getPatient()));
+        dispatcher.subscribe(PatientUpdatedEvent.class, HANDLER,
+                event -> auditService.logPatientUpdate(event.getPatient()));
+        dispatcher.subscribe(PatientStatusChangedEvent.class, HANDLER,
+                event -> auditService.logPatientStatusChange(event.getPatient(), event.getOldStatus(), event.getNewStatus()));
+        dispatcher.subscribe(EfficacyMeasurementRecordedEvent.class, HANDLER,
+                event -> auditService.logEfficacyMeasurement(event.getMeasurement()));
+        dispatcher.subscribe(SeriousAdverseEventAlert.class, HANDLER,
+                event -> auditService.logSeriousAdverseEvent(event.getAdverseEvent()));
+        dispatcher.subscribe(SeriousAdverseEventBatchAlert.class, HANDLER,
+                event -> auditService.logSeriousAdverseEvents(event.getAdverseEvents()));
+    }
+}
@@ -0,0 +1,56 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 steps of the audit journal's hash chain and Merkle trees.
+ *
+ * <p>The chain hash after a record is {@code H(previous || frame)}, starting
+ * from {@link #GENESIS} before the first record of the journal. Merkle trees
+ * follow RFC 6962: leaves are {@code H(0x00 || frame)} and inner nodes
+ * {@code H(0x01 || left || right)}, so a leaf can never pass for a node.
+ */
+public final class AuditHashes {
+
+    public static final int HASH_BYTES = 32;
+    public static final byte[] GENESIS = new byte[HASH_BYTES];
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    private AuditHashes() {
+    }
+
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public static byte[] chain(MessageDigest digest, byte[] previous, byte[] frame) {
+        digest.update(previous);
+        digest.update(frame);
+        return digest.digest();
+    }
+
+    public static byte[] leaf(MessageDigest digest, byte[] frame) {
+        digest.update(LEAF_PREFIX);
+        digest.update(frame);
+        return digest.digest();
+    }
+
+    public static byte[] node(MessageDigest digest, byte[] left, byte[] right) {
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    public static String hex(byte[] hash) {
+        return hash != null ? HexFormat.of().formatHex(hash) : null;
+    }
+}
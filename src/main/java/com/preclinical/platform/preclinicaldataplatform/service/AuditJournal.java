@@ -0,0 +1,454 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditRecord;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only audit journal. Records go through one writer thread that
+ * takes everything queued since its last write, appends it to the active
+ * segment and forces it to disk once, so concurrent appenders share an
+ * fsync (group commit). An append returns once its record is durable.
+ *
+ * <p>Segments are rotated at {@code segmentMaxBytes} and sealed with an
+ * index by study and patient, see {@link AuditJournalSegment}. On start the
+ * last segment is checked and a torn tail is cut off. The directory has to
+ * be configured; a journal holds a lock on it while it runs, and a second one
+ * on the same directory fails to start.
+ *
+ * <p>Records written for an outbox event carry its id, and the segments
+ * index them by it, so a redelivered or replayed event can be recognised.
+ * That only holds within one journal, and each node has its own, so outbox
+ * events are relayed by a single node at a time, the holder of the
+ * {@link OutboxRelayLease}. If the lease moves, the trail continues in the
+ * new holder's journal.
+ *
+ * <p>Records form one hash chain across segments. Every
+ * {@code checkpointInterval} records, on rotation and on close the writer
+ * appends an {@link AuditCheckpoint} of the active segment to the
+ * {@link AuditCheckpointLog}, whose newest checkpoint is anchored in
+ * {@code anchorFile} outside the journal directory; {@link AuditVerifier}
+ * checks the segments against them.
+ *
+ * <p>Metrics: {@code preclinical.audit.journal.commit} (write and fsync per
+ * batch), {@code preclinical.audit.journal.batch.records},
+ * {@code preclinical.audit.journal.queue} and
+ * {@code preclinical.audit.journal.segments}.
+ */
+@Component
+@Slf4j
+public class AuditJournal {
+
+    private static final String LOCK_FILE = "journal.lock";
+
+    private final PreclinicalPlatformProperties properties;
+    private final Path directory;
+    private final Path anchorFile;
+    private final BlockingQueue<PendingRecord> queue;
+    private final List<AuditJournalSegment> segments = new CopyOnWriteArrayList<>();
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final Timer commitTimer;
+    private final DistributionSummary batchRecords;
+    private volatile boolean running = true;
+    private volatile boolean closed;
+
+    // Writer thread only, after construction
+    private AuditJournalSegment active;
+    private long nextSequence;
+    private long recordsSinceCheckpoint;
+    private AuditCheckpointLog checkpointLog;
+    private FileChannel lockChannel;
+
+    public AuditJournal(@Qualifier("auditJournalExecutor") Executor auditJournalExecutor,
+                        MeterRegistry meterRegistry,
+                        PreclinicalPlatformProperties properties) {
+        this.properties = properties;
+        String journalDirectory = properties.getAudit().getJournalDirectory();
+        if (journalDirectory == null || journalDirectory.isBlank()) {
+            throw new IllegalStateException("preclinical.platform.audit.journal-directory is not set");
+        }
+        this.directory = Paths.get(journalDirectory);
+        String anchorFile = properties.getAudit().getAnchorFile();
+        if (anchorFile == null || anchorFile.isBlank()) {
+            throw new IllegalStateException("preclinical.platform.audit.anchor-file is not set");
+        }
+        this.anchorFile = Paths.get(anchorFile);
+        if (this.anchorFile.toAbsolutePath().normalize().startsWith(directory.toAbsolutePath().normalize())) {
+            throw new IllegalStateException("The audit anchor file " + anchorFile
+                    + " must be outside the journal directory " + directory);
+        }
+        this.queue = new ArrayBlockingQueue<>(properties.getAudit().getQueueCapacity());
+        this.commitTimer = Timer.builder("preclinical.audit.journal.commit").register(meterRegistry);
+        this.batchRecords = DistributionSummary.builder("preclinical.audit.journal.batch.records")
+                .register(meterRegistry);
+        Gauge.builder("preclinical.audit.journal.queue", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("preclinical.audit.journal.segments", segments, List::size).register(meterRegistry);
+        try {
+            open();
+        } catch (IOException e) {
+            unlock();
+            throw new UncheckedIOException("Cannot open audit journal in " + directory, e);
+        } catch (RuntimeException e) {
+            unlock();
+            throw e;
+        }
+        auditJournalExecutor.execute(this::writeLoop);
+    }
+
+    /**
+     * Queues a record and returns its sequence once it is on disk. Waits
+     * while the queue is full, which slows appenders down to the disk's pace.
+     * A record queued while the journal closes is either written or failed.
+     */
+    public CompletableFuture<Long> submit(AuditRecord record) {
+        if (!running) {
+            throw new IllegalStateException("Audit journal is closed");
+        }
+        PendingRecord pending = new PendingRecord(record, new CompletableFuture<>());
+        try {
+            while (!queue.offer(pending, 200, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    throw new IllegalStateException("Audit journal is closed");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing an audit record", e);
+        }
+        // The writer may have failed what was left before this record arrived
+        if (closed && queue.remove(pending)) {
+            pending.future().completeExceptionally(new IllegalStateException("Audit journal is closed"));
+        }
+        return pending.future();
+    }
+
+    public long append(AuditRecord record) {
+        return await(submit(record));
+    }
+
+    // Appends that arrive together are usually written in one batch
+    public List<Long> appendAll(List<AuditRecord> records) {
+        List<CompletableFuture<Long>> futures = records.stream().map(this::submit).toList();
+        return futures.stream().map(AuditJournal::await).toList();
+    }
+
+    public List<AuditRecord> readStudy(Long studyId, long afterSequence, int limit) {
+        return read(AuditJournalSegment.KEY_STUDY, studyId, afterSequence, limit);
+    }
+
+    public List<AuditRecord> readPatient(Long patientId, long afterSequence, int limit) {
+        return read(AuditJournalSegment.KEY_PATIENT, patientId, afterSequence, limit);
+    }
+
+    // Only segments whose outbox ids span the id are searched, usually just the active one
+    public List<AuditRecord> readOutboxEvent(Long outboxEventId) {
+        return read(AuditJournalSegment.KEY_OUTBOX, outboxEventId, 0, Integer.MAX_VALUE);
+    }
+
+    public List<AuditJournalSegment> segments() {
+        return List.copyOf(segments);
+    }
+
+    public List<AuditCheckpoint> checkpoints() {
+        return checkpointLog.checkpoints();
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public Path anchorFile() {
+        return anchorFile;
+    }
+
+    @PreDestroy
+    public void close() {
+        running = false;
+        try {
+            if (!stopped.await(10, TimeUnit.SECONDS)) {
+                log.warn("Audit journal writer did not stop; {} records not written", queue.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<AuditRecord> read(byte keyKind, Long key, long afterSequence, int limit) {
+        List<AuditRecord> records = new ArrayList<>();
+        try {
+            for (AuditJournalSegment segment : segments) {
+                if (records.size() == limit) {
+                    break;
+                }
+                records.addAll(segment.read(keyKind, key, afterSequence, limit - records.size()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read audit journal", e);
+        }
+        return records;
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        lock();
+        if (anchorFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(anchorFile.toAbsolutePath().getParent());
+        }
+        checkpointLog = AuditCheckpointLog.open(directory, anchorFile);
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.getFileName().toString().matches("audit-\\d{20}\\.seg"))
+                    .sorted()
+                    .toList();
+        }
+        for (int i = 0; i < paths.size() - 1; i++) {
+            segments.add(AuditJournalSegment.openSealed(paths.get(i)));
+        }
+        Path last = paths.isEmpty() ? null : paths.get(paths.size() - 1);
+        if (!segments.isEmpty()) {
+            finishInterruptedRotation(segments.get(segments.size() - 1), last);
+        }
+        if (last == null) {
+            active = AuditJournalSegment.create(directory, 1, AuditHashes.GENESIS);
+        } else if (Files.size(last) < AuditJournalSegment.HEADER_BYTES) {
+            // Created by a rotation that crashed before its header was written
+            Files.delete(last);
+            active = AuditJournalSegment.create(directory, AuditJournalSegment.firstSequenceOf(last), anchorAfterSealed());
+        } else {
+            active = AuditJournalSegment.recoverActive(last);
+        }
+        segments.add(active);
+        nextSequence = active.lastSequence() + 1;
+        AuditCheckpoint latest = checkpointLog.latestFor(active.firstSequence());
+        recordsSinceCheckpoint = Math.max(0, active.recordCount() - (latest != null ? latest.recordCount() : 0));
+        log.info("Opened audit journal in {}: {} segments, next sequence {}", directory, segments.size(),
+                nextSequence);
+    }
+
+    // Two journals on one directory would interleave their writes and fork the hash chain
+    private void lock() throws IOException {
+        lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+        FileLock lock;
+        try {
+            lock = lockChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Held by another journal in this JVM
+            lock = null;
+        }
+        if (lock == null) {
+            throw new IllegalStateException("Audit journal in " + directory + " is in use by another journal");
+        }
+    }
+
+    // Closing the channel releases the lock
+    private void unlock() {
+        if (lockChannel == null) {
+            return;
+        }
+        try {
+            lockChannel.close();
+        } catch (IOException e) {
+            log.warn("Cannot release the lock on audit journal {}", directory, e);
+        }
+        lockChannel = null;
+    }
+
+    private void writeLoop() {
+        int maxRecords = properties.getAudit().getGroupCommitMaxRecords();
+        List<PendingRecord> batch = new ArrayList<>(maxRecords);
+        try {
+            while (running || !queue.isEmpty()) {
+                PendingRecord first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.clear();
+                batch.add(first);
+                queue.drainTo(batch, maxRecords - 1);
+                commit(batch);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closed = true;
+            if (recordsSinceCheckpoint > 0) {
+                try {
+                    checkpoint(false);
+                } catch (IOException e) {
+                    log.error("Cannot write the final audit checkpoint of {}", active.path(), e);
+                }
+            }
+            try {
+                active.close();
+                checkpointLog.close();
+            } catch (IOException e) {
+                log.error("Cannot close audit journal segment {}", active.path(), e);
+            }
+            // Anything still queued arrived after the last batch; appenders see closed and fail the rest
+            PendingRecord pending;
+            while ((pending = queue.poll()) != null) {
+                pending.future().completeExceptionally(new IllegalStateException("Audit journal is closed"));
+            }
+            unlock();
+            stopped.countDown();
+        }
+    }
+
+    private void commit(List<PendingRecord> batch) {
+        long start = System.nanoTime();
+        List<byte[]> frames = new ArrayList<>(batch.size());
+        List<AuditRecord> records = new ArrayList<>(batch.size());
+        long firstSequence = nextSequence;
+        try {
+            for (PendingRecord pending : batch) {
+                AuditRecord record = pending.record();
+                record.setSequence(nextSequence++);
+                frames.add(AuditRecordCodec.encode(record));
+                records.add(record);
+            }
+            active.append(frames, records, properties.getAudit().isFsync());
+        } catch (IOException | RuntimeException e) {
+            nextSequence = firstSequence;
+            try {
+                active.rollback();
+            } catch (IOException rollbackFailure) {
+                e.addSuppressed(rollbackFailure);
+            }
+            log.error("Audit journal write of {} records failed", batch.size(), e);
+            batch.forEach(pending -> pending.future().completeExceptionally(e));
+            return;
+        }
+        commitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchRecords.record(batch.size());
+        batch.forEach(pending -> pending.future().complete(pending.record().getSequence()));
+
+        recordsSinceCheckpoint += batch.size();
+        if (active.size() >= properties.getAudit().getSegmentMaxBytes()) {
+            rotate();
+        } else if (recordsSinceCheckpoint >= properties.getAudit().getCheckpointInterval()) {
+            try {
+                checkpoint(false);
+            } catch (IOException e) {
+                // Retried after the next batch
+                log.error("Cannot write audit checkpoint for {}", active.path(), e);
+            }
+        }
+    }
+
+    private void checkpoint(boolean sealed) throws IOException {
+        checkpointLog.append(active.firstSequence(), active.lastSequence(), active.recordCount(), sealed,
+                active.chainHead(), active.merkleRoot());
+        recordsSinceCheckpoint = 0;
+    }
+
+    // The next segment exists before the old one is sealed, so a crash in between leaves a seal to finish, not a gap
+    private void rotate() {
+        AuditJournalSegment next;
+        try {
+            next = AuditJournalSegment.create(directory, nextSequence, active.chainHead());
+        } catch (IOException e) {
+            log.error("Cannot start a new audit journal segment; continuing in {}", active.path(), e);
+            return;
+        }
+        try {
+            checkpoint(true);
+        } catch (IOException e) {
+            log.error("Cannot write the sealing checkpoint of {}; continuing in it", active.path(), e);
+            try {
+                next.close();
+                Files.deleteIfExists(next.path());
+            } catch (IOException cleanupFailure) {
+                log.warn("Cannot remove unused audit journal segment {}", next.path(), cleanupFailure);
+            }
+            return;
+        }
+        try {
+            active.seal(properties.getAudit().isFsync());
+        } catch (IOException e) {
+            // Still readable through its in-memory index; the index file is rebuilt on the next start
+            log.error("Cannot seal audit journal segment {}", active.path(), e);
+            try {
+                active.close();
+            } catch (IOException closeFailure) {
+                log.warn("Cannot close audit journal segment {}", active.path(), closeFailure);
+            }
+        }
+        segments.add(next);
+        active = next;
+        log.info("Rotated audit journal to {}", next.path().getFileName());
+    }
+
+    /**
+     * Writes the sealing checkpoint of a rotation that was interrupted before
+     * it. Only the segment before the active one can be in that state, with
+     * no checkpoint in the log after its own and no records in the next
+     * segment yet; any other missing seal is left for verification to report.
+     */
+    private void finishInterruptedRotation(AuditJournalSegment segment, Path next) throws IOException {
+        AuditCheckpoint latest = checkpointLog.latest();
+        boolean interrupted = latest == null || latest.segmentFirstSequence() < segment.firstSequence()
+                || latest.segmentFirstSequence() == segment.firstSequence() && !latest.sealed();
+        if (!interrupted || Files.size(next) > AuditJournalSegment.HEADER_BYTES) {
+            return;
+        }
+        AuditJournalSegment.Digest digest = AuditJournalSegment.digest(segment.path());
+        checkpointLog.append(segment.firstSequence(), digest.lastSequence(), digest.recordCount(), true,
+                digest.chainHead(), digest.merkleRoot());
+        log.warn("Wrote missing sealing checkpoint for audit journal segment {}", segment.path().getFileName());
+    }
+
+    private byte[] anchorAfterSealed() throws IOException {
+        if (segments.isEmpty()) {
+            return AuditHashes.GENESIS;
+        }
+        AuditJournalSegment previous = segments.get(segments.size() - 1);
+        AuditCheckpoint seal = checkpointLog.latestFor(previous.firstSequence());
+        // Without a seal verification reports the previous segment; the chain still carries on over its records
+        if (seal != null && seal.sealed()) {
+            return seal.chainHash();
+        }
+        return AuditJournalSegment.digest(previous.path()).chainHead();
+    }
+
+    private static long await(CompletableFuture<Long> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Audit record could not be written", e.getCause());
+        }
+    }
+
+    private record PendingRecord(AuditRecord record, CompletableFuture<Long> future) {
+    }
+}
@@ -0,0 +1,576 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditRecord;
+
+/**
+ * One file of the {@link AuditJournal}, named after the sequence of its first
+ * record, with an index of record offsets by study, by patient and by the
+ * outbox event a record was written for.
+ *
+ * <p>While a segment is being written its index is kept in memory. Sealing
+ * writes the index next to the segment as a sorted table, which queries
+ * binary search without loading it:
+ * <pre>
+ * segment = MAGIC version:i32 anchor:32 frame*      (see AuditRecordCodec)
+ * index   = INDEX_MAGIC version:i32 firstSequence:i64 lastSequence:i64
+ *           recordCount:i64 entry*
+ * entry   = keyKind:u8 key:i64 offset:i64           sorted by all three
+ * </pre>
+ * The anchor is the journal's chain hash before the segment's first record
+ * (see {@link AuditHashes}). The segment carries the chain on from there and
+ * keeps a running Merkle root over its frames, which {@link AuditCheckpoint}s
+ * commit to.
+ *
+ * <p>Only the journal's writer thread appends, truncates and seals; reads may
+ * run concurrently from any thread and see committed records only.
+ */
+public class AuditJournalSegment {
+
+    static final int MAGIC = 0x50414A31; // "PAJ1"
+    static final int INDEX_MAGIC = 0x50414931; // "PAI1"
+    static final int VERSION = 3;
+    static final int HEADER_BYTES = 8 + AuditHashes.HASH_BYTES;
+    static final int INDEX_HEADER_BYTES = 32;
+    static final int INDEX_ENTRY_BYTES = 17;
+    static final byte KEY_STUDY = 0;
+    static final byte KEY_PATIENT = 1;
+    static final byte KEY_OUTBOX = 2;
+
+    private final Path path;
+    private final Path indexPath;
+    private final long firstSequence;
+    private final MessageDigest chainDigest = AuditHashes.sha256();
+    private final MerkleAccumulator merkle = new MerkleAccumulator();
+
+    // Writer thread state; the index maps are also read by queries under this segment's lock
+    private FileChannel channel;
+    private final Map<Long, LongList> studyOffsets = new HashMap<>();
+    private final Map<Long, LongList> patientOffsets = new HashMap<>();
+    private final Map<Long, LongList> outboxOffsets = new HashMap<>();
+    // Lets outbox lookups skip segments that cannot hold the id without opening their index
+    private long minOutboxEventId = Long.MAX_VALUE;
+    private long maxOutboxEventId = Long.MIN_VALUE;
+    private volatile long committedSize;
+    private volatile long lastSequence;
+    private volatile boolean sealed;
+    private long recordCount;
+    private byte[] chainHead;
+
+    private AuditJournalSegment(Path path, long firstSequence) {
+        this.path = path;
+        this.indexPath = indexPathOf(path);
+        this.firstSequence = firstSequence;
+        this.lastSequence = firstSequence - 1;
+    }
+
+    public static String fileName(long firstSequence) {
+        return String.format("audit-%020d.seg", firstSequence);
+    }
+
+    public static long firstSequenceOf(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        return Long.parseLong(name.substring("audit-".length(), name.length() - ".seg".length()));
+    }
+
+    static AuditJournalSegment create(Path directory, long firstSequence, byte[] anchor) throws IOException {
+        AuditJournalSegment segment = new AuditJournalSegment(directory.resolve(fileName(firstSequence)), firstSequence);
+        segment.chainHead = anchor.clone();
+        segment.channel = FileChannel.open(segment.path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).put(anchor).flip();
+        while (header.hasRemaining()) {
+            segment.channel.write(header);
+        }
+        segment.channel.force(true);
+        segment.committedSize = HEADER_BYTES;
+        return segment;
+    }
+
+    /**
+     * Opens a segment that was written to the end before. Its index is read
+     * from the index file, or rebuilt by a scan if that file is missing or
+     * damaged (a crash while sealing).
+     */
+    static AuditJournalSegment openSealed(Path path) throws IOException {
+        AuditJournalSegment segment = new AuditJournalSegment(path, firstSequenceOf(path));
+        if (segment.readIndexHeader()) {
+            segment.readOutboxRange();
+        } else {
+            // The scan chains from the anchor like recovery does
+            segment.chainHead = readAnchor(path);
+            segment.scan();
+            segment.writeIndex();
+        }
+        segment.committedSize = Files.size(path);
+        segment.sealed = true;
+        segment.clearIndex();
+        return segment;
+    }
+
+    /**
+     * Opens the last segment for appending. Records are checked against
+     * their checksums and a torn tail left by a crash mid-batch is cut off;
+     * such records were never acknowledged to their callers.
+     */
+    static AuditJournalSegment recoverActive(Path path) throws IOException {
+        AuditJournalSegment segment = new AuditJournalSegment(path, firstSequenceOf(path));
+        segment.chainHead = readAnchor(path);
+        long validSize = segment.scan();
+        segment.channel = FileChannel.open(path, StandardOpenOption.WRITE);
+        if (segment.channel.size() > validSize) {
+            segment.channel.truncate(validSize);
+            segment.channel.force(true);
+        }
+        segment.channel.position(validSize);
+        segment.committedSize = validSize;
+        return segment;
+    }
+
+    public static byte[] readAnchor(Path path) throws IOException {
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream input = new DataInputStream(file)) {
+            readHeader(input, path);
+            byte[] anchor = new byte[AuditHashes.HASH_BYTES];
+            input.readFully(anchor);
+            return anchor;
+        } catch (EOFException e) {
+            throw new IOException("Audit journal segment has no header: " + path, e);
+        }
+    }
+
+    /**
+     * Chain hash and Merkle root over all of a segment's records, for
+     * sealing a segment whose rotation was interrupted.
+     */
+    static Digest digest(Path path) throws IOException {
+        MessageDigest digest = AuditHashes.sha256();
+        MerkleAccumulator merkle = new MerkleAccumulator();
+        byte[][] chainHead = {readAnchor(path)};
+        long[] lastSequence = {firstSequenceOf(path) - 1};
+        readFrames(path, Long.MAX_VALUE, (record, frame, offset) -> {
+            chainHead[0] = AuditHashes.chain(digest, chainHead[0], frame);
+            merkle.addFrame(frame);
+            lastSequence[0] = record.getSequence();
+        });
+        return new Digest(merkle.leafCount(), lastSequence[0], chainHead[0], merkle.root());
+    }
+
+    /**
+     * Writes a batch of encoded records, forces it to disk when asked and
+     * only then makes the records visible to readers and carries the hash
+     * chain on over them.
+     */
+    void append(List<byte[]> frames, List<AuditRecord> records, boolean fsync) throws IOException {
+        int length = frames.stream().mapToInt(frame -> frame.length).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        frames.forEach(buffer::put);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        synchronized (this) {
+            long offset = committedSize;
+            for (int i = 0; i < records.size(); i++) {
+                index(records.get(i), offset);
+                offset += frames.get(i).length;
+            }
+            recordCount += records.size();
+        }
+        for (byte[] frame : frames) {
+            chainHead = AuditHashes.chain(chainDigest, chainHead, frame);
+            merkle.addFrame(frame);
+        }
+        lastSequence = records.get(records.size() - 1).getSequence();
+        committedSize += length;
+    }
+
+    // Drops bytes of a batch that failed part way through
+    void rollback() throws IOException {
+        channel.truncate(committedSize);
+        channel.position(committedSize);
+    }
+
+    /**
+     * Forces the segment, writes its index file and closes it for writing.
+     * On failure the segment stays open and is indexed in memory; the index
+     * file is rebuilt on the next start.
+     */
+    void seal(boolean fsync) throws IOException {
+        if (fsync) {
+            channel.force(true);
+        }
+        writeIndex();
+        synchronized (this) {
+            sealed = true;
+            clearIndex();
+        }
+        channel.close();
+        channel = null;
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    /**
+     * Records of one study, patient or outbox event with a sequence after
+     * {@code afterSequence}, in sequence order, at most {@code limit}.
+     */
+    public List<AuditRecord> read(byte keyKind, long key, long afterSequence, int limit) throws IOException {
+        List<AuditRecord> records = new ArrayList<>();
+        if (lastSequence <= afterSequence || limit <= 0) {
+            return records;
+        }
+        long[] offsets = offsetsOf(keyKind, key);
+        long visible = committedSize;
+        try (FileChannel reader = FileChannel.open(path, StandardOpenOption.READ)) {
+            for (long offset : offsets) {
+                if (offset >= visible) {
+                    break;
+                }
+                AuditRecord record = readAt(reader, offset);
+                if (record.getSequence() > afterSequence) {
+                    records.add(record);
+                    if (records.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    public long firstSequence() {
+        return firstSequence;
+    }
+
+    public long lastSequence() {
+        return lastSequence;
+    }
+
+    public long size() {
+        return committedSize;
+    }
+
+    public long recordCount() {
+        return recordCount;
+    }
+
+    // Writer thread only, like the chain state it reads
+    byte[] chainHead() {
+        return chainHead;
+    }
+
+    byte[] merkleRoot() {
+        return merkle.root();
+    }
+
+    public boolean isSealed() {
+        return sealed;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    private long[] offsetsOf(byte keyKind, long key) throws IOException {
+        synchronized (this) {
+            if (keyKind == KEY_OUTBOX && (key < minOutboxEventId || key > maxOutboxEventId)) {
+                return new long[0];
+            }
+            if (!sealed) {
+                LongList offsets = offsetsByKind(keyKind).get(key);
+                return offsets != null ? offsets.toArray() : new long[0];
+            }
+        }
+        return searchIndex(keyKind, key);
+    }
+
+    private Map<Long, LongList> offsetsByKind(byte keyKind) {
+        return switch (keyKind) {
+            case KEY_STUDY -> studyOffsets;
+            case KEY_PATIENT -> patientOffsets;
+            case KEY_OUTBOX -> outboxOffsets;
+            default -> throw new IllegalArgumentException("Unknown audit index key kind " + keyKind);
+        };
+    }
+
+    // Binary search for the first entry of the key, then a scan over its entries
+    private long[] searchIndex(byte keyKind, long key) throws IOException {
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            long entries = (index.size() - INDEX_HEADER_BYTES) / INDEX_ENTRY_BYTES;
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            LongList offsets = new LongList();
+            for (long i = firstEntryOf(index, entries, keyKind, key, entry); i < entries; i++) {
+                readEntry(index, i, entry);
+                if (entry.get(0) != keyKind || entry.getLong(1) != key) {
+                    break;
+                }
+                offsets.add(entry.getLong(9));
+            }
+            return offsets.toArray();
+        }
+    }
+
+    // Outbox entries sort last, so the first and the last of them bound the segment's outbox ids
+    private void readOutboxRange() throws IOException {
+        try (FileChannel index = FileChannel.open(indexPath, StandardOpenOption.READ)) {
+            long entries = (index.size() - INDEX_HEADER_BYTES) / INDEX_ENTRY_BYTES;
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+            long first = firstEntryOf(index, entries, KEY_OUTBOX, Long.MIN_VALUE, entry);
+            if (first == entries) {
+                return;
+            }
+            readEntry(index, first, entry);
+            minOutboxEventId = entry.getLong(1);
+            readEntry(index, entries - 1, entry);
+            maxOutboxEventId = entry.getLong(1);
+        }
+    }
+
+    // Position of the first entry not before the key, or the entry count if there is none
+    private static long firstEntryOf(FileChannel index, long entries, byte keyKind, long key, ByteBuffer entry)
+            throws IOException {
+        long low = 0;
+        long high = entries;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            readEntry(index, middle, entry);
+            if (compareKey(entry.get(0), entry.getLong(1), keyKind, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void readEntry(FileChannel index, long entry, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        long position = INDEX_HEADER_BYTES + entry * INDEX_ENTRY_BYTES;
+        while (buffer.hasRemaining()) {
+            if (index.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Audit index ended early: " + position);
+            }
+        }
+    }
+
+    private static int compareKey(byte kind, long key, byte otherKind, long otherKey) {
+        return kind != otherKind ? Byte.compare(kind, otherKind) : Long.compare(key, otherKey);
+    }
+
+    private AuditRecord readAt(FileChannel reader, long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(AuditRecordCodec.FRAME_HEADER_BYTES);
+        readFully(reader, header, offset);
+        int length = header.getInt(0);
+        if (length <= 0 || length > AuditRecordCodec.MAX_BODY_BYTES) {
+            throw new IOException("Corrupt audit record at " + path.getFileName() + ":" + offset);
+        }
+        ByteBuffer body = ByteBuffer.allocate(length);
+        readFully(reader, body, offset + AuditRecordCodec.FRAME_HEADER_BYTES);
+        if (AuditRecordCodec.crc(body.array(), 0, length) != header.getInt(4)) {
+            throw new IOException("Checksum mismatch in audit record at " + path.getFileName() + ":" + offset);
+        }
+        return AuditRecordCodec.decodeBody(body.array());
+    }
+
+    private static void readFully(FileChannel reader, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (reader.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Audit segment ended early at " + position);
+            }
+        }
+    }
+
+    /**
+     * Reads the segment from the start, indexing and chaining every intact
+     * record, and returns the offset just past the last one.
+     */
+    private long scan() throws IOException {
+        return readFrames(path, Long.MAX_VALUE, (record, frame, offset) -> {
+            index(record, offset);
+            recordCount++;
+            lastSequence = record.getSequence();
+            chainHead = AuditHashes.chain(chainDigest, chainHead, frame);
+            merkle.addFrame(frame);
+        });
+    }
+
+    /**
+     * Hands every intact frame before {@code limit} to the visitor, in file
+     * order, and returns the offset just past the last one. Stops at the
+     * first frame that is cut off or fails its checksum.
+     */
+    static long readFrames(Path path, long limit, FrameVisitor visitor) throws IOException {
+        try (InputStream file = Files.newInputStream(path);
+             DataInputStream input = new DataInputStream(new BufferedInputStream(file, 64 * 1024))) {
+            readHeader(input, path);
+            input.skipNBytes(AuditHashes.HASH_BYTES);
+            long offset = HEADER_BYTES;
+            while (true) {
+                int length;
+                byte[] frame;
+                try {
+                    length = input.readInt();
+                    int crc = input.readInt();
+                    if (length <= 0 || length > AuditRecordCodec.MAX_BODY_BYTES
+                            || offset + AuditRecordCodec.FRAME_HEADER_BYTES + length > limit) {
+                        return offset;
+                    }
+                    frame = new byte[AuditRecordCodec.FRAME_HEADER_BYTES + length];
+                    ByteBuffer.wrap(frame).putInt(length).putInt(crc);
+                    input.readFully(frame, AuditRecordCodec.FRAME_HEADER_BYTES, length);
+                    if (AuditRecordCodec.crc(frame, AuditRecordCodec.FRAME_HEADER_BYTES, length) != crc) {
+                        return offset;
+                    }
+                } catch (EOFException e) {
+                    return offset;
+                }
+                AuditRecord record = AuditRecordCodec.decodeBody(
+                        Arrays.copyOfRange(frame, AuditRecordCodec.FRAME_HEADER_BYTES, frame.length));
+                visitor.visit(record, frame, offset);
+                offset += frame.length;
+            }
+        }
+    }
+
+    // Version 1 segments predate the hash chain and version 2 records carry no outbox event id
+    private static void readHeader(DataInputStream input, Path path) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not an audit journal segment: " + path);
+        }
+        int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported audit journal segment version " + version + ": " + path);
+        }
+    }
+
+    private void index(AuditRecord record, long offset) {
+        if (record.getStudyId() != null) {
+            studyOffsets.computeIfAbsent(record.getStudyId(), key -> new LongList()).add(offset);
+        }
+        if (record.getPatientId() != null) {
+            patientOffsets.computeIfAbsent(record.getPatientId(), key -> new LongList()).add(offset);
+        }
+        if (record.getOutboxEventId() != null) {
+            outboxOffsets.computeIfAbsent(record.getOutboxEventId(), key -> new LongList()).add(offset);
+            minOutboxEventId = Math.min(minOutboxEventId, record.getOutboxEventId());
+            maxOutboxEventId = Math.max(maxOutboxEventId, record.getOutboxEventId());
+        }
+    }
+
+    // The outbox id range stays, it still bounds lookups in the index file
+    private void clearIndex() {
+        studyOffsets.clear();
+        patientOffsets.clear();
+        outboxOffsets.clear();
+    }
+
+    private boolean readIndexHeader() throws IOException {
+        if (!Files.exists(indexPath) || Files.size(indexPath) < INDEX_HEADER_BYTES
+                || (Files.size(indexPath) - INDEX_HEADER_BYTES) % INDEX_ENTRY_BYTES != 0) {
+            return false;
+        }
+        try (InputStream file = Files.newInputStream(indexPath);
+             DataInputStream input = new DataInputStream(file)) {
+            if (input.readInt() != INDEX_MAGIC || input.readInt() != VERSION || input.readLong() != firstSequence) {
+                return false;
+            }
+            lastSequence = input.readLong();
+            recordCount = input.readLong();
+            return true;
+        }
+    }
+
+    // Written under a temporary name and moved into place, so a crash never leaves half an index
+    private void writeIndex() throws IOException {
+        Path temporary = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(file), 64 * 1024))) {
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(VERSION);
+            output.writeLong(firstSequence);
+            output.writeLong(lastSequence);
+            output.writeLong(recordCount);
+            synchronized (this) {
+                writeEntries(output, KEY_STUDY, studyOffsets);
+                writeEntries(output, KEY_PATIENT, patientOffsets);
+                writeEntries(output, KEY_OUTBOX, outboxOffsets);
+            }
+            output.flush();
+            file.force(true);
+        }
+        Files.move(temporary, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeEntries(DataOutputStream output, byte keyKind, Map<Long, LongList> offsets)
+            throws IOException {
+        for (Map.Entry<Long, LongList> entry : new TreeMap<>(offsets).entrySet()) {
+            for (long offset : entry.getValue().toArray()) {
+                output.writeByte(keyKind);
+                output.writeLong(entry.getKey());
+                output.writeLong(offset);
+            }
+        }
+    }
+
+    static Path indexPathOf(Path segmentPath) {
+        String name = segmentPath.getFileName().toString();
+        return segmentPath.resolveSibling(name.substring(0, name.length() - ".seg".length()) + ".idx");
+    }
+
+    record Digest(long recordCount, long lastSequence, byte[] chainHead, byte[] merkleRoot) {
+    }
+
+    @FunctionalInterface
+    interface FrameVisitor {
+        void visit(AuditRecord record, byte[] frame, long offset) throws IOException;
+    }
+
+    // Offsets without boxing; an active segment indexes up to a few million of them
+    private static final class LongList {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.zip.CRC32C;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditRecord;
+
+/**
+ * Binary form of an {@link AuditRecord} in a journal segment.
+ *
+ * <p>Layout (big-endian):
+ * <pre>
+ * frame = bodyLength:i32 crc32c(body):i32 body
+ * body  = sequence:varint recordedAt:varint action:u8
+ *         studyId:varint patientId:varint entityId:varint
+ *         outboxEventId:varint detailLength:varint detail-utf8
+ * </pre>
+ * {@code recordedAt} is epoch milliseconds. Ids are stored plus one so that
+ * 0 means missing. Details longer than {@link #MAX_DETAIL_LENGTH}
+ * characters are cut. A typical record takes 30 to 60 bytes.
+ */
+public final class AuditRecordCodec {
+
+    public static final int FRAME_HEADER_BYTES = 8;
+    public static final int MAX_DETAIL_LENGTH = 1000;
+    // Longest possible body: six varints, the action and a detail of multi-byte characters
+    static final int MAX_BODY_BYTES = 6 * 10 + 1 + 5 + MAX_DETAIL_LENGTH * 3;
+
+    private AuditRecordCodec() {
+    }
+
+    public static byte[] encode(AuditRecord record) {
+        String detail = record.getDetail();
+        if (detail != null && detail.length() > MAX_DETAIL_LENGTH) {
+            detail = detail.substring(0, MAX_DETAIL_LENGTH);
+        }
+        byte[] detailBytes = detail != null ? detail.getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+        ByteBuffer body = ByteBuffer.allocate(6 * 10 + 1 + 5 + detailBytes.length);
+        writeVarLong(body, record.getSequence());
+        writeVarLong(body, toEpochMilli(record.getRecordedAt()));
+        body.put((byte) record.getAction().ordinal());
+        writeVarLong(body, idOrZero(record.getStudyId()));
+        writeVarLong(body, idOrZero(record.getPatientId()));
+        writeVarLong(body, idOrZero(record.getEntityId()));
+        writeVarLong(body, idOrZero(record.getOutboxEventId()));
+        writeVarLong(body, detailBytes.length);
+        body.put(detailBytes);
+        body.flip();
+
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_BYTES + body.remaining());
+        frame.putInt(body.remaining());
+        frame.putInt(crc(body.array(), 0, body.remaining()));
+        frame.put(body);
+        return frame.array();
+    }
+
+    public static AuditRecord decodeBody(byte[] body) throws IOException {
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(body);
+            long sequence = readVarLong(buffer);
+            long recordedAt = readVarLong(buffer);
+            int action = buffer.get() & 0xFF;
+            Long studyId = idOrNull(readVarLong(buffer));
+            Long patientId = idOrNull(readVarLong(buffer));
+            Long entityId = idOrNull(readVarLong(buffer));
+            Long outboxEventId = idOrNull(readVarLong(buffer));
+            int detailLength = (int) readVarLong(buffer);
+            byte[] detail = new byte[detailLength];
+            buffer.get(detail);
+            if (action >= AuditRecord.Action.values().length) {
+                throw new IOException("Unknown audit action " + action);
+            }
+            return AuditRecord.builder()
+                    .sequence(sequence)
+                    .recordedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(recordedAt), ZoneId.systemDefault()))
+                    .action(AuditRecord.Action.values()[action])
+                    .studyId(studyId)
+                    .patientId(patientId)
+                    .entityId(entityId)
+                    .detail(detailLength > 0 ? new String(detail, StandardCharsets.UTF_8) : null)
+                    .outboxEventId(outboxEventId)
+                    .build();
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IOException("Truncated audit record", e);
+        }
+    }
+
+    public static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static long toEpochMilli(LocalDateTime recordedAt) {
+        return recordedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long idOrZero(Long id) {
+        return id != null ? id + 1 : 0;
+    }
+
+    private static Long idOrNull(long stored) {
+        return stored != 0 ? stored - 1 : null;
+    }
+
+    private static void writeVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = buffer.get() & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+}
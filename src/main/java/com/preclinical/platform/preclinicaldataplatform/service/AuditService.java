@@ -1,9 +1,15 @@
 package com.preclinical.platform.preclinicaldataplatform.service;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
 import org.springframework.stereotype.Service;
 
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditHistoryPage;
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditRecord;
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditVerificationReport;
 import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
 import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
 import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
@@ -11,50 +17,145 @@ import com.preclinical.platform.preclinicaldataplatform.entity.Study;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Records audit trail entries in the {@link AuditJournal}. Each method
+ * returns once its entry is on disk, so an outbox event is only marked
+ * delivered after its audit entry is durable. Entries are hash chained and
+ * checkpointed by the journal and checked by {@link AuditVerifier}.
+ *
+ * <p>Entries written while an outbox event is delivered carry its id and are
+ * stamped with the time the event was written, not the time it reached the
+ * journal, so a delivery delayed by retries or a replay keeps the time of
+ * the change. An event that is delivered again, after a relay died before marking it done
+ * or through a replay, only writes the entries the journal does not have.
+ */
 @Service
 @Slf4j
 public class AuditService {
-	private static final Logger log = LoggerFactory.getLogger(AuditService.class);
+
+	private final AuditJournal auditJournal;
+	private final AuditVerifier auditVerifier;
+	private final DomainEventDispatcher dispatcher;
+
+	public AuditService(AuditJournal auditJournal, AuditVerifier auditVerifier, DomainEventDispatcher dispatcher) {
+		this.auditJournal = auditJournal;
+		this.auditVerifier = auditVerifier;
+		this.dispatcher = dispatcher;
+	}
+
 	public void logStudyCreation(Study study) {
-		log.info("AUDIT: Study created - ID: {}, Code: {}", study.getId(), study.getStudyCode());
+		append(entry(AuditRecord.Action.STUDY_CREATED, study.getId(), null, study.getId(),
+				study.getStudyCode()));
 	}
 
 	public void logPatientEnrollment(Patient patient) {
-		log.info("AUDIT: Patient enrolled - ID: {}, Code: {}, Study: {}", patient.getId(), patient.getPatientCode(),
-				patient.getStudy().getStudyCode());
+		append(entry(AuditRecord.Action.PATIENT_ENROLLED, studyIdOf(patient), patient.getId(),
+				patient.getId(), patient.getPatientCode()));
 	}
 
 	public void logSeriousAdverseEvent(AdverseEvent adverseEvent) {
-		log.error("AUDIT: SAE reported - ID: {}, Term: {}, Patient: {}", adverseEvent.getId(),
-				adverseEvent.getEventTerm(), adverseEvent.getPatient().getPatientCode());
+		append(seriousAdverseEventEntry(adverseEvent));
+	}
+
+	// One batch alert becomes one journal write rather than one per event
+	public void logSeriousAdverseEvents(List<AdverseEvent> adverseEvents) {
+		appendAll(adverseEvents.stream().map(this::seriousAdverseEventEntry).toList());
 	}
 
 	public void logStudyStatusChange(Study study, Study.StudyStatus oldStatus, Study.StudyStatus newStatus) {
-		log.info("AUDIT: Study status changed - Study: {}, From: {}, To: {}", study.getStudyCode(), oldStatus,
-				newStatus);
+		append(entry(AuditRecord.Action.STUDY_STATUS_CHANGED, study.getId(), null, study.getId(),
+				oldStatus + " -> " + newStatus));
 	}
 
 	public void logEfficacyMeasurement(EfficacyMeasurement measurement) {
-		log.debug("AUDIT: Measurement recorded - Type: {}, Value: {}, Patient: {}", measurement.getMeasurementType(),
-				measurement.getMeasurementValue(), measurement.getPatient().getPatientCode());
+		Patient patient = measurement.getPatient();
+		append(entry(AuditRecord.Action.MEASUREMENT_RECORDED,
+				measurement.getStudy() != null ? measurement.getStudy().getId() : studyIdOf(patient),
+				patient != null ? patient.getId() : null, measurement.getId(),
+				measurement.getMeasurementType() + " = " + measurement.getMeasurementValue()));
 	}
-	
+
 	public void logPatientUpdate(Patient patient) {
-	    try {
-	        log.info("AUDIT: Patient updated - Code: {}, Study: {}", 
-	                patient.getPatientCode(),
-	                patient.getStudy() != null ? patient.getStudy().getStudyCode() : "unknown");
-	    } catch (Exception e) {
-	        log.info("AUDIT: Patient updated");
-	    }
+		append(entry(AuditRecord.Action.PATIENT_UPDATED, studyIdOf(patient), patient.getId(),
+				patient.getId(), patient.getPatientCode()));
 	}
 
 	public void logPatientStatusChange(Patient patient, Patient.PatientStatus oldStatus, Patient.PatientStatus newStatus) {
-	    try {
-	        log.info("AUDIT: Patient status changed - Patient: {}, From: {}, To: {}", 
-	                patient.getPatientCode(), oldStatus, newStatus);
-	    } catch (Exception e) {
-	        log.info("AUDIT: Patient status changed from {} to {}", oldStatus, newStatus);
-	    }
-	}
-}
\ No newline at end of file
+		append(entry(AuditRecord.Action.PATIENT_STATUS_CHANGED, studyIdOf(patient), patient.getId(),
+				patient.getId(), oldStatus + " -> " + newStatus));
+	}
+
+	public AuditHistoryPage getStudyHistory(Long studyId, long afterSequence, int size) {
+		return page(auditJournal.readStudy(studyId, afterSequence, size + 1), size);
+	}
+
+	public AuditHistoryPage getPatientHistory(Long patientId, long afterSequence, int size) {
+		return page(auditJournal.readPatient(patientId, afterSequence, size + 1), size);
+	}
+
+	public AuditVerificationReport verifyIntegrity(AuditVerificationReport.Mode mode) {
+		return auditVerifier.verify(mode);
+	}
+
+	// One record more than asked for tells whether another page follows
+	private static AuditHistoryPage page(List<AuditRecord> records, int size) {
+		boolean hasMore = records.size() > size;
+		List<AuditRecord> page = hasMore ? records.subList(0, size) : records;
+		return AuditHistoryPage.builder()
+				.records(page)
+				.size(page.size())
+				.hasMore(hasMore)
+				.nextAfterSequence(page.isEmpty() ? null : page.get(page.size() - 1).getSequence())
+				.build();
+	}
+
+	private void append(AuditRecord entry) {
+		appendAll(List.of(entry));
+	}
+
+	// Within one outbox event the entries differ by the entity they concern
+	private void appendAll(List<AuditRecord> entries) {
+		Long outboxEventId = dispatcher.currentOutboxEventId();
+		LocalDateTime occurredAt = dispatcher.currentEventTime();
+		List<AuditRecord> missing = entries;
+		if (occurredAt != null) {
+			entries.forEach(entry -> entry.setRecordedAt(occurredAt));
+		}
+		if (outboxEventId != null) {
+			entries.forEach(entry -> entry.setOutboxEventId(outboxEventId));
+			List<AuditRecord> journaled = auditJournal.readOutboxEvent(outboxEventId);
+			if (!journaled.isEmpty()) {
+				Set<Long> written = journaled.stream().map(AuditRecord::getEntityId).collect(Collectors.toSet());
+				missing = entries.stream().filter(entry -> !written.contains(entry.getEntityId())).toList();
+				log.info("Outbox event {} is already in the audit journal; writing {} of {} entries",
+						outboxEventId, missing.size(), entries.size());
+			}
+		}
+		if (!missing.isEmpty()) {
+			auditJournal.appendAll(missing);
+		}
+	}
+
+	private AuditRecord seriousAdverseEventEntry(AdverseEvent adverseEvent) {
+		return entry(AuditRecord.Action.SAE_REPORTED,
+				adverseEvent.getStudy() != null ? adverseEvent.getStudy().getId() : null,
+				adverseEvent.getPatient() != null ? adverseEvent.getPatient().getId() : null,
+				adverseEvent.getId(), adverseEvent.getEventTerm());
+	}
+
+	private static AuditRecord entry(AuditRecord.Action action, Long studyId, Long patientId, Long entityId,
+			String detail) {
+		return AuditRecord.builder()
+				.recordedAt(LocalDateTime.now())
+				.action(action)
+				.studyId(studyId)
+				.patientId(patientId)
+				.entityId(entityId)
+				.detail(detail)
+				.build();
+	}
+
+	private static Long studyIdOf(Patient patient) {
+		return patient != null && patient.getStudy() != null ? patient.getStudy().getId() : null;
+	}
+}
@@ -0,0 +1,324 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditRecord;
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditVerificationReport;
+import com.preclinical.platform.preclinicaldataplatform.excception.AuditVerificationInProgressException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Checks the audit journal against its checkpoints. The checkpoint log is
+ * walked as a chain, then every segment is re-hashed from its anchor on
+ * {@code auditVerificationPool}, one task per segment, comparing the chain
+ * hash and Merkle root at each checkpoint. Segments link up through their
+ * anchors and sealing checkpoints, so a record cannot be changed, removed or
+ * inserted anywhere without a mismatch. The log itself is checked against
+ * the anchor the journal keeps outside its directory, so it cannot be
+ * rewritten along with the segments either.
+ *
+ * <p>After a clean run the last checkpoint is remembered in
+ * {@value #STATE_FILE}. An incremental run checks that this checkpoint is
+ * unchanged and then only re-hashes segments that received checkpoints
+ * since. Records after the newest checkpoint are not covered until the next
+ * one is written.
+ *
+ * <p>One verification runs at a time; a call while one is in progress is
+ * rejected rather than queued behind it.
+ *
+ * <p>Metric: {@code preclinical.audit.verification}, tagged by mode and
+ * outcome.
+ */
+@Service
+@Slf4j
+public class AuditVerifier {
+
+    static final String STATE_FILE = "verification.state";
+
+    private final AuditJournal auditJournal;
+    private final ForkJoinPool auditVerificationPool;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock inProgress = new ReentrantLock();
+
+    public AuditVerifier(AuditJournal auditJournal,
+                         @Qualifier("auditVerificationPool") ForkJoinPool auditVerificationPool,
+                         MeterRegistry meterRegistry) {
+        this.auditJournal = auditJournal;
+        this.auditVerificationPool = auditVerificationPool;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public AuditVerificationReport verify(AuditVerificationReport.Mode mode) {
+        if (!inProgress.tryLock()) {
+            throw new AuditVerificationInProgressException("An audit journal verification is already running");
+        }
+        try {
+            return run(mode);
+        } finally {
+            inProgress.unlock();
+        }
+    }
+
+    private AuditVerificationReport run(AuditVerificationReport.Mode mode) {
+        long start = System.nanoTime();
+        List<String> failures = new ArrayList<>();
+        // The anchor first: it only ever names a checkpoint that is already in the log
+        Path anchorFile = auditJournal.anchorFile();
+        AuditCheckpointLog.Anchor logAnchor = null;
+        try {
+            logAnchor = AuditCheckpointLog.readAnchor(anchorFile);
+        } catch (IOException e) {
+            failures.add("Cannot read " + anchorFile + ": " + e.getMessage());
+        }
+        // Segments next: any segment rotated out before this point already has its sealing checkpoint
+        List<AuditJournalSegment> segments = auditJournal.segments();
+        List<AuditCheckpoint> checkpoints = auditJournal.checkpoints();
+        if (logAnchor != null && !logAnchor.matches(checkpoints)) {
+            failures.add("Checkpoint " + logAnchor.index() + " does not match the anchor "
+                    + AuditHashes.hex(logAnchor.checkpointHash()) + " kept in " + anchorFile);
+        } else if (logAnchor == null && !checkpoints.isEmpty() && Files.notExists(anchorFile)) {
+            failures.add("No anchor in " + anchorFile + " for the " + checkpoints.size() + " checkpoints in the log");
+        }
+
+        int firstNew = 0;
+        AuditCheckpoint previous = null;
+        if (mode == AuditVerificationReport.Mode.INCREMENTAL) {
+            VerifiedCheckpoint state = readState(failures);
+            if (state != null && state.index() < checkpoints.size()
+                    && Arrays.equals(state.hash(), checkpoints.get(state.index()).checkpointHash())) {
+                firstNew = state.index() + 1;
+                previous = checkpoints.get(state.index());
+            } else if (state != null) {
+                failures.add("Checkpoint " + state.index() + " no longer matches the last verified checkpoint "
+                        + AuditHashes.hex(state.hash()));
+            }
+        }
+
+        Map<Long, List<AuditCheckpoint>> newCheckpoints = new HashMap<>();
+        Map<Long, AuditCheckpoint> seals = new HashMap<>();
+        for (int i = 0; i < checkpoints.size(); i++) {
+            AuditCheckpoint checkpoint = checkpoints.get(i);
+            if (checkpoint.sealed()) {
+                seals.putIfAbsent(checkpoint.segmentFirstSequence(), checkpoint);
+            }
+            if (i >= firstNew) {
+                if (!checkpoint.follows(previous)) {
+                    failures.add("Checkpoint " + i + " is not chained to the checkpoint before it");
+                }
+                newCheckpoints.computeIfAbsent(checkpoint.segmentFirstSequence(), key -> new ArrayList<>())
+                        .add(checkpoint);
+                previous = checkpoint;
+            }
+        }
+
+        List<CompletableFuture<SegmentResult>> results = new ArrayList<>();
+        for (int i = 0; i < segments.size(); i++) {
+            AuditJournalSegment segment = segments.get(i);
+            boolean last = i == segments.size() - 1;
+            List<AuditCheckpoint> segmentCheckpoints = newCheckpoints.getOrDefault(segment.firstSequence(), List.of());
+            AuditCheckpoint seal = seals.get(segment.firstSequence());
+            if (!last && seal == null) {
+                failures.add("Segment " + segment.firstSequence() + " was rotated out without a sealing checkpoint");
+            }
+            if (mode == AuditVerificationReport.Mode.INCREMENTAL && segmentCheckpoints.isEmpty()) {
+                continue;
+            }
+            byte[] expectedAnchor = AuditHashes.GENESIS;
+            if (i > 0) {
+                AuditCheckpoint previousSeal = seals.get(segments.get(i - 1).firstSequence());
+                expectedAnchor = previousSeal != null ? previousSeal.chainHash() : null;
+                if (previousSeal != null && previousSeal.lastSequence() + 1 != segment.firstSequence()) {
+                    failures.add("Segment " + segment.firstSequence() + " does not follow segment "
+                            + previousSeal.segmentFirstSequence() + ", sealed at " + previousSeal.lastSequence());
+                }
+            } else if (segment.firstSequence() != 1) {
+                failures.add("Journal starts at segment " + segment.firstSequence() + " instead of 1");
+            }
+            // Sealed segments are read to the end so records appended after the seal show up
+            long limit = last ? segment.size() : Long.MAX_VALUE;
+            byte[] anchor = expectedAnchor;
+            results.add(CompletableFuture.supplyAsync(
+                    () -> verifySegment(segment, anchor, segmentCheckpoints, seal, limit), auditVerificationPool));
+        }
+        for (AuditCheckpoint checkpoint : checkpoints.subList(firstNew, checkpoints.size())) {
+            if (segments.stream().noneMatch(segment -> segment.firstSequence() == checkpoint.segmentFirstSequence())
+                    && checkpoint.segmentFirstSequence() < segments.get(segments.size() - 1).firstSequence()) {
+                failures.add("Checkpoint at sequence " + checkpoint.lastSequence() + " refers to missing segment "
+                        + checkpoint.segmentFirstSequence());
+            }
+        }
+
+        long records = 0;
+        int checkpointsVerified = 0;
+        for (CompletableFuture<SegmentResult> result : results) {
+            SegmentResult segmentResult = result.join();
+            records += segmentResult.records();
+            checkpointsVerified += segmentResult.checkpoints();
+            failures.addAll(segmentResult.failures());
+        }
+
+        boolean valid = failures.isEmpty();
+        AuditCheckpoint latest = checkpoints.isEmpty() ? null : checkpoints.get(checkpoints.size() - 1);
+        if (valid && latest != null) {
+            writeState(checkpoints.size() - 1, latest);
+        }
+        long elapsed = System.nanoTime() - start;
+        meterRegistry.timer("preclinical.audit.verification", "mode", mode.name(), "valid", String.valueOf(valid))
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        if (valid) {
+            log.info("Verified audit journal ({}): {} records in {} segments against {} checkpoints", mode, records,
+                    results.size(), checkpointsVerified);
+        } else {
+            log.error("Audit journal verification ({}) failed: {}", mode, failures);
+        }
+        return AuditVerificationReport.builder()
+                .mode(mode)
+                .valid(valid)
+                .checkpointsVerified(checkpointsVerified)
+                .segmentsVerified(results.size())
+                .recordsVerified(records)
+                .lastVerifiedSequence(valid && latest != null ? latest.lastSequence() : null)
+                .latestCheckpointHash(latest != null ? AuditHashes.hex(latest.checkpointHash()) : null)
+                .failures(failures)
+                .elapsedMillis(TimeUnit.NANOSECONDS.toMillis(elapsed))
+                .build();
+    }
+
+    private SegmentResult verifySegment(AuditJournalSegment segment, byte[] expectedAnchor,
+                                        List<AuditCheckpoint> checkpoints, AuditCheckpoint seal, long limit) {
+        String name = segment.path().getFileName().toString();
+        SegmentWalk walk = new SegmentWalk(name, segment.firstSequence(), checkpoints);
+        try {
+            byte[] anchor = AuditJournalSegment.readAnchor(segment.path());
+            if (expectedAnchor != null && !Arrays.equals(anchor, expectedAnchor)) {
+                walk.failures.add(name + " does not continue the hash chain of the segment before it");
+            }
+            walk.chainHead = anchor;
+            walk.matchCheckpoints();
+            AuditJournalSegment.readFrames(segment.path(), limit, walk);
+        } catch (IOException e) {
+            walk.failures.add("Cannot read " + name + ": " + e.getMessage());
+            return new SegmentResult(walk.records, walk.verified, walk.failures);
+        }
+        for (int i = walk.next; i < checkpoints.size(); i++) {
+            walk.failures.add("Checkpoint at sequence " + checkpoints.get(i).lastSequence() + " covers "
+                    + checkpoints.get(i).recordCount() + " records but " + name + " has " + walk.records);
+        }
+        if (seal != null && walk.records > seal.recordCount()) {
+            walk.failures.add(name + " has " + (walk.records - seal.recordCount())
+                    + " records after its sealing checkpoint");
+        }
+        return new SegmentResult(walk.records, walk.verified, walk.failures);
+    }
+
+    private VerifiedCheckpoint readState(List<String> failures) {
+        Path path = auditJournal.directory().resolve(STATE_FILE);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            String[] fields = Files.readString(path, StandardCharsets.US_ASCII).trim().split(" ");
+            return new VerifiedCheckpoint(Integer.parseInt(fields[0]), HexFormat.of().parseHex(fields[1]));
+        } catch (IOException | RuntimeException e) {
+            failures.add("Cannot read " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeState(int index, AuditCheckpoint checkpoint) {
+        Path path = auditJournal.directory().resolve(STATE_FILE);
+        Path temporary = path.resolveSibling(STATE_FILE + ".tmp");
+        try {
+            Files.writeString(temporary, index + " " + AuditHashes.hex(checkpoint.checkpointHash()) + "\n",
+                    StandardCharsets.US_ASCII);
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The next incremental run starts over from the first checkpoint
+            log.warn("Cannot save audit verification state to {}", path, e);
+        }
+    }
+
+    private record VerifiedCheckpoint(int index, byte[] hash) {
+    }
+
+    private record SegmentResult(long records, int checkpoints, List<String> failures) {
+    }
+
+    // Re-hashes one segment's frames in order, stopping at each checkpoint that covers them
+    private static final class SegmentWalk implements AuditJournalSegment.FrameVisitor {
+        private final String name;
+        private final List<AuditCheckpoint> checkpoints;
+        private final MessageDigest digest = AuditHashes.sha256();
+        private final MerkleAccumulator merkle = new MerkleAccumulator();
+        private final List<String> failures = new ArrayList<>();
+        private byte[] chainHead;
+        private long expectedSequence;
+        private long records;
+        private int next;
+        private int verified;
+        private boolean diverged;
+
+        SegmentWalk(String name, long firstSequence, List<AuditCheckpoint> checkpoints) {
+            this.name = name;
+            this.expectedSequence = firstSequence;
+            this.checkpoints = checkpoints;
+        }
+
+        @Override
+        public void visit(AuditRecord record, byte[] frame, long offset) {
+            if (record.getSequence() != expectedSequence && !diverged) {
+                failures.add(name + " has sequence " + record.getSequence() + " where " + expectedSequence
+                        + " was expected, at offset " + offset);
+                diverged = true;
+            }
+            expectedSequence = record.getSequence() + 1;
+            chainHead = AuditHashes.chain(digest, chainHead, frame);
+            merkle.addFrame(frame);
+            records++;
+            matchCheckpoints();
+        }
+
+        // After the first mismatch every later checkpoint of the segment differs as well, so only one is reported
+        void matchCheckpoints() {
+            while (next < checkpoints.size() && checkpoints.get(next).recordCount() == records) {
+                AuditCheckpoint checkpoint = checkpoints.get(next++);
+                verified++;
+                if (diverged) {
+                    continue;
+                }
+                if (!Arrays.equals(checkpoint.chainHash(), chainHead)) {
+                    failures.add(name + " does not match its hash chain at or before sequence "
+                            + checkpoint.lastSequence());
+                    diverged = true;
+                } else if (!Arrays.equals(checkpoint.merkleRoot(), merkle.root())) {
+                    failures.add(name + " does not match its Merkle root at sequence " + checkpoint.lastSequence());
+                    diverged = true;
+                } else if (checkpoint.lastSequence() != expectedSequence - 1) {
+                    failures.add(name + " ends at sequence " + (expectedSequence - 1) + " where its checkpoint says "
+                            + checkpoint.lastSequence());
+                    diverged = true;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkAdverseEventResult;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkAdverseEventRow;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkRowError;
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+import com.preclinical.platform.preclinicaldataplatform.entity.ImportJob;
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.event.SeriousAdverseEventBatchAlert;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyDataImportedEvent;
+import com.preclinical.platform.preclinicaldataplatform.excception.InvalidRequestException;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk adverse event imports. Rows are validated up front and inserted in
+ * chunks, each in its own transaction that also updates the safety
+ * aggregates. Serious events of a chunk are announced with one
+ * {@link SeriousAdverseEventBatchAlert} per study, published inside the
+ * transaction and delivered only after it commits.
+ *
+ * <p>If a chunk fails it is retried row by row, so the valid rows of that
+ * chunk still commit and still alert. Every serious event that is reported
+ * as inserted is therefore covered by exactly one committed alert, and no
+ * alert is sent for a row that was rolled back.
+ */
+@Service
+@Slf4j
+public class BulkAdverseEventService {
+
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
+    private final TransactionTemplate transactionTemplate;
+    private final PatientRepository patientRepository;
+    private final SafetyAggregateService safetyAggregateService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Validator validator;
+    private final PreclinicalPlatformProperties properties;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BulkAdverseEventService(TransactionTemplate transactionTemplate,
+                                   PatientRepository patientRepository,
+                                   SafetyAggregateService safetyAggregateService,
+                                   ApplicationEventPublisher eventPublisher,
+                                   Validator validator,
+                                   PreclinicalPlatformProperties properties) {
+        this.transactionTemplate = transactionTemplate;
+        this.patientRepository = patientRepository;
+        this.safetyAggregateService = safetyAggregateService;
+        this.eventPublisher = eventPublisher;
+        this.validator = validator;
+        this.properties = properties;
+    }
+
+    public BulkAdverseEventResult recordAdverseEvents(List<BulkAdverseEventRow> rows) {
+        long start = System.currentTimeMillis();
+        int maxRows = properties.getAdverseEvent().getBulkMaxRows();
+        if (rows.size() > maxRows) {
+            throw new InvalidRequestException("Bulk import exceeds the limit of " + maxRows + " adverse events");
+        }
+
+        List<BulkRowError> errors = new ArrayList<>();
+        Map<Long, Patient> patients = resolvePatients(rows);
+
+        List<PendingRow> pending = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            BulkAdverseEventRow row = rows.get(i);
+            String error = validate(row, patients);
+            if (error != null) {
+                errors.add(new BulkRowError(i, row != null ? row.getPatientId() : null, error));
+            } else {
+                pending.add(new PendingRow(i, row, patients.get(row.getPatientId())));
+            }
+        }
+
+        BatchOutcome total = new BatchOutcome(0, 0, 0);
+        int batchSize = Math.max(1, properties.getAdverseEvent().getBulkBatchSize());
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<PendingRow> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            try {
+                total = total.plus(transactionTemplate.execute(status -> insertBatch(batch)));
+            } catch (DataAccessException | PersistenceException | TransactionException e) {
+                log.warn("Bulk adverse event batch of {} rows failed; retrying rows individually", batch.size(), e);
+                total = total.plus(insertIndividually(batch, errors));
+            }
+        }
+
+        errors.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Bulk adverse event import: {} received, {} inserted ({} serious, {} alerts), {} failed in {} ms",
+                rows.size(), total.inserted(), total.serious(), total.alerts(), errors.size(), elapsed);
+
+        return BulkAdverseEventResult.builder()
+                .received(rows.size())
+                .inserted(total.inserted())
+                .failed(errors.size())
+                .seriousEvents(total.serious())
+                .alertsPublished(total.alerts())
+                .errors(errors)
+                .elapsedMillis(elapsed)
+                .build();
+    }
+
+    // Patients are loaded as entities because SAE alerts and audit entries need their codes after commit
+    private Map<Long, Patient> resolvePatients(List<BulkAdverseEventRow> rows) {
+        Set<Long> patientIds = rows.stream()
+                .filter(row -> row != null && row.getPatientId() != null)
+                .map(BulkAdverseEventRow::getPatientId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<Long, Patient> patients = new HashMap<>();
+        List<Long> ids = new ArrayList<>(patientIds);
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_LIMIT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_LIMIT, ids.size()));
+            patientRepository.findAllById(chunk).forEach(patient -> patients.put(patient.getId(), patient));
+        }
+        return patients;
+    }
+
+    private String validate(BulkAdverseEventRow row, Map<Long, Patient> patients) {
+        if (row == null) {
+            return "Row is empty";
+        }
+        Set<ConstraintViolation<BulkAdverseEventRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        Patient patient = patients.get(row.getPatientId());
+        if (patient == null) {
+            return "Patient not found with id: " + row.getPatientId();
+        }
+        if (patient.getStudy() == null) {
+            return "Patient " + row.getPatientId() + " is not enrolled in a study";
+        }
+        return null;
+    }
+
+    private BatchOutcome insertIndividually(List<PendingRow> batch, List<BulkRowError> errors) {
+        BatchOutcome outcome = new BatchOutcome(0, 0, 0);
+        for (PendingRow row : batch) {
+            try {
+                outcome = outcome.plus(transactionTemplate.execute(status -> insertBatch(List.of(row))));
+            } catch (DataAccessException | PersistenceException | TransactionException e) {
+                String message = "Insert failed: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                errors.add(new BulkRowError(row.index(), row.row().getPatientId(), message));
+            }
+        }
+        return outcome;
+    }
+
+    private BatchOutcome insertBatch(List<PendingRow> batch) {
+        List<AdverseEvent> adverseEvents = new ArrayList<>(batch.size());
+        for (PendingRow pending : batch) {
+            BulkAdverseEventRow row = pending.row();
+            AdverseEvent adverseEvent = AdverseEvent.builder()
+                    .eventTerm(row.getEventTerm())
+                    .severity(row.getSeverity())
+                    .causality(row.getCausality())
+                    .onsetDate(row.getOnsetDate())
+                    .resolutionDate(row.getResolutionDate())
+                    .description(row.getDescription())
+                    .serious(row.getSerious())
+                    .patient(pending.patient())
+                    .study(pending.patient().getStudy())
+                    .outcome(AdverseEvent.Outcome.UNKNOWN)
+                    .build();
+            entityManager.persist(adverseEvent);
+            adverseEvents.add(adverseEvent);
+        }
+        safetyAggregateService.recordAdverseEvents(adverseEvents);
+
+        // One alert per study; the listener only runs if this transaction commits
+        Map<Long, List<AdverseEvent>> seriousByStudy = new TreeMap<>();
+        for (AdverseEvent adverseEvent : adverseEvents) {
+            if (Boolean.TRUE.equals(adverseEvent.getSerious())) {
+                seriousByStudy.computeIfAbsent(adverseEvent.getStudy().getId(), id -> new ArrayList<>())
+                        .add(adverseEvent);
+            }
+        }
+        seriousByStudy.forEach((studyId, events) ->
+                eventPublisher.publishEvent(new SeriousAdverseEventBatchAlert(studyId, List.copyOf(events))));
+        Map<Long, Integer> rowsByStudy = new TreeMap<>();
+        adverseEvents.forEach(adverseEvent -> rowsByStudy.merge(adverseEvent.getStudy().getId(), 1, Integer::sum));
+        rowsByStudy.forEach((studyId, rows) ->
+                eventPublisher.publishEvent(new StudyDataImportedEvent(studyId, ImportJob.Domain.AE, rows)));
+
+        entityManager.flush();
+        entityManager.clear();
+        int serious = seriousByStudy.values().stream().mapToInt(List::size).sum();
+        return new BatchOutcome(adverseEvents.size(), serious, seriousByStudy.size());
+    }
+
+    private record PendingRow(int index, BulkAdverseEventRow row, Patient patient) {
+    }
+
+    private record BatchOutcome(int inserted, int serious, int alerts) {
+
+        BatchOutcome plus(BatchOutcome other) {
+            return new BatchOutcome(inserted + other.inserted, serious + other.serious, alerts + other.alerts);
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkMeasurementResult;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkMeasurementRow;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkRowError;
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.entity.ImportJob;
+import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyDataImportedEvent;
+import com.preclinical.platform.preclinicaldataplatform.excception.InvalidRequestException;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientStudyView;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bulk measurement uploads. All patients of an upload are resolved with one
+ * IN query, every row is validated up front, and the valid rows are persisted
+ * in chunks that Hibernate writes as JDBC batches. Each chunk commits on its
+ * own, so a failing chunk only fails its own rows and the rest of the upload
+ * is kept.
+ */
+@Service
+@Slf4j
+public class BulkMeasurementService {
+
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
+    private final TransactionTemplate transactionTemplate;
+    private final PatientRepository patientRepository;
+    private final MeasurementColumnStore measurementColumnStore;
+    private final Validator validator;
+    private final PreclinicalPlatformProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public BulkMeasurementService(TransactionTemplate transactionTemplate,
+                                  PatientRepository patientRepository,
+                                  MeasurementColumnStore measurementColumnStore,
+                                  Validator validator,
+                                  PreclinicalPlatformProperties properties,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.transactionTemplate = transactionTemplate;
+        this.patientRepository = patientRepository;
+        this.measurementColumnStore = measurementColumnStore;
+        this.validator = validator;
+        this.properties = properties;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public BulkMeasurementResult recordMeasurements(List<BulkMeasurementRow> rows) {
+        long start = System.currentTimeMillis();
+        int maxRows = properties.getMeasurement().getBulkMaxRows();
+        if (rows.size() > maxRows) {
+            throw new InvalidRequestException("Bulk upload exceeds the limit of " + maxRows + " measurements");
+        }
+
+        List<BulkRowError> errors = new ArrayList<>();
+        Map<Long, Long> studyByPatient = resolveStudies(rows);
+
+        List<PendingRow> pending = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            BulkMeasurementRow row = rows.get(i);
+            String error = validate(row, studyByPatient);
+            if (error != null) {
+                errors.add(new BulkRowError(i, row != null ? row.getPatientId() : null, error));
+            } else {
+                pending.add(new PendingRow(i, row, studyByPatient.get(row.getPatientId())));
+            }
+        }
+
+        int inserted = 0;
+        int batchSize = Math.max(1, properties.getMeasurement().getBulkBatchSize());
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<PendingRow> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertBatch(batch));
+                inserted += batch.size();
+            } catch (DataAccessException | PersistenceException | TransactionException e) {
+                log.warn("Bulk measurement batch of {} rows failed", batch.size(), e);
+                String message = "Batch insert failed: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                batch.forEach(row -> errors.add(
+                        new BulkRowError(row.index(), row.row().getPatientId(), message)));
+            }
+        }
+
+        errors.sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("Bulk measurement upload: {} received, {} inserted, {} failed in {} ms",
+                rows.size(), inserted, errors.size(), elapsed);
+
+        return BulkMeasurementResult.builder()
+                .received(rows.size())
+                .inserted(inserted)
+                .failed(errors.size())
+                .errors(errors)
+                .elapsedMillis(elapsed)
+                .build();
+    }
+
+    private Map<Long, Long> resolveStudies(List<BulkMeasurementRow> rows) {
+        Set<Long> patientIds = rows.stream()
+                .filter(row -> row != null && row.getPatientId() != null)
+                .map(BulkMeasurementRow::getPatientId)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+
+        Map<Long, Long> studyByPatient = new HashMap<>();
+        List<Long> ids = new ArrayList<>(patientIds);
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_LIMIT) {
+            List<Long> chunk = ids.subList(from, Math.min(from + IN_CLAUSE_LIMIT, ids.size()));
+            for (PatientStudyView view : patientRepository.findStudyIdsByPatientIds(chunk)) {
+                studyByPatient.put(view.getPatientId(), view.getStudyId());
+            }
+        }
+        return studyByPatient;
+    }
+
+    private String validate(BulkMeasurementRow row, Map<Long, Long> studyByPatient) {
+        if (row == null) {
+            return "Row is empty";
+        }
+        Set<ConstraintViolation<BulkMeasurementRow>> violations = validator.validate(row);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        if (row.getNormalRangeLow() != null && row.getNormalRangeHigh() != null
+                && row.getNormalRangeLow().compareTo(row.getNormalRangeHigh()) > 0) {
+            return "Normal range low must not exceed normal range high";
+        }
+        if (!studyByPatient.containsKey(row.getPatientId())) {
+            return "Patient not found with id: " + row.getPatientId();
+        }
+        if (studyByPatient.get(row.getPatientId()) == null) {
+            return "Patient " + row.getPatientId() + " is not enrolled in a study";
+        }
+        return null;
+    }
+
+    private void insertBatch(List<PendingRow> batch) {
+        List<EfficacyMeasurement> measurements = new ArrayList<>(batch.size());
+        Map<Long, Integer> rowsByStudy = new TreeMap<>();
+        for (PendingRow pending : batch) {
+            BulkMeasurementRow row = pending.row();
+            // References avoid a select per row; the ids were resolved up front
+            EfficacyMeasurement measurement = EfficacyMeasurement.builder()
+                    .measurementDate(row.getMeasurementDate())
+                    .studyDay(row.getStudyDay())
+                    .measurementType(row.getMeasurementType())
+                    .measurementValue(row.getValue())
+                    .unit(row.getUnit())
+                    .notes(row.getNotes())
+                    .normalRangeLow(row.getNormalRangeLow())
+                    .normalRangeHigh(row.getNormalRangeHigh())
+                    .patient(entityManager.getReference(Patient.class, row.getPatientId()))
+                    .study(entityManager.getReference(Study.class, pending.studyId()))
+                    .status(EfficacyMeasurement.MeasurementStatus.RECORDED)
+                    .build();
+            entityManager.persist(measurement);
+            measurements.add(measurement);
+            rowsByStudy.merge(pending.studyId(), 1, Integer::sum);
+        }
+        // Ids come from the pooled sequence, so Hibernate sends these as JDBC batches of hibernate.jdbc.batch_size
+        entityManager.flush();
+        measurements.forEach(measurementColumnStore::appendAfterCommit);
+        rowsByStudy.forEach((studyId, rows) ->
+                eventPublisher.publishEvent(new StudyDataImportedEvent(studyId, ImportJob.Domain.VS, rows)));
+        entityManager.clear();
+    }
+
+    private record PendingRow(int index, BulkMeasurementRow row, Long studyId) {
+    }
+}
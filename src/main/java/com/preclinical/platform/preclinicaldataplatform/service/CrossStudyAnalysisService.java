@@ -0,0 +1,211 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.dto.CrossStudyAnalysisReport;
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Portfolio-wide analyses. Each study is analyzed as its own task on the
+ * {@code crossStudyAnalysisPool} and the mergeable partial results
+ * ({@link SafetyEventCounts}, {@link MeasurementStatistics},
+ * {@link KllQuantileSketch}) are combined once all tasks finish.
+ */
+@Service
+@Slf4j
+public class CrossStudyAnalysisService {
+
+    private final StudyManagementService studyManagementService;
+    private final DataAnalysisService dataAnalysisService;
+    private final MeasurementColumnStore measurementColumnStore;
+    private final PatientRepository patientRepository;
+    private final ForkJoinPool crossStudyAnalysisPool;
+    private final PreclinicalPlatformProperties properties;
+
+    public CrossStudyAnalysisService(StudyManagementService studyManagementService,
+                                     DataAnalysisService dataAnalysisService,
+                                     MeasurementColumnStore measurementColumnStore,
+                                     PatientRepository patientRepository,
+                                     @Qualifier("crossStudyAnalysisPool") ForkJoinPool crossStudyAnalysisPool,
+                                     PreclinicalPlatformProperties properties) {
+        this.studyManagementService = studyManagementService;
+        this.dataAnalysisService = dataAnalysisService;
+        this.measurementColumnStore = measurementColumnStore;
+        this.patientRepository = patientRepository;
+        this.crossStudyAnalysisPool = crossStudyAnalysisPool;
+        this.properties = properties;
+    }
+
+    public CrossStudyAnalysisReport analyzePortfolioSafety(Study.StudyPhase phase) {
+        long start = System.currentTimeMillis();
+        List<Study> studies = selectStudies(phase);
+        log.info("Running cross-study safety analysis over {} studies", studies.size());
+
+        Map<Long, StudySafety> partials = runPerStudy(studies, study -> new StudySafety(
+                dataAnalysisService.loadSafetyCounts(study.getId()),
+                patientRepository.countByStudyId(study.getId())));
+
+        SafetyEventCounts combined = new SafetyEventCounts();
+        long totalPatients = 0;
+        Map<Long, Map<String, Object>> studyResults = new LinkedHashMap<>();
+        for (Study study : studies) {
+            StudySafety partial = partials.get(study.getId());
+            if (partial == null) {
+                continue;
+            }
+            combined.merge(partial.counts());
+            totalPatients += partial.patients();
+
+            Map<String, Object> studyResult = new LinkedHashMap<>();
+            studyResult.put("studyCode", study.getStudyCode());
+            studyResult.put("totalEvents", partial.counts().getTotalEvents());
+            studyResult.put("seriousEvents", partial.counts().getSeriousEvents());
+            studyResult.put("totalPatients", partial.patients());
+            studyResults.put(study.getId(), studyResult);
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("totalEvents", combined.getTotalEvents());
+        results.put("seriousEvents", combined.getSeriousEvents());
+        results.put("totalPatients", totalPatients);
+        results.put("seriousEventRate", totalPatients > 0
+                ? (double) combined.getSeriousEvents() / totalPatients * 100 : 0.0);
+        results.put("eventsBySeverity", combined.getEventsBySeverity());
+        results.put("eventsByCausality", combined.getEventsByCausality());
+        results.put("frequentEvents", combined.topTerms(10, 2));
+
+        return buildReport("CROSS_STUDY_SAFETY", studies, partials.keySet(), results, studyResults, start);
+    }
+
+    public CrossStudyAnalysisReport analyzePortfolioEfficacy(EfficacyMeasurement.MeasurementType type,
+                                                             Study.StudyPhase phase) {
+        long start = System.currentTimeMillis();
+        List<Study> studies = selectStudies(phase);
+        log.info("Running cross-study {} efficacy analysis over {} studies", type, studies.size());
+
+        Map<Long, StudyEfficacy> partials = runPerStudy(studies, study -> new StudyEfficacy(
+                measurementColumnStore.snapshot(study.getId(), type).statistics(),
+                measurementColumnStore.sketch(study.getId(), type)));
+
+        MeasurementStatistics combined = MeasurementStatistics.of(0, 0.0, 0.0, 0.0, 0, 0);
+        KllQuantileSketch combinedSketch = new KllQuantileSketch();
+        Map<Long, Map<String, Object>> studyResults = new LinkedHashMap<>();
+        for (Study study : studies) {
+            StudyEfficacy partial = partials.get(study.getId());
+            if (partial == null) {
+                continue;
+            }
+            combined.merge(partial.statistics());
+            combinedSketch.merge(partial.sketch());
+
+            Map<String, Object> studyResult = new LinkedHashMap<>();
+            studyResult.put("studyCode", study.getStudyCode());
+            studyResult.put("totalMeasurements", partial.statistics().getCount());
+            studyResult.put("meanValue", partial.statistics().getMean());
+            studyResults.put(study.getId(), studyResult);
+        }
+
+        Map<String, Object> results = new LinkedHashMap<>();
+        results.put("measurementType", type);
+        results.put("totalMeasurements", combined.getCount());
+        results.put("uniquePatients", combined.getUniquePatients());
+        results.put("meanValue", combined.getMean());
+        results.put("minValue", combined.getMin());
+        results.put("maxValue", combined.getMax());
+        results.put("abnormalRate", combined.isEmpty() ? 0.0
+                : (double) combined.getAbnormalCount() / combined.getCount() * 100);
+        if (!combinedSketch.isEmpty()) {
+            results.put("p5", combinedSketch.getQuantile(0.05));
+            results.put("median", combinedSketch.getQuantile(0.5));
+            results.put("p95", combinedSketch.getQuantile(0.95));
+        }
+
+        return buildReport("CROSS_STUDY_EFFICACY", studies, partials.keySet(), results, studyResults, start);
+    }
+
+    private List<Study> selectStudies(Study.StudyPhase phase) {
+        return phase != null
+                ? studyManagementService.getStudiesByPhase(phase)
+                : studyManagementService.getActiveStudies();
+    }
+
+    /**
+     * Runs the task for every study on the cross-study pool and waits up to the
+     * configured timeout. Studies whose task failed or did not finish in time
+     * are left out of the returned map.
+     */
+    private <T> Map<Long, T> runPerStudy(List<Study> studies, Function<Study, T> task) {
+        Map<Long, CompletableFuture<T>> futures = new LinkedHashMap<>();
+        for (Study study : studies) {
+            futures.put(study.getId(), CompletableFuture.supplyAsync(() -> task.apply(study), crossStudyAnalysisPool));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]));
+        try {
+            all.get(properties.getAnalysis().getCrossStudyTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Cross-study analysis timed out; returning the studies that completed");
+        } catch (ExecutionException e) {
+            log.warn("Cross-study analysis failed for at least one study", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cross-study analysis interrupted", e);
+        }
+
+        Map<Long, T> results = new LinkedHashMap<>();
+        futures.forEach((studyId, future) -> {
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                results.put(studyId, future.join());
+            } else {
+                future.cancel(true);
+            }
+        });
+        return results;
+    }
+
+    private CrossStudyAnalysisReport buildReport(String analysisType, List<Study> studies,
+                                                 Set<Long> completedStudyIds,
+                                                 Map<String, Object> results,
+                                                 Map<Long, Map<String, Object>> studyResults, long start) {
+        List<Long> failedStudies = new ArrayList<>();
+        for (Study study : studies) {
+            if (!completedStudyIds.contains(study.getId())) {
+                failedStudies.add(study.getId());
+            }
+        }
+        return CrossStudyAnalysisReport.builder()
+                .analysisType(analysisType)
+                .studyCount(studies.size())
+                .results(results)
+                .studyResults(studyResults)
+                .failedStudies(failedStudies)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .generatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private record StudySafety(SafetyEventCounts counts, long patients) {
+    }
+
+    private record StudyEfficacy(MeasurementStatistics statistics, KllQuantileSketch sketch) {
+    }
+}
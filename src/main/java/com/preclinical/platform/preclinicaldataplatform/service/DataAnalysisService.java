@@ -3,26 +3,35 @@ package com.preclinical.platform.preclinicaldataplatform.service;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
 
+import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 
 import com.preclinical.platform.preclinicaldataplatform.dto.AnalysisReport;
 import com.preclinical.platform.preclinicaldataplatform.dto.EfficacyAnalysisRequest;
+import com.preclinical.platform.preclinicaldataplatform.dto.MeasurementTrendPoint;
 import com.preclinical.platform.preclinicaldataplatform.dto.SafetyAnalysisReport;
-import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
 import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
-import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
 import com.preclinical.platform.preclinicaldataplatform.entity.Study;
 import com.preclinical.platform.preclinicaldataplatform.repository.AdverseEventRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.AdverseEventSeverityCount;
+import com.preclinical.platform.preclinicaldataplatform.repository.AdverseEventTermCount;
 import com.preclinical.platform.preclinicaldataplatform.repository.EfficacyMeasurementRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.MeasurementPointView;
+import com.preclinical.platform.preclinicaldataplatform.repository.MeasurementSummaryView;
 import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
 import com.preclinical.platform.preclinicaldataplatform.repository.StudyRepository;
 
@@ -36,15 +45,24 @@ public class DataAnalysisService {
     private final PatientRepository patientRepository;
     private final AdverseEventRepository adverseEventRepository;
     private final EfficacyMeasurementRepository efficacyMeasurementRepository;
+    private final SafetyAggregateService safetyAggregateService;
+    private final MeasurementColumnStore measurementColumnStore;
+    private final EnrollmentBucketService enrollmentBucketService;
     
     public DataAnalysisService(StudyRepository studyRepository,
                               PatientRepository patientRepository,
                               AdverseEventRepository adverseEventRepository,
-                              EfficacyMeasurementRepository efficacyMeasurementRepository) {
+                              EfficacyMeasurementRepository efficacyMeasurementRepository,
+                              SafetyAggregateService safetyAggregateService,
+                              MeasurementColumnStore measurementColumnStore,
+                              EnrollmentBucketService enrollmentBucketService) {
         this.studyRepository = studyRepository;
         this.patientRepository = patientRepository;
         this.adverseEventRepository = adverseEventRepository;
         this.efficacyMeasurementRepository = efficacyMeasurementRepository;
+        this.safetyAggregateService = safetyAggregateService;
+        this.measurementColumnStore = measurementColumnStore;
+        this.enrollmentBucketService = enrollmentBucketService;
     }
     
     @Cacheable(value = "safetyReports", key = "#studyId")
@@ -54,52 +72,24 @@ public class DataAnalysisService {
         Study study = studyRepository.findById(studyId)
                 .orElseThrow(() -> new RuntimeException("Study not found"));
         
-        List<AdverseEvent> adverseEvents = adverseEventRepository.findByStudyId(studyId);
+        SafetyEventCounts counts = loadSafetyCounts(studyId);
         long totalPatients = patientRepository.countByStudyId(studyId);
         
-        // Group events by severity
-        Map<AdverseEvent.Severity, Long> eventsBySeverity = adverseEvents.stream()
-                .collect(Collectors.groupingBy(
-                    AdverseEvent::getSeverity,
-                    Collectors.counting()
-                ));
-        
-        // Group events by causality
-        Map<AdverseEvent.Causality, Long> eventsByCausality = adverseEvents.stream()
-                .collect(Collectors.groupingBy(
-                    AdverseEvent::getCausality,
-                    Collectors.counting()
-                ));
-        
-        // Find most frequent events
-        List<String> frequentEvents = adverseEvents.stream()
-                .collect(Collectors.groupingBy(
-                    AdverseEvent::getEventTerm,
-                    Collectors.counting()
-                ))
-                .entrySet().stream()
-                .filter(entry -> entry.getValue() > 1)
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(10)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        // Most frequent events (reported more than once)
+        List<String> frequentEvents = counts.topTerms(10, 2);
         
         // Calculate serious event rate
-        long seriousEvents = adverseEvents.stream()
-                .mapToLong(ae -> ae.getSerious() ? 1 : 0)
-                .sum();
-        
         double seriousEventRate = totalPatients > 0 ? 
-                (double) seriousEvents / totalPatients * 100 : 0.0;
+                (double) counts.getSeriousEvents() / totalPatients * 100 : 0.0;
         
         // Identify safety signals
-        List<String> safetySignals = identifySafetySignals(adverseEvents, totalPatients);
+        List<String> safetySignals = identifySafetySignals(counts, totalPatients);
         
         return SafetyAnalysisReport.builder()
                 .studyId(studyId)
                 .studyCode(study.getStudyCode())
-                .eventsBySeverity(eventsBySeverity)
-                .eventsByCausality(eventsByCausality)
+                .eventsBySeverity(counts.getEventsBySeverity())
+                .eventsByCausality(counts.getEventsByCausality())
                 .frequentEvents(frequentEvents)
                 .seriousEventRate(seriousEventRate)
                 .safetySignals(safetySignals)
@@ -107,17 +97,23 @@ public class DataAnalysisService {
                 .build();
     }
     
-    @Cacheable(value = "efficacyAnalysis", key = "#request.studyId + '_' + #request.measurementType")
+    // Replaces the cached entry in one put; the self-call skips the @Cacheable lookup
+    @CachePut(value = "safetyReports", key = "#studyId")
+    public SafetyAnalysisReport refreshSafetyAnalysis(Long studyId) {
+        return generateSafetyAnalysis(studyId);
+    }
+    
+    @Cacheable(value = "efficacyAnalysis", key = "#request.cacheKey()")
     public AnalysisReport analyzeEfficacy(EfficacyAnalysisRequest request) {
         log.info("Analyzing efficacy for study: {} and measurement type: {}", 
                 request.getStudyId(), request.getMeasurementType());
         
-        List<EfficacyMeasurement> measurements = efficacyMeasurementRepository.findByStudyId(request.getStudyId())
-                .stream()
-                .filter(m -> m.getMeasurementType() == request.getMeasurementType())
-                .collect(Collectors.toList());
+        // Windowed requests are summarized in the database; the full series comes from the column store
+        MeasurementStatistics statistics = request.hasFilters()
+                ? summarizeFilteredMeasurements(request)
+                : measurementColumnStore.snapshot(request.getStudyId(), request.getMeasurementType()).statistics();
         
-        if (measurements.isEmpty()) {
+        if (statistics.isEmpty()) {
             return AnalysisReport.builder()
                     .analysisType("EFFICACY_ANALYSIS")
                     .results(Map.of("error", "No measurements found"))
@@ -129,32 +125,16 @@ public class DataAnalysisService {
         // Calculate basic statistics
         Map<String, Object> results = new HashMap<>();
         
-        double meanValue = measurements.stream()
-                .mapToDouble(m -> m.getMeasurementValue().doubleValue())
-                .average()
-                .orElse(0.0);
-        
-        double minValue = measurements.stream()
-                .mapToDouble(m -> m.getMeasurementValue().doubleValue())
-                .min()
-                .orElse(0.0);
-        
-        double maxValue = measurements.stream()
-                .mapToDouble(m -> m.getMeasurementValue().doubleValue())
-                .max()
-                .orElse(0.0);
+        double meanValue = statistics.getMean();
         
         results.put("meanValue", meanValue);
-        results.put("minValue", minValue);
-        results.put("maxValue", maxValue);
-        results.put("totalMeasurements", measurements.size());
-        results.put("uniquePatients", measurements.stream()
-                .map(m -> m.getPatient().getId())
-                .distinct()
-                .count());
+        results.put("minValue", statistics.getMin());
+        results.put("maxValue", statistics.getMax());
+        results.put("totalMeasurements", statistics.getCount());
+        results.put("uniquePatients", statistics.getUniquePatients());
         
         // Generate insights
-        List<String> insights = generateEfficacyInsights(measurements, meanValue);
+        List<String> insights = generateEfficacyInsights(statistics, meanValue);
         
         return AnalysisReport.builder()
                 .analysisType("EFFICACY_ANALYSIS")
@@ -166,38 +146,56 @@ public class DataAnalysisService {
                 .build();
     }
     
+    public Map<String, Object> getMeasurementDistribution(Long studyId, EfficacyMeasurement.MeasurementType type, int bins) {
+        log.debug("Getting measurement distribution for study: {} and type: {}", studyId, type);
+        return describeDistribution(measurementColumnStore.sketch(studyId, type), bins);
+    }
+    
+    // Sketches are mergeable, so the combined distribution needs no access to the raw values
+    public Map<String, Object> getCombinedMeasurementDistribution(List<Long> studyIds,
+                                                                  EfficacyMeasurement.MeasurementType type, int bins) {
+        log.debug("Getting combined measurement distribution for studies: {} and type: {}", studyIds, type);
+        KllQuantileSketch combined = new KllQuantileSketch();
+        for (Long studyId : studyIds) {
+            combined.merge(measurementColumnStore.sketch(studyId, type));
+        }
+        Map<String, Object> distribution = describeDistribution(combined, bins);
+        distribution.put("studyIds", studyIds);
+        return distribution;
+    }
+    
     public Map<String, Object> getEnrollmentTrends(Long studyId) {
         log.debug("Getting enrollment trends for study: {}", studyId);
         
-        List<Patient> patients = patientRepository.findByStudyId(studyId);
+        // Daily buckets, at most one row per enrollment day; no patients are loaded
+        NavigableMap<LocalDate, Long> daily = enrollmentBucketService.findDailyCounts(studyId);
         
         Map<String, Object> trends = new HashMap<>();
         
-        // Group patients by enrollment month
-        Map<String, Long> enrollmentByMonth = patients.stream()
-                .collect(Collectors.groupingBy(
-                    p -> p.getEnrollmentDate().toString().substring(0, 7), // YYYY-MM
-                    Collectors.counting()
-                ));
+        Map<String, Long> enrollmentByMonth = new TreeMap<>();
+        Map<String, Long> enrollmentByWeek = new TreeMap<>();
+        long totalPatients = 0;
+        for (Map.Entry<LocalDate, Long> day : daily.entrySet()) {
+            LocalDate date = day.getKey();
+            enrollmentByMonth.merge(YearMonth.from(date).toString(), day.getValue(), Long::sum); // YYYY-MM
+            enrollmentByWeek.merge(String.format("%d-W%02d", date.get(IsoFields.WEEK_BASED_YEAR),
+                    date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR)), day.getValue(), Long::sum);
+            totalPatients += day.getValue();
+        }
         
         // Calculate enrollment velocity (patients per week)
-        long totalPatients = patients.size();
-        LocalDate firstEnrollment = patients.stream()
-                .map(Patient::getEnrollmentDate)
-                .min(LocalDate::compareTo)
-                .orElse(LocalDate.now());
+        LocalDate firstEnrollment = daily.isEmpty() ? LocalDate.now() : daily.firstKey();
+        LocalDate lastEnrollment = daily.isEmpty() ? LocalDate.now() : daily.lastKey();
         
-        long weeksSinceStart = java.time.temporal.ChronoUnit.WEEKS.between(firstEnrollment, LocalDate.now());
+        long weeksSinceStart = ChronoUnit.WEEKS.between(firstEnrollment, LocalDate.now());
         double enrollmentVelocity = weeksSinceStart > 0 ? (double) totalPatients / weeksSinceStart : 0;
         
         trends.put("enrollmentByMonth", enrollmentByMonth);
+        trends.put("enrollmentByWeek", enrollmentByWeek);
         trends.put("totalEnrolled", totalPatients);
         trends.put("enrollmentVelocity", Math.round(enrollmentVelocity * 100.0) / 100.0);
         trends.put("firstEnrollmentDate", firstEnrollment);
-        trends.put("lastEnrollmentDate", patients.stream()
-                .map(Patient::getEnrollmentDate)
-                .max(LocalDate::compareTo)
-                .orElse(LocalDate.now()));
+        trends.put("lastEnrollmentDate", lastEnrollment);
         
         return trends;
     }
@@ -205,127 +203,188 @@ public class DataAnalysisService {
     public Map<String, Object> getAdverseEventsSummary(Long studyId, LocalDate startDate, LocalDate endDate) {
         log.debug("Getting adverse events summary for study: {}", studyId);
         
-        List<AdverseEvent> events;
-        if (studyId != null) {
-            events = adverseEventRepository.findByStudyId(studyId);
-        } else {
-            events = adverseEventRepository.findAll();
+        // Two grouped queries over the onset date indexes; no events are loaded
+        List<AdverseEventSeverityCount> severityCounts =
+                adverseEventRepository.countBySeverityAndSeriousness(studyId, startDate, endDate);
+        List<AdverseEventTermCount> topTerms = adverseEventRepository.findTopTerms(studyId, startDate, endDate, 5);
+        
+        long totalEvents = 0;
+        long seriousEvents = 0;
+        Map<String, Long> severityBreakdown = new HashMap<>();
+        for (AdverseEventSeverityCount row : severityCounts) {
+            totalEvents += row.eventCount();
+            if (Boolean.TRUE.equals(row.serious())) {
+                seriousEvents += row.eventCount();
+            }
+            if (row.severity() != null) {
+                severityBreakdown.merge(row.severity().name(), row.eventCount(), Long::sum);
+            }
         }
         
-        // Filter by date range if provided
-        if (startDate != null && endDate != null) {
-            events = events.stream()
-                    .filter(ae -> !ae.getOnsetDate().isBefore(startDate) && 
-                                 !ae.getOnsetDate().isAfter(endDate))
-                    .collect(Collectors.toList());
-        }
+        Map<String, Long> commonEvents = new LinkedHashMap<>();
+        topTerms.forEach(term -> commonEvents.put(term.eventTerm(), term.eventCount()));
         
         Map<String, Object> summary = new HashMap<>();
-        
-        summary.put("totalEvents", events.size());
-        summary.put("seriousEvents", events.stream().mapToLong(ae -> ae.getSerious() ? 1 : 0).sum());
-        
-        // Events by severity
-        Map<String, Long> severityBreakdown = events.stream()
-                .collect(Collectors.groupingBy(
-                    ae -> ae.getSeverity().name(),
-                    Collectors.counting()
-                ));
-        
+        summary.put("totalEvents", totalEvents);
+        summary.put("seriousEvents", seriousEvents);
         summary.put("eventsBySeverity", severityBreakdown);
-        
-        // Most common events
-        Map<String, Long> commonEvents = events.stream()
-                .collect(Collectors.groupingBy(
-                    AdverseEvent::getEventTerm,
-                    Collectors.counting()
-                ))
-                .entrySet().stream()
-                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
-                .limit(5)
-                .collect(Collectors.toMap(
-                    Map.Entry::getKey,
-                    Map.Entry::getValue,
-                    (e1, e2) -> e1,
-                    LinkedHashMap::new
-                ));
-        
         summary.put("topEvents", commonEvents);
         
         return summary;
     }
     
-    public Map<String, Object> getPatientMeasurementTrends(Long patientId, EfficacyMeasurement.MeasurementType type) {
+    /**
+     * Measurement series for a patient with a least-squares trend line. When
+     * {@code maxPoints} is set and the series is longer, the returned points are
+     * reduced with LTTB; the trend is always fitted on the full series.
+     */
+    public Map<String, Object> getPatientMeasurementTrends(Long patientId, EfficacyMeasurement.MeasurementType type,
+                                                           Integer maxPoints) {
         log.debug("Getting measurement trends for patient: {} and type: {}", patientId, type);
         
-        List<EfficacyMeasurement> measurements = efficacyMeasurementRepository
-                .findByPatientIdAndMeasurementType(patientId, type);
+        // Ordered by study day in the database
+        List<MeasurementPointView> points = efficacyMeasurementRepository.findSeriesPoints(patientId, type);
         
         Map<String, Object> trends = new HashMap<>();
         
-        if (measurements.isEmpty()) {
+        if (points.isEmpty()) {
             trends.put("error", "No measurements found");
             return trends;
         }
         
-        // Sort by study day
-        measurements.sort(Comparator.comparing(EfficacyMeasurement::getStudyDay));
+        int size = points.size();
+        double[] days = new double[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            days[i] = points.get(i).getStudyDay();
+            values[i] = points.get(i).getMeasurementValue().doubleValue();
+        }
         
-        List<Map<String, Object>> dataPoints = measurements.stream()
-                .map(m -> {
-                    Map<String, Object> point = new HashMap<>();
-                    point.put("studyDay", m.getStudyDay());
-                    point.put("value", m.getMeasurementValue());
-                    point.put("date", m.getMeasurementDate());
-                    point.put("withinNormalRange", m.isWithinNormalRange());
-                    return point;
-                })
-                .collect(Collectors.toList());
+        int[] selected = TimeSeriesDownsampler.lttb(days, values, size, maxPoints != null ? maxPoints : size);
+        List<MeasurementTrendPoint> dataPoints = new ArrayList<>(selected.length);
+        for (int index : selected) {
+            MeasurementPointView point = points.get(index);
+            dataPoints.add(MeasurementTrendPoint.builder()
+                    .studyDay(point.getStudyDay())
+                    .value(point.getMeasurementValue())
+                    .date(point.getMeasurementDate())
+                    .withinNormalRange(EfficacyMeasurement.isWithinRange(point.getMeasurementValue(),
+                            point.getNormalRangeLow(), point.getNormalRangeHigh()))
+                    .build());
+        }
         
         trends.put("dataPoints", dataPoints);
-        trends.put("totalMeasurements", measurements.size());
-        
-        // Calculate trend (simple linear)
-        if (measurements.size() >= 2) {
-            EfficacyMeasurement first = measurements.get(0);
-            EfficacyMeasurement last = measurements.get(measurements.size() - 1);
+        trends.put("totalMeasurements", size);
+        trends.put("returnedPoints", dataPoints.size());
+        trends.put("downsampled", dataPoints.size() < size);
+        
+        if (size >= 2) {
+            LinearTrend trend = LinearTrend.fit(days, values, size);
+            trends.put("slopePerDay", trend.slope());
+            trends.put("intercept", trend.intercept());
+            trends.put("rSquared", Math.round(trend.rSquared() * 1000.0) / 1000.0);
             
-            double percentChange = first.calculatePercentageChange(last.getMeasurementValue()).doubleValue();
-            trends.put("percentChangeFromBaseline", Math.round(percentChange * 100.0) / 100.0);
-            
-            String trendDirection = percentChange > 5 ? "IMPROVING" : 
-                                   percentChange < -5 ? "DECLINING" : "STABLE";
-            trends.put("trendDirection", trendDirection);
+            // Change along the fitted line over the observed span, relative to the fitted baseline
+            double baseline = trend.valueAt(days[0]);
+            if (baseline != 0.0) {
+                double percentChange = (trend.valueAt(days[size - 1]) - baseline) / Math.abs(baseline) * 100;
+                trends.put("percentChangeFromBaseline", Math.round(percentChange * 100.0) / 100.0);
+                
+                String trendDirection = percentChange > 5 ? "IMPROVING" : 
+                                       percentChange < -5 ? "DECLINING" : "STABLE";
+                trends.put("trendDirection", trendDirection);
+            }
         }
         
         return trends;
     }
     
-    private List<String> identifySafetySignals(List<AdverseEvent> events, long totalPatients) {
+    /**
+     * Adverse event counts for a study. Read from the incrementally maintained
+     * aggregate when one exists, otherwise grouped in the database. Loading the
+     * events themselves is only a fallback for when the grouped query fails.
+     */
+    public SafetyEventCounts loadSafetyCounts(Long studyId) {
+        Optional<SafetyEventCounts> aggregate = safetyAggregateService.findCounts(studyId);
+        if (aggregate.isPresent()) {
+            return aggregate.get();
+        }
+        try {
+            return SafetyEventCounts.fromRows(adverseEventRepository.aggregateEventsByStudy(studyId));
+        } catch (DataAccessException e) {
+            log.warn("Grouped adverse event query failed for study {}, counting loaded events instead", studyId, e);
+            return SafetyEventCounts.fromEvents(adverseEventRepository.findByStudyId(studyId));
+        }
+    }
+    
+    private Map<String, Object> describeDistribution(KllQuantileSketch sketch, int bins) {
+        Map<String, Object> distribution = new LinkedHashMap<>();
+        distribution.put("count", sketch.getCount());
+        if (sketch.isEmpty()) {
+            distribution.put("error", "No measurements found");
+            return distribution;
+        }
+        
+        distribution.put("min", sketch.getMin());
+        distribution.put("p5", sketch.getQuantile(0.05));
+        distribution.put("p25", sketch.getQuantile(0.25));
+        distribution.put("median", sketch.getQuantile(0.5));
+        distribution.put("p75", sketch.getQuantile(0.75));
+        distribution.put("p95", sketch.getQuantile(0.95));
+        distribution.put("max", sketch.getMax());
+        
+        long[] counts = sketch.getHistogram(bins);
+        double width = (sketch.getMax() - sketch.getMin()) / bins;
+        List<Map<String, Object>> histogram = new ArrayList<>(bins);
+        for (int i = 0; i < bins; i++) {
+            Map<String, Object> bin = new LinkedHashMap<>();
+            bin.put("lowerBound", sketch.getMin() + width * i);
+            bin.put("upperBound", i == bins - 1 ? sketch.getMax() : sketch.getMin() + width * (i + 1));
+            bin.put("count", counts[i]);
+            histogram.add(bin);
+        }
+        distribution.put("histogram", histogram);
+        distribution.put("normalizedRankError", sketch.getNormalizedRankError());
+        distribution.put("methodology", "KLL quantile sketch; quantiles are approximate within the normalized rank error, min and max are exact");
+        return distribution;
+    }
+    
+    private MeasurementStatistics summarizeFilteredMeasurements(EfficacyAnalysisRequest request) {
+        MeasurementSummaryView summary = efficacyMeasurementRepository.summarizeMeasurements(
+                request.getStudyId(), request.getMeasurementType(),
+                request.getMinStudyDay(), request.getMaxStudyDay(),
+                request.getStartDate(), request.getEndDate());
+        
+        long count = summary.measurementCount() != null ? summary.measurementCount().longValue() : 0;
+        if (count == 0) {
+            return MeasurementStatistics.of(0, 0.0, 0.0, 0.0, 0, 0);
+        }
+        return MeasurementStatistics.of(count,
+                summary.valueSum().doubleValue(),
+                summary.minValue().doubleValue(),
+                summary.maxValue().doubleValue(),
+                summary.abnormalCount().longValue(),
+                summary.uniquePatients().longValue());
+    }
+    
+    private List<String> identifySafetySignals(SafetyEventCounts counts, long totalPatients) {
         List<String> signals = new ArrayList<>();
         
         // Signal 1: High serious event rate
-        long seriousEvents = events.stream().mapToLong(ae -> ae.getSerious() ? 1 : 0).sum();
-        double seriousRate = totalPatients > 0 ? (double) seriousEvents / totalPatients : 0;
+        double seriousRate = totalPatients > 0 ? (double) counts.getSeriousEvents() / totalPatients : 0;
         
         if (seriousRate > 0.1) { // More than 10% serious event rate
             signals.add("HIGH_SERIOUS_EVENT_RATE: " + Math.round(seriousRate * 1000.0) / 10.0 + "%");
         }
         
         // Signal 2: Clustering of specific events
-        Map<String, Long> eventCounts = events.stream()
-                .collect(Collectors.groupingBy(AdverseEvent::getEventTerm, Collectors.counting()));
-        
-        eventCounts.entrySet().stream()
+        counts.getEventsByTerm().entrySet().stream()
                 .filter(entry -> entry.getValue() >= Math.max(3, totalPatients * 0.05))
                 .forEach(entry -> signals.add("FREQUENT_EVENT: " + entry.getKey() + 
                         " (" + entry.getValue() + " cases)"));
         
         // Signal 3: High causality events
-        long probableOrDefiniteEvents = events.stream()
-                .mapToLong(ae -> (ae.getCausality() == AdverseEvent.Causality.PROBABLE || 
-                                ae.getCausality() == AdverseEvent.Causality.DEFINITE) ? 1 : 0)
-                .sum();
+        long probableOrDefiniteEvents = counts.getProbableOrDefiniteEvents();
         
         if (probableOrDefiniteEvents > totalPatients * 0.15) {
             signals.add("HIGH_DRUG_RELATED_EVENTS: " + probableOrDefiniteEvents + " events");
@@ -334,25 +393,21 @@ public class DataAnalysisService {
         return signals;
     }
     
-    private List<String> generateEfficacyInsights(List<EfficacyMeasurement> measurements, double meanValue) {
+    private List<String> generateEfficacyInsights(MeasurementStatistics statistics, double meanValue) {
         List<String> insights = new ArrayList<>();
         
         // Basic statistics insight
         insights.add("Average measurement value: " + Math.round(meanValue * 100.0) / 100.0);
         
         // Trend analysis
-        if (measurements.size() >= 10) {
-            insights.add("Sufficient data points for trend analysis (" + measurements.size() + " measurements)");
+        if (statistics.getCount() >= 10) {
+            insights.add("Sufficient data points for trend analysis (" + statistics.getCount() + " measurements)");
         } else {
             insights.add("Limited data points - more measurements needed for robust analysis");
         }
         
         // Normal range analysis
-        long abnormalMeasurements = measurements.stream()
-                .mapToLong(m -> m.isWithinNormalRange() ? 0 : 1)
-                .sum();
-        
-        double abnormalRate = (double) abnormalMeasurements / measurements.size() * 100;
+        double abnormalRate = (double) statistics.getAbnormalCount() / statistics.getCount() * 100;
         
         if (abnormalRate > 20) {
             insights.add("HIGH ALERT: " + Math.round(abnormalRate) + "% of measurements outside normal range");
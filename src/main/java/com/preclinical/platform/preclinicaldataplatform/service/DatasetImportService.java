@@ -0,0 +1,470 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.dto.ImportJobProgress;
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+import com.preclinical.platform.preclinicaldataplatform.entity.ImportJob;
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.event.SeriousAdverseEventBatchAlert;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyDataImportedEvent;
+import com.preclinical.platform.preclinicaldataplatform.excception.ImportJobConflictException;
+import com.preclinical.platform.preclinicaldataplatform.excception.ImportJobNotFoundException;
+import com.preclinical.platform.preclinicaldataplatform.excception.InvalidRequestException;
+import com.preclinical.platform.preclinicaldataplatform.excception.StudyNotFoundException;
+import com.preclinical.platform.preclinicaldataplatform.repository.ImportJobRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudyRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Imports SEND-style DM, AE and VS files into a study. The upload is spooled
+ * to the work directory and then read as a stream, one chunk of records at a
+ * time, so heap use depends on the chunk size rather than the file size.
+ *
+ * <p>Each chunk is written in one transaction together with the job's
+ * progress, which also maintains enrollment buckets, safety aggregates and
+ * the measurement column store as the per-record endpoints do. A failed
+ * chunk fails the job; resuming it skips the rows up to the last committed
+ * chunk, so no row is imported twice. Rows that cannot be mapped are counted
+ * as failed without failing their chunk.
+ */
+@Service
+@Slf4j
+public class DatasetImportService {
+
+    private static final int IN_CLAUSE_LIMIT = 1000;
+
+    private final ImportJobRepository importJobRepository;
+    private final StudyRepository studyRepository;
+    private final PatientRepository patientRepository;
+    private final SendRecordMapper recordMapper;
+    private final EnrollmentBucketService enrollmentBucketService;
+    private final SafetyAggregateService safetyAggregateService;
+    private final MeasurementColumnStore measurementColumnStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Executor datasetImportExecutor;
+    private final PreclinicalPlatformProperties properties;
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public DatasetImportService(ImportJobRepository importJobRepository,
+                                StudyRepository studyRepository,
+                                PatientRepository patientRepository,
+                                SendRecordMapper recordMapper,
+                                EnrollmentBucketService enrollmentBucketService,
+                                SafetyAggregateService safetyAggregateService,
+                                MeasurementColumnStore measurementColumnStore,
+                                ApplicationEventPublisher eventPublisher,
+                                TransactionTemplate transactionTemplate,
+                                @Qualifier("datasetImportExecutor") Executor datasetImportExecutor,
+                                PreclinicalPlatformProperties properties) {
+        this.importJobRepository = importJobRepository;
+        this.studyRepository = studyRepository;
+        this.patientRepository = patientRepository;
+        this.recordMapper = recordMapper;
+        this.enrollmentBucketService = enrollmentBucketService;
+        this.safetyAggregateService = safetyAggregateService;
+        this.measurementColumnStore = measurementColumnStore;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.datasetImportExecutor = datasetImportExecutor;
+        this.properties = properties;
+    }
+
+    public ImportJobProgress submit(Long studyId, ImportJob.Domain domain, MultipartFile file) {
+        if (!studyRepository.existsById(studyId)) {
+            throw new StudyNotFoundException("Study not found with id: " + studyId);
+        }
+        if (file.isEmpty()) {
+            throw new InvalidRequestException("Import file is empty");
+        }
+
+        ImportJob job = importJobRepository.save(ImportJob.builder()
+                .studyId(studyId)
+                .domain(domain)
+                .fileName(file.getOriginalFilename())
+                .build());
+        try {
+            Path directory = Paths.get(properties.getImports().getWorkDirectory());
+            Files.createDirectories(directory);
+            Path target = directory.resolve("import-" + job.getId() + ".dat");
+            // Spooled to disk so the import can outlive the request and be resumed
+            file.transferTo(target);
+            job.setFilePath(target.toString());
+        } catch (IOException e) {
+            job.setStatus(ImportJob.Status.FAILED);
+            job.setLastError("Could not store upload: " + e.getMessage());
+            importJobRepository.save(job);
+            throw new UncheckedIOException("Could not store import file", e);
+        }
+        job = importJobRepository.save(job);
+
+        log.info("Import job {} created for study {}: {} file {}", job.getId(), studyId, domain, job.getFileName());
+        launch(job.getId());
+        return ImportJobProgress.of(job);
+    }
+
+    public ImportJobProgress resume(Long jobId) {
+        ImportJob job = findJob(jobId);
+        if (job.getStatus() == ImportJob.Status.COMPLETED) {
+            throw new ImportJobConflictException("Import job " + jobId + " has already completed");
+        }
+        // A RUNNING job that is not active here was interrupted by a shutdown or crash
+        launch(jobId);
+        log.info("Resuming import job {} after row {}", jobId, job.getLastCommittedRow());
+        return ImportJobProgress.of(job);
+    }
+
+    public ImportJobProgress getProgress(Long jobId) {
+        return ImportJobProgress.of(findJob(jobId));
+    }
+
+    public List<ImportJobProgress> getStudyJobs(Long studyId) {
+        return importJobRepository.findByStudyIdOrderByIdDesc(studyId).stream()
+                .map(ImportJobProgress::of)
+                .toList();
+    }
+
+    private ImportJob findJob(Long jobId) {
+        return importJobRepository.findById(jobId)
+                .orElseThrow(() -> new ImportJobNotFoundException("Import job not found with id: " + jobId));
+    }
+
+    private void launch(Long jobId) {
+        if (!activeJobs.add(jobId)) {
+            throw new ImportJobConflictException("Import job " + jobId + " is already running");
+        }
+        try {
+            datasetImportExecutor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    activeJobs.remove(jobId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            activeJobs.remove(jobId);
+            throw new IllegalStateException("Too many imports queued; resume job " + jobId + " later", e);
+        }
+    }
+
+    private void run(Long jobId) {
+        ImportJob job = transactionTemplate.execute(status -> {
+            ImportJob running = findJob(jobId);
+            running.setStatus(ImportJob.Status.RUNNING);
+            if (running.getStartedAt() == null) {
+                running.setStartedAt(LocalDateTime.now());
+            }
+            return running;
+        });
+        int chunkSize = Math.max(1, properties.getImports().getChunkSize());
+        long progressLogRows = Math.max(1, properties.getImports().getProgressLogRows());
+        Progress progress = new Progress(job);
+
+        try (DelimitedRecordReader reader = new DelimitedRecordReader(
+                Files.newBufferedReader(Paths.get(job.getFilePath()), StandardCharsets.UTF_8))) {
+            requireColumns(job.getDomain(), reader);
+            reader.skip(job.getLastCommittedRow());
+
+            List<DelimitedRecordReader.Record> chunk = new ArrayList<>(chunkSize);
+            long nextLog = job.getLastCommittedRow() + progressLogRows;
+            DelimitedRecordReader.Record record;
+            while ((record = reader.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() == chunkSize) {
+                    commitChunk(job, chunk, reader.getRecordNumber(), progress);
+                    chunk.clear();
+                    if (reader.getRecordNumber() >= nextLog) {
+                        logProgress(job, progress);
+                        nextLog = reader.getRecordNumber() + progressLogRows;
+                    }
+                }
+            }
+            commitChunk(job, chunk, reader.getRecordNumber(), progress);
+            finish(job, progress, ImportJob.Status.COMPLETED, null);
+            deleteQuietly(job.getFilePath());
+            logProgress(job, progress);
+        } catch (IOException | RuntimeException e) {
+            // Anything that escapes here would otherwise leave the job RUNNING on a dead thread
+            String message = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.error("Import job {} failed after row {}: {}", jobId, job.getLastCommittedRow(), message, e);
+            finish(job, progress, ImportJob.Status.FAILED, message);
+        }
+    }
+
+    private void requireColumns(ImportJob.Domain domain, DelimitedRecordReader reader) {
+        List<String> required = switch (domain) {
+            case DM -> List.of("USUBJID", "AGE");
+            case AE -> List.of("USUBJID", "AETERM", "AESEV", "AEREL", "AESTDTC");
+            case VS -> List.of("USUBJID", "VSTESTCD", "VSSTRESN", "VSDTC");
+        };
+        List<String> missing = required.stream().filter(column -> !reader.hasColumn(column)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + domain + " columns: " + missing);
+        }
+    }
+
+    // Writes the chunk and advances the job to lastRow in one transaction
+    private void commitChunk(ImportJob job, List<DelimitedRecordReader.Record> records, long lastRow,
+                             Progress progress) {
+        ChunkResult result = transactionTemplate.execute(status -> {
+            ChunkResult written = switch (job.getDomain()) {
+                case DM -> importDemographics(job.getStudyId(), records);
+                case AE -> importAdverseEvents(job.getStudyId(), records);
+                case VS -> importVitalSigns(job.getStudyId(), records);
+            };
+            if (written.imported() > 0) {
+                eventPublisher.publishEvent(
+                        new StudyDataImportedEvent(job.getStudyId(), job.getDomain(), written.imported()));
+            }
+            ImportJob managed = entityManager.find(ImportJob.class, job.getId());
+            managed.setLastCommittedRow(lastRow);
+            managed.setRowsImported(managed.getRowsImported() + written.imported());
+            managed.setRowsFailed(managed.getRowsFailed() + written.failed());
+            if (written.lastError() != null) {
+                managed.setLastError(written.lastError());
+            }
+            managed.setActiveMillis(progress.activeMillis());
+            entityManager.flush();
+            entityManager.clear();
+            return written;
+        });
+
+        job.setLastCommittedRow(lastRow);
+        job.setRowsImported(job.getRowsImported() + result.imported());
+        job.setRowsFailed(job.getRowsFailed() + result.failed());
+        if (result.lastError() != null) {
+            job.setLastError(result.lastError());
+        }
+        job.setActiveMillis(progress.activeMillis());
+    }
+
+    private ChunkResult importDemographics(Long studyId, List<DelimitedRecordReader.Record> records) {
+        ChunkErrors errors = new ChunkErrors();
+        Study study = entityManager.getReference(Study.class, studyId);
+
+        List<Patient> mapped = new ArrayList<>(records.size());
+        List<Long> rowNumbers = new ArrayList<>(records.size());
+        for (DelimitedRecordReader.Record record : records) {
+            try {
+                Patient patient = recordMapper.mapDemographics(record);
+                patient.setStudy(study);
+                mapped.add(patient);
+                rowNumbers.add(record.getNumber());
+            } catch (IllegalArgumentException e) {
+                errors.add(record.getNumber(), e.getMessage());
+            }
+        }
+
+        // Patient codes are unique across studies; duplicates are rejected per row instead of failing the chunk
+        Set<String> taken = new HashSet<>();
+        List<String> codes = mapped.stream().map(Patient::getPatientCode).distinct().toList();
+        for (List<String> part : partition(codes)) {
+            taken.addAll(patientRepository.findExistingPatientCodes(part));
+        }
+        List<Patient> patients = new ArrayList<>(mapped.size());
+        for (int i = 0; i < mapped.size(); i++) {
+            Patient patient = mapped.get(i);
+            if (!taken.add(patient.getPatientCode())) {
+                errors.add(rowNumbers.get(i), "Patient code already exists: " + patient.getPatientCode());
+                continue;
+            }
+            entityManager.persist(patient);
+            patients.add(patient);
+        }
+        enrollmentBucketService.recordEnrollments(studyId, patients);
+        return new ChunkResult(patients.size(), errors.count(), errors.last());
+    }
+
+    private ChunkResult importAdverseEvents(Long studyId, List<DelimitedRecordReader.Record> records) {
+        ChunkErrors errors = new ChunkErrors();
+        Map<String, Patient> patients = resolvePatients(studyId, records, errors);
+
+        List<AdverseEvent> adverseEvents = new ArrayList<>(records.size());
+        for (DelimitedRecordReader.Record record : records) {
+            Patient patient = patients.get(record.get("USUBJID"));
+            if (patient == null) {
+                continue;
+            }
+            try {
+                AdverseEvent adverseEvent = recordMapper.mapAdverseEvent(record, patient);
+                entityManager.persist(adverseEvent);
+                adverseEvents.add(adverseEvent);
+            } catch (IllegalArgumentException e) {
+                errors.add(record.getNumber(), e.getMessage());
+            }
+        }
+        safetyAggregateService.recordAdverseEvents(adverseEvents);
+
+        List<AdverseEvent> serious = adverseEvents.stream()
+                .filter(adverseEvent -> Boolean.TRUE.equals(adverseEvent.getSerious()))
+                .toList();
+        if (!serious.isEmpty()) {
+            // Delivered after this chunk commits, like the bulk API
+            eventPublisher.publishEvent(new SeriousAdverseEventBatchAlert(studyId, serious));
+        }
+        return new ChunkResult(adverseEvents.size(), errors.count(), errors.last());
+    }
+
+    private ChunkResult importVitalSigns(Long studyId, List<DelimitedRecordReader.Record> records) {
+        ChunkErrors errors = new ChunkErrors();
+        Map<String, Patient> patients = resolvePatients(studyId, records, errors);
+
+        int imported = 0;
+        for (DelimitedRecordReader.Record record : records) {
+            Patient patient = patients.get(record.get("USUBJID"));
+            if (patient == null) {
+                continue;
+            }
+            try {
+                EfficacyMeasurement measurement = recordMapper.mapVitalSign(record, patient);
+                entityManager.persist(measurement);
+                measurementColumnStore.appendAfterCommit(measurement);
+                imported++;
+            } catch (IllegalArgumentException e) {
+                errors.add(record.getNumber(), e.getMessage());
+            }
+        }
+        return new ChunkResult(imported, errors.count(), errors.last());
+    }
+
+    // Loads the chunk's subjects of this study; records whose subject is unknown are counted as failed
+    private Map<String, Patient> resolvePatients(Long studyId, List<DelimitedRecordReader.Record> records,
+                                                 ChunkErrors errors) {
+        Set<String> codes = new LinkedHashSet<>();
+        for (DelimitedRecordReader.Record record : records) {
+            if (record.get("USUBJID") != null) {
+                codes.add(record.get("USUBJID"));
+            }
+        }
+        Map<String, Patient> patients = new HashMap<>();
+        for (List<String> part : partition(new ArrayList<>(codes))) {
+            patientRepository.findByStudyIdAndPatientCodeIn(studyId, part)
+                    .forEach(patient -> patients.put(patient.getPatientCode(), patient));
+        }
+        for (DelimitedRecordReader.Record record : records) {
+            String code = record.get("USUBJID");
+            if (code == null) {
+                errors.add(record.getNumber(), "USUBJID is required");
+            } else if (!patients.containsKey(code)) {
+                errors.add(record.getNumber(), "Subject " + code + " is not enrolled in study " + studyId);
+            }
+        }
+        return patients;
+    }
+
+    private List<List<String>> partition(List<String> values) {
+        List<List<String>> parts = new ArrayList<>();
+        for (int from = 0; from < values.size(); from += IN_CLAUSE_LIMIT) {
+            parts.add(values.subList(from, Math.min(from + IN_CLAUSE_LIMIT, values.size())));
+        }
+        return parts;
+    }
+
+    private void finish(ImportJob job, Progress progress, ImportJob.Status status, String error) {
+        try {
+            transactionTemplate.executeWithoutResult(tx -> {
+                ImportJob managed = findJob(job.getId());
+                managed.setStatus(status);
+                managed.setActiveMillis(progress.activeMillis());
+                if (status == ImportJob.Status.COMPLETED) {
+                    managed.setCompletedAt(LocalDateTime.now());
+                }
+                if (error != null) {
+                    managed.setLastError(error);
+                }
+            });
+            job.setStatus(status);
+            job.setActiveMillis(progress.activeMillis());
+        } catch (DataAccessException | TransactionException e) {
+            // The job stays RUNNING and can still be resumed from its last committed row
+            log.error("Could not record {} status for import job {}", status, job.getId(), e);
+        }
+    }
+
+    private void logProgress(ImportJob job, Progress progress) {
+        long rows = job.getLastCommittedRow() - progress.startRow();
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - progress.startNanos()));
+        log.info("Import job {} ({}): {} rows processed, {} imported, {} failed, {} rows/s",
+                job.getId(), job.getDomain(), job.getLastCommittedRow(), job.getRowsImported(),
+                job.getRowsFailed(), rows * 1000 / millis);
+    }
+
+    private void deleteQuietly(String filePath) {
+        try {
+            Files.deleteIfExists(Paths.get(filePath));
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}", filePath, e);
+        }
+    }
+
+    // Timing of the current run; activeMillis adds it to the time spent in earlier runs
+    private record Progress(long startRow, long previousMillis, long startNanos) {
+
+        Progress(ImportJob job) {
+            this(job.getLastCommittedRow(), job.getActiveMillis(), System.nanoTime());
+        }
+
+        long activeMillis() {
+            return previousMillis + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        }
+    }
+
+    private record ChunkResult(int imported, int failed, String lastError) {
+    }
+
+    private static final class ChunkErrors {
+        private int count;
+        private String last;
+
+        void add(long row, String message) {
+            count++;
+            last = "Row " + row + ": " + message;
+            log.debug("Import row {} rejected: {}", row, message);
+        }
+
+        int count() {
+            return count;
+        }
+
+        String last() {
+            return last;
+        }
+    }
+}
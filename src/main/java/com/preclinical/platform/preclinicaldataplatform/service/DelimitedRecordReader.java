@@ -0,0 +1,163 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Streaming reader for delimited text files with a header row (CSV or
+ * tab-separated SEND exports). Only the current record is held in memory.
+ * Quoted fields may contain delimiters, doubled quotes and line breaks.
+ * The delimiter is a tab if the header line contains one, otherwise a comma.
+ */
+public class DelimitedRecordReader implements Closeable {
+
+    private static final char QUOTE = '"';
+
+    private final BufferedReader reader;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private final char delimiter;
+    private long recordNumber;
+
+    public DelimitedRecordReader(Reader source) throws IOException {
+        this.reader = source instanceof BufferedReader buffered ? buffered : new BufferedReader(source, 64 * 1024);
+        // Read as a plain line so header length is not bounded by a mark limit; names never contain line breaks
+        String headerLine = reader.readLine();
+        if (headerLine == null) {
+            throw new IllegalArgumentException("File is empty");
+        }
+        this.delimiter = headerLine.indexOf('\t') >= 0 ? '\t' : ',';
+
+        List<String> header = readFields(new BufferedReader(new StringReader(headerLine)));
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).trim();
+            // A UTF-8 byte order mark ends up in front of the first column name
+            if (i == 0 && !name.isEmpty() && name.charAt(0) == '\uFEFF') {
+                name = name.substring(1);
+            }
+            columns.putIfAbsent(name.toUpperCase(Locale.ROOT), i);
+        }
+    }
+
+    public boolean hasColumn(String name) {
+        return columns.containsKey(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Next data record, or {@code null} at end of file. Blank lines are skipped
+     * but still counted, so record numbers stay stable across restarts.
+     */
+    public Record next() throws IOException {
+        while (true) {
+            List<String> fields = readFields(reader);
+            if (fields == null) {
+                return null;
+            }
+            recordNumber++;
+            if (fields.size() == 1 && fields.get(0).isEmpty()) {
+                continue;
+            }
+            return new Record(recordNumber, fields);
+        }
+    }
+
+    // Skips data records without keeping them; returns how many were skipped
+    public long skip(long records) throws IOException {
+        long skipped = 0;
+        while (skipped < records && readFields(reader) != null) {
+            recordNumber++;
+            skipped++;
+        }
+        return skipped;
+    }
+
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    private List<String> readFields(BufferedReader in) throws IOException {
+        int c = in.read();
+        if (c == -1) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == QUOTE) {
+                    in.mark(1);
+                    int following = in.read();
+                    if (following == QUOTE) {
+                        field.append(QUOTE);
+                    } else {
+                        quoted = false;
+                        if (following != -1) {
+                            in.reset();
+                        }
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == QUOTE && field.isEmpty()) {
+                quoted = true;
+            } else if (ch == delimiter) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n') {
+                break;
+            } else if (ch == '\r') {
+                in.mark(1);
+                if (in.read() != '\n') {
+                    in.reset();
+                }
+                break;
+            } else {
+                field.append(ch);
+            }
+            c = in.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * One data record. Values are looked up by header name, case-insensitively;
+     * missing columns and empty values read as {@code null}.
+     */
+    public final class Record {
+        private final long number;
+        private final List<String> fields;
+
+        private Record(long number, List<String> fields) {
+            this.number = number;
+            this.fields = fields;
+        }
+
+        public long getNumber() {
+            return number;
+        }
+
+        public String get(String column) {
+            Integer index = columns.get(column.toUpperCase(Locale.ROOT));
+            if (index == null || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+    }
+}
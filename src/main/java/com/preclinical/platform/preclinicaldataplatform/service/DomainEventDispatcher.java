@@ -0,0 +1,149 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.preclinical.platform.preclinicaldataplatform.event.DomainEvent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers domain events to the handlers subscribed for their type. Events
+ * reach it from the {@link OutboxRelay} once they are stored in the outbox,
+ * on the relay's lanes and in per-study order.
+ *
+ * <p>Handlers that can safely see an event twice may be opened for replay,
+ * which re-runs just that handler over already delivered events. While a
+ * handler runs, {@link #currentOutboxEventId()} names the outbox row the
+ * event came from, so a handler can recognise an event it has seen before,
+ * and {@link #currentEventTime()} gives the time the event was written,
+ * which is when the change was made rather than when it is delivered.
+ *
+ * <p>Metrics, tagged by event type and handler:
+ * {@code preclinical.events.handler.duration} and
+ * {@code preclinical.events.handler.failures}.
+ */
+@Component
+@Slf4j
+public class DomainEventDispatcher {
+
+    private static final ThreadLocal<Delivery> CURRENT_DELIVERY = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Class<?>, List<Subscription<?>>> subscriptions = new ConcurrentHashMap<>();
+    private final Set<String> replayableHandlers = ConcurrentHashMap.newKeySet();
+
+    public DomainEventDispatcher(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Handlers are matched on the exact event class
+    public <E extends DomainEvent> void subscribe(Class<E> eventType, String handlerName, Consumer<? super E> handler) {
+        Timer duration = Timer.builder("preclinical.events.handler.duration")
+                .tag("type", eventType.getSimpleName())
+                .tag("handler", handlerName)
+                .register(meterRegistry);
+        Counter failures = Counter.builder("preclinical.events.handler.failures")
+                .tag("type", eventType.getSimpleName())
+                .tag("handler", handlerName)
+                .register(meterRegistry);
+        subscriptions.computeIfAbsent(eventType, type -> new CopyOnWriteArrayList<>())
+                .add(new Subscription<>(eventType, handlerName, handler, duration, failures));
+    }
+
+    public void allowReplay(String handlerName) {
+        replayableHandlers.add(handlerName);
+    }
+
+    public boolean isReplayable(String handlerName) {
+        return replayableHandlers.contains(handlerName);
+    }
+
+    // Id of the outbox row being delivered on this thread, or null outside a delivery
+    public Long currentOutboxEventId() {
+        Delivery delivery = CURRENT_DELIVERY.get();
+        return delivery != null ? delivery.outboxEventId() : null;
+    }
+
+    // Time the outbox row being delivered on this thread was written, or null outside a delivery
+    public LocalDateTime currentEventTime() {
+        Delivery delivery = CURRENT_DELIVERY.get();
+        return delivery != null ? delivery.occurredAt() : null;
+    }
+
+    /**
+     * Runs every handler of the event in subscription order. A failing
+     * handler does not stop the others, but the event as a whole fails so
+     * the outbox keeps it for another attempt.
+     */
+    public void deliver(Long outboxEventId, LocalDateTime occurredAt, DomainEvent event) {
+        List<String> failed = new ArrayList<>();
+        RuntimeException firstFailure = null;
+        CURRENT_DELIVERY.set(new Delivery(outboxEventId, occurredAt));
+        try {
+            for (Subscription<?> subscription : subscriptions.getOrDefault(event.getClass(), List.of())) {
+                try {
+                    subscription.deliver(event);
+                } catch (RuntimeException e) {
+                    failed.add(subscription.name());
+                    firstFailure = firstFailure != null ? firstFailure : e;
+                }
+            }
+        } finally {
+            CURRENT_DELIVERY.remove();
+        }
+        if (firstFailure != null) {
+            throw new IllegalStateException("Handlers " + failed + " failed for "
+                    + event.getClass().getSimpleName(), firstFailure);
+        }
+    }
+
+    public void redeliver(Long outboxEventId, LocalDateTime occurredAt, DomainEvent event, String handlerName) {
+        if (!isReplayable(handlerName)) {
+            throw new IllegalArgumentException("Handler " + handlerName + " does not support replay");
+        }
+        CURRENT_DELIVERY.set(new Delivery(outboxEventId, occurredAt));
+        try {
+            for (Subscription<?> subscription : subscriptions.getOrDefault(event.getClass(), List.of())) {
+                if (subscription.name().equals(handlerName)) {
+                    subscription.deliver(event);
+                }
+            }
+        } finally {
+            CURRENT_DELIVERY.remove();
+        }
+    }
+
+    private record Delivery(Long outboxEventId, LocalDateTime occurredAt) {
+    }
+
+    private record Subscription<E>(Class<E> eventType, String name, Consumer<? super E> handler,
+                                   Timer duration, Counter failures) {
+
+        void deliver(Object event) {
+            long start = System.nanoTime();
+            try {
+                handler.accept(eventType.cast(event));
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.error("Event handler {} failed for {}", name, eventType.getSimpleName(), e);
+                throw e;
+            } finally {
+                duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+}
@@ -7,12 +7,14 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.preclinical.platform.preclinicaldataplatform.dto.CreateEfficacyMeasurementRequest;
 import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
 import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.event.EfficacyMeasurementRecordedEvent;
 import com.preclinical.platform.preclinicaldataplatform.excception.PatientNotFoundException;
 import com.preclinical.platform.preclinicaldataplatform.repository.EfficacyMeasurementRepository;
 import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
@@ -26,11 +28,17 @@ public class EfficacyMeasurementService {
     
     private final EfficacyMeasurementRepository efficacyMeasurementRepository;
     private final PatientRepository patientRepository;
+    private final MeasurementColumnStore measurementColumnStore;
+    private final ApplicationEventPublisher eventPublisher;
     
     public EfficacyMeasurementService(EfficacyMeasurementRepository efficacyMeasurementRepository,
-                                    PatientRepository patientRepository) {
+                                    PatientRepository patientRepository,
+                                    MeasurementColumnStore measurementColumnStore,
+                                    ApplicationEventPublisher eventPublisher) {
         this.efficacyMeasurementRepository = efficacyMeasurementRepository;
         this.patientRepository = patientRepository;
+        this.measurementColumnStore = measurementColumnStore;
+        this.eventPublisher = eventPublisher;
     }
     
     public EfficacyMeasurement recordMeasurement(Long patientId, CreateEfficacyMeasurementRequest request) {
@@ -52,8 +60,10 @@ public class EfficacyMeasurementService {
                 .build();
         
         EfficacyMeasurement savedMeasurement = efficacyMeasurementRepository.save(measurement);
+        measurementColumnStore.appendAfterCommit(savedMeasurement);
+        eventPublisher.publishEvent(new EfficacyMeasurementRecordedEvent(savedMeasurement));
         
-        log.info("Recorded {} measurement for patient {}: {} {}", 
+        log.debug("Recorded {} measurement for patient {}: {} {}", 
                 measurement.getMeasurementType(), 
                 patient.getPatientCode(),
                 measurement.getMeasurementValue(),
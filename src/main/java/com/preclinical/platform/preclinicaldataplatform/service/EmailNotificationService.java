@@ -1,5 +1,7 @@
 package com.preclinical.platform.preclinicaldataplatform.service;
 
+import java.util.List;
+
 import org.springframework.stereotype.Service;
 
 import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
@@ -26,6 +28,12 @@ public class EmailNotificationService {
 		// Critical: immediate notification to safety team
 	}
 
+	public void sendSAEBatchAlert(Long studyId, List<AdverseEvent> adverseEvents) {
+		log.error("Sending SAE alert for {} events in study {}: {}", adverseEvents.size(), studyId,
+				adverseEvents.stream().map(AdverseEvent::getEventTerm).distinct().toList());
+		// Critical: one notification to the safety team per study and import batch
+	}
+
 	public void sendStudyActivationNotification(Study study) {
 		log.info("Sending activation notification for study: {}", study.getStudyCode());
 	}
@@ -0,0 +1,223 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.EnrollmentBucket;
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.excception.StudyNotFoundException;
+import com.preclinical.platform.preclinicaldataplatform.repository.EnrollmentBucketRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.EnrollmentDayCount;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudyRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains daily {@link EnrollmentBucket} rows per study. Enrollments,
+ * removals and enrollment date corrections adjust the affected days in the
+ * caller's transaction under those buckets' row locks, so only changes to the
+ * same day of the same study wait for each other. Callers apply the change to
+ * the patient first; a study without buckets is recounted instead, and the
+ * recount already includes it.
+ */
+@Service
+@Transactional
+@Slf4j
+public class EnrollmentBucketService {
+
+    private final EnrollmentBucketRepository bucketRepository;
+    private final PatientRepository patientRepository;
+    private final StudyRepository studyRepository;
+    private final TransactionTemplate createTransactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public EnrollmentBucketService(EnrollmentBucketRepository bucketRepository,
+                                   PatientRepository patientRepository,
+                                   StudyRepository studyRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.bucketRepository = bucketRepository;
+        this.patientRepository = patientRepository;
+        this.studyRepository = studyRepository;
+        this.createTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.createTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordEnrollment(Patient patient) {
+        if (patient.getStudy() == null || patient.getEnrollmentDate() == null) {
+            return;
+        }
+        adjust(patient.getStudy().getId(), Map.of(patient.getEnrollmentDate(), 1L));
+    }
+
+    // Bulk variant for patients of one study inserted in the current transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordEnrollments(Long studyId, List<Patient> patients) {
+        Map<LocalDate, Long> countsByDate = new TreeMap<>();
+        for (Patient patient : patients) {
+            if (patient.getEnrollmentDate() != null) {
+                countsByDate.merge(patient.getEnrollmentDate(), 1L, Long::sum);
+            }
+        }
+        adjust(studyId, countsByDate);
+    }
+
+    // Call after the patient has been deleted in the current transaction
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordRemoval(Patient patient) {
+        if (patient.getStudy() == null || patient.getEnrollmentDate() == null) {
+            return;
+        }
+        adjust(patient.getStudy().getId(), Map.of(patient.getEnrollmentDate(), -1L));
+    }
+
+    // Call after the patient's enrollment date has been changed from previousDate
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordEnrollmentDateChange(Patient patient, LocalDate previousDate) {
+        if (patient.getStudy() == null || Objects.equals(previousDate, patient.getEnrollmentDate())) {
+            return;
+        }
+        Map<LocalDate, Long> deltas = new TreeMap<>();
+        if (previousDate != null) {
+            deltas.put(previousDate, -1L);
+        }
+        if (patient.getEnrollmentDate() != null) {
+            deltas.put(patient.getEnrollmentDate(), 1L);
+        }
+        adjust(patient.getStudy().getId(), deltas);
+    }
+
+    /**
+     * Daily enrollment counts in date order. A study without buckets has had no
+     * enrollment since they were introduced, so a grouped query on the patient
+     * table gives the same answer.
+     */
+    @Transactional(readOnly = true)
+    public NavigableMap<LocalDate, Long> findDailyCounts(Long studyId) {
+        NavigableMap<LocalDate, Long> daily = new TreeMap<>();
+        List<EnrollmentBucket> buckets = bucketRepository.findByStudyIdOrderByBucketDate(studyId);
+        if (!buckets.isEmpty()) {
+            // Buckets are kept at zero rather than deleted once their last patient is removed
+            buckets.stream()
+                    .filter(bucket -> bucket.getPatientCount() != 0)
+                    .forEach(bucket -> daily.put(bucket.getBucketDate(), bucket.getPatientCount()));
+            return daily;
+        }
+        patientRepository.countEnrollmentsByDay(studyId)
+                .forEach(row -> daily.put(row.getEnrollmentDate(), row.getPatientCount()));
+        return daily;
+    }
+
+    public long rebuild(Long studyId) {
+        if (!studyRepository.existsById(studyId)) {
+            throw new StudyNotFoundException("Study not found with id: " + studyId);
+        }
+        long total = recount(studyId);
+        log.info("Rebuilt enrollment buckets for study {}: {} patients", studyId, total);
+        return total;
+    }
+
+    public int rebuildAll() {
+        List<Study> studies = studyRepository.findAll();
+        studies.forEach(study -> rebuild(study.getId()));
+        return studies.size();
+    }
+
+    // Changes are applied in date order, the order every other caller locks a study's buckets in
+    private void adjust(Long studyId, Map<LocalDate, Long> deltas) {
+        if (studyId == null || deltas.isEmpty()) {
+            return;
+        }
+        if (!bucketRepository.existsByStudyId(studyId)) {
+            // First change since buckets were introduced; the recount includes it
+            recount(studyId);
+            return;
+        }
+        new TreeMap<>(deltas).forEach((date, delta) -> {
+            EnrollmentBucket bucket = lockOrCreate(studyId, date);
+            bucket.setPatientCount(bucket.getPatientCount() + delta);
+        });
+    }
+
+    /**
+     * Replaces a study's bucket counts with a recount. Every bucket the recount
+     * writes is locked before the count is taken: changes that already hold a
+     * bucket commit first and are counted, and later ones wait and apply on top
+     * of the recount. Days that first show up in the count are locked and the
+     * count repeated until no new day appears.
+     */
+    private long recount(Long studyId) {
+        Map<LocalDate, EnrollmentBucket> locked = new TreeMap<>();
+        bucketRepository.findByStudyIdForUpdate(studyId)
+                .forEach(bucket -> locked.put(bucket.getBucketDate(), bucket));
+        List<EnrollmentDayCount> counts = patientRepository.countEnrollmentsByDay(studyId);
+        while (true) {
+            boolean lockedMore = false;
+            for (EnrollmentDayCount row : counts) {
+                if (!locked.containsKey(row.getEnrollmentDate())) {
+                    locked.put(row.getEnrollmentDate(), lockOrCreate(studyId, row.getEnrollmentDate()));
+                    lockedMore = true;
+                }
+            }
+            if (!lockedMore) {
+                break;
+            }
+            counts = patientRepository.countEnrollmentsByDay(studyId);
+        }
+
+        locked.values().forEach(bucket -> bucket.setPatientCount(0L));
+        long total = 0;
+        for (EnrollmentDayCount row : counts) {
+            locked.get(row.getEnrollmentDate()).setPatientCount(row.getPatientCount());
+            total += row.getPatientCount();
+        }
+        return total;
+    }
+
+    /**
+     * Locks a day's bucket, creating it first when missing. The row is
+     * inserted in its own transaction, so when two callers race to create it
+     * the loser's duplicate key fails there instead of in the caller's
+     * transaction, and both then lock the row that won. That transaction
+     * commits even if the caller rolls back, so the row starts from the day's
+     * committed enrollments rather than zero: it cannot see the caller's own
+     * patients, which the caller then adds or recounts under the lock.
+     */
+    private EnrollmentBucket lockOrCreate(Long studyId, LocalDate date) {
+        Optional<EnrollmentBucket> existing = bucketRepository.findByStudyIdAndBucketDateForUpdate(studyId, date);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            createTransactionTemplate.executeWithoutResult(status -> entityManager.persist(EnrollmentBucket.builder()
+                    .studyId(studyId)
+                    .bucketDate(date)
+                    .patientCount(patientRepository.countEnrollmentsOnDay(studyId, date))
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Enrollment bucket for study {} on {} was created concurrently", studyId, date);
+        }
+        return bucketRepository.findByStudyIdAndBucketDateForUpdate(studyId, date)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Enrollment bucket for study " + studyId + " on " + date + " is missing"));
+    }
+}
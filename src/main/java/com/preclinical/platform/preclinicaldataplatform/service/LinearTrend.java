@@ -0,0 +1,38 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+/**
+ * Ordinary least-squares line through a series, computed in one pass with
+ * running means and co-moments (Welford style) so large or offset values do
+ * not lose precision the way raw sums of squares do.
+ */
+public record LinearTrend(long count, double slope, double intercept, double rSquared) {
+
+    public static LinearTrend fit(double[] x, double[] y, int size) {
+        double meanX = 0.0;
+        double meanY = 0.0;
+        double sxx = 0.0;
+        double syy = 0.0;
+        double sxy = 0.0;
+        for (int i = 0; i < size; i++) {
+            int n = i + 1;
+            double dx = x[i] - meanX;
+            double dy = y[i] - meanY;
+            meanX += dx / n;
+            meanY += dy / n;
+            sxx += dx * (x[i] - meanX);
+            syy += dy * (y[i] - meanY);
+            sxy += dx * (y[i] - meanY);
+        }
+        if (size < 2 || sxx == 0.0) {
+            // No spread in x: the best fit is flat through the mean
+            return new LinearTrend(size, 0.0, meanY, 0.0);
+        }
+        double slope = sxy / sxx;
+        double rSquared = syy == 0.0 ? 1.0 : (sxy * sxy) / (sxx * syy);
+        return new LinearTrend(size, slope, meanY - slope * meanX, rSquared);
+    }
+
+    public double valueAt(double x) {
+        return intercept + slope * x;
+    }
+}
@@ -0,0 +1,212 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+import com.preclinical.platform.preclinicaldataplatform.repository.EfficacyMeasurementRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.MeasurementColumnView;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory columnar copy of efficacy measurement values keyed by study and
+ * measurement type. Each measurement costs about 29 bytes (value, study day,
+ * patient id, normal range flag and, for loaded rows, the id) instead of a
+ * hydrated entity, and analyses run as loops over primitive arrays.
+ *
+ * <p>A column is loaded from the database the first time it is read and is
+ * then kept current by {@link #appendAfterCommit(EfficacyMeasurement)}, which
+ * {@link EfficacyMeasurementService} calls for every recorded measurement.
+ * Concurrent transactions do not commit in id order, so the ids seen by the
+ * initial load are kept and an append is ignored only if its id was part of
+ * that load; a commit racing the load is never counted twice or dropped.
+ *
+ * <p>Each column also feeds a {@link KllQuantileSketch}, so distribution
+ * queries read a few hundred retained values instead of the whole series.
+ */
+@Component
+@Slf4j
+public class MeasurementColumnStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final EfficacyMeasurementRepository efficacyMeasurementRepository;
+    private final Map<ColumnKey, Column> columns = new ConcurrentHashMap<>();
+
+    public MeasurementColumnStore(EfficacyMeasurementRepository efficacyMeasurementRepository) {
+        this.efficacyMeasurementRepository = efficacyMeasurementRepository;
+    }
+
+    public ColumnSnapshot snapshot(Long studyId, EfficacyMeasurement.MeasurementType type) {
+        Column column = columns.computeIfAbsent(new ColumnKey(studyId, type), key -> new Column());
+        return column.snapshot(studyId, type);
+    }
+
+    // Copy of the column's quantile sketch, safe to merge or query without locking
+    public KllQuantileSketch sketch(Long studyId, EfficacyMeasurement.MeasurementType type) {
+        Column column = columns.computeIfAbsent(new ColumnKey(studyId, type), key -> new Column());
+        return column.sketchCopy(studyId, type);
+    }
+
+    // Appends once the surrounding transaction commits, so rolled back measurements never show up
+    public void appendAfterCommit(EfficacyMeasurement measurement) {
+        if (measurement.getId() == null || measurement.getStudy() == null
+                || measurement.getPatient() == null || measurement.getMeasurementValue() == null) {
+            return;
+        }
+        appendAfterCommit(measurement.getStudy().getId(), measurement.getMeasurementType(), measurement.getId(),
+                measurement.getMeasurementValue().doubleValue(), measurement.getStudyDay(),
+                measurement.getPatient().getId(), measurement.isWithinNormalRange());
+    }
+
+    // Same as above for rows inserted without an entity, e.g. by JDBC batches
+    public void appendAfterCommit(Long studyId, EfficacyMeasurement.MeasurementType type, long id, double value,
+                                  int studyDay, long patientId, boolean withinNormalRange) {
+        ColumnKey key = new ColumnKey(studyId, type);
+        Runnable append = () -> {
+            Column column = columns.get(key);
+            if (column != null) {
+                column.append(id, value, studyDay, patientId, withinNormalRange);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append.run();
+                }
+            });
+        } else {
+            append.run();
+        }
+    }
+
+    public void evictStudy(Long studyId) {
+        columns.keySet().removeIf(key -> key.studyId().equals(studyId));
+    }
+
+    private record ColumnKey(Long studyId, EfficacyMeasurement.MeasurementType type) {
+    }
+
+    private final class Column {
+        private double[] values = new double[INITIAL_CAPACITY];
+        private int[] studyDays = new int[INITIAL_CAPACITY];
+        private long[] patientIds = new long[INITIAL_CAPACITY];
+        private boolean[] withinNormalRange = new boolean[INITIAL_CAPACITY];
+        private final KllQuantileSketch sketch = new KllQuantileSketch();
+        private long[] loadedIds = new long[0];
+        private int size;
+        private boolean loaded;
+
+        synchronized ColumnSnapshot snapshot(Long studyId, EfficacyMeasurement.MeasurementType type) {
+            if (!loaded) {
+                load(studyId, type);
+            }
+            // Slots below size are never written again, so readers can use the arrays without locking
+            return new ColumnSnapshot(values, studyDays, patientIds, withinNormalRange, size);
+        }
+
+        synchronized KllQuantileSketch sketchCopy(Long studyId, EfficacyMeasurement.MeasurementType type) {
+            if (!loaded) {
+                load(studyId, type);
+            }
+            return sketch.copy();
+        }
+
+        synchronized void append(long id, double value, int studyDay, long patientId, boolean normal) {
+            if (!loaded || Arrays.binarySearch(loadedIds, id) >= 0) {
+                return;
+            }
+            add(value, studyDay, patientId, normal);
+        }
+
+        private void load(Long studyId, EfficacyMeasurement.MeasurementType type) {
+            List<MeasurementColumnView> rows = efficacyMeasurementRepository.findColumnValues(studyId, type);
+            ensureCapacity(rows.size());
+            // Rows arrive ordered by id, so loadedIds is sorted for binary search
+            loadedIds = new long[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                MeasurementColumnView row = rows.get(i);
+                add(row.getMeasurementValue().doubleValue(), row.getStudyDay(), row.getPatientId(),
+                        EfficacyMeasurement.isWithinRange(row.getMeasurementValue(),
+                                row.getNormalRangeLow(), row.getNormalRangeHigh()));
+                loadedIds[i] = row.getId();
+            }
+            loaded = true;
+            log.debug("Loaded {} {} measurements for study {} into column store", size, type, studyId);
+        }
+
+        private void add(double value, int studyDay, long patientId, boolean normal) {
+            ensureCapacity(size + 1);
+            values[size] = value;
+            studyDays[size] = studyDay;
+            patientIds[size] = patientId;
+            withinNormalRange[size] = normal;
+            size++;
+            sketch.update(value);
+        }
+
+        private void ensureCapacity(int required) {
+            if (required <= values.length) {
+                return;
+            }
+            int capacity = Math.max(required, values.length * 2);
+            values = Arrays.copyOf(values, capacity);
+            studyDays = Arrays.copyOf(studyDays, capacity);
+            patientIds = Arrays.copyOf(patientIds, capacity);
+            withinNormalRange = Arrays.copyOf(withinNormalRange, capacity);
+        }
+    }
+
+    /**
+     * Read-only view of a column at the time it was taken. Only the first
+     * {@code size} entries of each array belong to the snapshot.
+     */
+    public record ColumnSnapshot(double[] values, int[] studyDays, long[] patientIds,
+                                 boolean[] withinNormalRange, int size) {
+
+        public MeasurementStatistics statistics() {
+            if (size == 0) {
+                return MeasurementStatistics.of(0, 0.0, 0.0, 0.0, 0, 0);
+            }
+            double sum = 0.0;
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            long abnormal = 0;
+            for (int i = 0; i < size; i++) {
+                double value = values[i];
+                sum += value;
+                if (value < min) {
+                    min = value;
+                }
+                if (value > max) {
+                    max = value;
+                }
+                if (!withinNormalRange[i]) {
+                    abnormal++;
+                }
+            }
+            return MeasurementStatistics.of(size, sum, min, max, abnormal, countDistinctPatients());
+        }
+
+        private long countDistinctPatients() {
+            long[] sorted = Arrays.copyOf(patientIds, size);
+            Arrays.sort(sorted);
+            long distinct = 1;
+            for (int i = 1; i < sorted.length; i++) {
+                if (sorted[i] != sorted[i - 1]) {
+                    distinct++;
+                }
+            }
+            return distinct;
+        }
+    }
+}
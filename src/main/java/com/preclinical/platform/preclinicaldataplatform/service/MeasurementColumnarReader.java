@@ -0,0 +1,176 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads files written by {@link MeasurementColumnarWriter} one row group at
+ * a time. Dictionary columns are decoded to string arrays that share one
+ * instance per distinct value.
+ */
+public class MeasurementColumnarReader implements Closeable {
+
+    private final DataInputStream input;
+    private final Inflater inflater = new Inflater();
+    private long rowsRead;
+    private boolean finished;
+
+    public MeasurementColumnarReader(InputStream inputStream) throws IOException {
+        this.input = new DataInputStream(new BufferedInputStream(inputStream, 64 * 1024));
+        byte[] magic = new byte[MeasurementColumnarWriter.MAGIC.length];
+        input.readFully(magic);
+        if (!Arrays.equals(magic, MeasurementColumnarWriter.MAGIC)) {
+            throw new IOException("Not a columnar measurement file");
+        }
+        int version = input.readUnsignedByte();
+        if (version != MeasurementColumnarWriter.VERSION) {
+            throw new IOException("Unsupported columnar file version " + version);
+        }
+    }
+
+    // Next row group, or null once the footer has been read and checked
+    public RowGroup next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        int rowCount = input.readInt();
+        if (rowCount == 0) {
+            readFooter();
+            return null;
+        }
+        int columnCount = input.readUnsignedByte();
+        if (columnCount != MeasurementColumnarWriter.COLUMNS.size()) {
+            throw new IOException("Expected " + MeasurementColumnarWriter.COLUMNS.size()
+                    + " columns but found " + columnCount);
+        }
+        RowGroup group = new RowGroup(
+                readDeltaColumn(rowCount),
+                readDeltaColumn(rowCount),
+                readDictionaryColumn(rowCount),
+                readDictionaryColumn(rowCount),
+                readDoubleColumn(rowCount),
+                readDictionaryColumn(rowCount),
+                readIntColumn(rowCount),
+                readIntColumn(rowCount),
+                readDoubleColumn(rowCount),
+                readDoubleColumn(rowCount),
+                readDictionaryColumn(rowCount),
+                rowCount);
+        rowsRead += rowCount;
+        return group;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        input.close();
+    }
+
+    private void readFooter() throws IOException {
+        long totalRows = input.readLong();
+        byte[] magic = new byte[MeasurementColumnarWriter.MAGIC.length];
+        input.readFully(magic);
+        if (totalRows != rowsRead || !Arrays.equals(magic, MeasurementColumnarWriter.MAGIC)) {
+            throw new IOException("Columnar file is truncated or corrupt");
+        }
+        finished = true;
+    }
+
+    private long[] readDeltaColumn(int rowCount) throws IOException {
+        DataInputStream raw = openColumn(MeasurementColumnarWriter.ENCODING_DELTA);
+        long[] column = new long[rowCount];
+        long previous = 0;
+        for (int i = 0; i < rowCount; i++) {
+            long encoded = readVarLong(raw);
+            previous += (encoded >>> 1) ^ -(encoded & 1);
+            column[i] = previous;
+        }
+        return column;
+    }
+
+    private int[] readIntColumn(int rowCount) throws IOException {
+        DataInputStream raw = openColumn(MeasurementColumnarWriter.ENCODING_PLAIN_INT);
+        int[] column = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            column[i] = raw.readInt();
+        }
+        return column;
+    }
+
+    private double[] readDoubleColumn(int rowCount) throws IOException {
+        DataInputStream raw = openColumn(MeasurementColumnarWriter.ENCODING_PLAIN_DOUBLE);
+        double[] column = new double[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            column[i] = raw.readDouble();
+        }
+        return column;
+    }
+
+    private String[] readDictionaryColumn(int rowCount) throws IOException {
+        DataInputStream raw = openColumn(MeasurementColumnarWriter.ENCODING_DICTIONARY);
+        String[] dictionary = new String[(int) readVarLong(raw)];
+        for (int i = 0; i < dictionary.length; i++) {
+            dictionary[i] = raw.readUTF();
+        }
+        String[] column = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            int code = (int) readVarLong(raw);
+            column[i] = code == 0 ? null : dictionary[code - 1];
+        }
+        return column;
+    }
+
+    private DataInputStream openColumn(byte expectedEncoding) throws IOException {
+        int encoding = input.readUnsignedByte();
+        if (encoding != expectedEncoding) {
+            throw new IOException("Unexpected column encoding " + encoding);
+        }
+        byte[] raw = new byte[input.readInt()];
+        byte[] deflated = new byte[input.readInt()];
+        input.readFully(deflated);
+        inflater.reset();
+        inflater.setInput(deflated);
+        try {
+            int length = inflater.inflate(raw);
+            if (length != raw.length || !inflater.finished()) {
+                throw new IOException("Column length does not match its header");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt column data", e);
+        }
+        return new DataInputStream(new ByteArrayInputStream(raw));
+    }
+
+    private static long readVarLong(DataInputStream input) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * The rows of one group as parallel columns; only the first {@code size}
+     * entries are used. Missing doubles are NaN and missing ints
+     * {@link MeasurementColumnarWriter#MISSING_INT}.
+     */
+    public record RowGroup(long[] ids, long[] patientIds, String[] patientCodes, String[] measurementTypes,
+                           double[] values, String[] units, int[] measurementDates, int[] studyDays,
+                           double[] normalRangeLows, double[] normalRangeHighs, String[] statuses, int size) {
+    }
+}
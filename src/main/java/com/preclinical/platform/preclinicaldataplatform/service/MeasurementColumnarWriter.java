@@ -0,0 +1,261 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+
+/**
+ * Writes efficacy measurements in a compact columnar file for analytics
+ * tools. Rows are buffered into row groups of primitive arrays; each column
+ * of a group is encoded and then deflated on its own, so similar values sit
+ * next to each other and compress well.
+ *
+ * <p>Layout (big-endian):
+ * <pre>
+ * file      = MAGIC version:u8 rowGroup* end
+ * rowGroup  = rowCount:i32 columnCount:u8 column{columnCount}
+ * column    = encoding:u8 rawLength:i32 deflatedLength:i32 deflated-bytes
+ * end       = 0:i32 totalRows:i64 MAGIC
+ * </pre>
+ * Encodings: {@code DELTA} stores zigzag varint differences (ids, patient
+ * ids), {@code PLAIN_INT}/{@code PLAIN_DOUBLE} fixed-width values, and
+ * {@code DICTIONARY} a string table followed by one varint per row (0 is
+ * null, n is entry n - 1). Missing numbers are written as NaN, missing
+ * dates and study days as {@link Integer#MIN_VALUE}. Dates are epoch days.
+ * Column order is given by {@link #COLUMNS}. Call {@link #finish()} after
+ * the last row; closing alone leaves the file without its end marker.
+ */
+public class MeasurementColumnarWriter implements Closeable {
+
+    public static final byte[] MAGIC = "PCOL".getBytes(StandardCharsets.US_ASCII);
+    public static final int VERSION = 1;
+    public static final int DEFAULT_ROW_GROUP_SIZE = 65_536;
+    public static final int MISSING_INT = Integer.MIN_VALUE;
+
+    public static final List<String> COLUMNS = List.of(
+            "id", "patientId", "patientCode", "measurementType", "value", "unit",
+            "measurementDate", "studyDay", "normalRangeLow", "normalRangeHigh", "status");
+
+    static final byte ENCODING_DELTA = 1;
+    static final byte ENCODING_PLAIN_INT = 2;
+    static final byte ENCODING_PLAIN_DOUBLE = 3;
+    static final byte ENCODING_DICTIONARY = 4;
+
+    private final DataOutputStream output;
+    private final int rowGroupSize;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final ByteArrayOutputStream rawBuffer = new ByteArrayOutputStream();
+    private final byte[] deflateBuffer = new byte[64 * 1024];
+
+    private final long[] ids;
+    private final long[] patientIds;
+    private final String[] patientCodes;
+    private final String[] types;
+    private final double[] values;
+    private final String[] units;
+    private final int[] measurementDates;
+    private final int[] studyDays;
+    private final double[] normalRangeLows;
+    private final double[] normalRangeHighs;
+    private final String[] statuses;
+    private int size;
+    private long totalRows;
+    private boolean finished;
+
+    public MeasurementColumnarWriter(OutputStream outputStream) throws IOException {
+        this(outputStream, DEFAULT_ROW_GROUP_SIZE);
+    }
+
+    public MeasurementColumnarWriter(OutputStream outputStream, int rowGroupSize) throws IOException {
+        if (rowGroupSize < 1) {
+            throw new IllegalArgumentException("Row group size must be positive");
+        }
+        this.output = new DataOutputStream(new BufferedOutputStream(outputStream, 64 * 1024));
+        this.rowGroupSize = rowGroupSize;
+        this.ids = new long[rowGroupSize];
+        this.patientIds = new long[rowGroupSize];
+        this.patientCodes = new String[rowGroupSize];
+        this.types = new String[rowGroupSize];
+        this.values = new double[rowGroupSize];
+        this.units = new String[rowGroupSize];
+        this.measurementDates = new int[rowGroupSize];
+        this.studyDays = new int[rowGroupSize];
+        this.normalRangeLows = new double[rowGroupSize];
+        this.normalRangeHighs = new double[rowGroupSize];
+        this.statuses = new String[rowGroupSize];
+        output.write(MAGIC);
+        output.writeByte(VERSION);
+    }
+
+    // The patient must be loaded; its id and code are written with every row
+    public void write(EfficacyMeasurement measurement) throws IOException {
+        ids[size] = measurement.getId();
+        patientIds[size] = measurement.getPatient().getId();
+        patientCodes[size] = measurement.getPatient().getPatientCode();
+        types[size] = measurement.getMeasurementType() != null ? measurement.getMeasurementType().name() : null;
+        values[size] = toDouble(measurement.getMeasurementValue());
+        units[size] = measurement.getUnit();
+        measurementDates[size] = toEpochDay(measurement.getMeasurementDate());
+        studyDays[size] = measurement.getStudyDay() != null ? measurement.getStudyDay() : MISSING_INT;
+        normalRangeLows[size] = toDouble(measurement.getNormalRangeLow());
+        normalRangeHighs[size] = toDouble(measurement.getNormalRangeHigh());
+        statuses[size] = measurement.getStatus() != null ? measurement.getStatus().name() : null;
+        size++;
+        totalRows++;
+        if (size == rowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    public long getTotalRows() {
+        return totalRows;
+    }
+
+    /**
+     * Writes the last row group and the footer; the underlying stream is
+     * flushed, not closed. Only a finished file has a footer, so readers
+     * reject the output of an export that failed part way through.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        flushRowGroup();
+        output.writeInt(0);
+        output.writeLong(totalRows);
+        output.write(MAGIC);
+        output.flush();
+        finished = true;
+    }
+
+    // Releases the compressor; without a prior finish() the file stays incomplete
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    private void flushRowGroup() throws IOException {
+        if (size == 0) {
+            return;
+        }
+        output.writeInt(size);
+        output.writeByte(COLUMNS.size());
+        writeDeltaColumn(ids);
+        writeDeltaColumn(patientIds);
+        writeDictionaryColumn(patientCodes);
+        writeDictionaryColumn(types);
+        writeDoubleColumn(values);
+        writeDictionaryColumn(units);
+        writeIntColumn(measurementDates);
+        writeIntColumn(studyDays);
+        writeDoubleColumn(normalRangeLows);
+        writeDoubleColumn(normalRangeHighs);
+        writeDictionaryColumn(statuses);
+        // Let the previous group's strings be collected
+        Arrays.fill(patientCodes, 0, size, null);
+        Arrays.fill(types, 0, size, null);
+        Arrays.fill(units, 0, size, null);
+        Arrays.fill(statuses, 0, size, null);
+        size = 0;
+    }
+
+    private void writeDeltaColumn(long[] column) throws IOException {
+        DataOutputStream raw = startColumn();
+        long previous = 0;
+        for (int i = 0; i < size; i++) {
+            writeVarLong(raw, zigzag(column[i] - previous));
+            previous = column[i];
+        }
+        finishColumn(ENCODING_DELTA);
+    }
+
+    private void writeIntColumn(int[] column) throws IOException {
+        DataOutputStream raw = startColumn();
+        for (int i = 0; i < size; i++) {
+            raw.writeInt(column[i]);
+        }
+        finishColumn(ENCODING_PLAIN_INT);
+    }
+
+    private void writeDoubleColumn(double[] column) throws IOException {
+        DataOutputStream raw = startColumn();
+        for (int i = 0; i < size; i++) {
+            raw.writeDouble(column[i]);
+        }
+        finishColumn(ENCODING_PLAIN_DOUBLE);
+    }
+
+    private void writeDictionaryColumn(String[] column) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        int[] codes = new int[size];
+        for (int i = 0; i < size; i++) {
+            codes[i] = column[i] == null ? 0 : dictionary.computeIfAbsent(column[i], key -> dictionary.size() + 1);
+        }
+        String[] entries = new String[dictionary.size()];
+        dictionary.forEach((value, code) -> entries[code - 1] = value);
+
+        DataOutputStream raw = startColumn();
+        writeVarLong(raw, entries.length);
+        for (String entry : entries) {
+            raw.writeUTF(entry);
+        }
+        for (int i = 0; i < size; i++) {
+            writeVarLong(raw, codes[i]);
+        }
+        finishColumn(ENCODING_DICTIONARY);
+    }
+
+    private DataOutputStream startColumn() {
+        rawBuffer.reset();
+        return new DataOutputStream(rawBuffer);
+    }
+
+    private void finishColumn(byte encoding) throws IOException {
+        byte[] raw = rawBuffer.toByteArray();
+        ByteArrayOutputStream deflated = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        while (!deflater.finished()) {
+            int length = deflater.deflate(deflateBuffer);
+            deflated.write(deflateBuffer, 0, length);
+        }
+        output.writeByte(encoding);
+        output.writeInt(raw.length);
+        output.writeInt(deflated.size());
+        deflated.writeTo(output);
+    }
+
+    private static double toDouble(BigDecimal value) {
+        return value != null ? value.doubleValue() : Double.NaN;
+    }
+
+    private static int toEpochDay(LocalDate date) {
+        return date != null ? (int) date.toEpochDay() : MISSING_INT;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static void writeVarLong(DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+}
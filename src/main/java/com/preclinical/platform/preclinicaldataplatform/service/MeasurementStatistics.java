@@ -0,0 +1,66 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+/**
+ * Descriptive statistics for one measurement series. Only sufficient
+ * statistics are kept, so results for several studies can be merged.
+ */
+public class MeasurementStatistics {
+
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private long abnormalCount;
+    private long uniquePatients;
+
+    public static MeasurementStatistics of(long count, double sum, double min, double max,
+                                           long abnormalCount, long uniquePatients) {
+        MeasurementStatistics statistics = new MeasurementStatistics();
+        statistics.count = count;
+        statistics.sum = sum;
+        statistics.min = count > 0 ? min : Double.POSITIVE_INFINITY;
+        statistics.max = count > 0 ? max : Double.NEGATIVE_INFINITY;
+        statistics.abnormalCount = abnormalCount;
+        statistics.uniquePatients = uniquePatients;
+        return statistics;
+    }
+
+    // Patients belong to a single study, so unique patient counts of different studies add up
+    public MeasurementStatistics merge(MeasurementStatistics other) {
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        abnormalCount += other.abnormalCount;
+        uniquePatients += other.uniquePatients;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return count > 0 ? sum / count : 0.0;
+    }
+
+    public double getMin() {
+        return count > 0 ? min : 0.0;
+    }
+
+    public double getMax() {
+        return count > 0 ? max : 0.0;
+    }
+
+    public long getAbnormalCount() {
+        return abnormalCount;
+    }
+
+    public long getUniquePatients() {
+        return uniquePatients;
+    }
+}
@@ -0,0 +1,49 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merkle root of a growing list of leaves in O(log n) memory. Only the roots
+ * of the perfect subtrees seen so far are kept, merging two of equal height
+ * as soon as both exist, like carrying in a binary counter. Folding them
+ * from the right gives the same root as the RFC 6962 tree over all leaves,
+ * so a segment's root can be taken at any point without holding its leaves.
+ */
+public class MerkleAccumulator {
+
+    private final MessageDigest digest = AuditHashes.sha256();
+    private final List<byte[]> peaks = new ArrayList<>();
+    private final List<Integer> heights = new ArrayList<>();
+    private long leafCount;
+
+    public void addFrame(byte[] frame) {
+        byte[] hash = AuditHashes.leaf(digest, frame);
+        int height = 0;
+        while (!heights.isEmpty() && heights.get(heights.size() - 1) == height) {
+            hash = AuditHashes.node(digest, peaks.remove(peaks.size() - 1), hash);
+            heights.remove(heights.size() - 1);
+            height++;
+        }
+        peaks.add(hash);
+        heights.add(height);
+        leafCount++;
+    }
+
+    // The root of an empty tree is the hash of nothing, as in RFC 6962
+    public byte[] root() {
+        if (peaks.isEmpty()) {
+            return digest.digest();
+        }
+        byte[] root = peaks.get(peaks.size() - 1);
+        for (int i = peaks.size() - 2; i >= 0; i--) {
+            root = AuditHashes.node(digest, peaks.get(i), root);
+        }
+        return root;
+    }
+
+    public long leafCount() {
+        return leafCount;
+    }
+}
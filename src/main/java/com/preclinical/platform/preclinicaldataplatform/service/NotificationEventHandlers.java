@@ -0,0 +1,47 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import org.springframework.stereotype.Component;
+
+import com.preclinical.platform.preclinicaldataplatform.event.PatientEnrolledEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.SeriousAdverseEventAlert;
+import com.preclinical.platform.preclinicaldataplatform.event.SeriousAdverseEventBatchAlert;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyCreatedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyStatusChangedEvent;
+
+/**
+ * Sends email notifications for committed domain events through the
+ * {@link DomainEventDispatcher}; SAE alerts are sent on the SAE lane. Not
+ * open for replay, which would send the emails again.
+ */
+@Component
+public class NotificationEventHandlers {
+
+    private static final String HANDLER = "email";
+
+    private final EmailNotificationService emailNotificationService;
+
+    public NotificationEventHandlers(DomainEventDispatcher dispatcher,
+                                     EmailNotificationService emailNotificationService) {
+        this.emailNotificationService = emailNotificationService;
+        dispatcher.subscribe(SeriousAdverseEventAlert.class, HANDLER,
+                event -> emailNotificationService.sendSAEAlert(event.getAdverseEvent()));
+        dispatcher.subscribe(SeriousAdverseEventBatchAlert.class, HANDLER,
+                event -> emailNotificationService.sendSAEBatchAlert(event.getStudyId(), event.getAdverseEvents()));
+        dispatcher.subscribe(StudyCreatedEvent.class, HANDLER,
+                event -> emailNotificationService.sendStudyCreatedNotification(event.getStudy()));
+        dispatcher.subscribe(PatientEnrolledEvent.class, HANDLER,
+                event -> emailNotificationService.sendPatientEnrollmentNotification(event.getPatient()));
+        dispatcher.subscribe(StudyStatusChangedEvent.class, HANDLER, this::onStudyStatusChanged);
+    }
+
+    private void onStudyStatusChanged(StudyStatusChangedEvent event) {
+        switch (event.getNewStatus()) {
+            case ACTIVE -> emailNotificationService.sendStudyActivationNotification(event.getStudy());
+            case COMPLETED -> emailNotificationService.sendStudyCompletionNotification(event.getStudy());
+            case TERMINATED -> emailNotificationService.sendStudyTerminationNotification(event.getStudy());
+            case SUSPENDED -> emailNotificationService.sendStudySuspensionNotification(event.getStudy());
+            case PLANNED -> {
+            }
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+import com.preclinical.platform.preclinicaldataplatform.entity.ImportJob;
+import com.preclinical.platform.preclinicaldataplatform.entity.OutboxEvent;
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.event.AdverseEventRecordedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.DomainEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.EfficacyMeasurementRecordedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.PatientEnrolledEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.PatientStatusChangedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.PatientUpdatedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.SafetyCriticalEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.SeriousAdverseEventAlert;
+import com.preclinical.platform.preclinicaldataplatform.event.SeriousAdverseEventBatchAlert;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyCreatedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyDataImportedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyStatusChangedEvent;
+import com.preclinical.platform.preclinicaldataplatform.repository.AdverseEventRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.EfficacyMeasurementRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudyRepository;
+
+/**
+ * Converts domain events to outbox rows and back. Only ids and plain values
+ * are stored. Decoding reloads the entities, so handlers see the committed
+ * state with lazy associations available inside the caller's transaction.
+ * An event whose entities have since been deleted decodes to empty.
+ */
+@Component
+public class OutboxEventCodec {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, Function<Payload, Optional<? extends DomainEvent>>> decoders = new HashMap<>();
+    private final Set<String> safetyCriticalTypes = new HashSet<>();
+
+    public OutboxEventCodec(StudyRepository studyRepository,
+                            PatientRepository patientRepository,
+                            AdverseEventRepository adverseEventRepository,
+                            EfficacyMeasurementRepository efficacyMeasurementRepository) {
+        register(StudyCreatedEvent.class, payload -> studyRepository.findById(payload.entityId())
+                .map(StudyCreatedEvent::new));
+        register(StudyStatusChangedEvent.class, payload -> studyRepository.findById(payload.entityId())
+                .map(study -> new StudyStatusChangedEvent(study,
+                        status(Study.StudyStatus.class, payload.oldStatus()),
+                        status(Study.StudyStatus.class, payload.newStatus()))));
+        register(PatientEnrolledEvent.class, payload -> patientRepository.findById(payload.entityId())
+                .map(PatientEnrolledEvent::new));
+        register(PatientUpdatedEvent.class, payload -> patientRepository.findById(payload.entityId())
+                .map(PatientUpdatedEvent::new));
+        register(PatientStatusChangedEvent.class, payload -> patientRepository.findById(payload.entityId())
+                .map(patient -> new PatientStatusChangedEvent(patient,
+                        status(Patient.PatientStatus.class, payload.oldStatus()),
+                        status(Patient.PatientStatus.class, payload.newStatus()))));
+        register(AdverseEventRecordedEvent.class, payload -> adverseEventRepository.findById(payload.entityId())
+                .map(AdverseEventRecordedEvent::new));
+        register(SeriousAdverseEventAlert.class, payload -> adverseEventRepository.findById(payload.entityId())
+                .map(SeriousAdverseEventAlert::new));
+        register(SeriousAdverseEventBatchAlert.class, payload -> {
+            List<AdverseEvent> adverseEvents = adverseEventRepository.findAllById(payload.entityIds()).stream()
+                    .sorted(Comparator.comparing(AdverseEvent::getId))
+                    .toList();
+            return adverseEvents.isEmpty()
+                    ? Optional.empty()
+                    : Optional.of(new SeriousAdverseEventBatchAlert(payload.studyId(), adverseEvents));
+        });
+        register(EfficacyMeasurementRecordedEvent.class, payload -> efficacyMeasurementRepository
+                .findById(payload.entityId())
+                .map(EfficacyMeasurementRecordedEvent::new));
+        register(StudyDataImportedEvent.class, payload -> Optional.of(new StudyDataImportedEvent(payload.studyId(),
+                ImportJob.Domain.valueOf(payload.domain()), payload.rows())));
+    }
+
+    public OutboxEvent encode(DomainEvent event) {
+        Payload payload = payloadOf(event);
+        try {
+            return OutboxEvent.builder()
+                    .studyId(payload.studyId())
+                    .eventType(event.getClass().getSimpleName())
+                    .payload(objectMapper.writeValueAsString(payload))
+                    .availableAt(LocalDateTime.now())
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode " + event.getClass().getSimpleName(), e);
+        }
+    }
+
+    public Optional<? extends DomainEvent> decode(OutboxEvent row) {
+        Function<Payload, Optional<? extends DomainEvent>> decoder = decoders.get(row.getEventType());
+        if (decoder == null) {
+            throw new IllegalArgumentException("Unknown outbox event type " + row.getEventType());
+        }
+        try {
+            return decoder.apply(objectMapper.readValue(row.getPayload(), Payload.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Corrupt payload in outbox event " + row.getId(), e);
+        }
+    }
+
+    // Lets the relay pick a lane from the stored type without decoding the row
+    public boolean isSafetyCritical(OutboxEvent row) {
+        return safetyCriticalTypes.contains(row.getEventType());
+    }
+
+    private Payload payloadOf(DomainEvent event) {
+        return switch (event) {
+            case StudyCreatedEvent e -> Payload.of(e.getStudy().getId(), e.getStudy().getId());
+            case StudyStatusChangedEvent e -> Payload.of(e.getStudy().getId(), e.getStudy().getId())
+                    .withStatuses(e.getOldStatus(), e.getNewStatus());
+            case PatientEnrolledEvent e -> Payload.of(studyIdOf(e.getPatient()), e.getPatient().getId());
+            case PatientUpdatedEvent e -> Payload.of(studyIdOf(e.getPatient()), e.getPatient().getId());
+            case PatientStatusChangedEvent e -> Payload.of(studyIdOf(e.getPatient()), e.getPatient().getId())
+                    .withStatuses(e.getOldStatus(), e.getNewStatus());
+            case AdverseEventRecordedEvent e -> Payload.of(e.getAdverseEvent().getStudy().getId(),
+                    e.getAdverseEvent().getId());
+            case SeriousAdverseEventAlert e -> Payload.of(e.getAdverseEvent().getStudy().getId(),
+                    e.getAdverseEvent().getId());
+            case SeriousAdverseEventBatchAlert e -> new Payload(e.getStudyId(), null,
+                    e.getAdverseEvents().stream().map(AdverseEvent::getId).toList(), null, null, null, null);
+            case EfficacyMeasurementRecordedEvent e -> Payload.of(e.getMeasurement().getStudy().getId(),
+                    e.getMeasurement().getId());
+            case StudyDataImportedEvent e -> new Payload(e.getStudyId(), null, null, null, null,
+                    e.getDomain().name(), e.getRows());
+            default -> throw new IllegalArgumentException("No outbox encoding for " + event.getClass().getSimpleName());
+        };
+    }
+
+    private <E extends DomainEvent> void register(Class<E> eventType, Function<Payload, Optional<E>> decoder) {
+        decoders.put(eventType.getSimpleName(), decoder::apply);
+        if (SafetyCriticalEvent.class.isAssignableFrom(eventType)) {
+            safetyCriticalTypes.add(eventType.getSimpleName());
+        }
+    }
+
+    private static Long studyIdOf(Patient patient) {
+        return patient.getStudy() != null ? patient.getStudy().getId() : null;
+    }
+
+    private static <S extends Enum<S>> S status(Class<S> type, String name) {
+        return name != null ? Enum.valueOf(type, name) : null;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record Payload(Long studyId, Long entityId, List<Long> entityIds, String oldStatus, String newStatus,
+                           String domain, Integer rows) {
+
+        static Payload of(Long studyId, Long entityId) {
+            return new Payload(studyId, entityId, null, null, null, null, null);
+        }
+
+        Payload withStatuses(Enum<?> oldStatus, Enum<?> newStatus) {
+            return new Payload(studyId, entityId, entityIds, oldStatus != null ? oldStatus.name() : null,
+                    newStatus != null ? newStatus.name() : null, domain, rows);
+        }
+    }
+}
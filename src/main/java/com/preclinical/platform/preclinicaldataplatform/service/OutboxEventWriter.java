@@ -0,0 +1,32 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.preclinical.platform.preclinicaldataplatform.event.DomainEvent;
+import com.preclinical.platform.preclinicaldataplatform.repository.OutboxEventRepository;
+
+/**
+ * Adds every published domain event to the outbox just before the
+ * publishing transaction commits, so the event is stored if and only if the
+ * change is. Publishers keep using {@code ApplicationEventPublisher}; a
+ * failure here rolls the change back. Events published outside a
+ * transaction are stored on their own.
+ */
+@Component
+public class OutboxEventWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventCodec outboxEventCodec;
+
+    public OutboxEventWriter(OutboxEventRepository outboxEventRepository, OutboxEventCodec outboxEventCodec) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventCodec = outboxEventCodec;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onDomainEvent(DomainEvent event) {
+        outboxEventRepository.save(outboxEventCodec.encode(event));
+    }
+}
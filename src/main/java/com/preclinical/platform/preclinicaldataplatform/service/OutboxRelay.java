@@ -0,0 +1,522 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.dto.OutboxReplayResult;
+import com.preclinical.platform.preclinicaldataplatform.entity.OutboxEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.DomainEvent;
+import com.preclinical.platform.preclinicaldataplatform.excception.InvalidRequestException;
+import com.preclinical.platform.preclinicaldataplatform.excception.OutboxRelayNotHeldException;
+import com.preclinical.platform.preclinicaldataplatform.repository.OutboxEventRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.OutboxStudyHead;
+import com.preclinical.platform.preclinicaldataplatform.repository.OutboxTypeCount;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Delivers outbox rows to the {@link DomainEventDispatcher}. Only the node
+ * holding the {@link OutboxRelayLease} relays, because the audit journal
+ * the events are written to is node-local; other nodes skip their polls
+ * until the holder stops renewing it. Each poll claims a batch of due rows
+ * under a claim lease, so a crashed relay's rows are picked up by the next
+ * holder once the claim runs out.
+ *
+ * <p>Events of one study are delivered in outbox order: a study's rows are
+ * only taken when the oldest of them is that study's oldest undelivered
+ * event, and they run one after another on a single task. Rows are only
+ * claimed once they are older than {@code settleWindow}: outbox ids come
+ * from an unpooled sequence, but a transaction that drew a lower id may
+ * still commit after a later one, and the window gives it time to. A study's rows
+ * that include a {@code SafetyCriticalEvent} go to the {@link SaeAlertQueue}
+ * and are sent in reporting deadline order, keeping their claim until a
+ * worker reaches them; the rest run on {@code preclinicalTaskExecutor}
+ * and are awaited by the poll. A failed row stops its study
+ * until its retry is due; after {@code maxAttempts} it is marked FAILED and
+ * the study moves on. Delivered rows are marked done in one update per
+ * batch, so an event can be delivered again if the relay dies before that.
+ *
+ * <p>Metrics, tagged by event type:
+ * {@code preclinical.events.pending} and {@code preclinical.events.failed}
+ * (outbox rows by status), {@code preclinical.events.delay} (written to
+ * delivered) and {@code preclinical.events.rejected}.
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+    private static final int REPLAY_CLEAR_INTERVAL = 500;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxEventCodec outboxEventCodec;
+    private final DomainEventDispatcher dispatcher;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final Executor preclinicalTaskExecutor;
+    private final SaeAlertQueue saeAlertQueue;
+    private final OutboxRelayLease relayLease;
+    private final MeterRegistry meterRegistry;
+    private final PreclinicalPlatformProperties properties;
+
+    private final Map<String, AtomicLong> backlog = new ConcurrentHashMap<>();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       OutboxEventCodec outboxEventCodec,
+                       DomainEventDispatcher dispatcher,
+                       PlatformTransactionManager transactionManager,
+                       @Qualifier("preclinicalTaskExecutor") Executor preclinicalTaskExecutor,
+                       SaeAlertQueue saeAlertQueue,
+                       OutboxRelayLease relayLease,
+                       MeterRegistry meterRegistry,
+                       PreclinicalPlatformProperties properties) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxEventCodec = outboxEventCodec;
+        this.dispatcher = dispatcher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.preclinicalTaskExecutor = preclinicalTaskExecutor;
+        this.saeAlertQueue = saeAlertQueue;
+        this.relayLease = relayLease;
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+    }
+
+    // Not started from the constructor: workers may call relayQueued before the entity manager is injected
+    @PostConstruct
+    void startAlertWorkers() {
+        saeAlertQueue.start(this::relayQueued);
+    }
+
+    // Keeps polling while batches come back full and still make progress
+    public int relayPending() {
+        if (!relayLease.acquire()) {
+            return 0;
+        }
+        int total = 0;
+        BatchResult batch;
+        do {
+            batch = relayBatch();
+            total += batch.delivered();
+        } while (batch.claimed() == properties.getOutbox().getBatchSize() && batch.claimed() > batch.held());
+        return total;
+    }
+
+    public BatchResult relayBatch() {
+        PreclinicalPlatformProperties.Outbox settings = properties.getOutbox();
+        List<OutboxEvent> claimed = claim(settings);
+        if (claimed.isEmpty()) {
+            return new BatchResult(0, 0, 0, 0, 0);
+        }
+
+        List<List<OutboxEvent>> groups = new ArrayList<>();
+        List<Long> held = new ArrayList<>();
+        groupInStudyOrder(claimed, groups, held);
+
+        int queued = 0;
+        List<CompletableFuture<GroupResult>> futures = new ArrayList<>();
+        for (List<OutboxEvent> group : groups) {
+            if (group.stream().anyMatch(outboxEventCodec::isSafetyCritical)) {
+                // Completed by a queue worker; the claim is renewed while the group waits
+                saeAlertQueue.offer(group.stream().map(OutboxEvent::getId).toList(),
+                        group.get(0).getClaimToken(), reportingDeadline(group));
+                queued += group.size();
+            } else {
+                futures.add(submit(group));
+            }
+        }
+        List<GroupResult> results = new ArrayList<>();
+        for (CompletableFuture<GroupResult> future : futures) {
+            GroupResult result = await(future, settings.getLeaseDuration());
+            // Null when still running or lost; the lease expires and the rows are claimed again
+            if (result != null) {
+                results.add(result);
+            }
+        }
+
+        BatchResult batch = complete(results, held);
+        log.debug("Relayed {} of {} claimed outbox events ({} queued as SAE alerts, {} held back, {} failed)",
+                batch.delivered(), claimed.size(), queued, batch.held(), batch.failed());
+        return new BatchResult(claimed.size(), batch.delivered(), queued, batch.held(), batch.failed());
+    }
+
+    public void renewQueuedClaims() {
+        Set<String> tokens = saeAlertQueue.queuedClaimTokens();
+        if (tokens.isEmpty()) {
+            return;
+        }
+        LocalDateTime until = LocalDateTime.now().plus(properties.getOutbox().getLeaseDuration());
+        transactionTemplate.executeWithoutResult(status ->
+                outboxEventRepository.renewClaims(tokens, OutboxEvent.Status.PENDING, until));
+    }
+
+    /**
+     * Delivers a study's already relayed events after {@code afterId} to one
+     * handler again, e.g. to rebuild a projection that handler maintains.
+     * Runs only on the node holding the relay lease, whose journal the
+     * events were audited in.
+     */
+    public OutboxReplayResult replay(Long studyId, long afterId, String handlerName) {
+        if (!dispatcher.isReplayable(handlerName)) {
+            throw new InvalidRequestException("Handler " + handlerName + " does not support replay");
+        }
+        if (!relayLease.isHeld()) {
+            throw new OutboxRelayNotHeldException("This node does not relay the outbox; replay on the node that does");
+        }
+        long start = System.currentTimeMillis();
+        ReplayProgress progress = new ReplayProgress(afterId);
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            try (Stream<OutboxEvent> rows = outboxEventRepository.streamForReplay(studyId,
+                    OutboxEvent.Status.DONE, afterId)) {
+                rows.forEach(row -> {
+                    outboxEventCodec.decode(row).ifPresentOrElse(event -> {
+                        dispatcher.redeliver(row.getId(), row.getCreatedAt(), event, handlerName);
+                        progress.replayed++;
+                    }, () -> progress.skipped++);
+                    progress.lastEventId = row.getId();
+                    // Decoded entities pile up in the persistence context otherwise
+                    if ((progress.replayed + progress.skipped) % REPLAY_CLEAR_INTERVAL == 0) {
+                        entityManager.clear();
+                    }
+                });
+            }
+        });
+        log.info("Replayed {} outbox events of study {} to handler {}", progress.replayed, studyId, handlerName);
+        return OutboxReplayResult.builder()
+                .studyId(studyId)
+                .handler(handlerName)
+                .replayed(progress.replayed)
+                .skipped(progress.skipped)
+                .lastEventId(progress.lastEventId)
+                .elapsedMillis(System.currentTimeMillis() - start)
+                .build();
+    }
+
+    public int purgeDelivered() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getOutbox().getRetention());
+        Integer purged = transactionTemplate.execute(status ->
+                outboxEventRepository.deleteProcessedBefore(OutboxEvent.Status.DONE, cutoff));
+        return purged != null ? purged : 0;
+    }
+
+    public Map<OutboxEvent.Status, Map<String, Long>> countOutstanding() {
+        Map<OutboxEvent.Status, Map<String, Long>> counts = new LinkedHashMap<>();
+        for (OutboxEvent.Status status : List.of(OutboxEvent.Status.PENDING, OutboxEvent.Status.FAILED)) {
+            Map<String, Long> byType = new LinkedHashMap<>();
+            for (OutboxTypeCount count : outboxEventRepository.countByType(status)) {
+                byType.put(count.getEventType(), count.getEventCount());
+            }
+            counts.put(status, byType);
+        }
+        return counts;
+    }
+
+    // Types that drained to zero keep their gauge at zero instead of the last count
+    public void refreshBacklogMetrics() {
+        Map<OutboxEvent.Status, Map<String, Long>> counts = countOutstanding();
+        backlog.forEach((key, value) -> value.set(0));
+        counts.forEach((status, byType) -> byType.forEach((type, count) -> backlog
+                .computeIfAbsent(status + ":" + type, key -> registerBacklogGauge(status, type))
+                .set(count)));
+    }
+
+    private List<OutboxEvent> claim(PreclinicalPlatformProperties.Outbox settings) {
+        LocalDateTime now = LocalDateTime.now();
+        String token = UUID.randomUUID().toString();
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> {
+            List<Long> ids = outboxEventRepository.findClaimableIds(OutboxEvent.Status.PENDING, now,
+                    now.minus(settings.getSettleWindow()), PageRequest.of(0, settings.getBatchSize()));
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            outboxEventRepository.claim(ids, OutboxEvent.Status.PENDING, token,
+                    now.plus(settings.getLeaseDuration()), now);
+            return outboxEventRepository.findByClaimTokenOrderByIdAsc(token);
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    /**
+     * Splits claimed rows into one group per study, in id order. A study
+     * whose oldest undelivered event was not claimed here is held back
+     * entirely. The claim query already skips studies that are waiting for a
+     * retry or held elsewhere; this catches a head that another relay took
+     * between the query and the claim. Events without a study have no order
+     * to keep and each form their own group.
+     */
+    private void groupInStudyOrder(List<OutboxEvent> claimed, List<List<OutboxEvent>> groups, List<Long> held) {
+        Map<Long, List<OutboxEvent>> byStudy = new LinkedHashMap<>();
+        for (OutboxEvent row : claimed) {
+            if (row.getStudyId() == null) {
+                groups.add(List.of(row));
+            } else {
+                byStudy.computeIfAbsent(row.getStudyId(), studyId -> new ArrayList<>()).add(row);
+            }
+        }
+        if (byStudy.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> heads = new HashMap<>();
+        for (OutboxStudyHead head : outboxEventRepository.findFirstPendingByStudy(OutboxEvent.Status.PENDING,
+                byStudy.keySet())) {
+            heads.put(head.getStudyId(), head.getFirstPendingId());
+        }
+        byStudy.forEach((studyId, rows) -> {
+            if (rows.get(0).getId().equals(heads.get(studyId))) {
+                groups.add(rows);
+            } else {
+                rows.forEach(row -> held.add(row.getId()));
+            }
+        });
+    }
+
+    private CompletableFuture<GroupResult> submit(List<OutboxEvent> group) {
+        try {
+            return CompletableFuture.supplyAsync(() -> deliver(group), preclinicalTaskExecutor);
+        } catch (RejectedExecutionException e) {
+            String type = group.get(0).getEventType();
+            meterRegistry.counter("preclinical.events.rejected", "type", type).increment();
+            log.warn("Event lane saturated; relaying {} events of study {} on the relay thread",
+                    group.size(), group.get(0).getStudyId());
+            return CompletableFuture.completedFuture(deliver(group));
+        }
+    }
+
+    // Runs on an SAE queue worker
+    private void relayQueued(SaeAlertQueue.Item item) {
+        if (!relayLease.isHeld()) {
+            // Left to the node that holds the lease now, once the claim lapses
+            log.warn("Dropping queued SAE alert for outbox events {}: this node no longer relays", item.outboxIds());
+            return;
+        }
+        List<OutboxEvent> group = outboxEventRepository.findByClaimTokenAndIdInOrderByIdAsc(item.claimToken(),
+                item.outboxIds());
+        if (group.size() < item.outboxIds().size()) {
+            // The claim lapsed and the rows were taken again; whoever holds them now delivers them
+            log.debug("Dropping queued SAE alert for outbox events {}: claim lapsed", item.outboxIds());
+            return;
+        }
+        complete(List.of(deliver(group)), List.of());
+    }
+
+    // The reporting clock starts when the event was recorded
+    private Instant reportingDeadline(List<OutboxEvent> group) {
+        LocalDateTime recorded = group.stream().map(OutboxEvent::getCreatedAt).filter(Objects::nonNull)
+                .min(Comparator.naturalOrder())
+                .orElseGet(LocalDateTime::now);
+        return recorded.plusHours(properties.getAdverseEvent().getSaeReportingTimeframe())
+                .atZone(ZoneId.systemDefault())
+                .toInstant();
+    }
+
+    private BatchResult complete(List<GroupResult> results, List<Long> held) {
+        PreclinicalPlatformProperties.Outbox settings = properties.getOutbox();
+        List<Long> delivered = new ArrayList<>();
+        List<Long> released = new ArrayList<>(held);
+        Map<OutboxEvent, RuntimeException> failures = new LinkedHashMap<>();
+        for (GroupResult result : results) {
+            delivered.addAll(result.delivered());
+            if (result.failedRow() != null) {
+                failures.put(result.failedRow(), result.failure());
+            }
+            released.addAll(result.skipped());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> {
+            forChunks(delivered, ids -> outboxEventRepository.markDone(ids, OutboxEvent.Status.DONE, now));
+            forChunks(released, outboxEventRepository::release);
+            failures.forEach((row, error) -> recordFailure(row, error, settings, now));
+        });
+        return new BatchResult(0, delivered.size(), 0, released.size(), failures.size());
+    }
+
+    // Delivers the group's rows in order and stops at the first failure
+    private GroupResult deliver(List<OutboxEvent> group) {
+        GroupResult result = new GroupResult(group);
+        try {
+            // Decoding loads entities whose lazy associations handlers navigate
+            readOnlyTransactionTemplate.executeWithoutResult(status -> {
+                for (OutboxEvent row : group) {
+                    try {
+                        Optional<? extends DomainEvent> event = outboxEventCodec.decode(row);
+                        if (event.isPresent()) {
+                            dispatcher.deliver(row.getId(), row.getCreatedAt(), event.get());
+                            recordDelay(row);
+                        } else {
+                            log.debug("Outbox event {} refers to deleted data; nothing to deliver", row.getId());
+                        }
+                        result.delivered.add(row.getId());
+                    } catch (RuntimeException e) {
+                        result.fail(row, e);
+                        return;
+                    }
+                }
+            });
+        } catch (TransactionException e) {
+            // The read-only transaction has nothing to commit; what was delivered stays delivered
+            log.debug("Relay transaction ended with {}", e.getMessage());
+        }
+        return result;
+    }
+
+    private GroupResult await(CompletableFuture<GroupResult> future, Duration timeout) {
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Outbox delivery did not finish within the lease of {}", timeout);
+            return null;
+        } catch (ExecutionException e) {
+            log.error("Outbox delivery task failed", e.getCause());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Outbox relay interrupted", e);
+        }
+    }
+
+    private void recordFailure(OutboxEvent row, RuntimeException error, PreclinicalPlatformProperties.Outbox settings,
+                               LocalDateTime now) {
+        OutboxEvent current = outboxEventRepository.findById(row.getId()).orElse(null);
+        if (current == null) {
+            return;
+        }
+        int attempts = current.getAttempts() + 1;
+        current.setAttempts(attempts);
+        current.setLastError(truncate(error));
+        current.setClaimToken(null);
+        current.setClaimedUntil(null);
+        if (attempts >= settings.getMaxAttempts()) {
+            current.setStatus(OutboxEvent.Status.FAILED);
+            current.setProcessedAt(now);
+            log.error("Outbox event {} ({}) failed {} times and was set aside; study {} continues without it",
+                    current.getId(), current.getEventType(), attempts, current.getStudyId());
+        } else {
+            Duration backoff = settings.getRetryBackoff().multipliedBy(1L << Math.min(attempts - 1, 20));
+            if (backoff.compareTo(settings.getMaxRetryBackoff()) > 0) {
+                backoff = settings.getMaxRetryBackoff();
+            }
+            current.setAvailableAt(now.plus(backoff));
+            log.warn("Outbox event {} ({}) failed on attempt {}; retrying in {}",
+                    current.getId(), current.getEventType(), attempts, backoff);
+        }
+    }
+
+    private void recordDelay(OutboxEvent row) {
+        if (row.getCreatedAt() != null) {
+            meterRegistry.timer("preclinical.events.delay", "type", row.getEventType())
+                    .record(Duration.between(row.getCreatedAt(), LocalDateTime.now()));
+        }
+    }
+
+    private AtomicLong registerBacklogGauge(OutboxEvent.Status status, String type) {
+        AtomicLong value = new AtomicLong();
+        String name = status == OutboxEvent.Status.FAILED ? "preclinical.events.failed" : "preclinical.events.pending";
+        Gauge.builder(name, value, AtomicLong::get)
+                .tag("type", type)
+                .register(meterRegistry);
+        return value;
+    }
+
+    // Keeps IN lists within what every database accepts
+    private static void forChunks(List<Long> ids, Consumer<Collection<Long>> action) {
+        for (int from = 0; from < ids.size(); from += 1000) {
+            action.accept(ids.subList(from, Math.min(ids.size(), from + 1000)));
+        }
+    }
+
+    private static String truncate(RuntimeException error) {
+        Throwable cause = error.getCause() != null ? error.getCause() : error;
+        String message = cause.getClass().getSimpleName() + ": " + cause.getMessage();
+        return message.length() > MAX_ERROR_LENGTH ? message.substring(0, MAX_ERROR_LENGTH) : message;
+    }
+
+    private static final class GroupResult {
+        private final List<OutboxEvent> group;
+        private final List<Long> delivered = new ArrayList<>();
+        private OutboxEvent failedRow;
+        private RuntimeException failure;
+
+        GroupResult(List<OutboxEvent> group) {
+            this.group = group;
+        }
+
+        void fail(OutboxEvent row, RuntimeException e) {
+            this.failedRow = row;
+            this.failure = e;
+        }
+
+        List<Long> delivered() {
+            return delivered;
+        }
+
+        OutboxEvent failedRow() {
+            return failedRow;
+        }
+
+        RuntimeException failure() {
+            return failure;
+        }
+
+        // Rows after the failed one wait for it
+        List<Long> skipped() {
+            if (failedRow == null) {
+                return List.of();
+            }
+            int failedAt = group.indexOf(failedRow);
+            return group.subList(failedAt + 1, group.size()).stream().map(OutboxEvent::getId).toList();
+        }
+    }
+
+    public record BatchResult(int claimed, int delivered, int queued, int held, int failed) {
+    }
+
+    private static final class ReplayProgress {
+        private long replayed;
+        private long skipped;
+        private long lastEventId;
+
+        ReplayProgress(long afterId) {
+            this.lastEventId = afterId;
+        }
+    }
+}
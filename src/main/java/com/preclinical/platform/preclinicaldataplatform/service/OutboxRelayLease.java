@@ -0,0 +1,100 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.entity.RelayLease;
+import com.preclinical.platform.preclinicaldataplatform.repository.RelayLeaseRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Database lease that lets one node at a time relay the outbox. The audit
+ * journal is local to the node that writes it, so if several nodes relayed,
+ * a study's audit history would be split across their journals and a
+ * redelivery on another node would not find the entries it already wrote.
+ * The holder extends the lease as it polls; a node that stops polling loses
+ * it after {@code outbox.lease-duration} and another node takes over.
+ */
+@Component
+@Slf4j
+public class OutboxRelayLease {
+
+    private static final String NAME = "outbox-relay";
+
+    private final RelayLeaseRepository relayLeaseRepository;
+    private final PreclinicalPlatformProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final String owner = UUID.randomUUID().toString();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile LocalDateTime heldUntil;
+
+    public OutboxRelayLease(RelayLeaseRepository relayLeaseRepository,
+                            PreclinicalPlatformProperties properties,
+                            PlatformTransactionManager transactionManager) {
+        this.relayLeaseRepository = relayLeaseRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Takes or extends the lease and tells whether this node holds it. The
+     * database is only asked once half of the current lease has passed.
+     */
+    public boolean acquire() {
+        LocalDateTime now = LocalDateTime.now();
+        Duration duration = properties.getOutbox().getLeaseDuration();
+        LocalDateTime held = heldUntil;
+        if (held != null && now.isBefore(held.minus(duration.dividedBy(2)))) {
+            return true;
+        }
+        LocalDateTime until = now.plus(duration);
+        Integer updated = transactionTemplate.execute(status ->
+                relayLeaseRepository.acquire(NAME, owner, until, now));
+        if ((updated == null || updated == 0) && !relayLeaseRepository.existsById(NAME)) {
+            updated = createIfMissing(until) ? 1 : 0;
+        }
+        boolean acquired = updated > 0;
+        if (acquired && held == null) {
+            log.info("This node now relays the outbox (lease {})", owner);
+        } else if (!acquired && held != null) {
+            log.warn("This node lost the outbox relay lease to another node");
+        }
+        heldUntil = acquired ? until : null;
+        return acquired;
+    }
+
+    public boolean isHeld() {
+        LocalDateTime held = heldUntil;
+        return held != null && LocalDateTime.now().isBefore(held);
+    }
+
+    // The row is created once; a node that loses the insert race finds it held by the winner
+    private boolean createIfMissing(LocalDateTime until) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> entityManager.persist(RelayLease.builder()
+                    .name(NAME)
+                    .owner(owner)
+                    .leasedUntil(until)
+                    .build()));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Outbox relay lease was created by another node");
+            return false;
+        }
+    }
+}
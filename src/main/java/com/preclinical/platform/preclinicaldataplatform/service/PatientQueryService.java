@@ -0,0 +1,133 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.PatientPage;
+import com.preclinical.platform.preclinicaldataplatform.dto.PatientSummary;
+import com.preclinical.platform.preclinicaldataplatform.excception.InvalidCursorException;
+import com.preclinical.platform.preclinicaldataplatform.excception.StudyNotFoundException;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudyRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read paths for large patient listings. Pages are fetched with keyset (seek)
+ * queries on the sort column plus id, so page N costs the same as page 1, and
+ * the streaming path reads DTO rows off a JDBC cursor one at a time.
+ */
+@Service
+@Transactional(readOnly = true)
+@Slf4j
+public class PatientQueryService {
+
+    private final PatientRepository patientRepository;
+    private final StudyRepository studyRepository;
+
+    public PatientQueryService(PatientRepository patientRepository, StudyRepository studyRepository) {
+        this.patientRepository = patientRepository;
+        this.studyRepository = studyRepository;
+    }
+
+    public PatientPage getPatientPage(Long studyId, PatientPage.SortField sort, PatientPage.Direction direction,
+                                      String cursor, int size) {
+        verifyStudyExists(studyId);
+        Cursor position = cursor == null || cursor.isBlank() ? null : Cursor.decode(cursor, sort, direction);
+
+        // One extra row tells us whether another page follows without a count query
+        List<PatientSummary> rows = patientRepository.findSummariesAfter(studyId, sort, direction,
+                position != null ? position.lastValue() : null,
+                position != null ? position.lastId() : null,
+                size + 1);
+
+        boolean hasMore = rows.size() > size;
+        List<PatientSummary> patients = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = hasMore
+                ? Cursor.from(patients.get(patients.size() - 1), sort, direction).encode()
+                : null;
+
+        return PatientPage.builder()
+                .patients(patients)
+                .size(patients.size())
+                .sort(sort)
+                .direction(direction)
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    /**
+     * Hands every patient of the study to {@code consumer} in id order while the
+     * cursor is open. Rows are DTOs, so nothing accumulates in the persistence
+     * context and memory stays flat regardless of study size.
+     */
+    public long streamPatients(Long studyId, Consumer<PatientSummary> consumer) {
+        verifyStudyExists(studyId);
+        long written = 0;
+        try (Stream<PatientSummary> patients = patientRepository.streamSummariesByStudyId(studyId)) {
+            for (PatientSummary patient : (Iterable<PatientSummary>) patients::iterator) {
+                consumer.accept(patient);
+                written++;
+            }
+        }
+        log.debug("Streamed {} patients for study {}", written, studyId);
+        return written;
+    }
+
+    public void verifyStudyExists(Long studyId) {
+        if (!studyRepository.existsById(studyId)) {
+            throw new StudyNotFoundException("Study not found with id: " + studyId);
+        }
+    }
+
+    /**
+     * Opaque page token: sort, direction, last id and last sort value, base64url
+     * encoded. The sort and direction are checked on decode so a token cannot be
+     * replayed against a different ordering.
+     */
+    private record Cursor(PatientPage.SortField sort, PatientPage.Direction direction, Long lastId, Object lastValue) {
+
+        static Cursor from(PatientSummary last, PatientPage.SortField sort, PatientPage.Direction direction) {
+            Object value = switch (sort) {
+                case ID -> null;
+                case ENROLLMENT_DATE -> last.getEnrollmentDate();
+                case PATIENT_CODE -> last.getPatientCode();
+            };
+            return new Cursor(sort, direction, last.getId(), value);
+        }
+
+        String encode() {
+            String raw = sort + ":" + direction + ":" + lastId + ":" + (lastValue != null ? lastValue : "");
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String token, PatientPage.SortField sort, PatientPage.Direction direction) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                String[] parts = raw.split(":", 4);
+                if (parts.length != 4 || PatientPage.SortField.valueOf(parts[0]) != sort
+                        || PatientPage.Direction.valueOf(parts[1]) != direction) {
+                    throw new InvalidCursorException("Cursor does not match the requested sort order");
+                }
+                Long lastId = Long.valueOf(parts[2]);
+                Object lastValue = switch (sort) {
+                    case ID -> null;
+                    case ENROLLMENT_DATE -> LocalDate.parse(parts[3]);
+                    case PATIENT_CODE -> parts[3];
+                };
+                return new Cursor(sort, direction, lastId, lastValue);
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                throw new InvalidCursorException("Invalid patient page cursor", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dispatch queue for serious adverse event alerts, ordered by regulatory
+ * deadline so the alert closest to breaching its reporting timeframe is
+ * always sent next. Alerts are never rejected: at most
+ * {@code saeQueueMemoryCapacity} items are held in memory, and beyond that
+ * the items with the latest deadlines spill to a file and are read back as
+ * the queue drains.
+ *
+ * <p>An item only names outbox rows and the claim under which they were
+ * taken, so the spill file needs no durability: after a restart the rows
+ * are still pending in the outbox and are relayed again. Each queue spills
+ * to its own temporary file in {@code saeQueueSpillDirectory}, so nodes or
+ * test contexts sharing the directory do not overwrite each other, and
+ * deletes it on stop; a file left behind by a crashed process can simply be
+ * removed. The file is read back in arrival order, which is deadline order
+ * as long as deadlines follow recording time.
+ *
+ * <p>Workers run on {@code saeAlertExecutor}. Metrics:
+ * {@code preclinical.sae.queue.depth} (tagged memory or disk),
+ * {@code preclinical.sae.queue.oldest} (seconds the oldest waiting item
+ * has queued), {@code preclinical.sae.queue.age} (queued to dispatched),
+ * {@code preclinical.sae.queue.slack} (deadline minus dispatch time) and
+ * {@code preclinical.sae.queue.deadline.misses}.
+ */
+@Component
+@Slf4j
+public class SaeAlertQueue {
+
+    private static final Duration FAILURE_BACKOFF = Duration.ofSeconds(1);
+
+    private static final Comparator<Item> BY_DEADLINE = Comparator.comparing(Item::deadline)
+            .thenComparingLong(Item::sequence);
+
+    private final Executor saeAlertExecutor;
+    private final PreclinicalPlatformProperties properties;
+    private final Timer queueAge;
+    private final Timer slack;
+    private final Counter deadlineMisses;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final TreeSet<Item> memory = new TreeSet<>(BY_DEADLINE);
+    private final SpillFile spill;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, AtomicInteger> claimTokens = new ConcurrentHashMap<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    public SaeAlertQueue(@Qualifier("saeAlertExecutor") Executor saeAlertExecutor,
+                         MeterRegistry meterRegistry,
+                         PreclinicalPlatformProperties properties) {
+        this.saeAlertExecutor = saeAlertExecutor;
+        this.properties = properties;
+        this.spill = new SpillFile(Paths.get(properties.getAdverseEvent().getSaeQueueSpillDirectory()));
+        this.queueAge = Timer.builder("preclinical.sae.queue.age").register(meterRegistry);
+        this.slack = Timer.builder("preclinical.sae.queue.slack").register(meterRegistry);
+        this.deadlineMisses = Counter.builder("preclinical.sae.queue.deadline.misses").register(meterRegistry);
+        Gauge.builder("preclinical.sae.queue.depth", this, queue -> queue.inMemory())
+                .tag("tier", "memory")
+                .register(meterRegistry);
+        Gauge.builder("preclinical.sae.queue.depth", spill, SpillFile::size)
+                .tag("tier", "disk")
+                .register(meterRegistry);
+        Gauge.builder("preclinical.sae.queue.oldest", this, SaeAlertQueue::oldestWaitSeconds)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the workers that hand items to {@code handler}. Called once by
+     * the component that fills the queue.
+     */
+    public void start(Consumer<Item> handler) {
+        if (!started.compareAndSet(false, true)) {
+            throw new IllegalStateException("SAE alert queue already started");
+        }
+        for (int i = 0; i < properties.getAdverseEvent().getSaeQueueWorkers(); i++) {
+            saeAlertExecutor.execute(() -> work(handler));
+        }
+    }
+
+    public Item offer(List<Long> outboxIds, String claimToken, Instant deadline) {
+        Item item = new Item(outboxIds, claimToken, deadline, Instant.now(), sequence.incrementAndGet());
+        claimTokens.computeIfAbsent(claimToken, token -> new AtomicInteger()).incrementAndGet();
+        lock.lock();
+        try {
+            memory.add(item);
+            // Over capacity the latest deadline spills, which may be the item just offered
+            if (memory.size() > properties.getAdverseEvent().getSaeQueueMemoryCapacity() && running) {
+                spillLast();
+            }
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        return item;
+    }
+
+    // Removed from memory only once it is on disk; if the spill fails it stays queued in memory, over capacity
+    private void spillLast() {
+        try {
+            spill.append(memory.last());
+            memory.pollLast();
+        } catch (UncheckedIOException e) {
+            log.error("Cannot spill SAE alert; keeping {} items in memory", memory.size(), e);
+        }
+    }
+
+    // Claims of queued items must be kept alive until a worker gets to them
+    public Set<String> queuedClaimTokens() {
+        return Set.copyOf(claimTokens.keySet());
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return memory.size() + spill.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Spilled items are dropped with the file; their rows are still pending in the outbox
+    @PreDestroy
+    public void stop() {
+        running = false;
+        lock.lock();
+        try {
+            available.signalAll();
+            spill.delete();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work(Consumer<Item> handler) {
+        while (running) {
+            Item item;
+            try {
+                item = take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Spilled items stay on disk and are read again after the pause
+                log.error("Cannot take the next SAE alert; retrying in {}", FAILURE_BACKOFF, e);
+                if (!pause()) {
+                    return;
+                }
+                continue;
+            }
+            if (item == null) {
+                continue;
+            }
+            Instant dispatched = Instant.now();
+            queueAge.record(Duration.between(item.enqueuedAt(), dispatched));
+            if (dispatched.isAfter(item.deadline())) {
+                deadlineMisses.increment();
+                log.error("SAE alert for outbox events {} dispatched {} after its reporting deadline",
+                        item.outboxIds(), Duration.between(item.deadline(), dispatched));
+            } else {
+                slack.record(Duration.between(dispatched, item.deadline()));
+            }
+            try {
+                handler.accept(item);
+            } catch (RuntimeException e) {
+                // The rows stay pending in the outbox and are relayed again
+                log.error("SAE alert dispatch failed for outbox events {}", item.outboxIds(), e);
+            } finally {
+                releaseToken(item.claimToken());
+            }
+        }
+    }
+
+    private Item take() throws InterruptedException {
+        lock.lock();
+        try {
+            int capacity = properties.getAdverseEvent().getSaeQueueMemoryCapacity();
+            // Refill from disk once memory is down to half, so spilled items keep their turn
+            if (spill.size() > 0 && memory.size() <= capacity / 2) {
+                try {
+                    spill.readBatch(capacity - memory.size()).forEach(memory::add);
+                } catch (RuntimeException e) {
+                    // Items already in memory are still sent; the read is retried on the next take
+                    if (memory.isEmpty()) {
+                        throw e;
+                    }
+                    log.warn("Cannot read spilled SAE alerts back; sending the {} in memory first", memory.size(), e);
+                }
+            }
+            if (memory.isEmpty()) {
+                available.await(1, TimeUnit.SECONDS);
+                return null;
+            }
+            return memory.pollFirst();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(FAILURE_BACKOFF.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void releaseToken(String claimToken) {
+        claimTokens.computeIfPresent(claimToken, (token, count) -> count.decrementAndGet() == 0 ? null : count);
+    }
+
+    private int inMemory() {
+        lock.lock();
+        try {
+            return memory.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private double oldestWaitSeconds() {
+        lock.lock();
+        try {
+            Instant oldest = memory.stream().map(Item::enqueuedAt).min(Comparator.naturalOrder())
+                    .orElse(spill.oldestEnqueuedAt());
+            return oldest != null ? Duration.between(oldest, Instant.now()).toMillis() / 1000.0 : 0.0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public record Item(List<Long> outboxIds, String claimToken, Instant deadline, Instant enqueuedAt,
+                       long sequence) {
+
+        String toLine() {
+            return deadline.toEpochMilli() + "," + enqueuedAt.toEpochMilli() + "," + sequence + ","
+                    + claimToken + "," + outboxIds.stream().map(String::valueOf).collect(Collectors.joining(";"));
+        }
+
+        static Item fromLine(String line) {
+            String[] fields = line.split(",", 5);
+            List<Long> ids = Arrays.stream(fields[4].split(";")).map(Long::valueOf).toList();
+            return new Item(ids, fields[3], Instant.ofEpochMilli(Long.parseLong(fields[0])),
+                    Instant.ofEpochMilli(Long.parseLong(fields[1])), Long.parseLong(fields[2]));
+        }
+    }
+
+    /**
+     * Append-only overflow file, read back from a moving offset and truncated
+     * whenever it has been read to the end. Guarded by the queue's lock.
+     */
+    private static final class SpillFile {
+        private final Path path;
+        private BufferedWriter writer;
+        private long length;
+        private long readOffset;
+        private int size;
+        private Instant oldestEnqueuedAt;
+
+        SpillFile(Path directory) {
+            try {
+                Files.createDirectories(directory);
+                this.path = Files.createTempFile(directory, "sae-alert-queue-", ".spill");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot create SAE spill file in " + directory, e);
+            }
+        }
+
+        void append(Item item) {
+            try {
+                if (writer == null) {
+                    writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII,
+                            StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                }
+                String line = item.toLine() + System.lineSeparator();
+                writer.write(line);
+                writer.flush();
+                length += line.length();
+                size++;
+                if (oldestEnqueuedAt == null || item.enqueuedAt().isBefore(oldestEnqueuedAt)) {
+                    oldestEnqueuedAt = item.enqueuedAt();
+                }
+            } catch (IOException e) {
+                discardPartialLine();
+                throw new UncheckedIOException("Cannot spill SAE alert to " + path, e);
+            }
+        }
+
+        // A failed append may have left part of its line; cut the file back so the next line starts clean
+        private void discardPartialLine() {
+            try {
+                closeWriter();
+            } catch (IOException e) {
+                log.debug("Closing SAE spill writer after a failed append: {}", e.getMessage());
+                writer = null;
+            }
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            } catch (IOException e) {
+                log.warn("Cannot trim SAE spill file {} after a failed append", path, e);
+            }
+        }
+
+        List<Item> readBatch(int max) {
+            List<Item> items = new ArrayList<>();
+            try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+                file.seek(readOffset);
+                String line;
+                while (items.size() < max && (line = file.readLine()) != null) {
+                    items.add(Item.fromLine(line));
+                }
+                readOffset = file.getFilePointer();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read SAE spill file " + path, e);
+            }
+            size -= items.size();
+            if (size == 0) {
+                truncate();
+            }
+            return items;
+        }
+
+        int size() {
+            return size;
+        }
+
+        // Approximate once reading has started: the oldest item of the unread part is not tracked
+        Instant oldestEnqueuedAt() {
+            return size > 0 ? oldestEnqueuedAt : null;
+        }
+
+        private void truncate() {
+            try {
+                closeWriter();
+                // The file is kept so its name stays reserved for this queue
+                Files.write(path, new byte[0]);
+                length = 0;
+                readOffset = 0;
+                oldestEnqueuedAt = null;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot truncate SAE spill file " + path, e);
+            }
+        }
+
+        void delete() {
+            try {
+                closeWriter();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                log.warn("Cannot delete SAE spill file {}", path, e);
+            }
+            size = 0;
+            oldestEnqueuedAt = null;
+        }
+
+        private void closeWriter() throws IOException {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+    }
+}
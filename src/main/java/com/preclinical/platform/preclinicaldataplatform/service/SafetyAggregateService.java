@@ -0,0 +1,217 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.SafetyAggregateConsistencyReport;
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.entity.StudySafetyAggregate;
+import com.preclinical.platform.preclinicaldataplatform.repository.AdverseEventRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudyRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudySafetyAggregateRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Maintains the per-study {@link StudySafetyAggregate} rows. Increments are
+ * applied under a row lock inside the transaction that inserts the adverse
+ * event, so the aggregate always matches the committed events.
+ */
+@Service
+@Transactional
+@Slf4j
+public class SafetyAggregateService {
+
+    private final StudySafetyAggregateRepository aggregateRepository;
+    private final AdverseEventRepository adverseEventRepository;
+    private final StudyRepository studyRepository;
+    private final TransactionTemplate createTransactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SafetyAggregateService(StudySafetyAggregateRepository aggregateRepository,
+                                  AdverseEventRepository adverseEventRepository,
+                                  StudyRepository studyRepository,
+                                  PlatformTransactionManager transactionManager) {
+        this.aggregateRepository = aggregateRepository;
+        this.adverseEventRepository = adverseEventRepository;
+        this.studyRepository = studyRepository;
+        this.createTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.createTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public void initialize(Long studyId) {
+        if (!aggregateRepository.existsById(studyId)) {
+            aggregateRepository.save(StudySafetyAggregate.builder().studyId(studyId).build());
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAdverseEvent(AdverseEvent adverseEvent) {
+        if (adverseEvent.getStudy() == null || adverseEvent.getStudy().getId() == null) {
+            return;
+        }
+        StudySafetyAggregate aggregate = lockOrCreate(adverseEvent.getStudy().getId());
+        aggregate.record(adverseEvent.getSeverity(), adverseEvent.getCausality(), adverseEvent.getEventTerm(),
+                Boolean.TRUE.equals(adverseEvent.getSerious()), 1);
+    }
+
+    // Bulk variant: each study's aggregate row is locked once per call, in study id order to avoid deadlocks
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordAdverseEvents(List<AdverseEvent> adverseEvents) {
+        Map<Long, List<AdverseEvent>> eventsByStudy = new TreeMap<>();
+        for (AdverseEvent adverseEvent : adverseEvents) {
+            if (adverseEvent.getStudy() != null && adverseEvent.getStudy().getId() != null) {
+                eventsByStudy.computeIfAbsent(adverseEvent.getStudy().getId(), id -> new ArrayList<>()).add(adverseEvent);
+            }
+        }
+        eventsByStudy.forEach((studyId, events) -> {
+            StudySafetyAggregate aggregate = lockOrCreate(studyId);
+            for (AdverseEvent adverseEvent : events) {
+                aggregate.record(adverseEvent.getSeverity(), adverseEvent.getCausality(), adverseEvent.getEventTerm(),
+                        Boolean.TRUE.equals(adverseEvent.getSerious()), 1);
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<SafetyEventCounts> findCounts(Long studyId) {
+        return aggregateRepository.findById(studyId).map(this::toCounts);
+    }
+
+    /**
+     * Recounts a study's adverse events and replaces its aggregate. The row lock
+     * is taken before counting so inserts racing with the rebuild are applied
+     * on top of the recount rather than lost.
+     */
+    @CacheEvict(value = "safetyReports", key = "#studyId")
+    public SafetyEventCounts rebuild(Long studyId) {
+        StudySafetyAggregate aggregate = lockOrCreate(studyId);
+        SafetyEventCounts recount = SafetyEventCounts.fromRows(adverseEventRepository.aggregateEventsByStudy(studyId));
+        apply(aggregate, recount);
+
+        log.info("Rebuilt safety aggregate for study {}: {} events", studyId, recount.getTotalEvents());
+        return recount;
+    }
+
+    @CacheEvict(value = "safetyReports", allEntries = true)
+    public int rebuildAll() {
+        List<Study> studies = studyRepository.findAll();
+        studies.forEach(study -> rebuild(study.getId()));
+        return studies.size();
+    }
+
+    @Transactional(readOnly = true)
+    public SafetyAggregateConsistencyReport checkConsistency(Long studyId) {
+        SafetyEventCounts recount = SafetyEventCounts.fromRows(adverseEventRepository.aggregateEventsByStudy(studyId));
+        Optional<SafetyEventCounts> aggregate = findCounts(studyId);
+
+        List<String> mismatches = new ArrayList<>();
+        if (aggregate.isEmpty()) {
+            if (recount.getTotalEvents() > 0) {
+                mismatches.add("Aggregate missing for study with " + recount.getTotalEvents() + " events");
+            }
+        } else {
+            SafetyEventCounts stored = aggregate.get();
+            compare("totalEvents", stored.getTotalEvents(), recount.getTotalEvents(), mismatches);
+            compare("seriousEvents", stored.getSeriousEvents(), recount.getSeriousEvents(), mismatches);
+            compareCounts("severity", stored.getEventsBySeverity(), recount.getEventsBySeverity(), mismatches);
+            compareCounts("causality", stored.getEventsByCausality(), recount.getEventsByCausality(), mismatches);
+            compareCounts("term", stored.getEventsByTerm(), recount.getEventsByTerm(), mismatches);
+        }
+
+        if (!mismatches.isEmpty()) {
+            log.warn("Safety aggregate for study {} is inconsistent: {}", studyId, mismatches);
+        }
+
+        return SafetyAggregateConsistencyReport.builder()
+                .studyId(studyId)
+                .consistent(mismatches.isEmpty())
+                .aggregateTotalEvents(aggregate.map(SafetyEventCounts::getTotalEvents).orElse(null))
+                .recountedTotalEvents(recount.getTotalEvents())
+                .mismatches(mismatches)
+                .checkedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Aggregates are created with the study; this only creates one for studies
+     * that predate the aggregate table. The row is inserted in its own
+     * transaction, seeded with a recount of the study's committed events, so
+     * it is right whether or not the caller commits. Events of the caller's
+     * and other open transactions are not counted yet; each of them applies
+     * its own under the lock. When two callers race to create it the loser's
+     * duplicate key fails in its own transaction, and both then lock the row
+     * that won.
+     */
+    private StudySafetyAggregate lockOrCreate(Long studyId) {
+        Optional<StudySafetyAggregate> existing = aggregateRepository.findByStudyIdForUpdate(studyId);
+        if (existing.isPresent()) {
+            return existing.get();
+        }
+        try {
+            createTransactionTemplate.executeWithoutResult(status -> {
+                StudySafetyAggregate aggregate = StudySafetyAggregate.builder().studyId(studyId).build();
+                apply(aggregate, SafetyEventCounts.fromRows(adverseEventRepository.aggregateEventsByStudy(studyId)));
+                // persist, not save: a merge would overwrite a row committed by the other creator
+                entityManager.persist(aggregate);
+            });
+            log.info("Created safety aggregate for study {} from its committed adverse events", studyId);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Safety aggregate for study {} was created concurrently", studyId);
+        }
+        return aggregateRepository.findByStudyIdForUpdate(studyId)
+                .orElseThrow(() -> new IllegalStateException("Safety aggregate for study " + studyId + " is missing"));
+    }
+
+    private static void apply(StudySafetyAggregate aggregate, SafetyEventCounts counts) {
+        aggregate.reset();
+        aggregate.getSeverityCounts().putAll(counts.getEventsBySeverity());
+        aggregate.getCausalityCounts().putAll(counts.getEventsByCausality());
+        aggregate.getTermCounts().putAll(counts.getEventsByTerm());
+        aggregate.setTotalEvents(counts.getTotalEvents());
+        aggregate.setSeriousEvents(counts.getSeriousEvents());
+    }
+
+    private SafetyEventCounts toCounts(StudySafetyAggregate aggregate) {
+        return SafetyEventCounts.of(aggregate.getSeverityCounts(), aggregate.getCausalityCounts(),
+                aggregate.getTermCounts(), aggregate.getTotalEvents(), aggregate.getSeriousEvents());
+    }
+
+    private void compare(String name, long stored, long recounted, List<String> mismatches) {
+        if (stored != recounted) {
+            mismatches.add(name + ": aggregate=" + stored + ", recount=" + recounted);
+        }
+    }
+
+    private <K> void compareCounts(String name, Map<K, Long> stored, Map<K, Long> recounted, List<String> mismatches) {
+        Set<K> keys = new LinkedHashSet<>(stored.keySet());
+        keys.addAll(recounted.keySet());
+        for (K key : keys) {
+            long storedCount = stored.getOrDefault(key, 0L);
+            long recountedCount = recounted.getOrDefault(key, 0L);
+            if (storedCount != recountedCount) {
+                mismatches.add(name + " " + key + ": aggregate=" + storedCount + ", recount=" + recountedCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+import com.preclinical.platform.preclinicaldataplatform.repository.AdverseEventCountView;
+
+/**
+ * Adverse event counts by severity, causality, term and serious flag.
+ * Built in a single pass from grouped database rows, or from loaded entities
+ * when the grouped query is not available, and mergeable across studies.
+ */
+public class SafetyEventCounts {
+
+    private final Map<AdverseEvent.Severity, Long> bySeverity = new EnumMap<>(AdverseEvent.Severity.class);
+    private final Map<AdverseEvent.Causality, Long> byCausality = new EnumMap<>(AdverseEvent.Causality.class);
+    private final Map<String, Long> byTerm = new HashMap<>();
+    private long totalEvents;
+    private long seriousEvents;
+
+    public static SafetyEventCounts fromRows(List<AdverseEventCountView> rows) {
+        SafetyEventCounts counts = new SafetyEventCounts();
+        for (AdverseEventCountView row : rows) {
+            counts.add(row.getSeverity(), row.getCausality(), row.getEventTerm(),
+                    Boolean.TRUE.equals(row.getSerious()), row.getEventCount());
+        }
+        return counts;
+    }
+
+    public static SafetyEventCounts fromEvents(List<AdverseEvent> events) {
+        SafetyEventCounts counts = new SafetyEventCounts();
+        for (AdverseEvent event : events) {
+            counts.add(event.getSeverity(), event.getCausality(), event.getEventTerm(),
+                    Boolean.TRUE.equals(event.getSerious()), 1);
+        }
+        return counts;
+    }
+
+    public static SafetyEventCounts of(Map<AdverseEvent.Severity, Long> bySeverity,
+                                       Map<AdverseEvent.Causality, Long> byCausality,
+                                       Map<String, Long> byTerm, long totalEvents, long seriousEvents) {
+        SafetyEventCounts counts = new SafetyEventCounts();
+        counts.bySeverity.putAll(bySeverity);
+        counts.byCausality.putAll(byCausality);
+        counts.byTerm.putAll(byTerm);
+        counts.totalEvents = totalEvents;
+        counts.seriousEvents = seriousEvents;
+        return counts;
+    }
+
+    public void add(AdverseEvent.Severity severity, AdverseEvent.Causality causality,
+                    String eventTerm, boolean serious, long count) {
+        if (count <= 0) {
+            return;
+        }
+        if (severity != null) {
+            bySeverity.merge(severity, count, Long::sum);
+        }
+        if (causality != null) {
+            byCausality.merge(causality, count, Long::sum);
+        }
+        if (eventTerm != null) {
+            byTerm.merge(eventTerm, count, Long::sum);
+        }
+        totalEvents += count;
+        if (serious) {
+            seriousEvents += count;
+        }
+    }
+
+    public SafetyEventCounts merge(SafetyEventCounts other) {
+        other.bySeverity.forEach((severity, count) -> bySeverity.merge(severity, count, Long::sum));
+        other.byCausality.forEach((causality, count) -> byCausality.merge(causality, count, Long::sum));
+        other.byTerm.forEach((term, count) -> byTerm.merge(term, count, Long::sum));
+        totalEvents += other.totalEvents;
+        seriousEvents += other.seriousEvents;
+        return this;
+    }
+
+    public Map<AdverseEvent.Severity, Long> getEventsBySeverity() {
+        return Collections.unmodifiableMap(new EnumMap<>(bySeverity));
+    }
+
+    public Map<AdverseEvent.Causality, Long> getEventsByCausality() {
+        return Collections.unmodifiableMap(new EnumMap<>(byCausality));
+    }
+
+    public Map<String, Long> getEventsByTerm() {
+        return Collections.unmodifiableMap(byTerm);
+    }
+
+    public long getTotalEvents() {
+        return totalEvents;
+    }
+
+    public long getSeriousEvents() {
+        return seriousEvents;
+    }
+
+    public long getProbableOrDefiniteEvents() {
+        return byCausality.getOrDefault(AdverseEvent.Causality.PROBABLE, 0L)
+                + byCausality.getOrDefault(AdverseEvent.Causality.DEFINITE, 0L);
+    }
+
+    // Most frequent terms with at least minCount occurrences, highest count first
+    public List<String> topTerms(int limit, long minCount) {
+        return byTerm.entrySet().stream()
+                .filter(entry -> entry.getValue() >= minCount)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+}
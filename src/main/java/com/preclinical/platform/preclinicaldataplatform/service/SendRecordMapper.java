@@ -0,0 +1,252 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+/**
+ * Maps records of SEND-style DM, AE and VS files onto entities. Subjects are
+ * identified by {@code USUBJID}, which is stored as the patient code. A
+ * record that cannot be mapped raises an {@link IllegalArgumentException}
+ * describing the problem; the importer counts it as a failed row.
+ */
+@Component
+public class SendRecordMapper {
+
+    private static final Map<String, EfficacyMeasurement.MeasurementType> VITAL_SIGN_CODES = Map.of(
+            "SYSBP", EfficacyMeasurement.MeasurementType.BLOOD_PRESSURE_SYSTOLIC,
+            "DIABP", EfficacyMeasurement.MeasurementType.BLOOD_PRESSURE_DIASTOLIC,
+            "HR", EfficacyMeasurement.MeasurementType.HEART_RATE,
+            "PULSE", EfficacyMeasurement.MeasurementType.HEART_RATE,
+            "WEIGHT", EfficacyMeasurement.MeasurementType.WEIGHT);
+
+    private final Validator validator;
+
+    public SendRecordMapper(Validator validator) {
+        this.validator = validator;
+    }
+
+    public String subjectId(DelimitedRecordReader.Record record) {
+        return required(record, "USUBJID");
+    }
+
+    public Patient mapDemographics(DelimitedRecordReader.Record record) {
+        LocalDate enrollmentDate = date(record, "RFSTDTC");
+        if (enrollmentDate == null) {
+            enrollmentDate = date(record, "RFICDTC");
+        }
+        Integer age = integer(record, "AGE");
+        if (age == null) {
+            throw new IllegalArgumentException("AGE is required");
+        }
+        Patient patient = Patient.builder()
+                .patientCode(subjectId(record))
+                .age(age)
+                .gender(gender(record.get("SEX")))
+                .weight(decimal(record, "WEIGHT"))
+                .height(decimal(record, "HEIGHT"))
+                .enrollmentDate(enrollmentDate)
+                .status(Patient.PatientStatus.ENROLLED)
+                .build();
+        // Checked here so a bad row fails alone instead of failing its chunk at flush
+        Set<ConstraintViolation<Patient>> violations = validator.validate(patient);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        return patient;
+    }
+
+    public AdverseEvent mapAdverseEvent(DelimitedRecordReader.Record record, Patient patient) {
+        String term = required(record, "AETERM");
+        if (term.length() > 100) {
+            throw new IllegalArgumentException("AETERM must not exceed 100 characters");
+        }
+        LocalDate onsetDate = date(record, "AESTDTC");
+        if (onsetDate == null) {
+            throw new IllegalArgumentException("AESTDTC is required");
+        }
+        LocalDate resolutionDate = date(record, "AEENDTC");
+        if (resolutionDate != null && resolutionDate.isBefore(onsetDate)) {
+            throw new IllegalArgumentException("AEENDTC must not be before AESTDTC");
+        }
+        return AdverseEvent.builder()
+                .eventTerm(term)
+                .severity(severity(required(record, "AESEV")))
+                .causality(causality(required(record, "AEREL")))
+                .onsetDate(onsetDate)
+                .resolutionDate(resolutionDate)
+                .outcome(outcome(record.get("AEOUT")))
+                .serious(flag(record.get("AESER")))
+                .patient(patient)
+                .study(patient.getStudy())
+                .build();
+    }
+
+    public EfficacyMeasurement mapVitalSign(DelimitedRecordReader.Record record, Patient patient) {
+        String testCode = required(record, "VSTESTCD").toUpperCase(Locale.ROOT);
+        EfficacyMeasurement.MeasurementType type = measurementType(testCode);
+        BigDecimal value = decimal(record, "VSSTRESN");
+        if (value == null) {
+            throw new IllegalArgumentException("VSSTRESN is required");
+        }
+        LocalDate measurementDate = date(record, "VSDTC");
+        if (measurementDate == null) {
+            throw new IllegalArgumentException("VSDTC is required");
+        }
+        Integer studyDay = integer(record, "VSDY");
+        if (studyDay == null) {
+            if (patient.getEnrollmentDate() == null) {
+                throw new IllegalArgumentException("VSDY is required for patients without an enrollment date");
+            }
+            // SEND study days start at 1 on the reference start date and skip day 0
+            long days = ChronoUnit.DAYS.between(patient.getEnrollmentDate(), measurementDate);
+            studyDay = (int) (days >= 0 ? days + 1 : days);
+        }
+        return EfficacyMeasurement.builder()
+                .measurementType(type)
+                .measurementValue(value)
+                .unit(record.get("VSSTRESU"))
+                .measurementDate(measurementDate)
+                .studyDay(studyDay)
+                .normalRangeLow(decimal(record, "VSSTNRLO"))
+                .normalRangeHigh(decimal(record, "VSSTNRHI"))
+                .status(EfficacyMeasurement.MeasurementStatus.RECORDED)
+                .patient(patient)
+                .study(patient.getStudy())
+                .build();
+    }
+
+    private EfficacyMeasurement.MeasurementType measurementType(String testCode) {
+        EfficacyMeasurement.MeasurementType type = VITAL_SIGN_CODES.get(testCode);
+        if (type != null) {
+            return type;
+        }
+        // Our own exports use the measurement type names as test codes
+        try {
+            return EfficacyMeasurement.MeasurementType.valueOf(testCode);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported VSTESTCD: " + testCode);
+        }
+    }
+
+    private Patient.Gender gender(String value) {
+        if (value == null) {
+            return null;
+        }
+        return switch (value.toUpperCase(Locale.ROOT)) {
+            case "M", "MALE" -> Patient.Gender.MALE;
+            case "F", "FEMALE" -> Patient.Gender.FEMALE;
+            default -> Patient.Gender.OTHER;
+        };
+    }
+
+    private AdverseEvent.Severity severity(String value) {
+        try {
+            return AdverseEvent.Severity.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported AESEV: " + value);
+        }
+    }
+
+    private AdverseEvent.Causality causality(String value) {
+        String normalized = value.toUpperCase(Locale.ROOT);
+        if (normalized.startsWith("NOT") || normalized.equals("UNRELATED") || normalized.equals("NONE")) {
+            return AdverseEvent.Causality.UNRELATED;
+        }
+        if (normalized.startsWith("UNLIKELY")) {
+            return AdverseEvent.Causality.UNLIKELY;
+        }
+        if (normalized.startsWith("POSSIBL")) {
+            return AdverseEvent.Causality.POSSIBLE;
+        }
+        if (normalized.startsWith("PROBABL")) {
+            return AdverseEvent.Causality.PROBABLE;
+        }
+        if (normalized.startsWith("DEFINITE") || normalized.equals("RELATED")) {
+            return AdverseEvent.Causality.DEFINITE;
+        }
+        throw new IllegalArgumentException("Unsupported AEREL: " + value);
+    }
+
+    private AdverseEvent.Outcome outcome(String value) {
+        if (value == null) {
+            return AdverseEvent.Outcome.UNKNOWN;
+        }
+        String normalized = value.toUpperCase(Locale.ROOT);
+        if (normalized.startsWith("NOT RECOVERED") || normalized.startsWith("NOT RESOLVED")
+                || normalized.equals("NOT_RECOVERED")) {
+            return AdverseEvent.Outcome.NOT_RECOVERED;
+        }
+        if (normalized.startsWith("RECOVERING") || normalized.startsWith("RESOLVING")) {
+            return AdverseEvent.Outcome.RECOVERING;
+        }
+        if (normalized.startsWith("RECOVERED") || normalized.startsWith("RESOLVED")) {
+            return AdverseEvent.Outcome.RECOVERED;
+        }
+        if (normalized.equals("FATAL")) {
+            return AdverseEvent.Outcome.FATAL;
+        }
+        return AdverseEvent.Outcome.UNKNOWN;
+    }
+
+    private boolean flag(String value) {
+        return value != null && (value.equalsIgnoreCase("Y") || value.equalsIgnoreCase("YES")
+                || value.equalsIgnoreCase("TRUE"));
+    }
+
+    private String required(DelimitedRecordReader.Record record, String column) {
+        String value = record.get(column);
+        if (value == null) {
+            throw new IllegalArgumentException(column + " is required");
+        }
+        return value;
+    }
+
+    private Integer integer(DelimitedRecordReader.Record record, String column) {
+        String value = record.get(column);
+        try {
+            return value == null ? null : Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a whole number: " + value);
+        }
+    }
+
+    private BigDecimal decimal(DelimitedRecordReader.Record record, String column) {
+        String value = record.get(column);
+        try {
+            return value == null ? null : new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(column + " is not a number: " + value);
+        }
+    }
+
+    // ISO 8601 date or date-time; only the date part is kept
+    private LocalDate date(DelimitedRecordReader.Record record, String column) {
+        String value = record.get(column);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.length() > 10 ? value.substring(0, 10) : value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(column + " is not a complete ISO 8601 date: " + value);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.util.Map;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.TwoTierCache;
+import com.preclinical.platform.preclinicaldataplatform.dto.EfficacyAnalysisRequest;
+import com.preclinical.platform.preclinicaldataplatform.event.AdverseEventRecordedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.EfficacyMeasurementRecordedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.PatientEnrolledEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.PatientStatusChangedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyDataImportedEvent;
+import com.preclinical.platform.preclinicaldataplatform.event.StudyStatusChangedEvent;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Evicts the cached analyses of one study when its data changes, once the
+ * changing transaction has committed, so a reader cannot re-cache the old
+ * state between eviction and commit. Only the affected study's entries are
+ * removed; other studies keep their cached reports.
+ *
+ * <p>Runs on the publishing thread so the eviction has happened by the time
+ * the request that caused it returns.
+ */
+@Component
+@Slf4j
+public class StudyCacheInvalidator {
+
+    private static final String SAFETY_REPORTS = "safetyReports";
+    private static final String EFFICACY_ANALYSIS = "efficacyAnalysis";
+    private static final String STUDY_STATISTICS = "studyStatistics";
+
+    private final CacheManager cacheManager;
+
+    public StudyCacheInvalidator(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAdverseEventRecorded(AdverseEventRecordedEvent event) {
+        evictSafety(event.getAdverseEvent().getStudy().getId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMeasurementRecorded(EfficacyMeasurementRecordedEvent event) {
+        evictEfficacy(event.getMeasurement().getStudy().getId());
+    }
+
+    // The serious event rate of the safety report is per enrolled patient
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPatientEnrolled(PatientEnrolledEvent event) {
+        evictSafety(event.getPatient().getStudy().getId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPatientStatusChanged(PatientStatusChangedEvent event) {
+        evict(STUDY_STATISTICS, event.getPatient().getStudy().getId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudyStatusChanged(StudyStatusChangedEvent event) {
+        evict(STUDY_STATISTICS, event.getStudy().getId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStudyDataImported(StudyDataImportedEvent event) {
+        switch (event.getDomain()) {
+            case DM, AE -> evictSafety(event.getStudyId());
+            case VS -> evictEfficacy(event.getStudyId());
+        }
+    }
+
+    private void evictSafety(Long studyId) {
+        evict(SAFETY_REPORTS, studyId);
+        evict(STUDY_STATISTICS, studyId);
+    }
+
+    // Efficacy entries are keyed per request filter, so every key of the study is removed
+    private void evictEfficacy(Long studyId) {
+        Cache cache = cacheManager.getCache(EFFICACY_ANALYSIS);
+        if (cache == null) {
+            return;
+        }
+        String prefix = EfficacyAnalysisRequest.cacheKeyPrefix(studyId);
+        Object nativeCache = cache.getNativeCache();
+        if (cache instanceof TwoTierCache twoTier) {
+            // Also reaches the shared tier and the other nodes
+            twoTier.evictByPrefix(prefix);
+        } else if (nativeCache instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            caffeine.asMap().keySet().removeIf(key -> key instanceof String name && name.startsWith(prefix));
+        } else if (nativeCache instanceof Map<?, ?> map) {
+            map.keySet().removeIf(key -> key instanceof String name && name.startsWith(prefix));
+        } else {
+            // Stores whose keys cannot be scanned are cleared instead
+            cache.clear();
+        }
+        log.debug("Evicted efficacy analyses of study {}", studyId);
+    }
+
+    private void evict(String cacheName, Long studyId) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(studyId);
+        }
+    }
+}
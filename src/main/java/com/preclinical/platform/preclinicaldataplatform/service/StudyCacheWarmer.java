@@ -0,0 +1,198 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.dto.SafetyAnalysisReport;
+import com.preclinical.platform.preclinicaldataplatform.dto.StudyStatisticsReport;
+import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.repository.AdverseEventRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudyChangeView;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudyRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Precomputes study statistics and safety reports of every active study so
+ * dashboards read them from the cache. Each study's data is fingerprinted
+ * by its study row and the count and latest update of its patients and
+ * adverse events; studies whose fingerprint is unchanged since the last run
+ * get their previous reports put back instead of being recomputed.
+ *
+ * <p>Reports are written with a single put per entry, replacing the old
+ * value without a gap. Fingerprints are read again after the puts and any
+ * study that changed meanwhile is evicted, so a warm never leaves reports
+ * older than a change that committed while it ran.
+ */
+@Service
+@Slf4j
+public class StudyCacheWarmer {
+
+    private static final String STUDY_STATISTICS = "studyStatistics";
+    private static final String SAFETY_REPORTS = "safetyReports";
+
+    private final StudyManagementService studyManagementService;
+    private final DataAnalysisService dataAnalysisService;
+    private final StudyRepository studyRepository;
+    private final PatientRepository patientRepository;
+    private final AdverseEventRepository adverseEventRepository;
+    private final CacheManager cacheManager;
+    private final Executor cacheWarmingExecutor;
+    private final PreclinicalPlatformProperties properties;
+
+    // Reports of the last run with the fingerprint they were computed from
+    private final Map<Long, WarmedStudy> warmed = new ConcurrentHashMap<>();
+
+    public StudyCacheWarmer(StudyManagementService studyManagementService,
+                            DataAnalysisService dataAnalysisService,
+                            StudyRepository studyRepository,
+                            PatientRepository patientRepository,
+                            AdverseEventRepository adverseEventRepository,
+                            CacheManager cacheManager,
+                            @Qualifier("cacheWarmingExecutor") Executor cacheWarmingExecutor,
+                            PreclinicalPlatformProperties properties) {
+        this.studyManagementService = studyManagementService;
+        this.dataAnalysisService = dataAnalysisService;
+        this.studyRepository = studyRepository;
+        this.patientRepository = patientRepository;
+        this.adverseEventRepository = adverseEventRepository;
+        this.cacheManager = cacheManager;
+        this.cacheWarmingExecutor = cacheWarmingExecutor;
+        this.properties = properties;
+    }
+
+    public WarmingResult warmActiveStudies() {
+        long start = System.currentTimeMillis();
+        List<Long> studyIds = studyManagementService.getActiveStudies().stream().map(Study::getId).toList();
+        warmed.keySet().retainAll(studyIds);
+        if (studyIds.isEmpty()) {
+            return new WarmingResult(0, 0, 0, 0, 0, System.currentTimeMillis() - start);
+        }
+        Map<Long, Fingerprint> before = loadFingerprints(studyIds);
+
+        int reused = 0;
+        Map<Long, CompletableFuture<WarmedStudy>> futures = new LinkedHashMap<>();
+        for (Long studyId : studyIds) {
+            Fingerprint fingerprint = before.get(studyId);
+            WarmedStudy previous = warmed.get(studyId);
+            if (previous != null && previous.fingerprint().equals(fingerprint)) {
+                put(STUDY_STATISTICS, studyId, previous.statistics());
+                put(SAFETY_REPORTS, studyId, previous.safety());
+                reused++;
+            } else {
+                futures.put(studyId, CompletableFuture.supplyAsync(() -> new WarmedStudy(fingerprint,
+                        studyManagementService.refreshStudyStatistics(studyId),
+                        dataAnalysisService.refreshSafetyAnalysis(studyId)), cacheWarmingExecutor));
+            }
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]));
+        try {
+            all.get(properties.getCache().getWarmingTimeoutSeconds(), TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Cache warming timed out; {} studies are left for the next run", futures.size());
+        } catch (ExecutionException e) {
+            log.warn("Cache warming failed for at least one study", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cache warming interrupted", e);
+        }
+
+        int computed = 0;
+        for (Map.Entry<Long, CompletableFuture<WarmedStudy>> entry : futures.entrySet()) {
+            CompletableFuture<WarmedStudy> future = entry.getValue();
+            if (future.isDone() && !future.isCompletedExceptionally()) {
+                warmed.put(entry.getKey(), future.join());
+                computed++;
+            } else {
+                future.cancel(true);
+                warmed.remove(entry.getKey());
+            }
+        }
+
+        int changed = evictChanged(studyIds, before);
+        return new WarmingResult(studyIds.size(), computed, reused,
+                futures.size() - computed, changed, System.currentTimeMillis() - start);
+    }
+
+    // Studies that changed while this run computed or put their reports may now hold stale entries
+    private int evictChanged(List<Long> studyIds, Map<Long, Fingerprint> before) {
+        Map<Long, Fingerprint> after = loadFingerprints(studyIds);
+        int changed = 0;
+        for (Long studyId : studyIds) {
+            if (!Objects.equals(before.get(studyId), after.get(studyId))) {
+                evict(STUDY_STATISTICS, studyId);
+                evict(SAFETY_REPORTS, studyId);
+                warmed.remove(studyId);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private Map<Long, Fingerprint> loadFingerprints(Collection<Long> studyIds) {
+        Map<Long, StudyChangeView> patients = new HashMap<>();
+        patientRepository.summarizeChangesByStudy(studyIds).forEach(view -> patients.put(view.getStudyId(), view));
+        Map<Long, StudyChangeView> adverseEvents = new HashMap<>();
+        adverseEventRepository.summarizeChangesByStudy(studyIds)
+                .forEach(view -> adverseEvents.put(view.getStudyId(), view));
+
+        Map<Long, Fingerprint> fingerprints = new HashMap<>();
+        for (Study study : studyRepository.findAllById(studyIds)) {
+            StudyChangeView patientChanges = patients.get(study.getId());
+            StudyChangeView eventChanges = adverseEvents.get(study.getId());
+            fingerprints.put(study.getId(), new Fingerprint(
+                    study.getStatus(),
+                    study.getUpdatedAt(),
+                    patientChanges != null ? patientChanges.getRowCount() : 0,
+                    patientChanges != null ? patientChanges.getLastUpdated() : null,
+                    eventChanges != null ? eventChanges.getRowCount() : 0,
+                    eventChanges != null ? eventChanges.getLastUpdated() : null));
+        }
+        return fingerprints;
+    }
+
+    private void put(String cacheName, Long studyId, Object value) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.put(studyId, value);
+        }
+    }
+
+    private void evict(String cacheName, Long studyId) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.evict(studyId);
+        }
+    }
+
+    private record Fingerprint(Study.StudyStatus status, LocalDateTime studyUpdated,
+                               long patients, LocalDateTime patientsUpdated,
+                               long adverseEvents, LocalDateTime adverseEventsUpdated) {
+    }
+
+    private record WarmedStudy(Fingerprint fingerprint, StudyStatisticsReport statistics,
+                               SafetyAnalysisReport safety) {
+    }
+
+    public record WarmingResult(int studies, int computed, int reused, int failed, int evicted, long elapsedMillis) {
+    }
+}
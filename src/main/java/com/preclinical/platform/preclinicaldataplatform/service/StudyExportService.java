@@ -0,0 +1,321 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+import com.preclinical.platform.preclinicaldataplatform.entity.ImportJob;
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.excception.InvalidRequestException;
+import com.preclinical.platform.preclinicaldataplatform.excception.StudyNotFoundException;
+import com.preclinical.platform.preclinicaldataplatform.repository.AdverseEventRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.EfficacyMeasurementRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudyRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams a study's patients (DM), adverse events (AE) and measurements (VS)
+ * to an output stream as CSV or newline-delimited JSON. Rows are read from
+ * database cursors and written as they arrive; the persistence context is
+ * cleared every {@value #CLEAR_INTERVAL} rows so memory stays flat however
+ * large the study is. Column names follow SEND, so a CSV export can be fed
+ * back into {@link DatasetImportService}.
+ */
+@Service
+@Slf4j
+public class StudyExportService {
+
+    private static final int CLEAR_INTERVAL = 500;
+
+    private static final List<String> DM_COLUMNS = List.of(
+            "USUBJID", "AGE", "SEX", "WEIGHT", "HEIGHT", "RFSTDTC", "RFENDTC", "STATUS");
+    private static final List<String> AE_COLUMNS = List.of(
+            "USUBJID", "AESEQ", "AETERM", "AESEV", "AESER", "AEREL", "AEOUT", "AESTDTC", "AEENDTC", "AEDESC");
+    private static final List<String> VS_COLUMNS = List.of(
+            "USUBJID", "VSSEQ", "VSTESTCD", "VSSTRESN", "VSSTRESU", "VSDTC", "VSDY", "VSSTNRLO", "VSSTNRHI", "VSSTAT");
+
+    private final StudyRepository studyRepository;
+    private final PatientRepository patientRepository;
+    private final AdverseEventRepository adverseEventRepository;
+    private final EfficacyMeasurementRepository efficacyMeasurementRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public StudyExportService(StudyRepository studyRepository,
+                              PatientRepository patientRepository,
+                              AdverseEventRepository adverseEventRepository,
+                              EfficacyMeasurementRepository efficacyMeasurementRepository,
+                              ObjectMapper objectMapper) {
+        this.studyRepository = studyRepository;
+        this.patientRepository = patientRepository;
+        this.adverseEventRepository = adverseEventRepository;
+        this.efficacyMeasurementRepository = efficacyMeasurementRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    // COLUMNAR is the binary measurement format of MeasurementColumnarWriter
+    public enum Format {
+        CSV, NDJSON, COLUMNAR
+    }
+
+    // Checked before the response is committed so bad requests still get a proper status
+    public Set<ImportJob.Domain> resolveDomains(Long studyId, Format format, ImportJob.Domain domain) {
+        if (!studyRepository.existsById(studyId)) {
+            throw new StudyNotFoundException("Study not found with id: " + studyId);
+        }
+        if (format == Format.COLUMNAR) {
+            if (domain != null && domain != ImportJob.Domain.VS) {
+                throw new InvalidRequestException("Columnar export is only available for measurements (VS)");
+            }
+            return EnumSet.of(ImportJob.Domain.VS);
+        }
+        if (domain != null) {
+            return EnumSet.of(domain);
+        }
+        if (format == Format.CSV) {
+            throw new InvalidRequestException("CSV export needs a domain (DM, AE or VS)");
+        }
+        return EnumSet.allOf(ImportJob.Domain.class);
+    }
+
+    @Transactional(readOnly = true)
+    public long export(Long studyId, Set<ImportJob.Domain> domains, Format format, OutputStream outputStream)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        if (format == Format.COLUMNAR) {
+            long rows = exportColumnar(studyId, outputStream);
+            log.info("Exported {} measurements of study {} as columnar in {} ms",
+                    rows, studyId, System.currentTimeMillis() - start);
+            return rows;
+        }
+        long rows = 0;
+        try (RowWriter writer = format == Format.CSV
+                ? new CsvRowWriter(outputStream)
+                : new NdjsonRowWriter(objectMapper.getFactory().createGenerator(outputStream, JsonEncoding.UTF8))) {
+            for (ImportJob.Domain domain : domains) {
+                rows += switch (domain) {
+                    case DM -> write(writer, domain, DM_COLUMNS,
+                            patientRepository.streamByStudyId(studyId), this::demographics);
+                    case AE -> write(writer, domain, AE_COLUMNS,
+                            adverseEventRepository.streamByStudyIdWithPatient(studyId), this::adverseEvent);
+                    case VS -> write(writer, domain, VS_COLUMNS,
+                            efficacyMeasurementRepository.streamByStudyIdWithPatient(studyId), this::vitalSign);
+                };
+            }
+        }
+        log.info("Exported {} rows of study {} ({}, {}) in {} ms",
+                rows, studyId, domains, format, System.currentTimeMillis() - start);
+        return rows;
+    }
+
+    private <T> long write(RowWriter writer, ImportJob.Domain domain, List<String> columns,
+                           Stream<T> source, Function<T, Object[]> mapper) throws IOException {
+        writer.begin(domain, columns);
+        long written = 0;
+        try (source) {
+            for (T entity : (Iterable<T>) source::iterator) {
+                writer.row(domain, columns, mapper.apply(entity));
+                if (++written % CLEAR_INTERVAL == 0) {
+                    // Rows already written are of no further use; drop them and their fetched patients
+                    entityManager.clear();
+                }
+            }
+        }
+        entityManager.clear();
+        return written;
+    }
+
+    private long exportColumnar(Long studyId, OutputStream outputStream) throws IOException {
+        long written = 0;
+        try (MeasurementColumnarWriter writer = new MeasurementColumnarWriter(outputStream);
+             Stream<EfficacyMeasurement> measurements = efficacyMeasurementRepository.streamByStudyIdWithPatient(studyId)) {
+            for (EfficacyMeasurement measurement : (Iterable<EfficacyMeasurement>) measurements::iterator) {
+                writer.write(measurement);
+                if (++written % CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+            writer.finish();
+        }
+        entityManager.clear();
+        return written;
+    }
+
+    private Object[] demographics(Patient patient) {
+        return new Object[] {
+                patient.getPatientCode(),
+                patient.getAge(),
+                sex(patient.getGender()),
+                patient.getWeight(),
+                patient.getHeight(),
+                patient.getEnrollmentDate(),
+                patient.getCompletionDate(),
+                patient.getStatus()
+        };
+    }
+
+    private Object[] adverseEvent(AdverseEvent adverseEvent) {
+        return new Object[] {
+                adverseEvent.getPatient().getPatientCode(),
+                adverseEvent.getId(),
+                adverseEvent.getEventTerm(),
+                adverseEvent.getSeverity(),
+                Boolean.TRUE.equals(adverseEvent.getSerious()) ? "Y" : "N",
+                adverseEvent.getCausality(),
+                adverseEvent.getOutcome(),
+                adverseEvent.getOnsetDate(),
+                adverseEvent.getResolutionDate(),
+                adverseEvent.getDescription()
+        };
+    }
+
+    private Object[] vitalSign(EfficacyMeasurement measurement) {
+        return new Object[] {
+                measurement.getPatient().getPatientCode(),
+                measurement.getId(),
+                measurement.getMeasurementType(),
+                measurement.getMeasurementValue(),
+                measurement.getUnit(),
+                measurement.getMeasurementDate(),
+                measurement.getStudyDay(),
+                measurement.getNormalRangeLow(),
+                measurement.getNormalRangeHigh(),
+                measurement.getStatus()
+        };
+    }
+
+    private String sex(Patient.Gender gender) {
+        if (gender == null) {
+            return null;
+        }
+        return switch (gender) {
+            case MALE -> "M";
+            case FEMALE -> "F";
+            case OTHER -> "U";
+        };
+    }
+
+    private interface RowWriter extends AutoCloseable {
+
+        void begin(ImportJob.Domain domain, List<String> columns) throws IOException;
+
+        void row(ImportJob.Domain domain, List<String> columns, Object[] values) throws IOException;
+
+        @Override
+        void close() throws IOException;
+    }
+
+    // RFC 4180: fields with delimiters, quotes or line breaks are quoted and quotes doubled
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream outputStream) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void begin(ImportJob.Domain domain, List<String> columns) throws IOException {
+            writeLine(columns.toArray());
+        }
+
+        @Override
+        public void row(ImportJob.Domain domain, List<String> columns, Object[] values) throws IOException {
+            writeLine(values);
+        }
+
+        private void writeLine(Object[] values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                if (values[i] != null) {
+                    writeField(values[i] instanceof BigDecimal decimal
+                            ? decimal.toPlainString() : values[i].toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.flush();
+        }
+    }
+
+    // One JSON object per line, tagged with its domain so several domains can share a stream
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void begin(ImportJob.Domain domain, List<String> columns) {
+        }
+
+        @Override
+        public void row(ImportJob.Domain domain, List<String> columns, Object[] values) throws IOException {
+            generator.writeStartObject();
+            generator.writeStringField("DOMAIN", domain.name());
+            for (int i = 0; i < values.length; i++) {
+                Object value = values[i];
+                if (value == null) {
+                    generator.writeNullField(columns.get(i));
+                } else if (value instanceof BigDecimal decimal) {
+                    generator.writeNumberField(columns.get(i), decimal);
+                } else if (value instanceof Integer number) {
+                    generator.writeNumberField(columns.get(i), number);
+                } else if (value instanceof Long number) {
+                    generator.writeNumberField(columns.get(i), number);
+                } else {
+                    generator.writeStringField(columns.get(i), value.toString());
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Flushes without closing the response stream
+            generator.flush();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.preclinical.platform.preclinicaldataplatform.service;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
@@ -19,6 +20,7 @@ import com.preclinical.platform.preclinicaldataplatform.dto.UpdateStudyRequest;
 import com.preclinical.platform.preclinicaldataplatform.entity.AdverseEvent;
 import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
 import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.event.AdverseEventRecordedEvent;
 import com.preclinical.platform.preclinicaldataplatform.event.PatientEnrolledEvent;
 import com.preclinical.platform.preclinicaldataplatform.event.PatientStatusChangedEvent;
 import com.preclinical.platform.preclinicaldataplatform.event.PatientUpdatedEvent;
@@ -43,15 +45,21 @@ public class StudyManagementService {
     private final PatientRepository patientRepository;
     private final AdverseEventRepository adverseEventRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final SafetyAggregateService safetyAggregateService;
+    private final EnrollmentBucketService enrollmentBucketService;
     
     public StudyManagementService(StudyRepository studyRepository, 
                                 PatientRepository patientRepository,
                                 AdverseEventRepository adverseEventRepository,
-                                ApplicationEventPublisher eventPublisher) {
+                                ApplicationEventPublisher eventPublisher,
+                                SafetyAggregateService safetyAggregateService,
+                                EnrollmentBucketService enrollmentBucketService) {
         this.studyRepository = studyRepository;
         this.patientRepository = patientRepository;
         this.adverseEventRepository = adverseEventRepository;
         this.eventPublisher = eventPublisher;
+        this.safetyAggregateService = safetyAggregateService;
+        this.enrollmentBucketService = enrollmentBucketService;
     }
     
     @Cacheable(value = "studies", key = "#id")
@@ -73,6 +81,7 @@ public class StudyManagementService {
                 .build();
         
         Study savedStudy = studyRepository.save(study);
+        safetyAggregateService.initialize(savedStudy.getId());
         eventPublisher.publishEvent(new StudyCreatedEvent(savedStudy));
         return savedStudy;
     }
@@ -97,6 +106,7 @@ public class StudyManagementService {
                 .build();
         
         Patient savedPatient = patientRepository.save(patient);
+        enrollmentBucketService.recordEnrollment(savedPatient);
         eventPublisher.publishEvent(new PatientEnrolledEvent(savedPatient));
         return savedPatient;
     }
@@ -118,6 +128,8 @@ public class StudyManagementService {
                 .build();
         
         AdverseEvent savedEvent = adverseEventRepository.save(adverseEvent);
+        safetyAggregateService.recordAdverseEvent(savedEvent);
+        eventPublisher.publishEvent(new AdverseEventRecordedEvent(savedEvent));
         
         // Check for serious adverse event alert
         if (savedEvent.getSerious()) {
@@ -132,24 +144,36 @@ public class StudyManagementService {
         return studyRepository.findByStatus(Study.StudyStatus.ACTIVE);
     }
     
+    @Cacheable(value = "studyStatistics", key = "#studyId")
     public StudyStatisticsReport generateStudyStatistics(Long studyId) {
         Study study = getStudyById(studyId);
         
         long totalPatients = patientRepository.countByStudyId(studyId);
         long completedPatients = patientRepository.countCompletedPatientsByStudy(studyId);
-        List<AdverseEvent> adverseEvents = adverseEventRepository.findByStudyId(studyId);
+        
+        // Event totals come from the safety aggregate; count queries cover studies without one
+        Optional<SafetyEventCounts> safetyCounts = safetyAggregateService.findCounts(studyId);
+        long totalAdverseEvents = safetyCounts.map(SafetyEventCounts::getTotalEvents)
+                .orElseGet(() -> adverseEventRepository.countByStudyId(studyId));
+        long seriousAdverseEvents = safetyCounts.map(SafetyEventCounts::getSeriousEvents)
+                .orElseGet(() -> adverseEventRepository.countByStudyIdAndSeriousTrue(studyId));
         
         return StudyStatisticsReport.builder()
                 .studyId(studyId)
                 .studyCode(study.getStudyCode())
                 .totalPatients(totalPatients)
                 .completedPatients(completedPatients)
-                .totalAdverseEvents((long)adverseEvents.size())
-                .seriousAdverseEvents((long)adverseEvents.stream()
-                        .mapToInt(ae -> ae.getSerious() ? 1 : 0).sum())
+                .totalAdverseEvents(totalAdverseEvents)
+                .seriousAdverseEvents(seriousAdverseEvents)
                 .build();
     }
     
+    // Replaces the cached entry in one put; the self-call skips the @Cacheable lookup
+    @CachePut(value = "studyStatistics", key = "#studyId")
+    public StudyStatisticsReport refreshStudyStatistics(Long studyId) {
+        return generateStudyStatistics(studyId);
+    }
+    
  // Add these methods to your StudyManagementService class
 
     @Cacheable(value = "patients", key = "#id")
@@ -189,8 +213,13 @@ public class StudyManagementService {
         if (request.getMedicalHistory() != null) {
             patient.setMedicalHistory(request.getMedicalHistory());
         }
+        LocalDate previousEnrollmentDate = patient.getEnrollmentDate();
+        if (request.getEnrollmentDate() != null) {
+            patient.setEnrollmentDate(request.getEnrollmentDate());
+        }
         
         Patient updatedPatient = patientRepository.save(patient);
+        enrollmentBucketService.recordEnrollmentDateChange(updatedPatient, previousEnrollmentDate);
         eventPublisher.publishEvent(new PatientUpdatedEvent(updatedPatient));
         
         return updatedPatient;
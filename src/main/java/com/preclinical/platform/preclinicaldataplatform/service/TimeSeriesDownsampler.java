@@ -0,0 +1,78 @@
+package com.preclinical.platform.preclinicaldataplatform.service;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling (Steinarsson, 2013). The first
+ * and last points are always kept; every bucket in between contributes the
+ * point that forms the largest triangle with the previously kept point and
+ * the average of the next bucket, which keeps peaks and troughs that plain
+ * averaging or striding would flatten.
+ */
+public final class TimeSeriesDownsampler {
+
+    private TimeSeriesDownsampler() {
+    }
+
+    /**
+     * Indices of the points to keep, in ascending order. {@code x} must be
+     * sorted ascending. Returns every index when {@code size <= threshold}.
+     */
+    public static int[] lttb(double[] x, double[] y, int size, int threshold) {
+        if (size <= threshold) {
+            int[] all = new int[size];
+            for (int i = 0; i < size; i++) {
+                all[i] = i;
+            }
+            return all;
+        }
+        if (threshold < 3) {
+            throw new IllegalArgumentException("Downsampling threshold must be at least 3");
+        }
+
+        int[] selected = new int[threshold];
+        int count = 0;
+        selected[count++] = 0;
+
+        // First and last points sit in their own buckets
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int previous = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, size);
+            double avgX = 0.0;
+            double avgY = 0.0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            if (nextCount > 0) {
+                avgX /= nextCount;
+                avgY /= nextCount;
+            } else {
+                avgX = x[size - 1];
+                avgY = y[size - 1];
+            }
+
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double pointX = x[previous];
+            double pointY = y[previous];
+            double maxArea = -1.0;
+            int chosen = start;
+            for (int i = start; i < end; i++) {
+                // Twice the triangle area; the factor does not change the argmax
+                double area = Math.abs((pointX - avgX) * (y[i] - pointY) - (pointX - x[i]) * (avgY - pointY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+            selected[count++] = chosen;
+            previous = chosen;
+        }
+
+        selected[count] = size - 1;
+        return selected;
+    }
+}
@@ -0,0 +1,36 @@
+-- Moves surrogate keys from IDENTITY columns to the pooled sequences the
+-- entities now use (@SequenceGenerator, allocationSize = 50).
+--
+-- Only needed for a database that was created before the switch; the default
+-- in-memory H2 schema is recreated by ddl-auto on every start. Run it once
+-- against a file-based H2 database with the application stopped, e.g.
+--   RUNSCRIPT FROM 'classpath:db/migration/h2/identity-to-pooled-sequences.sql'
+--
+-- The sequence increment has to equal allocationSize. With the pooled
+-- optimizer a sequence value v hands out ids v-49..v, so every sequence is
+-- restarted 50 past the current maximum id to keep new blocks clear of
+-- existing rows.
+--
+-- H2 syntax; db/migration/postgresql holds the same migration for PostgreSQL.
+
+CREATE SEQUENCE IF NOT EXISTS studies_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE studies_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM studies);
+
+CREATE SEQUENCE IF NOT EXISTS patients_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE patients_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM patients);
+
+CREATE SEQUENCE IF NOT EXISTS adverse_events_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE adverse_events_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM adverse_events);
+
+CREATE SEQUENCE IF NOT EXISTS efficacy_measurements_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE efficacy_measurements_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM efficacy_measurements);
+
+CREATE SEQUENCE IF NOT EXISTS enrollment_buckets_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE enrollment_buckets_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM enrollment_buckets);
+
+-- Ids are now always supplied by Hibernate
+ALTER TABLE studies ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE patients ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE adverse_events ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE efficacy_measurements ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE enrollment_buckets ALTER COLUMN id DROP IDENTITY;
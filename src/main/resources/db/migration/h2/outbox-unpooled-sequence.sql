@@ -0,0 +1,16 @@
+-- Switches outbox_events_seq from pooled blocks of 50 to one id per call
+-- (OutboxEvent's @SequenceGenerator, allocationSize = 1), so outbox ids
+-- follow insert order across nodes.
+--
+-- Only needed for a database that was created before the switch; the default
+-- in-memory H2 schema is recreated by ddl-auto on every start. Run it once
+-- against a file-based H2 database with every node stopped, e.g.
+--   RUNSCRIPT FROM 'classpath:db/migration/h2/outbox-unpooled-sequence.sql'
+--
+-- No node holds a preallocated block while stopped, so the sequence can
+-- continue right after the current maximum id.
+--
+-- H2 syntax; db/migration/postgresql holds the same migration for PostgreSQL.
+
+ALTER SEQUENCE outbox_events_seq INCREMENT BY 1;
+ALTER SEQUENCE outbox_events_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM outbox_events);
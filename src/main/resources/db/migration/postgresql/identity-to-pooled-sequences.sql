@@ -0,0 +1,33 @@
+-- PostgreSQL version of db/migration/h2/identity-to-pooled-sequences.sql:
+-- moves surrogate keys from IDENTITY columns to the pooled sequences the
+-- entities now use (@SequenceGenerator, allocationSize = 50).
+--
+-- Run it once with the application stopped, e.g.
+--   psql -v ON_ERROR_STOP=1 -1 -f identity-to-pooled-sequences.sql
+--
+-- The sequence increment has to equal allocationSize. With the pooled
+-- optimizer a sequence value v hands out ids v-49..v, so the first value of
+-- every sequence is set 50 past the current maximum id (setval with
+-- is_called = false) to keep new blocks clear of existing rows.
+
+CREATE SEQUENCE IF NOT EXISTS studies_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('studies_seq', (SELECT COALESCE(MAX(id), 0) + 51 FROM studies), false);
+
+CREATE SEQUENCE IF NOT EXISTS patients_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('patients_seq', (SELECT COALESCE(MAX(id), 0) + 51 FROM patients), false);
+
+CREATE SEQUENCE IF NOT EXISTS adverse_events_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('adverse_events_seq', (SELECT COALESCE(MAX(id), 0) + 51 FROM adverse_events), false);
+
+CREATE SEQUENCE IF NOT EXISTS efficacy_measurements_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('efficacy_measurements_seq', (SELECT COALESCE(MAX(id), 0) + 51 FROM efficacy_measurements), false);
+
+CREATE SEQUENCE IF NOT EXISTS enrollment_buckets_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('enrollment_buckets_seq', (SELECT COALESCE(MAX(id), 0) + 51 FROM enrollment_buckets), false);
+
+-- Ids are now always supplied by Hibernate
+ALTER TABLE studies ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE patients ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE adverse_events ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE efficacy_measurements ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE enrollment_buckets ALTER COLUMN id DROP IDENTITY IF EXISTS;
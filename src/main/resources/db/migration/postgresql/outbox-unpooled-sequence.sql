@@ -0,0 +1,10 @@
+-- PostgreSQL version of db/migration/h2/outbox-unpooled-sequence.sql:
+-- switches outbox_events_seq from pooled blocks of 50 to one id per call
+-- (OutboxEvent's @SequenceGenerator, allocationSize = 1), so outbox ids
+-- follow insert order across nodes.
+--
+-- Run it once with every node stopped, e.g.
+--   psql -v ON_ERROR_STOP=1 -1 -f outbox-unpooled-sequence.sql
+
+ALTER SEQUENCE outbox_events_seq INCREMENT BY 1;
+SELECT setval('outbox_events_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM outbox_events), false);
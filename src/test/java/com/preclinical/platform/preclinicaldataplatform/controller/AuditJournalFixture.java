@@ -0,0 +1,63 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.service.AuditJournal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Journals on a temporary directory with 1 KiB segments, so a few dozen
+ * records rotate several times. Every journal a test opens is closed after
+ * it, including ones it reopens to simulate a restart.
+ */
+abstract class AuditJournalFixture {
+
+    @TempDir
+    Path journalDirectory;
+
+    @TempDir
+    Path anchorDirectory;
+
+    private final List<ExecutorService> writers = new ArrayList<>();
+    private final List<AuditJournal> journals = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        journals.forEach(AuditJournal::close);
+        writers.forEach(ExecutorService::shutdownNow);
+    }
+
+    AuditJournal openJournal() {
+        PreclinicalPlatformProperties properties = new PreclinicalPlatformProperties();
+        properties.getAudit().setJournalDirectory(journalDirectory.toString());
+        properties.getAudit().setAnchorFile(anchorDirectory.resolve("checkpoint.anchor").toString());
+        properties.getAudit().setSegmentMaxBytes(1024);
+        configure(properties.getAudit());
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        AuditJournal journal = new AuditJournal(writer, new SimpleMeterRegistry(), properties);
+        writers.add(writer);
+        journals.add(journal);
+        return journal;
+    }
+
+    // Further settings for the journals of one test class
+    void configure(PreclinicalPlatformProperties.Audit audit) {
+    }
+
+    List<Path> segmentFiles() throws Exception {
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            return files.filter(path -> path.toString().endsWith(".seg")).sorted().toList();
+        }
+    }
+}
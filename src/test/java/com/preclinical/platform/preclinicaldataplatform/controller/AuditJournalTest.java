@@ -0,0 +1,110 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditRecord;
+import com.preclinical.platform.preclinicaldataplatform.service.AuditJournal;
+
+class AuditJournalTest extends AuditJournalFixture {
+
+    @Test
+    void shouldReadHistoryByStudyAndPatientAcrossRotatedSegments() throws Exception {
+        // Given
+        AuditJournal journal = openJournal();
+        for (long i = 1; i <= 60; i++) {
+            journal.append(record(i % 3, i % 2 == 0 ? 100 + i % 4 : null, "entry " + i));
+        }
+
+        // When
+        List<AuditRecord> study = journal.readStudy(1L, 0, 1000);
+        List<AuditRecord> patient = journal.readPatient(102L, 0, 1000);
+        List<AuditRecord> page = journal.readStudy(1L, study.get(4).getSequence(), 3);
+
+        // Then
+        assertThat(study).hasSize(20).allMatch(record -> record.getStudyId() == 1L);
+        assertThat(study).extracting(AuditRecord::getSequence).isSorted();
+        assertThat(patient).hasSize(15).allMatch(record -> record.getPatientId() == 102L);
+        assertThat(page).extracting(AuditRecord::getSequence)
+                .containsExactly(study.get(5).getSequence(), study.get(6).getSequence(), study.get(7).getSequence());
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+    }
+
+    @Test
+    void shouldCutTornTailAndContinueSequenceAfterRestart() throws Exception {
+        // Given
+        AuditJournal journal = openJournal();
+        for (long i = 1; i <= 10; i++) {
+            journal.append(record(7L, null, "entry " + i));
+        }
+        journal.close();
+        Path last = segmentFiles().get(segmentFiles().size() - 1);
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 2);
+        }
+
+        // When
+        AuditJournal reopened = openJournal();
+        long sequence = reopened.append(record(7L, null, "after restart"));
+
+        // Then
+        List<AuditRecord> history = reopened.readStudy(7L, 0, 100);
+        assertThat(history).hasSize(10);
+        assertThat(sequence).isEqualTo(10L);
+        assertThat(history.get(9).getDetail()).isEqualTo("after restart");
+    }
+
+    @Test
+    void shouldFindEntriesByOutboxEventAcrossSealedSegmentsAfterRestart() throws Exception {
+        // Given
+        AuditJournal journal = openJournal();
+        for (long i = 1; i <= 60; i++) {
+            AuditRecord record = record(1L, 100 + i % 4, "entry " + i);
+            record.setOutboxEventId(1000 + i / 2);
+            journal.append(record);
+        }
+        journal.close();
+
+        // When
+        AuditJournal reopened = openJournal();
+        List<AuditRecord> early = reopened.readOutboxEvent(1001L);
+        List<AuditRecord> late = reopened.readOutboxEvent(1030L);
+        List<AuditRecord> unknown = reopened.readOutboxEvent(999L);
+
+        // Then
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+        assertThat(early).extracting(AuditRecord::getDetail).containsExactly("entry 2", "entry 3");
+        assertThat(late).extracting(AuditRecord::getDetail).containsExactly("entry 60");
+        assertThat(unknown).isEmpty();
+    }
+
+    @Test
+    void shouldRefuseSecondJournalOnLockedDirectory() {
+        // Given
+        openJournal();
+
+        // When & Then
+        assertThatThrownBy(this::openJournal)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("in use");
+    }
+
+    private static AuditRecord record(Long studyId, Long patientId, String detail) {
+        return AuditRecord.builder()
+                .recordedAt(LocalDateTime.now())
+                .action(AuditRecord.Action.PATIENT_UPDATED)
+                .studyId(studyId)
+                .patientId(patientId)
+                .entityId(patientId)
+                .detail(detail)
+                .build();
+    }
+}
@@ -0,0 +1,147 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditRecord;
+import com.preclinical.platform.preclinicaldataplatform.dto.AuditVerificationReport;
+import com.preclinical.platform.preclinicaldataplatform.service.AuditJournal;
+import com.preclinical.platform.preclinicaldataplatform.service.AuditVerifier;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AuditVerifierTest extends AuditJournalFixture {
+
+    // Segment header: magic, version and the 32-byte chain anchor
+    private static final int SEGMENT_HEADER_BYTES = 40;
+
+    private final ForkJoinPool verificationPool = new ForkJoinPool(2);
+
+    @AfterEach
+    void stopVerificationPool() {
+        verificationPool.shutdown();
+    }
+
+    @Test
+    void shouldVerifyOnlyNewSegmentsIncrementally() {
+        // Given
+        AuditJournal journal = openJournal();
+        AuditVerifier verifier = new AuditVerifier(journal, verificationPool, new SimpleMeterRegistry());
+        appendRecords(journal, 200);
+        AuditVerificationReport full = verifier.verify(AuditVerificationReport.Mode.FULL);
+        appendRecords(journal, 10);
+
+        // When
+        AuditVerificationReport incremental = verifier.verify(AuditVerificationReport.Mode.INCREMENTAL);
+
+        // Then
+        assertThat(full.isValid()).isTrue();
+        assertThat(full.getSegmentsVerified()).isGreaterThan(1);
+        assertThat(incremental.isValid()).isTrue();
+        assertThat(incremental.getSegmentsVerified()).isLessThan(full.getSegmentsVerified());
+        assertThat(incremental.getLastVerifiedSequence()).isGreaterThan(full.getLastVerifiedSequence());
+    }
+
+    @Test
+    void shouldDetectRecordRewrittenWithValidChecksum() throws Exception {
+        // Given
+        AuditJournal journal = openJournal();
+        appendRecords(journal, 60);
+        journal.close();
+        Path segment = segmentFiles().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        int length = ByteBuffer.wrap(bytes).getInt(SEGMENT_HEADER_BYTES);
+        bytes[SEGMENT_HEADER_BYTES + 8 + length - 1] ^= 1;
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, SEGMENT_HEADER_BYTES + 8, length);
+        ByteBuffer.wrap(bytes).putInt(SEGMENT_HEADER_BYTES + 4, (int) crc.getValue());
+        Files.write(segment, bytes);
+
+        // When
+        AuditJournal reopened = openJournal();
+        AuditVerificationReport report = new AuditVerifier(reopened, verificationPool, new SimpleMeterRegistry())
+                .verify(AuditVerificationReport.Mode.FULL);
+
+        // Then
+        assertThat(report.isValid()).isFalse();
+        assertThat(report.getFailures()).anyMatch(failure -> failure.contains(segment.getFileName().toString()));
+    }
+
+    @Test
+    void shouldRebuildMissingIndexOnRestartAndStillVerify() throws Exception {
+        // Given
+        AuditJournal journal = openJournal();
+        appendRecords(journal, 60);
+        journal.close();
+        Path segment = segmentFiles().get(0);
+        Files.delete(journalDirectory.resolve(segment.getFileName().toString().replace(".seg", ".idx")));
+
+        // When
+        AuditJournal reopened = openJournal();
+        AuditVerificationReport report = new AuditVerifier(reopened, verificationPool, new SimpleMeterRegistry())
+                .verify(AuditVerificationReport.Mode.FULL);
+
+        // Then
+        assertThat(report.getFailures()).isEmpty();
+        assertThat(report.isValid()).isTrue();
+        assertThat(reopened.readStudy(1L, 0, 1000)).hasSize(60);
+    }
+
+    @Test
+    void shouldNotResealRewrittenSegmentsWhenCheckpointLogIsReplaced() throws Exception {
+        // Given
+        AuditJournal journal = openJournal();
+        appendRecords(journal, 60);
+        journal.close();
+        Path segment = segmentFiles().get(0);
+        byte[] bytes = Files.readAllBytes(segment);
+        int length = ByteBuffer.wrap(bytes).getInt(SEGMENT_HEADER_BYTES);
+        bytes[SEGMENT_HEADER_BYTES + 8 + length - 1] ^= 1;
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, SEGMENT_HEADER_BYTES + 8, length);
+        ByteBuffer.wrap(bytes).putInt(SEGMENT_HEADER_BYTES + 4, (int) crc.getValue());
+        Files.write(segment, bytes);
+        Files.delete(journalDirectory.resolve("checkpoints.log"));
+
+        // When
+        AuditJournal reopened = openJournal();
+        AuditVerificationReport report = new AuditVerifier(reopened, verificationPool, new SimpleMeterRegistry())
+                .verify(AuditVerificationReport.Mode.FULL);
+
+        // Then
+        assertThat(report.isValid()).isFalse();
+        assertThat(report.getFailures())
+                .anyMatch(failure -> failure.contains("without a sealing checkpoint"))
+                .anyMatch(failure -> failure.contains("anchor"));
+    }
+
+    // Checkpoints every few records, so each segment has several to verify against
+    @Override
+    void configure(PreclinicalPlatformProperties.Audit audit) {
+        audit.setCheckpointInterval(5);
+    }
+
+    private static void appendRecords(AuditJournal journal, int count) {
+        for (int i = 0; i < count; i++) {
+            journal.append(AuditRecord.builder()
+                    .recordedAt(LocalDateTime.now())
+                    .action(AuditRecord.Action.MEASUREMENT_RECORDED)
+                    .studyId(1L)
+                    .patientId((long) i % 5)
+                    .entityId((long) i)
+                    .detail("entry " + i)
+                    .build());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkMeasurementResult;
+import com.preclinical.platform.preclinicaldataplatform.dto.BulkMeasurementRow;
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.entity.Study;
+import com.preclinical.platform.preclinicaldataplatform.repository.PatientRepository;
+import com.preclinical.platform.preclinicaldataplatform.repository.StudyRepository;
+import com.preclinical.platform.preclinicaldataplatform.service.BulkMeasurementService;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Timed run of the bulk measurement path. Timings depend on the machine and
+ * are only logged; the assertion is on JDBC statements, which pooled
+ * sequences and hibernate.jdbc.batch_size=50 bring down from two per row
+ * (sequence call and insert) to about one per 50 rows of each.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@Slf4j
+class BulkMeasurementBatchingTest {
+
+    private static final int ROWS = 10_000;
+
+    @Autowired
+    private BulkMeasurementService bulkMeasurementService;
+
+    @Autowired
+    private StudyRepository studyRepository;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void shouldInsertMeasurementsInJdbcBatches() {
+        // Given
+        Study study = studyRepository.save(Study.builder()
+                .studyCode("BATCH-001")
+                .title("Batching Study")
+                .phase(Study.StudyPhase.PRECLINICAL)
+                .status(Study.StudyStatus.ACTIVE)
+                .startDate(LocalDate.now())
+                .build());
+        Patient patient = patientRepository.save(Patient.builder()
+                .patientCode("BATCH-P-001")
+                .age(40)
+                .gender(Patient.Gender.FEMALE)
+                .enrollmentDate(LocalDate.now())
+                .status(Patient.PatientStatus.ENROLLED)
+                .study(study)
+                .build());
+
+        List<BulkMeasurementRow> rows = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            rows.add(BulkMeasurementRow.builder()
+                    .patientId(patient.getId())
+                    .measurementDate(LocalDate.now())
+                    .studyDay(i % 365 + 1)
+                    .measurementType(EfficacyMeasurement.MeasurementType.BLOOD_PRESSURE_SYSTOLIC)
+                    .value(BigDecimal.valueOf(100 + i % 60))
+                    .unit("mmHg")
+                    .build());
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        // When
+        long start = System.nanoTime();
+        BulkMeasurementResult result = bulkMeasurementService.recordMeasurements(rows);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then
+        assertThat(result.getInserted()).isEqualTo(ROWS);
+        assertThat(result.getFailed()).isZero();
+        log.info("Inserted {} measurements in {} ms ({} rows/s) with {} JDBC statements",
+                ROWS, elapsedMillis, ROWS * 1000L / Math.max(1, elapsedMillis), statistics.getPrepareStatementCount());
+        // 200 insert batches and 200 sequence calls, plus per-transaction overhead; unbatched this is 20,000
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(ROWS / 10);
+    }
+}
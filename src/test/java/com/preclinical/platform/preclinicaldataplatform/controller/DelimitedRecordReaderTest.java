@@ -0,0 +1,81 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import org.junit.jupiter.api.Test;
+
+import com.preclinical.platform.preclinicaldataplatform.service.DelimitedRecordReader;
+
+class DelimitedRecordReaderTest {
+    
+    @Test
+    void shouldReadQuotedFieldsAcrossLines() throws IOException {
+        // Given
+        String csv = "USUBJID,AETERM,AESEV\r\n"
+                + "S-001,\"Headache, mild \"\"frontal\"\"\",MILD\r\n"
+                + "S-002,\"Nausea\nafter dosing\",MODERATE\r\n";
+        
+        // When
+        try (DelimitedRecordReader reader = new DelimitedRecordReader(new StringReader(csv))) {
+            DelimitedRecordReader.Record first = reader.next();
+            DelimitedRecordReader.Record second = reader.next();
+            
+            // Then
+            assertThat(first.get("aeterm")).isEqualTo("Headache, mild \"frontal\"");
+            assertThat(first.get("AESEV")).isEqualTo("MILD");
+            assertThat(second.get("AETERM")).isEqualTo("Nausea\nafter dosing");
+            assertThat(second.getNumber()).isEqualTo(2);
+            assertThat(reader.next()).isNull();
+        }
+    }
+    
+    @Test
+    void shouldResumeAfterSkippedRecordsInTabSeparatedFile() throws IOException {
+        // Given
+        String tsv = "USUBJID\tAGE\tSEX\n"
+                + "S-001\t34\tM\n"
+                + "\n"
+                + "S-002\t41\tF\n"
+                + "S-003\t\tF\n";
+        
+        // When
+        try (DelimitedRecordReader reader = new DelimitedRecordReader(new StringReader(tsv))) {
+            long skipped = reader.skip(3);
+            DelimitedRecordReader.Record record = reader.next();
+            
+            // Then
+            assertThat(skipped).isEqualTo(3);
+            assertThat(record.getNumber()).isEqualTo(4);
+            assertThat(record.get("USUBJID")).isEqualTo("S-003");
+            assertThat(record.get("AGE")).isNull();
+            assertThat(record.get("WEIGHT")).isNull();
+        }
+    }
+    
+    @Test
+    void shouldReadHeaderLongerThanReadBuffer() throws IOException {
+        // Given
+        StringBuilder header = new StringBuilder("USUBJID");
+        StringBuilder row = new StringBuilder("S-001");
+        for (int i = 0; i < 10_000; i++) {
+            header.append(",SUPPQUAL_").append(i);
+            row.append(",").append(i);
+        }
+        String csv = header + ",AGE\n" + row + ",52\n";
+        
+        // When
+        try (DelimitedRecordReader reader = new DelimitedRecordReader(new StringReader(csv))) {
+            DelimitedRecordReader.Record record = reader.next();
+            
+            // Then
+            assertThat(header.length()).isGreaterThan(64 * 1024);
+            assertThat(record.get("USUBJID")).isEqualTo("S-001");
+            assertThat(record.get("SUPPQUAL_9999")).isEqualTo("9999");
+            assertThat(record.get("AGE")).isEqualTo("52");
+            assertThat(reader.next()).isNull();
+        }
+    }
+}
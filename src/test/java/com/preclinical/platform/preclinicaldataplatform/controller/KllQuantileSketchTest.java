@@ -0,0 +1,65 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.preclinical.platform.preclinicaldataplatform.service.KllQuantileSketch;
+
+class KllQuantileSketchTest {
+    
+    @Test
+    void shouldEstimateQuantilesWithinRankErrorBound() {
+        // Given
+        KllQuantileSketch sketch = new KllQuantileSketch();
+        Random random = new Random(42);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextGaussian() * 15 + 120;
+            sketch.update(values[i]);
+        }
+        Arrays.sort(values);
+        
+        // When
+        double median = sketch.getQuantile(0.5);
+        double p95 = sketch.getQuantile(0.95);
+        
+        // Then
+        double tolerance = 2 * sketch.getNormalizedRankError();
+        assertThat(rankOf(values, median)).isCloseTo(0.5, within(tolerance));
+        assertThat(rankOf(values, p95)).isCloseTo(0.95, within(tolerance));
+        assertThat(sketch.getCount()).isEqualTo(100_000);
+        assertThat(sketch.getMin()).isEqualTo(values[0]);
+        assertThat(sketch.getMax()).isEqualTo(values[values.length - 1]);
+    }
+    
+    @Test
+    void shouldMergeSketchesFromSeveralStudies() {
+        // Given
+        KllQuantileSketch first = new KllQuantileSketch();
+        KllQuantileSketch second = new KllQuantileSketch();
+        for (int i = 0; i < 50_000; i++) {
+            first.update(i);
+            second.update(50_000 + i);
+        }
+        
+        // When
+        KllQuantileSketch merged = first.copy().merge(second);
+        
+        // Then
+        assertThat(merged.getCount()).isEqualTo(100_000);
+        assertThat(merged.getQuantile(0.5)).isCloseTo(50_000, within(100_000 * 2 * merged.getNormalizedRankError()));
+        assertThat(merged.getMin()).isEqualTo(0);
+        assertThat(merged.getMax()).isEqualTo(99_999);
+        assertThat(Arrays.stream(merged.getHistogram(10)).sum()).isEqualTo(100_000);
+    }
+    
+    private double rankOf(double[] sorted, double value) {
+        int index = Arrays.binarySearch(sorted, value);
+        return (double) (index >= 0 ? index : -index - 1) / sorted.length;
+    }
+}
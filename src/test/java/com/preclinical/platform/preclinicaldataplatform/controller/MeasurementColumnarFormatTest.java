@@ -0,0 +1,141 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.EfficacyMeasurement;
+import com.preclinical.platform.preclinicaldataplatform.entity.Patient;
+import com.preclinical.platform.preclinicaldataplatform.service.MeasurementColumnarReader;
+import com.preclinical.platform.preclinicaldataplatform.service.MeasurementColumnarWriter;
+
+class MeasurementColumnarFormatTest {
+    
+    @Test
+    void shouldRoundTripMeasurementsAcrossRowGroups() throws IOException {
+        // Given
+        int rows = 2_500;
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (MeasurementColumnarWriter writer = new MeasurementColumnarWriter(output, 1_000)) {
+            for (int i = 0; i < rows; i++) {
+                writer.write(measurement(i));
+            }
+            writer.finish();
+        }
+        
+        // When
+        int read = 0;
+        try (MeasurementColumnarReader reader = new MeasurementColumnarReader(
+                new ByteArrayInputStream(output.toByteArray()))) {
+            MeasurementColumnarReader.RowGroup group;
+            while ((group = reader.next()) != null) {
+                assertThat(group.size()).isLessThanOrEqualTo(1_000);
+                for (int k = 0; k < group.size(); k++, read++) {
+                    // Then
+                    EfficacyMeasurement expected = measurement(read);
+                    assertThat(group.ids()[k]).isEqualTo(expected.getId());
+                    assertThat(group.patientCodes()[k]).isEqualTo(expected.getPatient().getPatientCode());
+                    assertThat(group.measurementTypes()[k]).isEqualTo(expected.getMeasurementType().name());
+                    assertThat(group.units()[k]).isEqualTo(expected.getUnit());
+                    assertThat(group.measurementDates()[k]).isEqualTo((int) expected.getMeasurementDate().toEpochDay());
+                    assertThat(group.studyDays()[k]).isEqualTo(expected.getStudyDay());
+                    assertThat(group.normalRangeHighs()[k]).isNaN();
+                    if (expected.getMeasurementValue() == null) {
+                        assertThat(group.values()[k]).isNaN();
+                    } else {
+                        assertThat(group.values()[k]).isEqualTo(expected.getMeasurementValue().doubleValue());
+                    }
+                }
+            }
+            assertThat(reader.getRowsRead()).isEqualTo(rows);
+        }
+        assertThat(read).isEqualTo(rows);
+    }
+    
+    @Test
+    void shouldRejectTruncatedFile() throws IOException {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (MeasurementColumnarWriter writer = new MeasurementColumnarWriter(output, 100)) {
+            for (int i = 0; i < 250; i++) {
+                writer.write(measurement(i));
+            }
+            writer.finish();
+        }
+        byte[] bytes = output.toByteArray();
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 10);
+        
+        // When / Then
+        assertThatThrownBy(() -> {
+            try (MeasurementColumnarReader reader = new MeasurementColumnarReader(new ByteArrayInputStream(truncated))) {
+                while (reader.next() != null) {
+                    // drain
+                }
+            }
+        }).isInstanceOf(IOException.class);
+    }
+    
+    @Test
+    void shouldLeaveFileIncompleteWhenRowSourceFails() {
+        // Given
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Iterator<EfficacyMeasurement> source = IntStream.range(0, 5_000)
+                .mapToObj(i -> {
+                    if (i == 4_200) {
+                        throw new IllegalStateException("Connection lost");
+                    }
+                    return measurement(i);
+                })
+                .iterator();
+        
+        // When
+        assertThatThrownBy(() -> {
+            try (MeasurementColumnarWriter writer = new MeasurementColumnarWriter(output, 1_000)) {
+                while (source.hasNext()) {
+                    writer.write(source.next());
+                }
+                writer.finish();
+            }
+        }).isInstanceOf(IllegalStateException.class);
+        
+        // Then
+        byte[] bytes = output.toByteArray();
+        assertThatThrownBy(() -> {
+            try (MeasurementColumnarReader reader = new MeasurementColumnarReader(new ByteArrayInputStream(bytes))) {
+                while (reader.next() != null) {
+                    // drain
+                }
+            }
+        }).isInstanceOf(IOException.class);
+    }
+    
+    private EfficacyMeasurement measurement(int i) {
+        Patient patient = Patient.builder()
+                .id((long) (i / 25))
+                .patientCode("SUBJ-" + (i / 25))
+                .build();
+        return EfficacyMeasurement.builder()
+                .id(10_000L + i * 3L)
+                .patient(patient)
+                .measurementType(i % 2 == 0
+                        ? EfficacyMeasurement.MeasurementType.HEART_RATE
+                        : EfficacyMeasurement.MeasurementType.WEIGHT)
+                .measurementValue(i % 97 == 0 ? null : BigDecimal.valueOf(60_000 + i, 3))
+                .unit(i % 5 == 0 ? null : "bpm")
+                .measurementDate(LocalDate.of(2024, 1, 1).plusDays(i % 300))
+                .studyDay(i % 300 + 1)
+                .normalRangeLow(new BigDecimal("50"))
+                .status(EfficacyMeasurement.MeasurementStatus.RECORDED)
+                .build();
+    }
+}
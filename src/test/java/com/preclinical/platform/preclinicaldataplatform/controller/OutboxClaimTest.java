@@ -0,0 +1,106 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.OutboxEvent;
+import com.preclinical.platform.preclinicaldataplatform.repository.OutboxEventRepository;
+
+@DataJpaTest
+class OutboxClaimTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Test
+    void shouldClaimPastStudyWaitingForRetry() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        // Study 1's oldest event failed and is backing off; its later events are due but must wait
+        persist(1L, now.plusMinutes(5), null);
+        for (int i = 0; i < 5; i++) {
+            persist(1L, now.minusSeconds(1), null);
+        }
+        List<Long> study2 = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            study2.add(persist(2L, now.minusSeconds(1), null).getId());
+        }
+
+        // When
+        List<Long> claimable = outboxEventRepository.findClaimableIds(OutboxEvent.Status.PENDING, now,
+                LocalDateTime.now(), PageRequest.of(0, 3));
+
+        // Then
+        assertThat(claimable).containsExactlyElementsOf(study2);
+    }
+
+    @Test
+    void shouldSkipStudyWhoseHeadIsClaimedByAnotherRelay() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        persist(1L, now.minusSeconds(1), now.plusMinutes(1));
+        persist(1L, now.minusSeconds(1), null);
+        OutboxEvent unordered = persist(null, now.minusSeconds(1), null);
+        OutboxEvent study2Head = persist(2L, now.minusSeconds(1), null);
+        OutboxEvent study2Next = persist(2L, now.minusSeconds(1), null);
+
+        // When
+        List<Long> claimable = outboxEventRepository.findClaimableIds(OutboxEvent.Status.PENDING, now,
+                LocalDateTime.now(), PageRequest.of(0, 10));
+
+        // Then
+        assertThat(claimable).containsExactly(unordered.getId(), study2Head.getId(), study2Next.getId());
+    }
+
+    @Test
+    void shouldNotClaimRowsWrittenWithinSettleWindow() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime settledBefore = now.minusSeconds(5);
+        OutboxEvent settled = persist(2L, now.minusSeconds(1), null);
+        setCreatedAt(settled, settledBefore.minusSeconds(1));
+        setCreatedAt(persist(2L, now.minusSeconds(1), null), settledBefore.plusSeconds(1));
+        // Study 1's head is too recent, so its older-stamped successor has to wait as well
+        setCreatedAt(persist(1L, now.minusSeconds(1), null), settledBefore.plusSeconds(1));
+        setCreatedAt(persist(1L, now.minusSeconds(1), null), settledBefore.minusSeconds(1));
+
+        // When
+        List<Long> claimable = outboxEventRepository.findClaimableIds(OutboxEvent.Status.PENDING, now,
+                settledBefore, PageRequest.of(0, 10));
+
+        // Then
+        assertThat(claimable).containsExactly(settled.getId());
+    }
+
+    // createdAt is stamped on insert, so a test that needs another time sets it afterwards
+    private void setCreatedAt(OutboxEvent event, LocalDateTime createdAt) {
+        entityManager.getEntityManager()
+                .createQuery("UPDATE OutboxEvent e SET e.createdAt = :createdAt WHERE e.id = :id")
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", event.getId())
+                .executeUpdate();
+    }
+
+    private OutboxEvent persist(Long studyId, LocalDateTime availableAt, LocalDateTime claimedUntil) {
+        return entityManager.persistAndFlush(OutboxEvent.builder()
+                .studyId(studyId)
+                .eventType("PatientUpdatedEvent")
+                .payload("{}")
+                .availableAt(availableAt)
+                .claimToken(claimedUntil != null ? "other-relay" : null)
+                .claimedUntil(claimedUntil)
+                .build());
+    }
+}
@@ -0,0 +1,47 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import com.preclinical.platform.preclinicaldataplatform.entity.RelayLease;
+import com.preclinical.platform.preclinicaldataplatform.repository.RelayLeaseRepository;
+
+@DataJpaTest
+class RelayLeaseTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private RelayLeaseRepository relayLeaseRepository;
+
+    @Test
+    void shouldOnlyHandLeaseToAnotherNodeOnceItHasExpired() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        entityManager.persistAndFlush(RelayLease.builder()
+                .name("outbox-relay")
+                .owner("node-a")
+                .leasedUntil(now.plusMinutes(1))
+                .build());
+
+        // When
+        int takenWhileHeld = relayLeaseRepository.acquire("outbox-relay", "node-b", now.plusMinutes(1), now);
+        int extendedByHolder = relayLeaseRepository.acquire("outbox-relay", "node-a", now.plusMinutes(2), now);
+        int takenAfterExpiry = relayLeaseRepository.acquire("outbox-relay", "node-b", now.plusMinutes(4),
+                now.plusMinutes(3));
+
+        // Then
+        assertThat(takenWhileHeld).isZero();
+        assertThat(extendedByHolder).isEqualTo(1);
+        assertThat(takenAfterExpiry).isEqualTo(1);
+        entityManager.clear();
+        assertThat(entityManager.find(RelayLease.class, "outbox-relay").getOwner()).isEqualTo("node-b");
+    }
+}
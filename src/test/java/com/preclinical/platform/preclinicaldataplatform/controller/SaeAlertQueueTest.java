@@ -0,0 +1,161 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.service.SaeAlertQueue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class SaeAlertQueueTest {
+
+    @TempDir
+    Path spillDirectory;
+
+    private final ExecutorService workers = Executors.newSingleThreadExecutor();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Long> dispatched = new CopyOnWriteArrayList<>();
+    private SaeAlertQueue queue;
+
+    @AfterEach
+    void stopWorkers() {
+        queue.stop();
+        workers.shutdownNow();
+    }
+
+    @Test
+    void shouldDispatchEarliestDeadlineFirstAcrossSpilledItems() throws InterruptedException {
+        // Given
+        queue = newQueue(2);
+        Instant now = Instant.now();
+        queue.offer(List.of(3L), "claim", now.plusSeconds(300));
+        queue.offer(List.of(1L), "claim", now.plusSeconds(100));
+        queue.offer(List.of(2L), "claim", now.plusSeconds(200));
+        queue.offer(List.of(4L), "claim", now.plusSeconds(400));
+        queue.offer(List.of(5L), "claim", now.plusSeconds(500));
+        assertThat(queue.size()).isEqualTo(5);
+
+        // When
+        queue.start(item -> dispatched.addAll(item.outboxIds()));
+        awaitDispatched(5);
+
+        // Then
+        assertThat(dispatched).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertThat(meterRegistry.counter("preclinical.sae.queue.deadline.misses").count()).isZero();
+        assertThat(queue.queuedClaimTokens()).isEmpty();
+    }
+
+    @Test
+    void shouldCountAlertsDispatchedAfterTheirDeadline() throws InterruptedException {
+        // Given
+        queue = newQueue(10);
+        queue.offer(List.of(1L), "claim", Instant.now().minusSeconds(60));
+
+        // When
+        queue.start(item -> dispatched.addAll(item.outboxIds()));
+        awaitDispatched(1);
+
+        // Then
+        assertThat(meterRegistry.counter("preclinical.sae.queue.deadline.misses").count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldSpillToItsOwnFileAndDeleteItOnStop() throws IOException {
+        // Given
+        queue = newQueue(1);
+        SaeAlertQueue other = newQueue(1);
+        Instant now = Instant.now();
+        for (SaeAlertQueue each : List.of(queue, other)) {
+            each.offer(List.of(1L), "claim", now.plusSeconds(100));
+            each.offer(List.of(2L), "claim", now.plusSeconds(200));
+        }
+        assertThat(spillFiles()).hasSize(2);
+
+        // When
+        other.stop();
+
+        // Then
+        assertThat(spillFiles()).hasSize(1);
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldKeepAlertQueuedInMemoryWhenSpillFails() throws IOException, InterruptedException {
+        // Given
+        queue = newQueue(1);
+        Path spillFile = spillFiles().get(0);
+        // A directory in place of the spill file makes every append fail
+        Files.delete(spillFile);
+        Files.createDirectory(spillFile);
+
+        // When
+        queue.offer(List.of(1L), "first", Instant.now().plusSeconds(100));
+        queue.offer(List.of(2L), "second", Instant.now().plusSeconds(200));
+
+        // Then
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.queuedClaimTokens()).containsExactlyInAnyOrder("first", "second");
+        queue.start(item -> dispatched.addAll(item.outboxIds()));
+        awaitDispatched(2);
+        assertThat(dispatched).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void shouldKeepWorkingAfterSpillFileCannotBeRead() throws IOException, InterruptedException {
+        // Given
+        queue = newQueue(1);
+        Instant now = Instant.now();
+        queue.offer(List.of(1L), "claim", now.plusSeconds(100));
+        queue.offer(List.of(2L), "claim", now.plusSeconds(200));
+        Path spillFile = spillFiles().get(0);
+        Path moved = Files.move(spillFile, spillDirectory.resolve("unreadable.moved"));
+        Files.createDirectory(spillFile);
+
+        // When
+        queue.start(item -> dispatched.addAll(item.outboxIds()));
+        awaitDispatched(1);
+        Thread.sleep(200);
+        Files.delete(spillFile);
+        Files.move(moved, spillFile);
+        awaitDispatched(2);
+
+        // Then
+        assertThat(dispatched).containsExactly(1L, 2L);
+    }
+
+    private List<Path> spillFiles() throws IOException {
+        try (Stream<Path> files = Files.list(spillDirectory)) {
+            return files.toList();
+        }
+    }
+
+    private SaeAlertQueue newQueue(int memoryCapacity) {
+        PreclinicalPlatformProperties properties = new PreclinicalPlatformProperties();
+        properties.getAdverseEvent().setSaeQueueWorkers(1);
+        properties.getAdverseEvent().setSaeQueueMemoryCapacity(memoryCapacity);
+        properties.getAdverseEvent().setSaeQueueSpillDirectory(spillDirectory.toString());
+        return new SaeAlertQueue(workers, meterRegistry, properties);
+    }
+
+    private void awaitDispatched(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dispatched.size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import org.junit.jupiter.api.Test;
+
+import com.preclinical.platform.preclinicaldataplatform.service.LinearTrend;
+import com.preclinical.platform.preclinicaldataplatform.service.TimeSeriesDownsampler;
+
+class TimeSeriesDownsamplerTest {
+    
+    @Test
+    void shouldKeepEndpointsAndPeaksWhenDownsampling() {
+        // Given
+        int size = 10_000;
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = i;
+            y[i] = Math.sin(i / 500.0) * 10;
+        }
+        y[4_321] = 100.0;
+        
+        // When
+        int[] selected = TimeSeriesDownsampler.lttb(x, y, size, 200);
+        
+        // Then
+        assertThat(selected).hasSize(200);
+        assertThat(selected[0]).isEqualTo(0);
+        assertThat(selected[selected.length - 1]).isEqualTo(size - 1);
+        assertThat(selected).contains(4_321);
+        for (int i = 1; i < selected.length; i++) {
+            assertThat(selected[i]).isGreaterThan(selected[i - 1]);
+        }
+    }
+    
+    @Test
+    void shouldReturnAllPointsWhenSeriesIsShorterThanThreshold() {
+        // Given
+        double[] x = {1, 2, 3};
+        double[] y = {5, 6, 7};
+        
+        // When
+        int[] selected = TimeSeriesDownsampler.lttb(x, y, 3, 100);
+        
+        // Then
+        assertThat(selected).containsExactly(0, 1, 2);
+    }
+    
+    @Test
+    void shouldFitLeastSquaresLine() {
+        // Given
+        double[] x = {1, 2, 3, 4, 5};
+        double[] y = {1_000_002.0, 1_000_004.1, 1_000_005.9, 1_000_008.0, 1_000_010.0};
+        
+        // When
+        LinearTrend trend = LinearTrend.fit(x, y, x.length);
+        
+        // Then
+        assertThat(trend.slope()).isCloseTo(1.99, within(1e-9));
+        assertThat(trend.intercept()).isCloseTo(1_000_000.03, within(1e-6));
+        assertThat(trend.rSquared()).isGreaterThan(0.99);
+    }
+}
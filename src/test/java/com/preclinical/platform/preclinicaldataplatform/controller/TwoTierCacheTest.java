@@ -0,0 +1,81 @@
+package com.preclinical.platform.preclinicaldataplatform.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import com.preclinical.platform.preclinicaldataplatform.configuration.InProcessRemoteCacheStore;
+import com.preclinical.platform.preclinicaldataplatform.configuration.PreclinicalPlatformProperties;
+import com.preclinical.platform.preclinicaldataplatform.configuration.TwoTierCache;
+import com.preclinical.platform.preclinicaldataplatform.configuration.TwoTierCacheManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TwoTierCacheTest {
+
+    private final InProcessRemoteCacheStore remote = new InProcessRemoteCacheStore();
+    private final PreclinicalPlatformProperties.Cache properties = new PreclinicalPlatformProperties.Cache();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TwoTierCacheManager nodeA = new TwoTierCacheManager(remote, properties, meterRegistry);
+    private final TwoTierCacheManager nodeB = new TwoTierCacheManager(remote, properties, new SimpleMeterRegistry());
+
+    @Test
+    void shouldShareEntriesAndInvalidateOtherNodesOnUpdate() {
+        // Given
+        Cache cacheA = nodeA.getCache("safetyReports");
+        Cache cacheB = nodeB.getCache("safetyReports");
+        cacheA.put(1L, "report v1");
+        assertThat(cacheB.get(1L, String.class)).isEqualTo("report v1");
+
+        // When
+        cacheA.put(1L, "report v2");
+
+        // Then
+        assertThat(cacheB.get(1L, String.class)).isEqualTo("report v2");
+
+        // When
+        cacheB.evict(1L);
+
+        // Then
+        assertThat(cacheA.get(1L)).isNull();
+        assertThat(cacheB.get(1L)).isNull();
+    }
+
+    @Test
+    void shouldEvictOneStudyByPrefixOnEveryNode() {
+        // Given
+        TwoTierCache cacheA = (TwoTierCache) nodeA.getCache("efficacyAnalysis");
+        Cache cacheB = nodeB.getCache("efficacyAnalysis");
+        cacheA.put("7_WEIGHT_null_null_null_null", "study 7 weight");
+        cacheA.put("7_HR_null_null_null_null", "study 7 heart rate");
+        cacheA.put("70_WEIGHT_null_null_null_null", "study 70 weight");
+        assertThat(cacheB.get("7_WEIGHT_null_null_null_null", String.class)).isEqualTo("study 7 weight");
+
+        // When
+        cacheA.evictByPrefix("7_");
+
+        // Then
+        assertThat(cacheB.get("7_WEIGHT_null_null_null_null")).isNull();
+        assertThat(cacheA.get("7_HR_null_null_null_null")).isNull();
+        assertThat(cacheB.get("70_WEIGHT_null_null_null_null", String.class)).isEqualTo("study 70 weight");
+    }
+
+    @Test
+    void shouldRegisterConfiguredCachesWithLocalTierMetrics() {
+        // Given
+        Cache cache = nodeA.getCache("studies");
+        cache.put(1L, "study 1");
+
+        // When
+        cache.get(1L);
+        cache.get(2L);
+
+        // Then
+        assertThat(nodeA.getCacheNames()).containsAll(properties.getSpecs().keySet());
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "studies").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cache.size").tag("cache", "safetyReports")
+                .tag("cache.manager", "twoTierCacheManager").gauge().value()).isZero();
+    }
+}